@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.jmh;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ServerSocketFactory;
+import javax.net.SocketFactory;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A loopback TCP relay which delays what it forwards in both directions by half a round-trip time, to benchmark transfers as if over a slower network.
+ * <p>
+ * The client is pointed at the relay through its socket factories rather than by rewriting the addresses in PASV replies and PORT commands, so that the
+ * relay also works when the control connection is encrypted: {@link #getSocketFactory()} relays the connections a client opens, and
+ * {@link #getServerSocketFactory()} creates listeners which report the port of a relay in front of them, for active mode. Each direction buffers up to
+ * {@value #WINDOW_SIZE} bytes in flight, as a TCP window would.
+ * </p>
+ */
+final class DelayingProxy implements Closeable {
+
+    /** A chunk of data and when to forward it; an empty chunk forwards the end of the stream. */
+    private static final class Chunk {
+
+        final long dueNanos;
+        final byte[] data;
+
+        Chunk(final long dueNanos, final byte[] data) {
+            this.dueNanos = dueNanos;
+            this.data = data;
+        }
+    }
+
+    /** A listener behind a relay, which reports the port of the relay. */
+    private final class RelayedServerSocket extends ServerSocket {
+
+        private final int relayPort;
+
+        RelayedServerSocket(final int port, final int backlog, final InetAddress bindAddr) throws IOException {
+            super(port, backlog, bindAddr);
+            relayPort = relay(new InetSocketAddress(super.getInetAddress(), super.getLocalPort())).getPort();
+        }
+
+        @Override
+        public int getLocalPort() {
+            return relayPort;
+        }
+    }
+
+    /** A socket which connects through a relay. */
+    private final class RelayedSocket extends Socket {
+
+        @Override
+        public void connect(final SocketAddress endpoint, final int timeout) throws IOException {
+            super.connect(relay((InetSocketAddress) endpoint), timeout);
+        }
+    }
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private final long delayNanos;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "commons-net-delaying-proxy");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Closeable> open = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param roundTrip The round-trip time added to the connections relayed.
+     */
+    DelayingProxy(final Duration roundTrip) {
+        this.delayNanos = roundTrip.toNanos() / 2;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        open.forEach(IOUtils::closeQuietly);
+    }
+
+    private void forward(final Socket from, final Socket to) throws Exception {
+        final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(WINDOW_SIZE / CHUNK_SIZE);
+        final Future<?> writer = executor.submit(() -> {
+            final OutputStream output = to.getOutputStream();
+            while (true) {
+                final Chunk chunk = queue.take();
+                final long wait = chunk.dueNanos - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                if (chunk.data.length == 0) {
+                    to.shutdownOutput();
+                    return null;
+                }
+                output.write(chunk.data);
+            }
+        });
+        final InputStream input = from.getInputStream();
+        final byte[] buffer = new byte[CHUNK_SIZE];
+        int n;
+        while ((n = input.read(buffer)) != -1) {
+            queue.put(new Chunk(System.nanoTime() + delayNanos, Arrays.copyOf(buffer, n)));
+        }
+        queue.put(new Chunk(System.nanoTime() + delayNanos, new byte[0]));
+        writer.get();
+    }
+
+    /**
+     * Gets a factory of listeners which are connected to through a relay.
+     *
+     * @return The server socket factory.
+     */
+    ServerSocketFactory getServerSocketFactory() {
+        return new ServerSocketFactory() {
+
+            @Override
+            public ServerSocket createServerSocket(final int port) throws IOException {
+                return new RelayedServerSocket(port, 50, null);
+            }
+
+            @Override
+            public ServerSocket createServerSocket(final int port, final int backlog) throws IOException {
+                return new RelayedServerSocket(port, backlog, null);
+            }
+
+            @Override
+            public ServerSocket createServerSocket(final int port, final int backlog, final InetAddress ifAddress) throws IOException {
+                return new RelayedServerSocket(port, backlog, ifAddress);
+            }
+        };
+    }
+
+    /**
+     * Gets a factory of sockets which connect through a relay.
+     *
+     * @return The socket factory.
+     */
+    SocketFactory getSocketFactory() {
+        return new SocketFactory() {
+
+            @Override
+            public Socket createSocket() {
+                return new RelayedSocket();
+            }
+
+            @Override
+            public Socket createSocket(final InetAddress host, final int port) throws IOException {
+                final Socket socket = new RelayedSocket();
+                socket.connect(new InetSocketAddress(host, port));
+                return socket;
+            }
+
+            @Override
+            public Socket createSocket(final InetAddress address, final int port, final InetAddress localAddress, final int localPort) throws IOException {
+                final Socket socket = new RelayedSocket();
+                socket.bind(new InetSocketAddress(localAddress, localPort));
+                socket.connect(new InetSocketAddress(address, port));
+                return socket;
+            }
+
+            @Override
+            public Socket createSocket(final String host, final int port) throws IOException {
+                return createSocket(InetAddress.getByName(host), port);
+            }
+
+            @Override
+            public Socket createSocket(final String host, final int port, final InetAddress localHost, final int localPort) throws IOException {
+                return createSocket(InetAddress.getByName(host), port, localHost, localPort);
+            }
+        };
+    }
+
+    /**
+     * Opens a loopback listener which relays its first connection to a target.
+     *
+     * @param target The address to relay to.
+     * @return The address of the listener.
+     * @throws IOException if the listener cannot be opened.
+     */
+    InetSocketAddress relay(final InetSocketAddress target) throws IOException {
+        final ServerSocket listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        open.add(listener);
+        executor.execute(() -> {
+            try (ServerSocket server = listener;
+                    Socket client = server.accept();
+                    Socket upstream = new Socket(target.getAddress(), target.getPort())) {
+                open.add(client);
+                open.add(upstream);
+                server.close();
+                client.setTcpNoDelay(true);
+                upstream.setTcpNoDelay(true);
+                try {
+                    final Future<?> request = executor.submit(() -> {
+                        forward(client, upstream);
+                        return null;
+                    });
+                    forward(upstream, client);
+                    request.get();
+                } finally {
+                    open.remove(client);
+                    open.remove(upstream);
+                }
+            } catch (final Exception e) {
+                // the connection was reset or the proxy closed
+            } finally {
+                open.remove(listener);
+            }
+        });
+        return new InetSocketAddress(listener.getInetAddress(), listener.getLocalPort());
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.jmh;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.net.ftp.parser.FTPTimestampParserImpl;
+import org.apache.commons.net.ftp.parser.MLSxEntryParser;
+import org.apache.commons.net.ftp.parser.MVSFTPEntryParser;
+import org.apache.commons.net.ftp.parser.NTFTPEntryParser;
+import org.apache.commons.net.ftp.parser.UnixFTPEntryParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the parsing of single listing entries and timestamps.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FTPEntryParserBenchmark {
+
+    private static final String[] MLSX = { "type=file;size=12345;modify=20240115103000;perm=r;unique=801U1A; report.txt",
+            "type=dir;modify=20231201093015.123;perm=flcdmpe; archive", "type=file;size=987654321;modify=20240301235959;UNIX.mode=0644; data.bin" };
+
+    private static final String[] MVS = { "SAVE00 3390   2004/06/23  1    1  FB     128  6144  PS    INCOMING.RPTBM023.D061704",
+            "PSMLC1 3390   2005/04/04  1    1  VB   27994 27998  PS    file3.I",
+            "FPFS49 3390   2004/06/23  1    1  FB     128  6144  PO-E  INCOMING.RPTBM026.D061704" };
+
+    private static final String[] NT = { "05-18-15  03:48PM               12345 report.txt", "01-22-98  01:52PM       <DIR>          archive",
+            "12-31-23  11:59AM            987654321 data.bin" };
+
+    private static final String[] TIMESTAMPS = { "Jan 15 10:30", "Dec  1  2020", "Jul  4 23:59" };
+
+    private static final String[] UNIX = { "-rw-r--r--   1 user     group       12345 Jan 15 10:30 report.txt",
+            "drwxr-xr-x   2 user     group        4096 Dec  1  2020 archive", "lrwxrwxrwx   1 root     root           7 Jul  4 23:59 link -> target" };
+
+    private MLSxEntryParser mlsxParser;
+    private MVSFTPEntryParser mvsParser;
+    private NTFTPEntryParser ntParser;
+    private FTPTimestampParserImpl timestampParser;
+    private UnixFTPEntryParser unixParser;
+
+    @Benchmark
+    public void mlsx(final Blackhole blackhole) {
+        for (final String entry : MLSX) {
+            blackhole.consume(mlsxParser.parseFTPEntry(entry));
+        }
+    }
+
+    @Benchmark
+    public void mvs(final Blackhole blackhole) {
+        for (final String entry : MVS) {
+            blackhole.consume(mvsParser.parseFTPEntry(entry));
+        }
+    }
+
+    @Benchmark
+    public void nt(final Blackhole blackhole) {
+        for (final String entry : NT) {
+            blackhole.consume(ntParser.parseFTPEntry(entry));
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        mlsxParser = MLSxEntryParser.getInstance();
+        mvsParser = new MVSFTPEntryParser();
+        // the header line selects the data set listing format
+        mvsParser.preParse(new ArrayList<>(Arrays.asList("Volume Unit    Referred Ext Used Recfm Lrecl BlkSz Dsorg Dsname")));
+        ntParser = new NTFTPEntryParser();
+        timestampParser = new FTPTimestampParserImpl();
+        unixParser = new UnixFTPEntryParser();
+    }
+
+    @Benchmark
+    public void timestamp(final Blackhole blackhole) throws ParseException {
+        final Calendar serverTime = Calendar.getInstance();
+        for (final String timestamp : TIMESTAMPS) {
+            blackhole.consume(timestampParser.parseTimestamp(timestamp, serverTime));
+        }
+    }
+
+    @Benchmark
+    public void unix(final Blackhole blackhole) {
+        for (final String entry : UNIX) {
+            blackhole.consume(unixParser.parseFTPEntry(entry));
+        }
+    }
+}
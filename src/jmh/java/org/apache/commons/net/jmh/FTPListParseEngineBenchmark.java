@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPListParseEngine;
+import org.apache.commons.net.ftp.parser.UnixFTPEntryParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading and parsing a whole Unix listing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FTPListParseEngineBenchmark {
+
+    @Param({ "10000", "1000000" })
+    public int entries;
+
+    private byte[] listing;
+
+    @Benchmark
+    public FTPFile[] parse() throws IOException {
+        final FTPListParseEngine engine = new FTPListParseEngine(new UnixFTPEntryParser());
+        engine.readServerList(new ByteArrayInputStream(listing), StandardCharsets.UTF_8.name());
+        return engine.getFiles();
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(entries * 64);
+        out.write(("total " + entries + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < entries; i++) {
+            final String line = String.format("%srw-r--r--   1 user     group    %10d %s %2d %s file%07d.dat\r\n", i % 10 == 0 ? "d" : "-", i * 37L,
+                    i % 2 == 0 ? "Jan" : "Jul", 1 + i % 28, i % 3 == 0 ? " 2020" : "10:30", i);
+            out.write(line.getBytes(StandardCharsets.US_ASCII));
+        }
+        listing = out.toByteArray();
+    }
+}
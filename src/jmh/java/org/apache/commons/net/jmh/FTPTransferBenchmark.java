@@ -0,0 +1,325 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPSClient;
+import org.apache.commons.net.ftp.NoProtocolSslConfigurationProxy;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.Authority;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.UserManager;
+import org.apache.ftpserver.listener.Listener;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.ssl.SslConfigurationFactory;
+import org.apache.ftpserver.usermanager.Md5PasswordEncryptor;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks file transfers end to end, between {@link FTPClient} or {@link FTPSClient} and an embedded Apache FtpServer over loopback.
+ * <p>
+ * One operation transfers one file of the workload, {@code <count>x<size>}, so the score of {@link #retrieve(Megabytes)} and {@link #store(Megabytes)} is
+ * in files per second and their {@code megabytes} counter in MB/s, while {@link #retrieveLatency()} and {@link #storeLatency()} report the percentiles,
+ * such as p0.99, of the time per file. Setting {@code roundTripMillis} relays the connections through a {@link DelayingProxy}, to measure the effect of
+ * latency without a network. For example:
+ * </p>
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=FTPTransferBenchmark.retrieve -Dbenchmark.args="-p workload=100000x4096 -p roundTripMillis=0,20"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class FTPTransferBenchmark {
+
+    /**
+     * Counts the megabytes transferred, reported per second next to the files per second.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Megabytes {
+
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    /** Repeats lines of text up to a size, so that large files need neither memory nor disk on the client. */
+    private static final class TextInputStream extends InputStream {
+
+        private final byte[] text;
+        private final long size;
+        private long position;
+
+        TextInputStream(final byte[] text, final long size) {
+            this.text = text;
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            return position >= size ? -1 : text[(int) (position++ % text.length)];
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) {
+            if (position >= size) {
+                return -1;
+            }
+            final int start = (int) (position % text.length);
+            final int n = (int) Math.min(Math.min(length, text.length - start), size - position);
+            System.arraycopy(text, start, buffer, offset, n);
+            position += n;
+            return n;
+        }
+    }
+
+    private static final String KEYSTORE_RESOURCE = "/org/apache/commons/net/ftpsserver/ftpserver.jks";
+
+    private static final String PASSWORD = "test";
+
+    private static final String USER = "test";
+
+    /**
+     * Builds about 64 KiB of lines of text, ending in LF as on the local system of an ASCII transfer.
+     */
+    private static byte[] text() {
+        final StringBuilder text = new StringBuilder();
+        for (int line = 0; text.length() < 64 * 1024 - 64; line++) {
+            text.append(String.format("Line %06d of a file transferred by the benchmark\n", line));
+        }
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Param({ "ftp", "ftps" })
+    public String protocol;
+
+    @Param({ "passive", "active" })
+    public String connectionMode;
+
+    @Param({ "binary", "ascii" })
+    public String fileType;
+
+    @Param({ "stream", "deflate" })
+    public String transferMode;
+
+    @Param({ "1x1073741824", "100000x4096" })
+    public String workload;
+
+    @Param({ "0" })
+    public int roundTripMillis;
+
+    private FTPClient client;
+    private int count;
+    private File home;
+    private int next;
+    private DelayingProxy proxy;
+    private FtpServer server;
+    private long size;
+    private byte[] text;
+
+    private FTPClient connect(final int port) throws IOException {
+        final FTPClient ftp = protocol.equals("ftps") ? new FTPSClient() : new FTPClient();
+        if (proxy != null) {
+            ftp.setSocketFactory(proxy.getSocketFactory());
+            ftp.setServerSocketFactory(proxy.getServerSocketFactory());
+        }
+        ftp.connect(InetAddress.getLoopbackAddress(), port);
+        if (!ftp.login(USER, PASSWORD)) {
+            throw new IOException("Login failed: " + ftp.getReplyString());
+        }
+        if (ftp instanceof FTPSClient) {
+            ((FTPSClient) ftp).execPBSZ(0);
+            ((FTPSClient) ftp).execPROT("P");
+        }
+        if (!ftp.setFileType(fileType.equals("ascii") ? FTP.ASCII_FILE_TYPE : FTP.BINARY_FILE_TYPE)
+                || !ftp.setFileTransferMode(transferMode.equals("deflate") ? FTP.DEFLATE_TRANSFER_MODE : FTP.STREAM_TRANSFER_MODE)) {
+            throw new IOException("Transfer settings refused: " + ftp.getReplyString());
+        }
+        if (connectionMode.equals("active")) {
+            ftp.enterLocalActiveMode();
+        } else {
+            ftp.enterLocalPassiveMode();
+        }
+        return ftp;
+    }
+
+    private void createFiles() throws IOException {
+        for (int i = 0; i < count; i++) {
+            try (OutputStream out = Files.newOutputStream(new File(home, name(i)).toPath());
+                    InputStream in = new TextInputStream(text, size)) {
+                final byte[] buffer = new byte[text.length];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            }
+        }
+    }
+
+    private String name(final int index) {
+        return String.format("file%06d", index);
+    }
+
+    private int nextIndex() {
+        final int index = next;
+        next = (next + 1) % count;
+        return index;
+    }
+
+    @Benchmark
+    public void retrieve(final Megabytes megabytes) throws IOException {
+        retrieveFile();
+        megabytes.megabytes += size / 1_000_000d;
+    }
+
+    private void retrieveFile() throws IOException {
+        if (!client.retrieveFile(name(nextIndex()), NullOutputStream.INSTANCE)) {
+            throw new IOException("Retrieve failed: " + client.getReplyString());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void retrieveLatency() throws IOException {
+        retrieveFile();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final int x = workload.indexOf('x');
+        count = Integer.parseInt(workload.substring(0, x));
+        size = Long.parseLong(workload.substring(x + 1));
+        text = text();
+        home = Files.createTempDirectory("commons-net-benchmark").toFile();
+        createFiles();
+        final Listener listener = startServer();
+        if (roundTripMillis > 0) {
+            proxy = new DelayingProxy(Duration.ofMillis(roundTripMillis));
+        }
+        client = connect(listener.getPort());
+    }
+
+    private Listener startServer() throws FtpException {
+        final PropertiesUserManagerFactory userManagerFactory = new PropertiesUserManagerFactory();
+        userManagerFactory.setPasswordEncryptor(new Md5PasswordEncryptor());
+        final UserManager userManager = userManagerFactory.createUserManager();
+        final BaseUser user = new BaseUser();
+        user.setName(USER);
+        user.setPassword(PASSWORD);
+        final List<Authority> authorities = new ArrayList<>();
+        authorities.add(new WritePermission());
+        user.setAuthorities(authorities);
+        user.setHomeDirectory(home.getAbsolutePath());
+        userManager.save(user);
+        final ListenerFactory listenerFactory = new ListenerFactory();
+        // Automatically assign port.
+        listenerFactory.setPort(0);
+        if (protocol.equals("ftps")) {
+            final SslConfigurationFactory sslConfigurationFactory = new SslConfigurationFactory();
+            sslConfigurationFactory.setKeystoreFile(FileUtils.toFile(FTPTransferBenchmark.class.getResource(KEYSTORE_RESOURCE)));
+            sslConfigurationFactory.setKeystorePassword("password");
+            listenerFactory.setSslConfiguration(new NoProtocolSslConfigurationProxy(sslConfigurationFactory.createSslConfiguration()));
+            listenerFactory.setImplicitSsl(false);
+        }
+        final Listener listener = listenerFactory.createListener();
+        final FtpServerFactory serverFactory = new FtpServerFactory();
+        serverFactory.setUserManager(userManager);
+        serverFactory.addListener("default", listener);
+        server = serverFactory.createServer();
+        server.start();
+        return listener;
+    }
+
+    @Benchmark
+    public void store(final Megabytes megabytes) throws IOException {
+        storeFile();
+        megabytes.megabytes += size / 1_000_000d;
+    }
+
+    private void storeFile() throws IOException {
+        if (!client.storeFile("upload" + name(nextIndex()), new TextInputStream(text, size))) {
+            throw new IOException("Store failed: " + client.getReplyString());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void storeLatency() throws IOException {
+        storeFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try {
+            if (client != null && client.isConnected()) {
+                client.logout();
+                client.disconnect();
+            }
+        } finally {
+            if (proxy != null) {
+                proxy.close();
+            }
+            if (server != null) {
+                server.stop();
+            }
+            FileUtils.deleteDirectory(home);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.jmh;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullWriter;
+import org.apache.commons.net.io.CRLFLineReader;
+import org.apache.commons.net.io.DotTerminatedMessageReader;
+import org.apache.commons.net.io.DotTerminatedMessageWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the readers and writers of the line based protocols (SMTP, POP3, NNTP), over a message of about 1 MiB.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageStreamBenchmark {
+
+    private static final int SIZE = 1024 * 1024;
+
+    private final char[] buffer = new char[8192];
+    /** The message as sent on the wire: CRLF line endings, dot-stuffed, and terminated by a line with a single dot. */
+    private String wire;
+    /** The message as given to the writer. */
+    private String message;
+
+    @Benchmark
+    public int crlfLineReader() throws IOException {
+        int lines = 0;
+        try (BufferedReader reader = new CRLFLineReader(new StringReader(wire))) {
+            while (reader.readLine() != null) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public long dotTerminatedMessageReader() throws IOException {
+        try (Reader reader = new DotTerminatedMessageReader(new StringReader(wire))) {
+            return IOUtils.copyLarge(reader, NullWriter.INSTANCE, buffer);
+        }
+    }
+
+    @Benchmark
+    public long dotTerminatedMessageWriter() throws IOException {
+        try (Writer writer = new DotTerminatedMessageWriter(NullWriter.INSTANCE)) {
+            return IOUtils.copyLarge(new StringReader(message), writer, buffer);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        final StringBuilder builder = new StringBuilder(SIZE);
+        for (int line = 0; builder.length() < SIZE; line++) {
+            // every tenth line starts with a dot, which is doubled on the wire
+            builder.append(line % 10 == 0 ? "." : "").append("Line ").append(line).append(" of a message body of typical length\r\n");
+        }
+        message = builder.toString();
+        wire = message.replace("\r\n.", "\r\n..") + ".\r\n";
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.net.io.FromNetASCIIInputStream;
+import org.apache.commons.net.io.ToNetASCIIOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the NETASCII line ending conversion of ASCII transfers, over 1 MiB of text.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NetASCIIBenchmark {
+
+    private static final int SIZE = 1024 * 1024;
+
+    private final byte[] buffer = new byte[8192];
+    private byte[] local;
+    private byte[] netascii;
+
+    private long copy(final InputStream input, final OutputStream output) throws IOException {
+        return IOUtils.copyLarge(input, output, buffer);
+    }
+
+    @Benchmark
+    public long fromNetASCII() throws IOException {
+        try (InputStream input = new FromNetASCIIInputStream(new ByteArrayInputStream(netascii))) {
+            return copy(input, NullOutputStream.INSTANCE);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(SIZE);
+        for (int line = 0; out.size() < SIZE; line++) {
+            final byte[] text = ("Line " + line + " of a text file transferred in ASCII mode\n").getBytes(StandardCharsets.US_ASCII);
+            out.write(text, 0, text.length);
+        }
+        local = out.toByteArray();
+        netascii = new String(local, StandardCharsets.US_ASCII).replace("\n", "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public long toNetASCII() throws IOException {
+        try (OutputStream output = new ToNetASCIIOutputStream(NullOutputStream.INSTANCE)) {
+            return copy(new ByteArrayInputStream(local), output);
+        }
+    }
+}
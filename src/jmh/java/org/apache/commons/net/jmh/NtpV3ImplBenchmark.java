@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.jmh;
+
+import java.net.DatagramPacket;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.net.ntp.NtpV3Impl;
+import org.apache.commons.net.ntp.NtpV3Packet;
+import org.apache.commons.net.ntp.TimeStamp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the encoding of an NTP request and the decoding of an NTP reply with {@link NtpV3Impl}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NtpV3ImplBenchmark {
+
+    private DatagramPacket reply;
+    private final TimeStamp now = TimeStamp.getCurrentTime();
+
+    @Benchmark
+    public void decode(final Blackhole blackhole) {
+        final NtpV3Impl message = new NtpV3Impl();
+        message.setDatagramPacket(reply);
+        blackhole.consume(message.getLeapIndicator());
+        blackhole.consume(message.getVersion());
+        blackhole.consume(message.getMode());
+        blackhole.consume(message.getStratum());
+        blackhole.consume(message.getPoll());
+        blackhole.consume(message.getPrecision());
+        blackhole.consume(message.getRootDelay());
+        blackhole.consume(message.getRootDispersion());
+        blackhole.consume(message.getReferenceId());
+        blackhole.consume(message.getReferenceTimeStamp());
+        blackhole.consume(message.getOriginateTimeStamp());
+        blackhole.consume(message.getReceiveTimeStamp());
+        blackhole.consume(message.getTransmitTimeStamp());
+    }
+
+    @Benchmark
+    public DatagramPacket encode() {
+        final NtpV3Impl message = new NtpV3Impl();
+        message.setMode(NtpV3Packet.MODE_CLIENT);
+        message.setVersion(NtpV3Packet.VERSION_3);
+        message.setTransmitTime(now);
+        return message.getDatagramPacket();
+    }
+
+    @Setup
+    public void setUp() {
+        final NtpV3Impl message = new NtpV3Impl();
+        message.setMode(NtpV3Packet.MODE_SERVER);
+        message.setVersion(NtpV3Packet.VERSION_3);
+        message.setStratum(2);
+        message.setPoll(6);
+        message.setPrecision(-20);
+        message.setRootDelay(0x00000a3d);
+        message.setRootDispersion(0x000011ef);
+        message.setReferenceId(0xC0000201);
+        message.setReferenceTime(now);
+        message.setOriginateTimeStamp(now);
+        message.setReceiveTimeStamp(now);
+        message.setTransmitTime(now);
+        final DatagramPacket packet = message.getDatagramPacket();
+        reply = new DatagramPacket(packet.getData().clone(), packet.getLength());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.jmh;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.net.util.SubnetUtils;
+import org.apache.commons.net.util.SubnetUtils6;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the subnet membership tests of {@link SubnetUtils} and {@link SubnetUtils6}, for addresses inside and outside the subnet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubnetUtilsBenchmark {
+
+    private SubnetUtils.SubnetInfo info4;
+    private SubnetUtils6.SubnetInfo info6;
+    private Inet6Address inside6;
+    private Inet6Address outside6;
+
+    @Benchmark
+    public void isInRange4(final Blackhole blackhole) {
+        blackhole.consume(info4.isInRange("192.168.10.20"));
+        blackhole.consume(info4.isInRange("10.1.2.3"));
+    }
+
+    @Benchmark
+    public void isInRange4Int(final Blackhole blackhole) {
+        blackhole.consume(info4.isInRange(0xC0A80A14));
+        blackhole.consume(info4.isInRange(0x0A010203));
+    }
+
+    @Benchmark
+    public void isInRange6(final Blackhole blackhole) {
+        blackhole.consume(info6.isInRange("2001:db8:1234::1"));
+        blackhole.consume(info6.isInRange("2001:db9::1"));
+    }
+
+    @Benchmark
+    public void isInRange6Address(final Blackhole blackhole) {
+        blackhole.consume(info6.isInRange(inside6));
+        blackhole.consume(info6.isInRange(outside6));
+    }
+
+    @Setup
+    public void setUp() throws UnknownHostException {
+        info4 = new SubnetUtils("192.168.0.0/16").getInfo();
+        info6 = new SubnetUtils6("2001:db8::/32").getInfo();
+        inside6 = (Inet6Address) InetAddress.getByName("2001:db8:1234::1");
+        outside6 = (Inet6Address) InetAddress.getByName("2001:db9::1");
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.net.nntp.Article;
+import org.apache.commons.net.nntp.Threadable;
+import org.apache.commons.net.nntp.Threader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks threading a newsgroup overview with {@link Threader}: threads of replies to a few roots, some with missing parents and subject-only links.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreaderBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int articles;
+
+    private List<Article> messages;
+
+    /**
+     * Creates the articles before each call, as threading links them together.
+     */
+    @Setup(Level.Invocation)
+    public void setUp() {
+        messages = new ArrayList<>(articles);
+        for (int i = 0; i < articles; i++) {
+            final Article article = new Article();
+            article.setArticleNumber(i + 1L);
+            article.setArticleId("<" + i + "@example.com>");
+            final int thread = i % 50;
+            if (i < 50) {
+                article.setSubject("Topic " + thread);
+            } else {
+                article.setSubject("Re: Topic " + thread);
+                // replies reference the root and their parent, except every seventh whose references were lost
+                if (i % 7 != 0) {
+                    article.addReference("<" + thread + "@example.com> <" + (i - 50) + "@example.com>");
+                }
+            }
+            messages.add(article);
+        }
+    }
+
+    @Benchmark
+    public Threadable thread() {
+        return new Threader().thread(messages);
+    }
+}
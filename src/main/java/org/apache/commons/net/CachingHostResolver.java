@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.Security;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A thread-safe {@link HostResolver} which caches the addresses of a bounded number of host names for a time to live, and failed lookups for a shorter time.
+ * One instance is meant to be shared by many clients, see {@link #getDefault()}, so that short-lived connections to the same hosts do not each wait for the
+ * name service.
+ * <p>
+ * The time to live is not taken from the DNS records, which Java does not expose. The defaults are taken from the {@code networkaddress.cache.ttl} and
+ * {@code networkaddress.cache.negative.ttl} security properties, as used by the JVM's own cache, when they are set to non-negative values.
+ * </p>
+ *
+ * @since 3.14.0
+ */
+public class CachingHostResolver implements HostResolver {
+
+    private static final class DefaultHolder {
+        static final CachingHostResolver INSTANCE = new CachingHostResolver();
+    }
+
+    /** A cached lookup, which either resolved or failed. */
+    private static final class CacheEntry {
+
+        final InetAddress[] addresses;
+        final UnknownHostException failure;
+        final long expiresNanos;
+
+        CacheEntry(final InetAddress[] addresses, final UnknownHostException failure, final long expiresNanos) {
+            this.addresses = addresses;
+            this.failure = failure;
+            this.expiresNanos = expiresNanos;
+        }
+    }
+
+    /** The default maximum number of host names cached. */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /** The default time to live of resolved host names, if not set by the {@code networkaddress.cache.ttl} security property. */
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+
+    /** The default time to live of failed lookups, if not set by the {@code networkaddress.cache.negative.ttl} security property. */
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(10);
+
+    /**
+     * Gets the instance shared by all clients which use it.
+     *
+     * @return The shared instance, with the default settings.
+     */
+    public static CachingHostResolver getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private static Duration getSecurityTtl(final String name, final Duration defaultTtl) {
+        final String value = Security.getProperty(name);
+        if (value != null) {
+            try {
+                final int seconds = Integer.parseInt(value.trim());
+                if (seconds >= 0) {
+                    return Duration.ofSeconds(seconds);
+                }
+            } catch (final NumberFormatException e) {
+                // use the default
+            }
+        }
+        return defaultTtl;
+    }
+
+    private final HostResolver delegate;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final Map<String, CacheEntry> cache;
+
+    /**
+     * Constructs a new instance which caches {@link HostResolver#SYSTEM} with the default settings.
+     */
+    public CachingHostResolver() {
+        this(SYSTEM, DEFAULT_MAX_ENTRIES, getSecurityTtl("networkaddress.cache.ttl", DEFAULT_TTL),
+                getSecurityTtl("networkaddress.cache.negative.ttl", DEFAULT_NEGATIVE_TTL));
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param delegate    The resolver of the host names which are not cached.
+     * @param maxEntries  The maximum number of host names cached, the least recently used are evicted first.
+     * @param ttl         The time to live of resolved host names, zero to not cache them.
+     * @param negativeTtl The time to live of failed lookups, zero to not cache them.
+     */
+    public CachingHostResolver(final HostResolver delegate, final int maxEntries, final Duration ttl, final Duration negativeTtl) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Removes all cached host names.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private void put(final String key, final InetAddress[] addresses, final UnknownHostException failure, final long ttl) {
+        if (ttl > 0) {
+            synchronized (cache) {
+                cache.put(key, new CacheEntry(addresses, failure, System.nanoTime() + ttl));
+            }
+        }
+    }
+
+    @Override
+    public InetAddress[] resolve(final String host) throws UnknownHostException {
+        final String key = host == null ? "" : host.toLowerCase(Locale.ROOT);
+        final CacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+        if (entry != null && entry.expiresNanos - System.nanoTime() > 0) {
+            if (entry.failure != null) {
+                throw new UnknownHostException(entry.failure.getMessage());
+            }
+            return entry.addresses.clone();
+        }
+        final InetAddress[] addresses;
+        try {
+            addresses = delegate.resolve(host);
+        } catch (final UnknownHostException e) {
+            put(key, null, e, negativeTtlNanos);
+            throw e;
+        }
+        put(key, addresses.clone(), null, ttlNanos);
+        return addresses;
+    }
+
+    /**
+     * Gets the number of host names cached, including expired ones which were not evicted yet.
+     *
+     * @return The number of host names cached.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -64,6 +64,9 @@ public abstract class DatagramSocketClient implements AutoCloseable {
     /** The datagram socket's DatagramSocketFactory. */
     protected DatagramSocketFactory _socketFactory_ = DEFAULT_SOCKET_FACTORY;
 
+    /** Resolves host names to send to. */
+    private HostResolver hostResolver = HostResolver.SYSTEM;
+
     /**
      * Constructs a new instance. Initializes _socket_ to null, _timeout_ to 0, and _isOpen_ to false.
      */
@@ -138,6 +141,16 @@ public abstract class DatagramSocketClient implements AutoCloseable {
         return Duration.ofMillis(_timeout_);
     }
 
+    /**
+     * Gets the resolver of host names.
+     *
+     * @return The resolver, {@link HostResolver#SYSTEM} by default.
+     * @since 3.14.0
+     */
+    public HostResolver getHostResolver() {
+        return hostResolver;
+    }
+
     /**
      * Gets the local address to which the client's socket is bound. If you call this method when the client socket is not open, a NullPointerException is
      * thrown.
@@ -263,6 +276,17 @@ public abstract class DatagramSocketClient implements AutoCloseable {
         }
     }
 
+    /**
+     * Sets the resolver of host names, used by the methods which take a host name. A {@link CachingHostResolver} shared by several clients avoids a lookup for
+     * each one.
+     *
+     * @param hostResolver The resolver, or null for {@link HostResolver#SYSTEM}.
+     * @since 3.14.0
+     */
+    public void setHostResolver(final HostResolver hostResolver) {
+        this.hostResolver = hostResolver != null ? hostResolver : HostResolver.SYSTEM;
+    }
+
     /**
      * Sets the default timeout in to use when opening a socket. After a call to open, the timeout for the socket is set using this value. This
      * method should be used prior to a call to {@link #open open()} and should not be confused with {@link #setSoTimeout setSoTimeout()} which operates on the
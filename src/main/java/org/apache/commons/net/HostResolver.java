@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Resolves host names to addresses for {@link SocketClient} and {@link DatagramSocketClient}.
+ *
+ * @see CachingHostResolver
+ * @since 3.14.0
+ */
+@FunctionalInterface
+public interface HostResolver {
+
+    /**
+     * Resolves with {@link InetAddress#getAllByName(String)}, subject to the JVM's own address cache only.
+     */
+    HostResolver SYSTEM = InetAddress::getAllByName;
+
+    /**
+     * Resolves a host name.
+     *
+     * @param host The host name, or a textual IP address.
+     * @return The addresses of the host, never empty.
+     * @throws UnknownHostException If the host cannot be resolved.
+     */
+    InetAddress[] resolve(String host) throws UnknownHostException;
+}
@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.io.function.IOFunction;
+
+/**
+ * Sends keep-alive commands on idle sessions from a shared background scheduler, so that firewalls and servers do not drop long-lived control connections.
+ * <p>
+ * Each registered client is wrapped in a {@link Session}. Application code must use the client only while holding the session, either through
+ * {@link Session#execute(IOFunction)} or between {@link Session#acquire()} and {@link Session#release()}; a multi-step exchange such as an FTP transfer
+ * (RETR followed by {@code completePendingCommand()}) must hold the session for its whole duration. The service only sends a keep-alive on a session which has
+ * not been held for at least the idle timeout and which it can acquire without waiting, so its replies are never interleaved with those of an application
+ * command.
+ * </p>
+ * <p>
+ * The keep-alive command is sent by {@link SocketClient#sendKeepAlive()}: NOOP for FTP, SMTP, POP3 and IMAP, and DATE for NNTP. If the client is no longer
+ * connected, or the command fails with an {@link IOException} or a negative reply, the session is marked as requiring reconnection and no further
+ * keep-alives are sent until {@link Session#reconnected()} is called.
+ * </p>
+ * <p>
+ * Idle sessions are checked every quarter of the idle timeout, so a keep-alive is sent at most 1.25 times the idle timeout after the session was last used.
+ * </p>
+ *
+ * <pre>
+ * KeepAliveService keepAlive = new KeepAliveService(Duration.ofMinutes(4));
+ * KeepAliveService.Session&lt;FTPClient&gt; session = keepAlive.register(ftp);
+ * ...
+ * FTPFile[] files = session.execute(c -&gt; c.listFiles(dir));
+ * ...
+ * keepAlive.unregister(session);
+ * </pre>
+ *
+ * @since 3.14.0
+ */
+public class KeepAliveService implements Closeable {
+
+    /**
+     * A registered client together with the lock which serializes its use between the application and the keep-alive service.
+     *
+     * @param <T> The type of client.
+     */
+    public static final class Session<T extends SocketClient> {
+
+        private final T client;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long lastUsedNanos = System.nanoTime();
+        private volatile boolean reconnectRequired;
+        private volatile int keepAliveCount;
+
+        Session(final T client) {
+            this.client = Objects.requireNonNull(client, "client");
+        }
+
+        /**
+         * Acquires this session for exclusive use, waiting if the keep-alive service is currently using it. Must be followed by {@link #release()}.
+         *
+         * @return The client.
+         */
+        public T acquire() {
+            lock.lock();
+            return client;
+        }
+
+        /**
+         * Runs a function on the client while holding this session.
+         *
+         * @param <R>      The result type.
+         * @param function The function to apply to the client.
+         * @return The function result.
+         * @throws IOException If the function throws.
+         */
+        public <R> R execute(final IOFunction<? super T, R> function) throws IOException {
+            acquire();
+            try {
+                return function.apply(client);
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Gets the client. The client must only be used while holding this session.
+         *
+         * @return The client.
+         */
+        public T getClient() {
+            return client;
+        }
+
+        /**
+         * Gets the number of keep-alive commands sent on this session.
+         *
+         * @return The number of keep-alive commands sent.
+         */
+        public int getKeepAliveCount() {
+            return keepAliveCount;
+        }
+
+        boolean isIdle(final long nowNanos, final long idleNanos) {
+            return !reconnectRequired && nowNanos - lastUsedNanos >= idleNanos;
+        }
+
+        /**
+         * Tests whether a keep-alive found this session dead, in which case the client should be disconnected and connected again, followed by a call to
+         * {@link #reconnected()}.
+         *
+         * @return whether the session needs to be reconnected.
+         */
+        public boolean isReconnectRequired() {
+            return reconnectRequired;
+        }
+
+        /**
+         * Clears the reconnection flag after the client has been connected again, so that keep-alives resume.
+         */
+        public void reconnected() {
+            reconnectRequired = false;
+            lastUsedNanos = System.nanoTime();
+        }
+
+        /**
+         * Releases this session after {@link #acquire()}, and records it as used now.
+         */
+        public void release() {
+            lastUsedNanos = System.nanoTime();
+            lock.unlock();
+        }
+
+        void sendKeepAlive(final long nowNanos, final long idleNanos) {
+            if (!lock.tryLock()) {
+                return; // in use by the application
+            }
+            try {
+                // re-check now that we hold the lock, the application may have just released it
+                if (!isIdle(nowNanos, idleNanos)) {
+                    return;
+                }
+                if (!client.isConnected()) {
+                    reconnectRequired = true;
+                    return;
+                }
+                if (!client.sendKeepAlive()) {
+                    // a negative reply, such as 421, before the connection is closed
+                    reconnectRequired = true;
+                    return;
+                }
+                keepAliveCount++;
+            } catch (final IOException | RuntimeException e) {
+                reconnectRequired = true;
+            } finally {
+                lastUsedNanos = System.nanoTime();
+                lock.unlock();
+            }
+        }
+    }
+
+    private final ScheduledExecutorService executor;
+    private final boolean ownExecutor;
+    private final long idleNanos;
+    private final ScheduledFuture<?> future;
+    private final Set<Session<?>> sessions = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * Constructs a new instance which runs on its own single daemon thread.
+     *
+     * @param idleTimeout How long a session may stay unused before a keep-alive is sent.
+     */
+    public KeepAliveService(final Duration idleTimeout) {
+        this(Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "commons-net-keepalive");
+            thread.setDaemon(true);
+            return thread;
+        }), true, idleTimeout);
+    }
+
+    /**
+     * Constructs a new instance which runs on the given scheduler. The scheduler is not shut down by {@link #close()}.
+     *
+     * @param executor    The scheduler to run keep-alives on.
+     * @param idleTimeout How long a session may stay unused before a keep-alive is sent.
+     */
+    public KeepAliveService(final ScheduledExecutorService executor, final Duration idleTimeout) {
+        this(executor, false, idleTimeout);
+    }
+
+    private KeepAliveService(final ScheduledExecutorService executor, final boolean ownExecutor, final Duration idleTimeout) {
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.ownExecutor = ownExecutor;
+        this.idleNanos = Objects.requireNonNull(idleTimeout, "idleTimeout").toNanos();
+        if (idleNanos <= 0) {
+            throw new IllegalArgumentException("idleTimeout must be positive: " + idleTimeout);
+        }
+        final long periodNanos = Math.max(idleNanos / 4, TimeUnit.MILLISECONDS.toNanos(1));
+        this.future = executor.scheduleWithFixedDelay(this::sendKeepAlives, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops sending keep-alives and unregisters all sessions. Shuts down the scheduler if it was created by this instance.
+     */
+    @Override
+    public void close() {
+        future.cancel(false);
+        sessions.clear();
+        if (ownExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets how long a session may stay unused before a keep-alive is sent.
+     *
+     * @return The idle timeout.
+     */
+    public Duration getIdleTimeout() {
+        return Duration.ofNanos(idleNanos);
+    }
+
+    /**
+     * Registers a client for keep-alives.
+     *
+     * @param <T>    The type of client.
+     * @param client The client, which should already be connected (and logged in where the protocol requires it).
+     * @return The session through which the client must be used from now on.
+     */
+    public <T extends SocketClient> Session<T> register(final T client) {
+        final Session<T> session = new Session<>(client);
+        sessions.add(session);
+        return session;
+    }
+
+    void sendKeepAlives() {
+        final long nowNanos = System.nanoTime();
+        sessions.forEach(session -> {
+            if (session.isIdle(nowNanos, idleNanos)) {
+                session.sendKeepAlive(nowNanos, idleNanos);
+            }
+        });
+    }
+
+    /**
+     * Unregisters a session; no further keep-alives are sent on it.
+     *
+     * @param session The session to unregister.
+     */
+    public void unregister(final Session<?> session) {
+        sessions.remove(session);
+    }
+}
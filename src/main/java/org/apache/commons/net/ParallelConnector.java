@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.SocketFactory;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.function.IOConsumer;
+
+/**
+ * Connects to the first reachable address of a host. Connection attempts are started one after another with a delay, without waiting for the earlier attempts
+ * to fail, as described by RFC 8305 "Happy Eyeballs Version 2". The first connected socket wins, and all others are closed.
+ */
+final class ParallelConnector {
+
+    /**
+     * Orders addresses so that address families alternate, starting with the family of the first address (RFC 8305 section 4).
+     *
+     * @param addresses The addresses in the order of the resolver.
+     * @return The addresses in the order in which to attempt them.
+     */
+    static InetAddress[] interleave(final InetAddress[] addresses) {
+        final List<InetAddress> preferred = new ArrayList<>();
+        final List<InetAddress> others = new ArrayList<>();
+        for (final InetAddress address : addresses) {
+            (address.getClass() == addresses[0].getClass() ? preferred : others).add(address);
+        }
+        final InetAddress[] result = new InetAddress[addresses.length];
+        int i = 0;
+        for (int j = 0; j < Math.max(preferred.size(), others.size()); j++) {
+            if (j < preferred.size()) {
+                result[i++] = preferred.get(j);
+            }
+            if (j < others.size()) {
+                result[i++] = others.get(j);
+            }
+        }
+        return result;
+    }
+
+    private final SocketFactory socketFactory;
+    private final IOConsumer<Socket> configurer;
+    private final int port;
+    private final int connectTimeout;
+    private final long attemptDelayNanos;
+    private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+    private final List<Socket> sockets = new ArrayList<>();
+    private boolean done;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param socketFactory  Creates the sockets.
+     * @param configurer     Configures each socket before it is connected.
+     * @param port           The remote port.
+     * @param connectTimeout The timeout of each attempt in milliseconds.
+     * @param attemptDelay   The delay before the next attempt is started.
+     */
+    ParallelConnector(final SocketFactory socketFactory, final IOConsumer<Socket> configurer, final int port, final int connectTimeout,
+            final Duration attemptDelay) {
+        this.socketFactory = socketFactory;
+        this.configurer = configurer;
+        this.port = port;
+        this.connectTimeout = connectTimeout;
+        this.attemptDelayNanos = attemptDelay.toNanos();
+    }
+
+    private void attempt(final InetAddress address) {
+        Socket socket = null;
+        try {
+            socket = socketFactory.createSocket();
+            synchronized (this) {
+                if (done) {
+                    socket.close();
+                    return;
+                }
+                sockets.add(socket);
+            }
+            configurer.accept(socket);
+            socket.connect(new InetSocketAddress(address, port), connectTimeout);
+            results.add(socket);
+        } catch (final IOException e) {
+            IOUtils.closeQuietly(socket);
+            results.add(e);
+        } catch (final RuntimeException e) {
+            IOUtils.closeQuietly(socket);
+            results.add(new IOException(e));
+        }
+    }
+
+    /**
+     * Connects to the first reachable address.
+     *
+     * @param addresses The addresses to attempt, in order.
+     * @return The connected socket.
+     * @throws IOException If no address could be connected; further failures are suppressed.
+     */
+    Socket connect(final InetAddress[] addresses) throws IOException {
+        Socket winner = null;
+        IOException failure = null;
+        int started = 0;
+        int finished = 0;
+        try {
+            start(addresses[started++]);
+            while (finished < started) {
+                final Object result = started < addresses.length ? results.poll(attemptDelayNanos, TimeUnit.NANOSECONDS) : results.take();
+                if (result == null) {
+                    // the running attempts are slow: start the next one alongside
+                    start(addresses[started++]);
+                    continue;
+                }
+                finished++;
+                if (result instanceof Socket) {
+                    winner = (Socket) result;
+                    return winner;
+                }
+                if (failure == null) {
+                    failure = (IOException) result;
+                } else {
+                    failure.addSuppressed((IOException) result);
+                }
+                if (started < addresses.length) {
+                    // do not wait for the delay once an attempt has failed
+                    start(addresses[started++]);
+                }
+            }
+            throw failure;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while connecting");
+        } finally {
+            synchronized (this) {
+                done = true;
+                for (final Socket socket : sockets) {
+                    if (socket != winner) {
+                        IOUtils.closeQuietly(socket);
+                    }
+                }
+            }
+        }
+    }
+
+    private void start(final InetAddress address) {
+        final Thread thread = new Thread(() -> attempt(address), "commons-net connect " + address.getHostAddress());
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
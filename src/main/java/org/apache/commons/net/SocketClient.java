@@ -25,13 +25,16 @@ import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.UnknownHostException;
 import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.Objects;
 
 import javax.net.ServerSocketFactory;
 import javax.net.SocketFactory;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.net.io.BandwidthLimiter;
 
 /**
  * The SocketClient provides the basic operations that are required of client objects accessing sockets. It is meant to be subclassed to avoid having to rewrite
@@ -119,6 +122,15 @@ public abstract class SocketClient {
      */
     protected int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
 
+    /** Resolves host names to connect to. */
+    private HostResolver hostResolver = HostResolver.SYSTEM;
+
+    /** The delay between connection attempts to the addresses of a host name, null to connect to its first address only. */
+    private Duration connectAttemptDelay;
+
+    /** Limits the rate of the streams of the connection, null for no limit. */
+    private BandwidthLimiter bandwidthLimiter;
+
     /** Hint for SO_RCVBUF size */
     private int receiveBufferSize = -1;
 
@@ -148,16 +160,19 @@ public abstract class SocketClient {
         _serverSocketFactory_ = DEFAULT_SERVER_SOCKET_FACTORY;
     }
 
+    // helper method to connect to the first reachable of several addresses
+    private void _connect(final InetAddress[] addresses, final int port) throws IOException {
+        final ParallelConnector connector = new ParallelConnector(_socketFactory_, this::applyBufferSizes, port, connectTimeout, connectAttemptDelay);
+        _socket_ = connector.connect(ParallelConnector.interleave(addresses));
+        this.remoteInetSocketAddress = (InetSocketAddress) _socket_.getRemoteSocketAddress();
+        _connectAction_();
+    }
+
     // helper method to allow code to be shared with connect(String,...) methods
     private void _connect(final InetSocketAddress remoteInetSocketAddress, final InetAddress localAddr, final int localPort) throws IOException {
         this.remoteInetSocketAddress = remoteInetSocketAddress;
         _socket_ = _socketFactory_.createSocket();
-        if (receiveBufferSize != -1) {
-            _socket_.setReceiveBufferSize(receiveBufferSize);
-        }
-        if (sendBufferSize != -1) {
-            _socket_.setSendBufferSize(sendBufferSize);
-        }
+        applyBufferSizes(_socket_);
         if (localAddr != null) {
             _socket_.bind(new InetSocketAddress(localAddr, localPort));
         }
@@ -180,8 +195,8 @@ public abstract class SocketClient {
      */
     protected void _connectAction_() throws IOException {
         applySocketAttributes();
-        _input_ = _socket_.getInputStream();
-        _output_ = _socket_.getOutputStream();
+        _input_ = limitBandwidth(_socket_.getInputStream());
+        _output_ = limitBandwidth(_socket_.getOutputStream());
     }
 
     /**
@@ -194,6 +209,15 @@ public abstract class SocketClient {
         getCommandSupport().addProtocolCommandListener(listener);
     }
 
+    private void applyBufferSizes(final Socket socket) throws SocketException {
+        if (receiveBufferSize != -1) {
+            socket.setReceiveBufferSize(receiveBufferSize);
+        }
+        if (sendBufferSize != -1) {
+            socket.setSendBufferSize(sendBufferSize);
+        }
+    }
+
     /**
      * Applies socket attributes.
      *
@@ -305,10 +329,27 @@ public abstract class SocketClient {
      * @throws IOException                   If the socket could not be opened. In most cases you will only want to catch IOException since SocketException is
      *                                       derived from it.
      * @throws java.net.UnknownHostException If the hostname cannot be resolved.
+     * @see #setConnectAttemptDelay(Duration)
+     * @see #setHostResolver(HostResolver)
      */
     public void connect(final String hostname, final int port, final InetAddress localAddr, final int localPort) throws SocketException, IOException {
         _hostname_ = hostname;
-        _connect(new InetSocketAddress(hostname, port), localAddr, localPort);
+        if (connProxy != null) {
+            _connect(new InetSocketAddress(hostname, port), localAddr, localPort);
+            return;
+        }
+        final InetAddress[] addresses;
+        try {
+            addresses = hostResolver.resolve(hostname);
+        } catch (final UnknownHostException e) {
+            remoteInetSocketAddress = InetSocketAddress.createUnresolved(hostname, port);
+            throw e;
+        }
+        if (connectAttemptDelay != null && localAddr == null && addresses.length > 1) {
+            _connect(addresses, port);
+            return;
+        }
+        _connect(new InetSocketAddress(addresses[0], port), localAddr, localPort);
     }
 
     /**
@@ -357,6 +398,17 @@ public abstract class SocketClient {
         getCommandSupport().fireReplyReceived(replyCode, reply);
     }
 
+    /**
+     * Gets the limiter of the rate of the streams of the connection.
+     *
+     * @return The limiter, or null if the rate is not limited.
+     * @see #setBandwidthLimiter(BandwidthLimiter)
+     * @since 3.14.0
+     */
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
     /**
      * Gets the charset.
      *
@@ -389,6 +441,17 @@ public abstract class SocketClient {
         return commandSupport;
     }
 
+    /**
+     * Gets the delay between connection attempts to the addresses of a host name.
+     *
+     * @return The delay, null if only the first address is attempted.
+     * @see #setConnectAttemptDelay(Duration)
+     * @since 3.14.0
+     */
+    public Duration getConnectAttemptDelay() {
+        return connectAttemptDelay;
+    }
+
     /**
      * Gets the underlying socket connection timeout.
      *
@@ -417,6 +480,16 @@ public abstract class SocketClient {
         return _timeout_;
     }
 
+    /**
+     * Gets the resolver of host names.
+     *
+     * @return The resolver, {@link HostResolver#SYSTEM} by default.
+     * @since 3.14.0
+     */
+    public HostResolver getHostResolver() {
+        return hostResolver;
+    }
+
     /**
      * Gets the current value of the SO_KEEPALIVE flag on the currently opened socket. Delegates to {@link Socket#getKeepAlive()}
      *
@@ -598,6 +671,30 @@ public abstract class SocketClient {
         return _socket_.isConnected();
     }
 
+    /**
+     * Wraps a stream of the connection with the {@link #getBandwidthLimiter() bandwidth limiter}, if there is one. Subclasses call this when they replace the
+     * streams, for example after a TLS upgrade.
+     *
+     * @param input The stream of the connection.
+     * @return The limited stream, or the given stream if the rate is not limited.
+     * @since 3.14.0
+     */
+    protected InputStream limitBandwidth(final InputStream input) {
+        return bandwidthLimiter == null ? input : bandwidthLimiter.limit(input);
+    }
+
+    /**
+     * Wraps a stream of the connection with the {@link #getBandwidthLimiter() bandwidth limiter}, if there is one. Subclasses call this when they replace the
+     * streams, for example after a TLS upgrade.
+     *
+     * @param output The stream of the connection.
+     * @return The limited stream, or the given stream if the rate is not limited.
+     * @since 3.14.0
+     */
+    protected OutputStream limitBandwidth(final OutputStream output) {
+        return bandwidthLimiter == null ? output : bandwidthLimiter.limit(output);
+    }
+
     /**
      * Removes a ProtocolCommandListener.
      *
@@ -608,6 +705,33 @@ public abstract class SocketClient {
         getCommandSupport().removeProtocolCommandListener(listener);
     }
 
+    /**
+     * Sends a protocol-level command that resets the server's (and any middlebox's) idle timer without changing session state, for example NOOP. Called by
+     * {@link KeepAliveService} on idle sessions.
+     * <p>
+     * The default implementation sends nothing and returns {@link #isConnected()}; protocol clients override it.
+     * </p>
+     *
+     * @return {@code true} if the server acknowledged the command, {@code false} if not.
+     * @throws IOException If an I/O error occurs while either sending the command or receiving the reply; the connection should then be considered dead.
+     * @since 3.14.0
+     */
+    protected boolean sendKeepAlive() throws IOException {
+        return isConnected();
+    }
+
+    /**
+     * Sets the limiter of the rate of the streams of the connection, which may be shared with other clients to limit their aggregate rate. FTP clients limit
+     * their data connections instead of their control connection. The limiter applies to connections opened after this call. The default is null, for no
+     * limit.
+     *
+     * @param bandwidthLimiter The limiter, or null for no limit.
+     * @since 3.14.0
+     */
+    public void setBandwidthLimiter(final BandwidthLimiter bandwidthLimiter) {
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
     /**
      * Sets the charset.
      *
@@ -618,6 +742,22 @@ public abstract class SocketClient {
         this.charset = charset;
     }
 
+    /**
+     * Sets the delay between connection attempts to the addresses of a host name, as described by RFC 8305 "Happy Eyeballs". When set,
+     * {@link #connect(String, int)} attempts all addresses of the host name, alternating between IPv6 and IPv4, and starts the next attempt when the running
+     * ones did not connect within the delay, or as soon as one failed. The first socket to connect is used, and the others are closed, so that an unreachable
+     * address does not cost the whole connection timeout. RFC 8305 recommends 250 milliseconds. The default is null, to connect to the first address only.
+     * <p>
+     * Connections through a proxy, or from a given local address, always use the first address.
+     * </p>
+     *
+     * @param connectAttemptDelay The delay, or null to connect to the first address only.
+     * @since 3.14.0
+     */
+    public void setConnectAttemptDelay(final Duration connectAttemptDelay) {
+        this.connectAttemptDelay = connectAttemptDelay;
+    }
+
     /**
      * Sets the connection timeout in milliseconds, which will be passed to the {@link Socket} object's connect() method.
      *
@@ -648,6 +788,17 @@ public abstract class SocketClient {
         _timeout_ = timeout;
     }
 
+    /**
+     * Sets the resolver of host names, used by the methods which connect to a host name. A {@link CachingHostResolver} shared by several clients avoids a
+     * lookup for each one.
+     *
+     * @param hostResolver The resolver, or null for {@link HostResolver#SYSTEM}.
+     * @since 3.14.0
+     */
+    public void setHostResolver(final HostResolver hostResolver) {
+        this.hostResolver = hostResolver != null ? hostResolver : HostResolver.SYSTEM;
+    }
+
     /**
      * Sets the SO_KEEPALIVE flag on the currently opened socket.
      *
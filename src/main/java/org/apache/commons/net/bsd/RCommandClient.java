@@ -171,7 +171,7 @@ public class RCommandClient extends RExecClient {
      */
     @Override
     public void connect(final String hostname, final int port) throws SocketException, IOException, UnknownHostException {
-        connect(InetAddress.getByName(hostname), port, InetAddress.getLocalHost());
+        connect(getHostResolver().resolve(hostname)[0], port, InetAddress.getLocalHost());
     }
 
     /**
@@ -188,7 +188,7 @@ public class RCommandClient extends RExecClient {
      *                         it.
      */
     public void connect(final String hostname, final int port, final InetAddress localAddr) throws SocketException, IOException {
-        connect(InetAddress.getByName(hostname), port, localAddr);
+        connect(getHostResolver().resolve(hostname)[0], port, localAddr);
     }
 
     /**
@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Wrapper class for FTP data channel sockets in block mode ({@link FTP#BLOCK_TRANSFER_MODE}, RFC 959 section 3.4.2). Data is framed in blocks, each with a
+ * 3-byte header holding a descriptor and a byte count, and the end of a file is marked by the EOF descriptor rather than by closing the connection, so the
+ * connection is kept open for the next transfer. All methods except of {@link #getInputStream()}, {@link #getOutputStream()} and {@link #close()} are
+ * calling the delegate methods directly.
+ * <p>
+ * Closing this socket ends the current transfer only. The delegate is closed if a transfer ends early or fails, in which case {@link #isReusable()} returns
+ * false and a new data connection must be opened.
+ * </p>
+ * <p>
+ * Restart markers received are recorded; the end of record and suspected errors descriptors are ignored, as only the file structure is supported.
+ * </p>
+ */
+final class BlockModeSocket extends DelegateSocket {
+
+    /** Reads the blocks of one file until the EOF descriptor. */
+    private final class BlockInputStream extends InputStream {
+
+        private final InputStream in;
+        private int remaining;
+        private boolean eof;
+        private boolean closed;
+
+        BlockInputStream(final InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                if (!eof || remaining > 0) {
+                    // the rest of the file is still on the wire: the connection cannot be reused
+                    invalidate();
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            try {
+                while (remaining == 0) {
+                    if (eof) {
+                        return -1;
+                    }
+                    readHeader();
+                }
+                final int n = in.read(b, off, Math.min(len, remaining));
+                if (n < 0) {
+                    throw new EOFException("Data connection closed within a block");
+                }
+                remaining -= n;
+                return n;
+            } catch (final IOException e) {
+                invalidate();
+                throw e;
+            }
+        }
+
+        private void readHeader() throws IOException {
+            final int descriptor = in.read();
+            if (descriptor == -1) {
+                // the server closed the connection instead of sending EOF, which also ends the file
+                eof = true;
+                reusable = false;
+                return;
+            }
+            final int count = readCount(in);
+            if ((descriptor & DESCRIPTOR_RESTART_MARKER) != 0) {
+                final byte[] marker = new byte[count];
+                IOUtils.readFully(in, marker);
+                restartMarker = new String(marker, StandardCharsets.US_ASCII);
+            } else {
+                remaining = count;
+            }
+            if ((descriptor & DESCRIPTOR_EOF) != 0) {
+                eof = true;
+            }
+        }
+    }
+
+    /** Writes the data of one file in blocks, and an EOF block when closed. */
+    private final class BlockOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final byte[] buffer;
+        private int count;
+        private boolean closed;
+
+        BlockOutputStream(final OutputStream out, final int blockSize) {
+            this.out = out;
+            this.buffer = new byte[blockSize];
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try {
+                    writeBlock(DESCRIPTOR_EOF, buffer, 0, count);
+                    count = 0;
+                    out.flush();
+                } catch (final IOException e) {
+                    invalidate();
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                if (count > 0) {
+                    writeBlock(0, buffer, 0, count);
+                    count = 0;
+                }
+                out.flush();
+            } catch (final IOException e) {
+                invalidate();
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, int off, int len) throws IOException {
+            try {
+                if (count == 0) {
+                    // write whole blocks straight from the caller's buffer
+                    while (len >= buffer.length) {
+                        writeBlock(0, b, off, buffer.length);
+                        off += buffer.length;
+                        len -= buffer.length;
+                    }
+                }
+                while (len > 0) {
+                    final int n = Math.min(len, buffer.length - count);
+                    System.arraycopy(b, off, buffer, count, n);
+                    count += n;
+                    off += n;
+                    len -= n;
+                    if (count == buffer.length) {
+                        writeBlock(0, buffer, 0, count);
+                        count = 0;
+                    }
+                }
+            } catch (final IOException e) {
+                invalidate();
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        private void writeBlock(final int descriptor, final byte[] b, final int off, final int len) throws IOException {
+            out.write(new byte[] { (byte) descriptor, (byte) (len >>> 8), (byte) len });
+            out.write(b, off, len);
+        }
+    }
+
+    /** Descriptor code: end of record. */
+    static final int DESCRIPTOR_EOR = 0x80;
+
+    /** Descriptor code: end of file. */
+    static final int DESCRIPTOR_EOF = 0x40;
+
+    /** Descriptor code: suspected errors in the data block. */
+    static final int DESCRIPTOR_SUSPECTED_ERRORS = 0x20;
+
+    /** Descriptor code: the data block is a restart marker. */
+    static final int DESCRIPTOR_RESTART_MARKER = 0x10;
+
+    /** Largest byte count of a block. */
+    static final int MAX_BLOCK_SIZE = 0xffff;
+
+    private static int readCount(final InputStream in) throws IOException {
+        final int high = in.read();
+        final int low = in.read();
+        if ((high | low) < 0) {
+            throw new EOFException("Data connection closed within a block header");
+        }
+        return high << 8 | low;
+    }
+
+    private final int blockSize;
+    private boolean reusable = true;
+    private boolean used;
+    private String restartMarker;
+
+    BlockModeSocket(final Socket delegate, final int blockSize) {
+        super(delegate);
+        this.blockSize = Math.max(1, Math.min(blockSize, MAX_BLOCK_SIZE));
+    }
+
+    /**
+     * Ends the current transfer; the delegate is only closed if the connection cannot be reused, or if no transfer was started on it.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!reusable || !used) {
+            closeConnection();
+        }
+    }
+
+    /**
+     * Closes the underlying data connection.
+     */
+    void closeConnection() throws IOException {
+        reusable = false;
+        delegate.close();
+    }
+
+    /**
+     * Gets a stream which reads the next file, up to its EOF block.
+     */
+    @Override
+    public InputStream getInputStream() throws IOException {
+        used = true;
+        restartMarker = null;
+        return new BlockInputStream(delegate.getInputStream());
+    }
+
+    /**
+     * Gets a stream which writes the next file, followed by an EOF block when closed.
+     */
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        used = true;
+        return new BlockOutputStream(delegate.getOutputStream(), blockSize);
+    }
+
+    /**
+     * Gets the last restart marker received during the current download.
+     */
+    String getRestartMarker() {
+        return restartMarker;
+    }
+
+    private void invalidate() {
+        reusable = false;
+        IOUtils.closeQuietly(delegate);
+    }
+
+    /**
+     * Tests whether the data connection can be used for another transfer.
+     */
+    boolean isReusable() {
+        return reusable && delegate.isConnected() && !delegate.isClosed();
+    }
+}
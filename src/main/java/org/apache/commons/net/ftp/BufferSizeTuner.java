@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.net.io.Util;
+
+/**
+ * A thread-safe record of the round-trip time and throughput of the links to FTP servers, from which {@link FTPClient} sizes the socket buffers of its data
+ * connections and its copy buffer, see {@link FTPClient#setBufferSizeTuner(BufferSizeTuner)}. One instance is meant to be shared by many clients, see
+ * {@link #getDefault()}, so that what one session measured is used by the next session to the same host.
+ * <p>
+ * The buffers are sized to twice the bandwidth-delay product, that is the throughput times the round-trip time. As throughput measured through a buffer
+ * cannot exceed what the buffer allows, the headroom lets the buffers grow from one transfer to the next until the link, not the buffer, limits the
+ * throughput. The round-trip time is the smallest measured, and the throughput is smoothed over transfers of at least {@link #MIN_SAMPLE_BYTES}.
+ * </p>
+ *
+ * @since 3.14.0
+ */
+public class BufferSizeTuner {
+
+    private static final class DefaultHolder {
+        static final BufferSizeTuner INSTANCE = new BufferSizeTuner();
+    }
+
+    /** The measurements of the link to a host. */
+    private static final class Link {
+
+        long roundTripNanos = Long.MAX_VALUE;
+        double bytesPerSecond;
+    }
+
+    /** The default maximum number of hosts remembered. */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /** The largest copy buffer size returned. */
+    public static final int MAX_COPY_BUFFER_SIZE = 1024 * 1024;
+
+    /** The largest socket buffer size returned. */
+    public static final int MAX_SOCKET_BUFFER_SIZE = 16 * 1024 * 1024;
+
+    /** The smallest transfer used to measure throughput, as smaller ones end before TCP reaches its rate. */
+    public static final long MIN_SAMPLE_BYTES = 256 * 1024;
+
+    /** The smallest socket buffer size returned. */
+    public static final int MIN_SOCKET_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Gets the instance shared by all clients which use it.
+     *
+     * @return The shared instance, with the default settings.
+     */
+    public static BufferSizeTuner getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private final Map<String, Link> links;
+
+    /**
+     * Constructs a new instance which remembers up to {@link #DEFAULT_MAX_ENTRIES} hosts.
+     */
+    public BufferSizeTuner() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param maxEntries The maximum number of hosts remembered, the least recently used are evicted first.
+     */
+    public BufferSizeTuner(final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.links = new LinkedHashMap<String, Link>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Link> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the bandwidth-delay product of the link to a host.
+     *
+     * @param host The host address.
+     * @return The bandwidth-delay product in bytes, or 0 if the round-trip time or the throughput was not measured yet.
+     */
+    public long getBandwidthDelayProduct(final String host) {
+        synchronized (links) {
+            final Link link = links.get(host);
+            if (link == null || link.roundTripNanos == Long.MAX_VALUE || link.bytesPerSecond == 0) {
+                return 0;
+            }
+            return (long) (link.bytesPerSecond * link.roundTripNanos / 1_000_000_000d);
+        }
+    }
+
+    /**
+     * Gets the copy buffer size for transfers from or to a host, twice the bandwidth-delay product within {@link Util#DEFAULT_COPY_BUFFER_SIZE} and
+     * {@link #MAX_COPY_BUFFER_SIZE}.
+     *
+     * @param host The host address.
+     * @return The buffer size, or 0 if the link was not measured yet.
+     */
+    public int getCopyBufferSize(final String host) {
+        final long bdp = getBandwidthDelayProduct(host);
+        return bdp == 0 ? 0 : (int) Math.max(Util.DEFAULT_COPY_BUFFER_SIZE, Math.min(MAX_COPY_BUFFER_SIZE, 2 * bdp));
+    }
+
+    /**
+     * Gets the smallest round-trip time measured to a host.
+     *
+     * @param host The host address.
+     * @return The round-trip time, or null if it was not measured yet.
+     */
+    public Duration getRoundTrip(final String host) {
+        synchronized (links) {
+            final Link link = links.get(host);
+            return link == null || link.roundTripNanos == Long.MAX_VALUE ? null : Duration.ofNanos(link.roundTripNanos);
+        }
+    }
+
+    /**
+     * Gets the socket buffer size for data connections to a host, twice the bandwidth-delay product within {@link #MIN_SOCKET_BUFFER_SIZE} and
+     * {@link #MAX_SOCKET_BUFFER_SIZE}.
+     *
+     * @param host The host address.
+     * @return The buffer size, or 0 if the link was not measured yet.
+     */
+    public int getSocketBufferSize(final String host) {
+        final long bdp = getBandwidthDelayProduct(host);
+        return bdp == 0 ? 0 : (int) Math.max(MIN_SOCKET_BUFFER_SIZE, Math.min(MAX_SOCKET_BUFFER_SIZE, 2 * bdp));
+    }
+
+    private Link link(final String host) {
+        return links.computeIfAbsent(host, k -> new Link());
+    }
+
+    /**
+     * Records a round-trip time measured to a host, for example the time of a command without side effects and its reply.
+     *
+     * @param host      The host address.
+     * @param roundTrip The round-trip time.
+     */
+    public void recordRoundTrip(final String host, final Duration roundTrip) {
+        synchronized (links) {
+            final Link link = link(host);
+            link.roundTripNanos = Math.min(link.roundTripNanos, Math.max(1, roundTrip.toNanos()));
+        }
+    }
+
+    /**
+     * Records a transfer from or to a host. Transfers of less than {@link #MIN_SAMPLE_BYTES} are ignored.
+     *
+     * @param host    The host address.
+     * @param bytes   The number of bytes transferred.
+     * @param elapsed The time the transfer took.
+     */
+    public void recordTransfer(final String host, final long bytes, final Duration elapsed) {
+        if (bytes < MIN_SAMPLE_BYTES || elapsed.isZero() || elapsed.isNegative()) {
+            return;
+        }
+        final double sample = bytes * 1_000_000_000d / elapsed.toNanos();
+        synchronized (links) {
+            final Link link = link(host);
+            link.bytesPerSecond = link.bytesPerSecond == 0 ? sample : (link.bytesPerSecond + sample) / 2;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reuses {@link Deflater} and {@link Inflater} instances across MODE Z data connections, so that their native state is reset rather than reallocated for
+ * each transfer.
+ */
+final class DeflatePool {
+
+    /** An FTP client has one data connection at a time, plus one for a sample while deciding whether to compress. */
+    private static final int MAX_IDLE = 2;
+
+    private final Deque<Deflater> deflaters = new ArrayDeque<>(MAX_IDLE);
+    private final Deque<Inflater> inflaters = new ArrayDeque<>(MAX_IDLE);
+
+    /**
+     * Ends all idle instances.
+     */
+    synchronized void clear() {
+        deflaters.forEach(Deflater::end);
+        deflaters.clear();
+        inflaters.forEach(Inflater::end);
+        inflaters.clear();
+    }
+
+    synchronized Deflater getDeflater(final int level, final int strategy) {
+        final Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            final Deflater created = new Deflater(level);
+            created.setStrategy(strategy);
+            return created;
+        }
+        // takes effect immediately, as the deflater was reset and has no input
+        deflater.setLevel(level);
+        deflater.setStrategy(strategy);
+        return deflater;
+    }
+
+    synchronized Inflater getInflater() {
+        final Inflater inflater = inflaters.poll();
+        return inflater != null ? inflater : new Inflater();
+    }
+
+    synchronized void release(final Deflater deflater) {
+        if (deflaters.size() < MAX_IDLE) {
+            deflater.reset();
+            deflaters.push(deflater);
+        } else {
+            deflater.end();
+        }
+    }
+
+    synchronized void release(final Inflater inflater) {
+        if (inflaters.size() < MAX_IDLE) {
+            inflater.reset();
+            inflaters.push(inflater);
+        } else {
+            inflater.end();
+        }
+    }
+}
@@ -21,26 +21,72 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 /**
  * Wrapper class for FTP data channel sockets when compressing data in the "deflate" compression format. All methods except of {@link #getInputStream()} and
  * {@link #getOutputStream()} are calling the delegate methods directly.
+ * <p>
+ * The {@link Deflater} and {@link Inflater} are borrowed from a {@link DeflatePool} and returned to it when the stream is closed.
+ * </p>
  */
 final class DeflateSocket extends DelegateSocket {
 
-    DeflateSocket(final Socket delegate) {
+    private final DeflatePool pool;
+    private final int level;
+    private final int strategy;
+    private final int bufferSize;
+
+    DeflateSocket(final Socket delegate, final DeflatePool pool, final int level, final int strategy, final int bufferSize) {
         super(delegate);
+        this.pool = pool;
+        this.level = level;
+        this.strategy = strategy;
+        this.bufferSize = bufferSize;
     }
 
     @Override
     public InputStream getInputStream() throws IOException {
-        return new InflaterInputStream(delegate.getInputStream());
+        final Inflater inflater = pool.getInflater();
+        return new InflaterInputStream(delegate.getInputStream(), inflater, bufferSize) {
+
+            private boolean released;
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (!released) {
+                        released = true;
+                        pool.release(inflater);
+                    }
+                }
+            }
+        };
     }
 
     @Override
     public OutputStream getOutputStream() throws IOException {
-        return new DeflaterOutputStream(delegate.getOutputStream());
+        final Deflater deflater = pool.getDeflater(level, strategy);
+        return new DeflaterOutputStream(delegate.getOutputStream(), deflater, bufferSize) {
+
+            private boolean released;
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (!released) {
+                        released = true;
+                        pool.release(deflater);
+                    }
+                }
+            }
+        };
     }
 }
@@ -26,8 +26,6 @@ import java.net.SocketAddress;
 import java.net.SocketException;
 import java.nio.channels.SocketChannel;
 import java.util.Objects;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
 
 /**
  * Wrapper class for FTP data channel sockets.
@@ -72,7 +70,7 @@ abstract class DelegateSocket extends Socket {
 
     @Override
     public InputStream getInputStream() throws IOException {
-        return new InflaterInputStream(delegate.getInputStream());
+        return delegate.getInputStream();
     }
 
     @Override
@@ -102,7 +100,7 @@ abstract class DelegateSocket extends Socket {
 
     @Override
     public OutputStream getOutputStream() throws IOException {
-        return new DeflaterOutputStream(delegate.getOutputStream());
+        return delegate.getOutputStream();
     }
 
     @Override
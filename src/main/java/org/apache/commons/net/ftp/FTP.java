@@ -20,7 +20,9 @@ package org.apache.commons.net.ftp;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.net.Inet4Address;
@@ -718,6 +720,22 @@ public class FTP extends SocketClient {
         return _replyLines.toArray(NetConstants.EMPTY_STRING_ARRAY);
     }
 
+    /**
+     * Sends the FTP {@code HASH} command to the server, receive the reply, and return the reply code.
+     *
+     * @param path The path of the file to hash.
+     * @return The reply code received from the server.
+     * @throws FTPConnectionClosedException If the FTP server prematurely closes the connection as a result of the client being idle or some other reason
+     *                                      causing the server to send FTP reply code 421. This exception may be caught either as an IOException or
+     *                                      independently as itself.
+     * @throws IOException                  If an I/O error occurs while either sending the command or receiving the server reply.
+     * @see <a href="https://datatracker.ietf.org/doc/html/draft-bryan-ftpext-hash-02">draft-bryan-ftpext-hash</a>
+     * @since 3.14.0
+     */
+    public int hash(final String path) throws IOException {
+        return sendCommand(FTPCmd.HASH, path);
+    }
+
     /**
      * Sends the FTP {@code HELP} command to the server, receive the reply, and return the reply code.
      *
@@ -745,6 +763,16 @@ public class FTP extends SocketClient {
         return sendCommand(FTPCmd.HELP, command);
     }
 
+    /**
+     * Tests whether a reply can be read without blocking. Only data already received is considered, so over TLS this may be false although a reply was sent.
+     *
+     * @return whether a reply has started to arrive on the control connection.
+     * @throws IOException If an I/O error occurs.
+     */
+    boolean isReplyAvailable() throws IOException {
+        return _controlInput_ != null && _controlInput_.ready();
+    }
+
     /**
      * Tests whether strict multiline parsing is enabled, as per RFC 959, section 4.2.
      *
@@ -778,6 +806,32 @@ public class FTP extends SocketClient {
         return !(line.length() > REPLY_CODE_LEN && line.charAt(REPLY_CODE_LEN) != '-' && Character.isDigit(line.charAt(0)));
     }
 
+    /**
+     * Returns a stream of the control connection unchanged: the {@link #getBandwidthLimiter() bandwidth limiter} applies to the data connections only, so
+     * that commands and replies are not delayed behind transfers.
+     *
+     * @param input The stream of the control connection.
+     * @return The given stream.
+     * @since 3.14.0
+     */
+    @Override
+    protected InputStream limitBandwidth(final InputStream input) {
+        return input;
+    }
+
+    /**
+     * Returns a stream of the control connection unchanged: the {@link #getBandwidthLimiter() bandwidth limiter} applies to the data connections only, so
+     * that commands and replies are not delayed behind transfers.
+     *
+     * @param output The stream of the control connection.
+     * @return The given stream.
+     * @since 3.14.0
+     */
+    @Override
+    protected OutputStream limitBandwidth(final OutputStream output) {
+        return output;
+    }
+
     /**
      * Sends the FTP {@code LIST} command to the server, receive the reply, and return the reply code. Remember, it is up to you to
      * manage the data connection. If you don't need this low level of access, use {@link org.apache.commons.net.ftp.FTPClient} , which will handle all low
@@ -1111,6 +1165,24 @@ public class FTP extends SocketClient {
         return sendCommand(FTPCmd.QUIT);
     }
 
+    /**
+     * Sends the FTP {@code RANG} command to the server, receive the reply, and return the reply code. The range applies to the next command which supports
+     * it, such as {@code HASH}.
+     *
+     * @param start The first byte of the range.
+     * @param end   The last byte of the range, inclusive.
+     * @return The reply code received from the server.
+     * @throws FTPConnectionClosedException If the FTP server prematurely closes the connection as a result of the client being idle or some other reason
+     *                                      causing the server to send FTP reply code 421. This exception may be caught either as an IOException or
+     *                                      independently as itself.
+     * @throws IOException                  If an I/O error occurs while either sending the command or receiving the server reply.
+     * @see <a href="https://datatracker.ietf.org/doc/html/draft-bryan-ftp-range-08">draft-bryan-ftp-range</a>
+     * @since 3.14.0
+     */
+    public int rang(final long start, final long end) throws IOException {
+        return sendCommand(FTPCmd.RANG, Long.toString(start) + SP + end);
+    }
+
     /**
      * Sends the FTP {@code REIN} command to the server, receive the reply, and return the reply code.
      *
@@ -1313,6 +1385,26 @@ public class FTP extends SocketClient {
         return getReply();
     }
 
+    /**
+     * Sends an FTP command to the server without waiting for its reply, so that it is processed as soon as the server has answered the commands sent before.
+     * The reply must be read with {@link #getReply()} once the replies to the earlier commands have been read.
+     *
+     * @param command The FTPCmd enum corresponding to the FTP command to send.
+     * @param args    The arguments to the FTP command. If this parameter is set to null, then the command is sent with no argument.
+     * @throws FTPConnectionClosedException If the FTP server prematurely closes the connection.
+     * @throws IOException                  If an I/O error occurs while sending the command.
+     * @since 3.14.0
+     */
+    protected void sendCommandNoReply(final FTPCmd command, final String args) throws IOException {
+        checkCRLF(command.getCommand(), args);
+        if (_controlOutput_ == null) {
+            throw new IOException("Connection is not open");
+        }
+        final String message = buildMessage(command.getCommand(), args);
+        send(message);
+        fireCommandSent(command.getCommand(), message);
+    }
+
     /**
      * Sets the character encoding to be used by the FTP control connection. Some FTP servers require that commands be issued in a non-ASCII encoding like
      * UTF-8 so that file names with multi-byte character representations (e.g, Big 8) can be specified.
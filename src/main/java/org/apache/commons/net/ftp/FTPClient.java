@@ -18,13 +18,17 @@ package org.apache.commons.net.ftp;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -38,6 +42,7 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -46,8 +51,10 @@ import java.util.Locale;
 import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.Deflater;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.net.MalformedServerReplyException;
@@ -56,6 +63,7 @@ import org.apache.commons.net.ftp.parser.FTPFileEntryParserFactory;
 import org.apache.commons.net.ftp.parser.MLSxEntryParser;
 import org.apache.commons.net.io.CRLFLineReader;
 import org.apache.commons.net.io.CopyStreamAdapter;
+import org.apache.commons.net.io.CopyStreamDigest;
 import org.apache.commons.net.io.CopyStreamEvent;
 import org.apache.commons.net.io.CopyStreamListener;
 import org.apache.commons.net.io.FromNetASCIIInputStream;
@@ -251,7 +259,7 @@ import org.apache.commons.net.util.NetConstants;
  * <p>
  * The implementation currently uses a {@link CopyStreamListener} which is passed to the
  * {@link Util#copyStream(InputStream, OutputStream, int, long, CopyStreamListener, boolean)} method, so the timing is partially dependent on how long each
- * block transfer takes.
+ * block transfer takes. The idle time is only checked every 64 KiB copied, so on a very slow connection the NOOP may be sent somewhat later.
  * </p>
  * <p>
  * <strong>This keep-alive feature is optional; if it does not help or causes problems then don't use it.</strong>
@@ -271,6 +279,9 @@ public class FTPClient extends FTP implements Configurable {
 
     private static final class CSL implements CopyStreamListener {
 
+        /** The number of bytes copied between checks of the idle time, so that the clock is not read for every buffer. */
+        private static final long SAMPLE_BYTES = 64 * 1024;
+
         private final FTPClient parent;
         private final long idleMillis;
         private final int currentSoTimeoutMillis;
@@ -324,6 +335,17 @@ public class FTPClient extends FTP implements Configurable {
             return new int[] { acksAcked, remain, notAcked, ioErrors }; // debug counts
         }
 
+        /**
+         * Gets this listener behind an adapter which only notifies it every {@link #SAMPLE_BYTES} bytes copied.
+         *
+         * @return The sampling adapter.
+         */
+        CopyStreamListener sampled() {
+            final CopyStreamAdapter adapter = new CopyStreamAdapter(SAMPLE_BYTES, null);
+            adapter.addCopyStreamListener(this);
+            return adapter;
+        }
+
     }
 
     /**
@@ -446,6 +468,12 @@ public class FTPClient extends FTP implements Configurable {
      */
     public static final int PASSIVE_REMOTE_DATA_CONNECTION_MODE = 3;
 
+    /** Number of bytes of an upload compressed to decide whether to deflate it. */
+    private static final int DEFLATE_SAMPLE_SIZE = 64 * 1024;
+
+    /** How long a prefetched data connection is used for, after which the server may have given up waiting for the transfer. */
+    private static final long PREFETCH_MAX_IDLE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
     /** Pattern for PASV mode responses. Groups: (n,n,n,n),(n),(n) */
     private static final Pattern PARMS_PAT = Pattern.compile("(\\d{1,3},\\d{1,3},\\d{1,3},\\d{1,3}),(\\d{1,3}),(\\d{1,3})");
 
@@ -453,6 +481,13 @@ public class FTPClient extends FTP implements Configurable {
         return PropertiesSingleton.PROPERTIES;
     }
 
+    /**
+     * Tests whether a listing has entries which the parser recognized as files.
+     */
+    private static boolean hasValidFiles(final FTPListParseEngine engine) throws IOException {
+        return engine.getFiles(file -> file != null && file.isValid()).length > 0;
+    }
+
     static Properties loadResourceProperties(final String systemTypeProperties) {
         Properties properties = null;
         if (systemTypeProperties != null) {
@@ -537,6 +572,47 @@ public class FTPClient extends FTP implements Configurable {
     private int fileStructure;
     private int fileTransferMode;
 
+    /** Whether MODE Z was suspended for the last upload and must be restored before the next data connection. */
+    private boolean deflateSuspended;
+
+    /** Compression level for {@link FTP#DEFLATE_TRANSFER_MODE}. */
+    private int deflateLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /** Compression strategy for {@link FTP#DEFLATE_TRANSFER_MODE}. */
+    private int deflateStrategy = Deflater.DEFAULT_STRATEGY;
+
+    /** Buffer size of the deflate streams, zero or negative to use the default. */
+    private int deflateBufferSize;
+
+    /** Largest compressed to original size ratio of a sample for an upload to be deflated, zero or negative to always deflate. */
+    private double deflateMaxRatio;
+
+    private final DeflatePool deflatePool = new DeflatePool();
+
+    /** Whether to keep the listening socket of active mode data connections open between transfers. */
+    private boolean activeListenerReuseEnabled;
+
+    /** The listening socket kept open between active mode transfers. */
+    private ServerSocket activeListener;
+
+    /** The data connection kept open between transfers in {@link FTP#BLOCK_TRANSFER_MODE}. */
+    private BlockModeSocket blockModeSocket;
+
+    /** Whether to set up the next passive data connection while the completion reply of a transfer is outstanding. */
+    private boolean dataConnectionPrefetchEnabled;
+
+    /** The command which last opened a passive data connection, EPSV or PASV. */
+    private FTPCmd passiveCommand;
+
+    /** Whether {@link #completePendingCommand()} is to prefetch the next passive data connection. */
+    private boolean prefetchPending;
+
+    /** A passive data connection connected ahead of the next transfer. */
+    private Socket prefetchedDataSocket;
+
+    /** When {@link #prefetchedDataSocket} was connected, from {@link System#nanoTime()}. */
+    private long prefetchedNanos;
+
     private boolean remoteVerificationEnabled = true;
 
     private long restartOffset;
@@ -548,12 +624,23 @@ public class FTPClient extends FTP implements Configurable {
      */
     private int bufferSize;
 
+    /**
+     * Sizes the data buffers which are not set explicitly, {@code null} if disabled.
+     */
+    private BufferSizeTuner bufferSizeTuner;
+
     private int sendDataSocketBufferSize;
 
     private int receiveDataSocketBufferSize;
 
     private boolean listHiddenFiles;
 
+    /** Whether to list directories with STAT over the control connection when the server supports it. */
+    private boolean statusListingEnabled;
+
+    /** Whether the server has been seen to list directories in reply to STAT, {@code null} until known. */
+    private Boolean statusListingSupported;
+
     /**
      * Whether to attempt EPSV with an IPv4 connection.
      */
@@ -581,6 +668,11 @@ public class FTPClient extends FTP implements Configurable {
      */
     private CopyStreamListener copyStreamListener;
 
+    /**
+     * Digest updated by store/retrieve methods with the bytes transferred.
+     */
+    private CopyStreamDigest transferDigest;
+
     /**
      * How long to wait before sending another control keep-alive message.
      */
@@ -711,13 +803,35 @@ public class FTPClient extends FTP implements Configurable {
         if (dataConnectionMode != ACTIVE_LOCAL_DATA_CONNECTION_MODE && dataConnectionMode != PASSIVE_LOCAL_DATA_CONNECTION_MODE) {
             return null;
         }
+        measureRoundTrip();
+        prefetchPending = false;
+        if (deflateSuspended) {
+            deflateSuspended = false;
+            if (FTPReply.isPositiveCompletion(mode(DEFLATE_TRANSFER_MODE))) {
+                fileTransferMode = DEFLATE_TRANSFER_MODE;
+            }
+        }
+        if (blockModeSocket != null) {
+            if (fileTransferMode == BLOCK_TRANSFER_MODE && blockModeSocket.isReusable()) {
+                // in block mode the server keeps the data connection open between transfers
+                if (restartOffset > 0 && !restart(restartOffset) || !FTPReply.isPositivePreliminary(sendCommand(command, arg))) {
+                    return null;
+                }
+                return blockModeSocket;
+            }
+            closeBlockModeSocket();
+        }
         final boolean isInet6Address = getRemoteAddress() instanceof Inet6Address;
         final Socket socket;
         final int soTimeoutMillis = DurationUtils.toMillisInt(dataTimeout);
         if (dataConnectionMode == ACTIVE_LOCAL_DATA_CONNECTION_MODE) {
+            closePrefetchedDataSocket();
             // if no activePortRange was set (correctly) -> getActivePort() = 0
             // -> new ServerSocket(0) -> bind to any free local port
-            try (ServerSocket server = _serverSocketFactory_.createServerSocket(getActivePort(), 1, getHostAddress())) {
+            final ServerSocket server = activeListenerReuseEnabled ? getActiveListener()
+                    : _serverSocketFactory_.createServerSocket(getActivePort(), 1, getHostAddress());
+            boolean accepted = false;
+            try {
                 // Try EPRT only if remote server is over IPv6, if not use PORT,
                 // because EPRT has no advantage over PORT on IPv4.
                 // It could even have the disadvantage,
@@ -742,59 +856,66 @@ public class FTPClient extends FTP implements Configurable {
                 if (soTimeoutMillis >= 0) {
                     server.setSoTimeout(soTimeoutMillis);
                 }
-                socket = wrapOnDeflate(server.accept());
+                final int receiveBufferSize = dataSocketBufferSize(receiveDataSocketBufferSize);
+                if (receiveBufferSize > 0) {
+                    // the accepted socket inherits the window scaling negotiated with this size
+                    server.setReceiveBufferSize(receiveBufferSize);
+                }
+                socket = wrapDataSocket(server.accept());
+                accepted = true;
                 // Ensure the timeout is set before any commands are issued on the new socket
                 if (soTimeoutMillis >= 0) {
                     socket.setSoTimeout(soTimeoutMillis);
                 }
-                if (receiveDataSocketBufferSize > 0) {
-                    socket.setReceiveBufferSize(receiveDataSocketBufferSize);
+                if (receiveBufferSize > 0) {
+                    socket.setReceiveBufferSize(receiveBufferSize);
                 }
-                if (sendDataSocketBufferSize > 0) {
-                    socket.setSendBufferSize(sendDataSocketBufferSize);
+                final int sendBufferSize = dataSocketBufferSize(sendDataSocketBufferSize);
+                if (sendBufferSize > 0) {
+                    socket.setSendBufferSize(sendBufferSize);
+                }
+            } finally {
+                // A listener is only kept once it accepted the connection for its command,
+                // so that a late connection for a failed command is never taken for the next one.
+                if (!accepted || !activeListenerReuseEnabled) {
+                    if (server == activeListener) {
+                        activeListener = null;
+                    }
+                    server.close();
                 }
             }
         } else {
             // We must be in PASSIVE_LOCAL_DATA_CONNECTION_MODE
-            // Try EPSV command first on IPv6 - and IPv4 if enabled.
-            // When using IPv4 with NAT it has the advantage
-            // to work with more rare configurations.
-            // E.g. if FTP server has a static PASV address (external network)
-            // and the client is coming from another internal network.
-            // In that case the data connection after PASV command would fail,
-            // while EPSV would make the client succeed by taking just the port.
-            final boolean attemptEPSV = isUseEPSVwithIPv4() || isInet6Address;
-            if (attemptEPSV && epsv() == FTPReply.ENTERING_EPSV_MODE) {
-                _parseExtendedPassiveModeReply(_replyLines.get(0));
-            } else {
-                // If EPSV failed on IPV4, revert to PASV
-                if (isInet6Address || pasv() != FTPReply.ENTERING_PASSIVE_MODE) {
-                    return null;
-                }
-                _parsePassiveModeReply(_replyLines.get(0));
-            }
-            socket = wrapOnDeflate(_socketFactory_.createSocket());
-            if (receiveDataSocketBufferSize > 0) {
-                socket.setReceiveBufferSize(receiveDataSocketBufferSize);
-            }
-            if (sendDataSocketBufferSize > 0) {
-                socket.setSendBufferSize(sendDataSocketBufferSize);
+            closeActiveListener();
+            // connected while the completion reply of the previous transfer was outstanding
+            final Socket prefetched = prefetchedDataSocket;
+            prefetchedDataSocket = null;
+            if (prefetched != null && System.nanoTime() - prefetchedNanos > PREFETCH_MAX_IDLE_NANOS) {
+                IOUtils.closeQuietly(prefetched);
             }
-            if (passiveLocalHost != null) {
-                socket.bind(new InetSocketAddress(passiveLocalHost, 0));
+            final boolean usePrefetched = prefetched != null && !prefetched.isClosed();
+            Socket passive = usePrefetched ? wrapDataSocket(prefetched) : openPassiveDataSocket(isInet6Address);
+            if (passive == null) {
+                return null;
             }
-            // For now, let's just use the data timeout value for waiting for
-            // the data connection. It may be desirable to let this be a
-            // separately configurable value. In any case, we really want
-            // to allow preventing the accept from blocking indefinitely.
-            if (soTimeoutMillis >= 0) {
-                socket.setSoTimeout(soTimeoutMillis);
+            boolean started = (restartOffset <= 0 || restart(restartOffset)) && FTPReply.isPositivePreliminary(sendCommand(command, arg));
+            if (!started && usePrefetched
+                    && (getReplyCode() == FTPReply.CANNOT_OPEN_DATA_CONNECTION || getReplyCode() == FTPReply.TRANSFER_ABORTED)) {
+                // the server discarded the prefetched connection, so set up a fresh one
+                passive.close();
+                passive = openPassiveDataSocket(isInet6Address);
+                if (passive == null) {
+                    return null;
+                }
+                started = (restartOffset <= 0 || restart(restartOffset)) && FTPReply.isPositivePreliminary(sendCommand(command, arg));
             }
-            socket.connect(new InetSocketAddress(passiveHost, passivePort), connectTimeout);
-            if (restartOffset > 0 && !restart(restartOffset) || !FTPReply.isPositivePreliminary(sendCommand(command, arg))) {
-                socket.close();
+            if (!started) {
+                passive.close();
                 return null;
             }
+            socket = passive;
+            // a block mode connection is kept open for the next transfer anyway
+            prefetchPending = dataConnectionPrefetchEnabled && fileTransferMode != BLOCK_TRANSFER_MODE;
         }
         if (remoteVerificationEnabled && !verifyRemote(socket)) {
             // Grab the host before we close the socket to avoid NET-663
@@ -803,6 +924,9 @@ public class FTPClient extends FTP implements Configurable {
             IOUtils.closeQuietly(socket);
             throw new IOException("Host attempting data connection " + socketHostAddress + " is not same as server " + remoteHostAddress);
         }
+        if (socket instanceof BlockModeSocket) {
+            blockModeSocket = (BlockModeSocket) socket;
+        }
         return socket;
     }
 
@@ -903,8 +1027,13 @@ public class FTPClient extends FTP implements Configurable {
                 if (DurationUtils.isPositive(controlKeepAliveTimeout)) {
                     csl = new CSL(this, controlKeepAliveTimeout, controlKeepAliveReplyTimeout);
                 }
+                if (transferDigest != null) {
+                    transferDigest.reset();
+                }
                 // Treat everything else as binary for now
-                Util.copyStream(input, local, getBufferSize(), CopyStreamEvent.UNKNOWN_STREAM_SIZE, mergeListeners(csl), false);
+                final long startNanos = System.nanoTime();
+                recordTransfer(Util.copyStream(input, local, copyBufferSize(), CopyStreamEvent.UNKNOWN_STREAM_SIZE, mergeListeners(csl), false, transferDigest),
+                        startNanos);
             } finally {
                 IOUtils.closeQuietly(input);
             }
@@ -945,6 +1074,10 @@ public class FTPClient extends FTP implements Configurable {
         } else {
             input = socket.getInputStream();
         }
+        if (transferDigest != null) {
+            transferDigest.reset();
+            return new org.apache.commons.net.io.SocketInputStream(socket, transferDigest.newInputStream(input));
+        }
         return new org.apache.commons.net.io.SocketInputStream(socket, input);
     }
 
@@ -959,6 +1092,25 @@ public class FTPClient extends FTP implements Configurable {
      * @since 3.1
      */
     protected boolean _storeFile(final String command, final String remote, final InputStream local) throws IOException {
+        if (fileTransferMode != DEFLATE_TRANSFER_MODE || deflateMaxRatio <= 0) {
+            return storeFileData(command, remote, local);
+        }
+        final byte[] sample = new byte[DEFLATE_SAMPLE_SIZE];
+        final int sampleLength = IOUtils.read(local, sample);
+        final InputStream input = new SequenceInputStream(new ByteArrayInputStream(sample, 0, sampleLength), local);
+        if (isDeflatable(sample, sampleLength) || !FTPReply.isPositiveCompletion(mode(STREAM_TRANSFER_MODE))) {
+            return storeFileData(command, remote, input);
+        }
+        // incompressible: send this file in stream mode, MODE Z is restored before the next data connection
+        fileTransferMode = STREAM_TRANSFER_MODE;
+        try {
+            return storeFileData(command, remote, input);
+        } finally {
+            deflateSuspended = true;
+        }
+    }
+
+    private boolean storeFileData(final String command, final String remote, final InputStream local) throws IOException {
         final Socket socket = _openDataConnection_(command, remote);
         if (socket == null) {
             return false;
@@ -974,9 +1126,15 @@ public class FTPClient extends FTP implements Configurable {
             if (DurationUtils.isPositive(controlKeepAliveTimeout)) {
                 csl = new CSL(this, controlKeepAliveTimeout, controlKeepAliveReplyTimeout);
             }
+            if (transferDigest != null) {
+                transferDigest.reset();
+            }
             // Treat everything else as binary for now
-            Util.copyStream(local, output, getBufferSize(), CopyStreamEvent.UNKNOWN_STREAM_SIZE, mergeListeners(csl), false);
+            final long startNanos = System.nanoTime();
+            final long bytes = Util.copyStream(local, output, copyBufferSize(), CopyStreamEvent.UNKNOWN_STREAM_SIZE, mergeListeners(csl), false,
+                    transferDigest);
             output.close(); // ensure the file is fully written
+            recordTransfer(bytes, startNanos);
             socket.close(); // done writing the file
             // Get the transfer response
             return completePendingCommand();
@@ -1005,20 +1163,7 @@ public class FTPClient extends FTP implements Configurable {
         if (socket == null) {
             return null;
         }
-        final OutputStream output;
-        if (fileType == ASCII_FILE_TYPE) {
-            // We buffer ASCII transfers because the buffering has to
-            // be interposed between ToNetASCIIOutputSream and the underlying
-            // socket output stream. We don't buffer binary transfers
-            // because we don't want to impose a buffering policy on the
-            // programmer if possible. Programmers can decide on their
-            // own if they want to wrap the SocketOutputStream we return
-            // for file types other than ASCII.
-            output = new ToNetASCIIOutputStream(getBufferedOutputStream(socket.getOutputStream()));
-        } else {
-            output = socket.getOutputStream();
-        }
-        return new SocketOutputStream(socket, output);
+        return newStoreStream(socket);
     }
 
     /**
@@ -1162,6 +1307,31 @@ public class FTPClient extends FTP implements Configurable {
         return FTPReply.isPositiveCompletion(cwd(path));
     }
 
+    private void closeActiveListener() {
+        if (activeListener != null) {
+            IOUtils.closeQuietly(activeListener);
+            activeListener = null;
+        }
+    }
+
+    private void closeBlockModeSocket() {
+        if (blockModeSocket != null) {
+            try {
+                blockModeSocket.closeConnection();
+            } catch (final IOException e) {
+                // ignored, the connection is being discarded
+            }
+            blockModeSocket = null;
+        }
+    }
+
+    private void closePrefetchedDataSocket() {
+        if (prefetchedDataSocket != null) {
+            IOUtils.closeQuietly(prefetchedDataSocket);
+            prefetchedDataSocket = null;
+        }
+    }
+
     /**
      * There are a few FTPClient methods that do not complete the entire sequence of FTP commands to complete a transaction. These commands require some action
      * by the programmer after the reception of a positive intermediate command. After the programmer's code completes its actions, it must call this method to
@@ -1200,11 +1370,50 @@ public class FTPClient extends FTP implements Configurable {
      *                                      causing the server to send FTP reply code 421. This exception may be caught either as an IOException or
      *                                      independently as itself.
      * @throws IOException                  If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @see #setDataConnectionPrefetchEnabled(boolean)
      */
     public boolean completePendingCommand() throws IOException {
+        if (prefetchPending) {
+            prefetchPending = false;
+            return completePendingCommandWithPrefetch();
+        }
         return FTPReply.isPositiveCompletion(getReply());
     }
 
+    /**
+     * Sends the passive command for the next transfer before reading the completion reply of the current one, and connects the data connection, so that the
+     * next transfer saves the round trips. The completion reply remains the last reply.
+     */
+    private boolean completePendingCommandWithPrefetch() throws IOException {
+        closePrefetchedDataSocket();
+        sendCommandNoReply(passiveCommand, null);
+        final boolean success = FTPReply.isPositiveCompletion(getReply());
+        final int replyCode = _replyCode;
+        final List<String> replyLines = new ArrayList<>(_replyLines);
+        try {
+            final int passiveReplyCode = getReply();
+            if (passiveCommand == FTPCmd.EPSV ? passiveReplyCode == FTPReply.ENTERING_EPSV_MODE : passiveReplyCode == FTPReply.ENTERING_PASSIVE_MODE) {
+                try {
+                    if (passiveCommand == FTPCmd.EPSV) {
+                        _parseExtendedPassiveModeReply(_replyLines.get(0));
+                    } else {
+                        _parsePassiveModeReply(_replyLines.get(0));
+                    }
+                    prefetchedDataSocket = connectPassiveDataSocket();
+                    prefetchedNanos = System.nanoTime();
+                } catch (final IOException e) {
+                    // the next transfer opens its own data connection
+                }
+            }
+        } finally {
+            _replyCode = replyCode;
+            _replyLines.clear();
+            _replyLines.addAll(replyLines);
+            _newReplyString = true;
+        }
+        return success;
+    }
+
     /**
      * Implements the {@link Configurable} interface. In the case of this class, configuring merely makes the config object available for the factory methods
      * that construct parsers.
@@ -1217,6 +1426,51 @@ public class FTPClient extends FTP implements Configurable {
         this.ftpClientConfig = ftpClientConfig;
     }
 
+    /**
+     * Connects a data socket to the passive host and port of the last EPSV or PASV reply.
+     */
+    private Socket connectPassiveDataSocket() throws IOException {
+        final Socket socket = _socketFactory_.createSocket();
+        try {
+            final int receiveBufferSize = dataSocketBufferSize(receiveDataSocketBufferSize);
+            if (receiveBufferSize > 0) {
+                socket.setReceiveBufferSize(receiveBufferSize);
+            }
+            final int sendBufferSize = dataSocketBufferSize(sendDataSocketBufferSize);
+            if (sendBufferSize > 0) {
+                socket.setSendBufferSize(sendBufferSize);
+            }
+            if (passiveLocalHost != null) {
+                socket.bind(new InetSocketAddress(passiveLocalHost, 0));
+            }
+            // For now, let's just use the data timeout value for waiting for
+            // the data connection. It may be desirable to let this be a
+            // separately configurable value. In any case, we really want
+            // to allow preventing the accept from blocking indefinitely.
+            final int soTimeoutMillis = DurationUtils.toMillisInt(dataTimeout);
+            if (soTimeoutMillis >= 0) {
+                socket.setSoTimeout(soTimeoutMillis);
+            }
+            socket.connect(new InetSocketAddress(passiveHost, passivePort), connectTimeout);
+        } catch (final IOException e) {
+            IOUtils.closeQuietly(socket);
+            throw e;
+        }
+        return socket;
+    }
+
+    /**
+     * Gets the size of the copy buffer and of the buffered data streams: the one set, else the one of the {@link #getBufferSizeTuner() tuner}.
+     *
+     * @return The buffer size, or 0 to use the default.
+     */
+    private int copyBufferSize() {
+        if (bufferSize > 0 || bufferSizeTuner == null) {
+            return bufferSize;
+        }
+        return bufferSizeTuner.getCopyBufferSize(getRemoteAddress().getHostAddress());
+    }
+
     // package access for test purposes
     void createParser(final String parserKey) throws IOException {
         // We cache the value to avoid creation of a new object every
@@ -1249,6 +1503,19 @@ public class FTPClient extends FTP implements Configurable {
         }
     }
 
+    /**
+     * Gets the socket buffer size of a data connection: the one set, else the one of the {@link #getBufferSizeTuner() tuner}.
+     *
+     * @param configured The buffer size set, 0 if none.
+     * @return The buffer size, or 0 to use the system default.
+     */
+    int dataSocketBufferSize(final int configured) {
+        if (configured > 0 || bufferSizeTuner == null) {
+            return configured;
+        }
+        return bufferSizeTuner.getSocketBufferSize(getRemoteAddress().getHostAddress());
+    }
+
     /**
      * Deletes a file on the FTP server.
      *
@@ -1272,6 +1539,10 @@ public class FTPClient extends FTP implements Configurable {
     public void disconnect() throws IOException {
         super.disconnect();
         initDefaults();
+        deflatePool.clear();
+        closeBlockModeSocket();
+        closePrefetchedDataSocket();
+        closeActiveListener();
     }
 
     /**
@@ -1445,6 +1716,20 @@ public class FTPClient extends FTP implements Configurable {
         return null;
     }
 
+    /**
+     * Gets the listening socket kept open between active mode transfers, creating it if needed.
+     */
+    private ServerSocket getActiveListener() throws IOException {
+        final InetAddress hostAddress = getHostAddress();
+        if (activeListener != null && (activeListener.isClosed() || !hostAddress.equals(activeListener.getInetAddress()))) {
+            closeActiveListener();
+        }
+        if (activeListener == null) {
+            activeListener = _serverSocketFactory_.createServerSocket(getActivePort(), 1, hostAddress);
+        }
+        return activeListener;
+    }
+
     /**
      * Gets the client port for active mode.
      *
@@ -1472,6 +1757,7 @@ public class FTPClient extends FTP implements Configurable {
     }
 
     private InputStream getBufferedInputStream(final InputStream inputStream) {
+        final int bufferSize = copyBufferSize();
         if (bufferSize > 0) {
             return new BufferedInputStream(inputStream, bufferSize);
         }
@@ -1479,6 +1765,7 @@ public class FTPClient extends FTP implements Configurable {
     }
 
     private OutputStream getBufferedOutputStream(final OutputStream outputStream) {
+        final int bufferSize = copyBufferSize();
         if (bufferSize > 0) {
             return new BufferedOutputStream(outputStream, bufferSize);
         }
@@ -1494,6 +1781,27 @@ public class FTPClient extends FTP implements Configurable {
         return bufferSize;
     }
 
+    /**
+     * Gets the tuner which sizes the data buffers that are not set explicitly.
+     *
+     * @return The tuner, or {@code null} if disabled.
+     * @since 3.14.0
+     */
+    public BufferSizeTuner getBufferSizeTuner() {
+        return bufferSizeTuner;
+    }
+
+    /**
+     * Gets the last restart marker received from the server during the current or last download in {@link FTP#BLOCK_TRANSFER_MODE}. If the download is
+     * interrupted, it can be resumed by sending the marker with {@link #rest(String)} before the next {@code RETR}.
+     *
+     * @return The restart marker, or {@code null} if none was received.
+     * @since 3.14.0
+     */
+    public String getBlockRestartMarker() {
+        return blockModeSocket != null ? blockModeSocket.getRestartMarker() : null;
+    }
+
     /**
      * Gets how long to wait for control keep-alive message replies.
      *
@@ -1600,11 +1908,141 @@ public class FTPClient extends FTP implements Configurable {
         return dataTimeout;
     }
 
+    /**
+     * Gets the buffer size of the deflate streams used in {@link FTP#DEFLATE_TRANSFER_MODE}.
+     *
+     * @return The buffer size, zero or negative for the default.
+     * @since 3.14.0
+     */
+    public int getDeflateBufferSize() {
+        return deflateBufferSize;
+    }
+
+    /**
+     * Gets the compression level used in {@link FTP#DEFLATE_TRANSFER_MODE}.
+     *
+     * @return The compression level, see {@link Deflater#setLevel(int)}.
+     * @since 3.14.0
+     */
+    public int getDeflateLevel() {
+        return deflateLevel;
+    }
+
+    /**
+     * Gets the largest compressed to original size ratio of a sample for an upload to be deflated.
+     *
+     * @return The ratio, zero or negative if uploads are always deflated.
+     * @see #setDeflateMaxRatio(double)
+     * @since 3.14.0
+     */
+    public double getDeflateMaxRatio() {
+        return deflateMaxRatio;
+    }
+
+    /**
+     * Gets the compression strategy used in {@link FTP#DEFLATE_TRANSFER_MODE}.
+     *
+     * @return The compression strategy, see {@link Deflater#setStrategy(int)}.
+     * @since 3.14.0
+     */
+    public int getDeflateStrategy() {
+        return deflateStrategy;
+    }
+
     // Method for use by unit test code only
     FTPFileEntryParser getEntryParser() {
         return entryParser;
     }
 
+    /**
+     * Gets the hash of a remote file computed by the server with the {@code HASH} command, using the algorithm selected by
+     * {@link #setHashAlgorithm(String)} or the server default.
+     *
+     * @param path The path of the remote file.
+     * @return The hash, or {@code null} if the command failed. Check {@link #getReplyCode()} or {@link #getReplyString()} if so.
+     * @throws MalformedServerReplyException If the reply cannot be parsed.
+     * @throws IOException                   If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @see <a href="https://datatracker.ietf.org/doc/html/draft-bryan-ftpext-hash-02">draft-bryan-ftpext-hash</a>
+     * @since 3.14.0
+     */
+    public FTPFileHash getHash(final String path) throws IOException {
+        return getHash(FTPCmd.HASH, path);
+    }
+
+    /**
+     * Gets the hash of a remote file computed by the server with one of the {@code HASH}, {@code XCRC}, {@code XMD5}, {@code XSHA1} or {@code XSHA256}
+     * commands. Use {@link #getHashCommand()} to find one which the server supports.
+     *
+     * @param command The hash command.
+     * @param path    The path of the remote file.
+     * @return The hash, or {@code null} if the command failed. Check {@link #getReplyCode()} or {@link #getReplyString()} if so.
+     * @throws IllegalArgumentException      If the command is not a hash command.
+     * @throws MalformedServerReplyException If the reply cannot be parsed.
+     * @throws IOException                   If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @since 3.14.0
+     */
+    public FTPFileHash getHash(final FTPCmd command, final String path) throws IOException {
+        if (command != FTPCmd.HASH && FTPFileHash.getAlgorithm(command) == null) {
+            throw new IllegalArgumentException("Not a hash command: " + command);
+        }
+        if (FTPReply.isPositiveCompletion(sendCommand(command, path))) {
+            return FTPFileHash.parse(command, path, getReplyString(0).substring(4)); // skip the return code and the space
+        }
+        return null;
+    }
+
+    /**
+     * Gets the hash of part of a remote file computed by the server, by sending {@code RANG} followed by {@code HASH}.
+     *
+     * @param path  The path of the remote file.
+     * @param start The first byte to hash.
+     * @param end   The last byte to hash, inclusive.
+     * @return The hash, or {@code null} if either command failed. Check {@link #getReplyCode()} or {@link #getReplyString()} if so.
+     * @throws MalformedServerReplyException If the reply cannot be parsed.
+     * @throws IOException                   If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @see <a href="https://datatracker.ietf.org/doc/html/draft-bryan-ftp-range-08">draft-bryan-ftp-range</a>
+     * @since 3.14.0
+     */
+    public FTPFileHash getHash(final String path, final long start, final long end) throws IOException {
+        if (!FTPReply.isPositiveIntermediate(rang(start, end))) {
+            return null;
+        }
+        return getHash(path);
+    }
+
+    /**
+     * Gets the hash algorithms the server supports for the {@code HASH} command, from its {@code FEAT} reply.
+     *
+     * @return The algorithm names, for example {@code "SHA-256"}, or {@code null} if the server does not support {@code HASH}.
+     * @throws IOException on error
+     * @since 3.14.0
+     */
+    public String[] getHashAlgorithms() throws IOException {
+        final String value = featureValue(FTPCmd.HASH.getCommand());
+        if (value == null) {
+            return null;
+        }
+        // the currently selected algorithm is marked with a trailing '*'
+        return Arrays.stream(value.split(";")).map(s -> s.trim().replace("*", "")).filter(s -> !s.isEmpty()).toArray(String[]::new);
+    }
+
+    /**
+     * Gets the preferred hash command supported by the server according to its {@code FEAT} reply: {@code HASH}, then {@code XSHA256}, {@code XSHA1},
+     * {@code XMD5} and {@code XCRC}.
+     *
+     * @return The hash command, or {@code null} if the server advertises none.
+     * @throws IOException on error
+     * @since 3.14.0
+     */
+    public FTPCmd getHashCommand() throws IOException {
+        for (final FTPCmd command : new FTPCmd[] { FTPCmd.HASH, FTPCmd.XSHA256, FTPCmd.XSHA1, FTPCmd.XMD5, FTPCmd.XCRC }) {
+            if (hasFeature(command)) {
+                return command;
+            }
+        }
+        return null;
+    }
+
     /**
      * Gets the host address for active mode; allows the local address to be overridden.
      *
@@ -1881,6 +2319,17 @@ public class FTPClient extends FTP implements Configurable {
         return systemType;
     }
 
+    /**
+     * Gets the digest updated with the bytes of each file transfer.
+     *
+     * @return The digest, may be {@code null}
+     * @see #setTransferDigest(CopyStreamDigest)
+     * @since 3.14.0
+     */
+    public CopyStreamDigest getTransferDigest() {
+        return transferDigest;
+    }
+
     /**
      * Queries the server for a supported feature. Caches the parsed response to avoid resending the command repeatedly.
      *
@@ -1947,11 +2396,14 @@ public class FTPClient extends FTP implements Configurable {
         fileStructure = FILE_STRUCTURE;
         formatOrByteSize = NON_PRINT_TEXT_FORMAT;
         fileTransferMode = STREAM_TRANSFER_MODE;
+        deflateSuspended = false;
+        prefetchPending = false;
         restartOffset = 0;
         systemName = null;
         entryParser = null;
         entryParserKey = "";
         featuresMap = null;
+        statusListingSupported = null;
     }
 
     /*
@@ -2026,6 +2478,13 @@ public class FTPClient extends FTP implements Configurable {
      * @see FTPListParseEngine
      */
     private FTPListParseEngine initiateListParsing(final FTPFileEntryParser parser, final String path) throws IOException {
+        final boolean statusProbed = statusListingEnabled && statusListingSupported == null;
+        if (statusListingEnabled && !Boolean.FALSE.equals(statusListingSupported)) {
+            final FTPListParseEngine engine = initiateStatusListParsing(parser, path);
+            if (engine != null) {
+                return engine;
+            }
+        }
         final Socket socket = _openDataConnection_(FTPCmd.LIST, getListArguments(path));
         final FTPListParseEngine engine = new FTPListParseEngine(parser, ftpClientConfig);
         if (socket == null) {
@@ -2037,6 +2496,10 @@ public class FTPClient extends FTP implements Configurable {
             IOUtils.closeQuietly(socket);
         }
         completePendingCommand();
+        if (statusProbed && statusListingSupported == null && hasValidFiles(engine)) {
+            // STAT did not list what LIST does
+            statusListingSupported = Boolean.FALSE;
+        }
         return engine;
     }
 
@@ -2156,6 +2619,76 @@ public class FTPClient extends FTP implements Configurable {
         return engine;
     }
 
+    /**
+     * Lists a directory with STAT, from the lines of the reply between its first and last lines.
+     *
+     * @return The listing, or null if it is to be listed with LIST.
+     */
+    private FTPListParseEngine initiateStatusListParsing(final FTPFileEntryParser parser, final String path) throws IOException {
+        // STAT without an argument reports the status of the server
+        final int replyCode = stat(getListArguments(path != null ? path : "."));
+        final FTPListParseEngine engine = new FTPListParseEngine(parser, ftpClientConfig);
+        if (!FTPReply.isPositiveCompletion(replyCode)) {
+            switch (replyCode) {
+            case FTPReply.UNRECOGNIZED_COMMAND:
+            case FTPReply.SYNTAX_ERROR_IN_ARGUMENTS:
+            case FTPReply.COMMAND_NOT_IMPLEMENTED:
+            case FTPReply.COMMAND_NOT_IMPLEMENTED_FOR_PARAMETER:
+                statusListingSupported = Boolean.FALSE;
+                return null;
+            default:
+                // a missing directory, as LIST would report it, once STAT is known to list
+                return Boolean.TRUE.equals(statusListingSupported) && FTPReply.isNegativePermanent(replyCode) ? engine : null;
+            }
+        }
+        final String[] lines = getReplyStrings();
+        final String prefix = replyCode + "-";
+        final StringBuilder listing = new StringBuilder();
+        for (int i = 1; i < lines.length - 1; i++) {
+            final String line = lines[i];
+            if (line.startsWith(prefix)) {
+                listing.append(line, prefix.length(), line.length());
+            } else if (line.startsWith(" ")) {
+                // lines starting with a digit are indented, as they could be taken for the last line
+                listing.append(line, 1, line.length());
+            } else {
+                listing.append(line);
+            }
+            listing.append('\n');
+        }
+        engine.readServerList(new BufferedReader(new StringReader(listing.toString())));
+        if (!Boolean.TRUE.equals(statusListingSupported)) {
+            // an empty listing cannot be told from a status which is not a listing
+            if (!hasValidFiles(engine)) {
+                return null;
+            }
+            statusListingSupported = Boolean.TRUE;
+        }
+        return engine;
+    }
+
+    /**
+     * Tests whether a sample of an upload compresses well enough to be worth deflating.
+     */
+    private boolean isDeflatable(final byte[] sample, final int length) {
+        if (length <= 0) {
+            return true;
+        }
+        final Deflater deflater = deflatePool.getDeflater(deflateLevel, deflateStrategy);
+        try {
+            deflater.setInput(sample, 0, length);
+            deflater.finish();
+            final byte[] buffer = new byte[Util.DEFAULT_COPY_BUFFER_SIZE];
+            long compressed = 0;
+            while (!deflater.finished()) {
+                compressed += deflater.deflate(buffer);
+            }
+            return compressed <= length * deflateMaxRatio;
+        } finally {
+            deflatePool.release(deflater);
+        }
+    }
+
     /**
      * Tests whether the IP address from the server's response should be used. Until 3.9.0, this has always been the case. Beginning with 3.9.0, that IP
      * address will be silently ignored, and replaced with the remote IP address of the control connection, unless this configuration option is given, which
@@ -2170,6 +2703,28 @@ public class FTPClient extends FTP implements Configurable {
         return ipAddressFromPasvResponse;
     }
 
+    /**
+     * Tests whether the listening socket of active mode data connections is kept open between transfers.
+     *
+     * @return true if the listening socket is reused.
+     * @see #setActiveListenerReuseEnabled(boolean)
+     * @since 3.14.0
+     */
+    public boolean isActiveListenerReuseEnabled() {
+        return activeListenerReuseEnabled;
+    }
+
+    /**
+     * Tests whether the next passive data connection is set up while the completion reply of a transfer is outstanding.
+     *
+     * @return true if data connections are prefetched.
+     * @see #setDataConnectionPrefetchEnabled(boolean)
+     * @since 3.14.0
+     */
+    public boolean isDataConnectionPrefetchEnabled() {
+        return dataConnectionPrefetchEnabled;
+    }
+
     /**
      * Tests whether or not verification of the remote host participating in data connections is enabled. The default behavior is for verification to be
      * enabled.
@@ -2180,6 +2735,17 @@ public class FTPClient extends FTP implements Configurable {
         return remoteVerificationEnabled;
     }
 
+    /**
+     * Tests whether directories are listed with STAT over the control connection when the server supports it.
+     *
+     * @return true if STAT listings are enabled.
+     * @see #setStatusListingEnabled(boolean)
+     * @since 3.14.0
+     */
+    public boolean isStatusListingEnabled() {
+        return statusListingEnabled;
+    }
+
     /**
      * Tests whether to attempt using EPSV with IPv4. Default (if not set) is {@code false}
      *
@@ -2190,6 +2756,52 @@ public class FTPClient extends FTP implements Configurable {
         return useEPSVwithIPv4;
     }
 
+    /**
+     * Starts iterating over the names in a directory, read from the NLST listing as the iteration proceeds rather than all at once as by
+     * {@link #listNames(String)}.
+     *
+     * @param path The file or directory to list, or null for the current working directory.
+     * @return The iterator, which must be closed, or null if the listing could not be started.
+     * @throws FTPConnectionClosedException If the FTP server prematurely closes the connection as a result of the client being idle or some other reason
+     *                                      causing the server to send FTP reply code 421. This exception may be caught either as an IOException or
+     *                                      independently as itself.
+     * @throws IOException                  If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @see FTPNameIterator
+     * @since 3.14.0
+     */
+    public FTPNameIterator iterateNames(final String path) throws IOException {
+        return iterateNames(path, null);
+    }
+
+    /**
+     * Starts iterating over the names in a directory which match a glob pattern, read from the NLST listing as the iteration proceeds rather than all at once
+     * as by {@link #listNames(String)}. The pattern is matched by the client, before the names are decoded where possible, see {@link FTPNameIterator}.
+     *
+     * @param path The file or directory to list, or null for the current working directory.
+     * @param glob The glob pattern the names must match, for example {@code "report-*"}, or null for all names.
+     * @return The iterator, which must be closed, or null if the listing could not be started.
+     * @throws FTPConnectionClosedException If the FTP server prematurely closes the connection as a result of the client being idle or some other reason
+     *                                      causing the server to send FTP reply code 421. This exception may be caught either as an IOException or
+     *                                      independently as itself.
+     * @throws IOException                  If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @see FTPNameIterator
+     * @since 3.14.0
+     */
+    public FTPNameIterator iterateNames(final String path, final String glob) throws IOException {
+        final Socket socket = _openDataConnection_(FTPCmd.NLST, getListArguments(path));
+        return socket == null ? null : new FTPNameIterator(this, socket, Charset.forName(getControlEncoding()), glob);
+    }
+
+    /**
+     * Wraps a data connection with the {@link #getBandwidthLimiter() bandwidth limiter}, if there is one.
+     *
+     * @param socket The data connection.
+     * @return The limited data connection, or the given one if the rate is not limited.
+     */
+    Socket limitBandwidth(final Socket socket) {
+        return getBandwidthLimiter() == null ? socket : new BandwidthLimitedSocket(socket, getBandwidthLimiter());
+    }
+
     /**
      * Using the default system autodetect mechanism, obtain a list of directories contained in the current working directory.
      * <p>
@@ -2551,17 +3163,35 @@ public class FTPClient extends FTP implements Configurable {
         return null;
     }
 
+    /**
+     * Measures the round-trip time to the server with a NOOP, if the {@link #getBufferSizeTuner() tuner} has not measured it yet.
+     *
+     * @throws IOException If an I/O error occurs while sending the command or receiving the reply.
+     */
+    void measureRoundTrip() throws IOException {
+        if (bufferSizeTuner != null) {
+            final String host = getRemoteAddress().getHostAddress();
+            if (bufferSizeTuner.getRoundTrip(host) == null) {
+                final long startNanos = System.nanoTime();
+                if (FTPReply.isPositiveCompletion(noop())) {
+                    bufferSizeTuner.recordRoundTrip(host, Duration.ofNanos(System.nanoTime() - startNanos));
+                }
+            }
+        }
+    }
+
     /**
      * Merge two copystream listeners, either or both of which may be null.
      *
-     * @param local The listener used by this class, may be null
+     * @param csl The keep-alive listener used by this class, may be null; it is notified through a sampling adapter
      * @return A merged listener or a single listener or null
      * @since 3.0
      */
-    private CopyStreamListener mergeListeners(final CopyStreamListener local) {
-        if (local == null) {
+    private CopyStreamListener mergeListeners(final CSL csl) {
+        if (csl == null) {
             return copyStreamListener;
         }
+        final CopyStreamListener local = csl.sampled();
         if (copyStreamListener == null) {
             return local;
         }
@@ -2572,6 +3202,34 @@ public class FTPClient extends FTP implements Configurable {
         return merged;
     }
 
+    /**
+     * Wraps the data connection of a store command in the stream returned by {@link #_storeFileStream(String, String)}, for the current file type.
+     *
+     * @param socket The data connection.
+     * @return The output stream, which closes the data connection when closed.
+     * @throws IOException If the stream of the data connection cannot be obtained.
+     */
+    OutputStream newStoreStream(final Socket socket) throws IOException {
+        final OutputStream output;
+        if (fileType == ASCII_FILE_TYPE) {
+            // We buffer ASCII transfers because the buffering has to
+            // be interposed between ToNetASCIIOutputSream and the underlying
+            // socket output stream. We don't buffer binary transfers
+            // because we don't want to impose a buffering policy on the
+            // programmer if possible. Programmers can decide on their
+            // own if they want to wrap the SocketOutputStream we return
+            // for file types other than ASCII.
+            output = new ToNetASCIIOutputStream(getBufferedOutputStream(socket.getOutputStream()));
+        } else {
+            output = socket.getOutputStream();
+        }
+        if (transferDigest != null) {
+            transferDigest.reset();
+            return new SocketOutputStream(socket, transferDigest.newOutputStream(output));
+        }
+        return new SocketOutputStream(socket, output);
+    }
+
     /**
      * Generate a directory listing for the current directory using the MLSD command.
      *
@@ -2638,6 +3296,34 @@ public class FTPClient extends FTP implements Configurable {
         return null;
     }
 
+    /**
+     * Sends EPSV or PASV and connects the passive data connection.
+     *
+     * @return The data connection, or null if the server refused the command.
+     */
+    private Socket openPassiveDataSocket(final boolean isInet6Address) throws IOException {
+        // Try EPSV command first on IPv6 - and IPv4 if enabled.
+        // When using IPv4 with NAT it has the advantage
+        // to work with more rare configurations.
+        // E.g. if FTP server has a static PASV address (external network)
+        // and the client is coming from another internal network.
+        // In that case the data connection after PASV command would fail,
+        // while EPSV would make the client succeed by taking just the port.
+        final boolean attemptEPSV = isUseEPSVwithIPv4() || isInet6Address;
+        if (attemptEPSV && epsv() == FTPReply.ENTERING_EPSV_MODE) {
+            _parseExtendedPassiveModeReply(_replyLines.get(0));
+            passiveCommand = FTPCmd.EPSV;
+        } else {
+            // If EPSV failed on IPV4, revert to PASV
+            if (isInet6Address || pasv() != FTPReply.ENTERING_PASSIVE_MODE) {
+                return null;
+            }
+            _parsePassiveModeReply(_replyLines.get(0));
+            passiveCommand = FTPCmd.PASV;
+        }
+        return wrapDataSocket(connectPassiveDataSocket());
+    }
+
     /**
      * Returns the path of the current working directory.
      *
@@ -2654,6 +3340,12 @@ public class FTPClient extends FTP implements Configurable {
         return parsePathname(_replyLines.get(_replyLines.size() - 1));
     }
 
+    private void recordTransfer(final long bytes, final long startNanos) {
+        if (bufferSizeTuner != null) {
+            bufferSizeTuner.recordTransfer(getRemoteAddress().getHostAddress(), bytes, Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+    }
+
     /**
      * Reinitialize the FTP session. Not all FTP servers support this command, which issues the FTP REIN command.
      *
@@ -2869,6 +3561,18 @@ public class FTPClient extends FTP implements Configurable {
         return FTPReply.isPositiveCompletion(noop());
     }
 
+    /**
+     * Sends a NOOP command to the FTP server.
+     *
+     * @return True if successfully completed, false if not.
+     * @throws IOException If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @since 3.14.0
+     */
+    @Override
+    protected boolean sendKeepAlive() throws IOException {
+        return sendNoOp();
+    }
+
     /**
      * Send a site specific command.
      *
@@ -2894,6 +3598,25 @@ public class FTPClient extends FTP implements Configurable {
         activeExternalHost = InetAddress.getByName(ipAddress);
     }
 
+    /**
+     * Enables or disables reuse of the listening socket of active mode data connections. When enabled, one listening socket is kept open for the session, and
+     * the PORT or EPRT command of each transfer names the same port, instead of binding a new socket for every transfer. This saves the bind and listen system
+     * calls, and keeps a high transfer rate from cycling through the ports of {@link #setActivePortRange(int, int)}. The default is disabled.
+     * <p>
+     * The listening socket is closed whenever a transfer fails before the server connected to it, so that a late connection is not taken for the next
+     * transfer. It is not supported by {@link FTPSClient}.
+     * </p>
+     *
+     * @param activeListenerReuseEnabled true to keep the listening socket open between transfers.
+     * @since 3.14.0
+     */
+    public void setActiveListenerReuseEnabled(final boolean activeListenerReuseEnabled) {
+        this.activeListenerReuseEnabled = activeListenerReuseEnabled;
+        if (!activeListenerReuseEnabled) {
+            closeActiveListener();
+        }
+    }
+
     /**
      * Sets the client side port range in active mode.
      *
@@ -2927,6 +3650,18 @@ public class FTPClient extends FTP implements Configurable {
         this.bufferSize = bufferSize;
     }
 
+    /**
+     * Sets the tuner which sizes the data buffers that are not set explicitly, from the round-trip time and throughput it measured to the server. The
+     * buffer sizes set with {@link #setBufferSize(int)}, {@link #setReceieveDataSocketBufferSize(int)} and {@link #setSendDataSocketBufferSize(int)} take
+     * precedence. While the round-trip time to the server is unknown, a NOOP is sent before opening a data connection to measure it.
+     *
+     * @param bufferSizeTuner The tuner, for example {@link BufferSizeTuner#getDefault()}, or {@code null} to disable.
+     * @since 3.14.0
+     */
+    public void setBufferSizeTuner(final BufferSizeTuner bufferSizeTuner) {
+        this.bufferSizeTuner = bufferSizeTuner;
+    }
+
     /**
      * Sets the duration to wait for control keep-alive message replies.
      *
@@ -2991,6 +3726,54 @@ public class FTPClient extends FTP implements Configurable {
         this.copyStreamListener = copyStreamListener;
     }
 
+    /**
+     * Sets the listener to be used when performing store/retrieve operations, notifying it at most every {@code notifyBytes} bytes or
+     * {@code notifyInterval}, and on completion of each transfer, rather than after every buffer write.
+     * <p>
+     * The listener is wrapped in a sampling {@link CopyStreamAdapter}, which is returned by {@link #getCopyStreamListener()}.
+     * </p>
+     *
+     * @param copyStreamListener to be used, may be {@code null} to disable
+     * @param notifyBytes        The minimum number of bytes transferred between notifications. Zero (or less) disables sampling by size.
+     * @param notifyInterval     The minimum time between notifications. Zero (or less, or null) disables sampling by time.
+     * @see CopyStreamAdapter#CopyStreamAdapter(long, Duration)
+     * @since 3.14.0
+     */
+    public void setCopyStreamListener(final CopyStreamListener copyStreamListener, final long notifyBytes, final Duration notifyInterval) {
+        if (copyStreamListener == null) {
+            this.copyStreamListener = null;
+            return;
+        }
+        final CopyStreamAdapter adapter = new CopyStreamAdapter(notifyBytes, notifyInterval);
+        adapter.addCopyStreamListener(copyStreamListener);
+        this.copyStreamListener = adapter;
+    }
+
+    /**
+     * Enables or disables prefetching of passive data connections. When enabled, {@link #completePendingCommand()} sends the EPSV or PASV command for the next
+     * transfer before reading the completion reply of the current one, and connects the data connection while the reply is outstanding, so that back-to-back
+     * transfers of small files are not serialized on the round trips of setting up each data connection. The default is disabled.
+     * <p>
+     * This has an effect in passive mode only, and not in {@link FTP#BLOCK_TRANSFER_MODE}, which keeps its data connection open. The server must accept a
+     * command sent before the completion reply of a transfer, and must accept commands other than a transfer while a passive data connection is pending, as the
+     * prefetched connection is only used by the next transfer. It is not supported by {@link FTPSClient}.
+     * </p>
+     * <p>
+     * A prefetched connection is discarded if the next transfer starts more than 5 seconds later, as the server may have given up waiting for it. If the
+     * server refuses a transfer on a prefetched connection with 425 or 426, the transfer is sent again on a fresh one.
+     * </p>
+     *
+     * @param dataConnectionPrefetchEnabled true to prefetch data connections.
+     * @since 3.14.0
+     */
+    public void setDataConnectionPrefetchEnabled(final boolean dataConnectionPrefetchEnabled) {
+        this.dataConnectionPrefetchEnabled = dataConnectionPrefetchEnabled;
+        if (!dataConnectionPrefetchEnabled) {
+            prefetchPending = false;
+            closePrefetchedDataSocket();
+        }
+    }
+
     /**
      * Sets the timeout to use when reading from the data connection. This timeout will be set immediately after opening the data connection, provided that the
      * value is &ge; 0.
@@ -3020,6 +3803,62 @@ public class FTPClient extends FTP implements Configurable {
         dataTimeout = Duration.ofMillis(timeoutMillis);
     }
 
+    /**
+     * Sets the buffer size of the deflate streams used in {@link FTP#DEFLATE_TRANSFER_MODE}. The default is {@link Util#DEFAULT_COPY_BUFFER_SIZE}.
+     *
+     * @param deflateBufferSize The buffer size, zero or negative for the default.
+     * @since 3.14.0
+     */
+    public void setDeflateBufferSize(final int deflateBufferSize) {
+        this.deflateBufferSize = deflateBufferSize;
+    }
+
+    /**
+     * Sets the compression level used in {@link FTP#DEFLATE_TRANSFER_MODE}, for uploads by this client and, with {@code OPTS MODE Z LEVEL} when
+     * {@link #setFileTransferMode(int)} selects that mode, for downloads by servers which support it. The default is {@link Deflater#DEFAULT_COMPRESSION}.
+     *
+     * @param deflateLevel The compression level, from {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION}, or
+     *                     {@link Deflater#DEFAULT_COMPRESSION}.
+     * @throws IllegalArgumentException If the level is invalid.
+     * @since 3.14.0
+     */
+    public void setDeflateLevel(final int deflateLevel) {
+        if ((deflateLevel < Deflater.NO_COMPRESSION || deflateLevel > Deflater.BEST_COMPRESSION) && deflateLevel != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + deflateLevel);
+        }
+        this.deflateLevel = deflateLevel;
+    }
+
+    /**
+     * Enables adaptive compression of uploads in {@link FTP#DEFLATE_TRANSFER_MODE}. The first 64 KiB of each upload are
+     * compressed as a sample; if the compressed sample is larger than {@code deflateMaxRatio} times the original, the data is assumed to be already compressed
+     * and the file is sent in {@link FTP#STREAM_TRANSFER_MODE} instead, saving the CPU cost of compressing it. The client switches back to MODE Z before the
+     * next data connection. Downloads are compressed by the server and are not affected.
+     * <p>
+     * The default is zero, which always compresses. A ratio of 0.9 skips files which compress by less than 10%.
+     * </p>
+     *
+     * @param deflateMaxRatio The largest compressed to original size ratio for an upload to be deflated, zero or negative to always deflate.
+     * @since 3.14.0
+     */
+    public void setDeflateMaxRatio(final double deflateMaxRatio) {
+        this.deflateMaxRatio = deflateMaxRatio;
+    }
+
+    /**
+     * Sets the compression strategy used for uploads in {@link FTP#DEFLATE_TRANSFER_MODE}. The default is {@link Deflater#DEFAULT_STRATEGY}.
+     *
+     * @param deflateStrategy The compression strategy: {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED} or {@link Deflater#HUFFMAN_ONLY}.
+     * @throws IllegalArgumentException If the strategy is invalid.
+     * @since 3.14.0
+     */
+    public void setDeflateStrategy(final int deflateStrategy) {
+        if (deflateStrategy != Deflater.DEFAULT_STRATEGY && deflateStrategy != Deflater.FILTERED && deflateStrategy != Deflater.HUFFMAN_ONLY) {
+            throw new IllegalArgumentException("Invalid compression strategy: " + deflateStrategy);
+        }
+        this.deflateStrategy = deflateStrategy;
+    }
+
     /**
      * Sets the file structure. The default structure is {@link FTP#FILE_STRUCTURE} if this method is never called or if a connect method is called.
      *
@@ -3040,6 +3879,15 @@ public class FTPClient extends FTP implements Configurable {
 
     /**
      * Sets the transfer mode. The default transfer mode {@link FTP#STREAM_TRANSFER_MODE} if this method is never called or if a connect method is called.
+     * <p>
+     * When selecting {@link FTP#DEFLATE_TRANSFER_MODE} with a compression level other than the default, {@code OPTS MODE Z LEVEL} is also sent; servers which
+     * do not support it keep their default level.
+     * </p>
+     * <p>
+     * In {@link FTP#BLOCK_TRANSFER_MODE}, the data connection opened for the first transfer is kept open and reused by the following transfers and listings,
+     * saving a PASV/PORT exchange and a TCP handshake per file. It is closed when a transfer fails or is abandoned, when another mode is selected, and on
+     * disconnect. {@link FTPSClient} refuses block mode.
+     * </p>
      *
      * @param fileTransferMode The new transfer mode to use (one of the FTP class {@code _TRANSFER_MODE} constants).
      * @return True if successfully completed, false if not.
@@ -3050,7 +3898,14 @@ public class FTPClient extends FTP implements Configurable {
      */
     public boolean setFileTransferMode(final int fileTransferMode) throws IOException {
         if (FTPReply.isPositiveCompletion(mode(fileTransferMode))) {
+            if (fileTransferMode != BLOCK_TRANSFER_MODE) {
+                closeBlockModeSocket();
+            }
             this.fileTransferMode = fileTransferMode;
+            deflateSuspended = false;
+            if (fileTransferMode == DEFLATE_TRANSFER_MODE && deflateLevel != Deflater.DEFAULT_COMPRESSION) {
+                opts(FTPCmd.MODE.getCommand(), "Z LEVEL " + deflateLevel); // optional
+            }
             return true;
         }
         return false;
@@ -3118,6 +3973,21 @@ public class FTPClient extends FTP implements Configurable {
         return false;
     }
 
+    /**
+     * Selects the algorithm used by the {@code HASH} command with {@code OPTS HASH}.
+     *
+     * @param algorithm The algorithm name, one of {@link #getHashAlgorithms()}.
+     * @return True if successfully completed, false if not.
+     * @throws FTPConnectionClosedException If the FTP server prematurely closes the connection as a result of the client being idle or some other reason
+     *                                      causing the server to send FTP reply code 421. This exception may be caught either as an IOException or
+     *                                      independently as itself.
+     * @throws IOException                  If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @since 3.14.0
+     */
+    public boolean setHashAlgorithm(final String algorithm) throws IOException {
+        return FTPReply.isPositiveCompletion(opts(FTPCmd.HASH.getCommand(), algorithm));
+    }
+
     /**
      * Sets whether the IP address from the server's response should be used. Until 3.9.0, this has always been the case. Beginning with 3.9.0, that IP address
      * will be silently ignored, and replaced with the remote IP address of the control connection, unless this configuration option is given, which restores
@@ -3284,6 +4154,39 @@ public class FTPClient extends FTP implements Configurable {
         this.sendDataSocketBufferSize = sendDataSocketBufferSize;
     }
 
+    /**
+     * Enables or disables listing directories with STAT. When enabled, the {@code listFiles} and {@code initiateListParsing} methods send {@code STAT} with
+     * the path instead of {@code LIST}, and parse the listing in the reply with the same {@link FTPFileEntryParser}, so that small listings do not pay for
+     * setting up a data connection. The default is disabled.
+     * <p>
+     * Whether the server lists directories in reply to {@code STAT} is probed by the first listing of the session which is not empty, and {@code LIST} is used
+     * from then on if it does not, as well as for any listing until then which is empty or refused. As the listing is sent over the control connection, it
+     * is best suited to directories with few entries.
+     * </p>
+     *
+     * @param statusListingEnabled true to list directories with STAT when the server supports it.
+     * @since 3.14.0
+     */
+    public void setStatusListingEnabled(final boolean statusListingEnabled) {
+        this.statusListingEnabled = statusListingEnabled;
+    }
+
+    /**
+     * Sets a digest to compute over the bytes of each subsequent file transfer by the store, append and retrieve methods, including the stream variants. The
+     * digest is reset when a transfer starts and updated directly from the copy buffer, so the data is only traversed once; call
+     * {@link CopyStreamDigest#getValue()} once the transfer has completed (after {@link #completePendingCommand()} for the stream variants).
+     * <p>
+     * The digest covers the local representation of the data, so in ASCII mode it is computed with local line separators. The default value is {@code null}.
+     * </p>
+     *
+     * @param transferDigest The digest to update, may be {@code null} to disable
+     * @see FTPFileHash#matches(byte[])
+     * @since 3.14.0
+     */
+    public void setTransferDigest(final CopyStreamDigest transferDigest) {
+        this.transferDigest = transferDigest;
+    }
+
     /**
      * Sets whether to use EPSV with IPv4. Might be worth enabling in some circumstances.
      *
@@ -3447,10 +4350,15 @@ public class FTPClient extends FTP implements Configurable {
         return FTPReply.isPositiveCompletion(smnt(path));
     }
 
-    private Socket wrapOnDeflate(final Socket plainSocket) {
+    private Socket wrapDataSocket(final Socket dataSocket) {
+        // limit the bytes on the wire, which MODE Z and MODE B then compress or frame
+        final Socket plainSocket = limitBandwidth(dataSocket);
         switch (fileTransferMode) {
         case DEFLATE_TRANSFER_MODE:
-            return new DeflateSocket(plainSocket);
+            return new DeflateSocket(plainSocket, deflatePool, deflateLevel, deflateStrategy,
+                    deflateBufferSize > 0 ? deflateBufferSize : Util.DEFAULT_COPY_BUFFER_SIZE);
+        case BLOCK_TRANSFER_MODE:
+            return new BlockModeSocket(plainSocket, BlockModeSocket.MAX_BLOCK_SIZE);
         // Experiment, not in an RFC?
         // case GZIP_TRANSFER_MODE:
         // return new GZIPSocket(plainSocket);
@@ -156,7 +156,49 @@ public enum FTPCmd {
     TYPE,
 
     /** FTP command USER. */
-    USER;
+    USER,
+
+    /**
+     * FTP command <a href="https://datatracker.ietf.org/doc/html/draft-bryan-ftpext-hash-02">HASH</a>.
+     *
+     * @since 3.14.0
+     */
+    HASH,
+
+    /**
+     * FTP command <a href="https://datatracker.ietf.org/doc/html/draft-bryan-ftp-range-08">RANG</a>.
+     *
+     * @since 3.14.0
+     */
+    RANG,
+
+    /**
+     * FTP command XCRC, a common extension which returns the CRC-32 of a file.
+     *
+     * @since 3.14.0
+     */
+    XCRC,
+
+    /**
+     * FTP command XMD5, a common extension which returns the MD5 digest of a file.
+     *
+     * @since 3.14.0
+     */
+    XMD5,
+
+    /**
+     * FTP command XSHA1, a common extension which returns the SHA-1 digest of a file.
+     *
+     * @since 3.14.0
+     */
+    XSHA1,
+
+    /**
+     * FTP command XSHA256, a common extension which returns the SHA-256 digest of a file.
+     *
+     * @since 3.14.0
+     */
+    XSHA256;
 
     // Aliases
 
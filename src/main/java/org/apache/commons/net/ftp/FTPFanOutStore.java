@@ -0,0 +1,543 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stores one local file on several FTP servers at the same time, reading it only once. The data is read into a ring buffer shared by all the sessions,
+ * each of which sends it from there with {@code STOR}, at its own pace, in a thread of its own.
+ * <p>
+ * Reading waits while the buffer is full, so the transfer as a whole goes at the pace of the slowest session. With a {@link #setLaggardTimeout(Duration)
+ * laggard timeout}, a session which has kept the buffer full for that long is dropped instead: its data connection is reset, so that the others can go on,
+ * and its transfer reported as failed. Its session remains usable, as the reply of the server to the aborted transfer is read.
+ * </p>
+ * <p>
+ * The success of each transfer is verified with {@link FTPClient#completePendingCommand()}. The sessions must be logged in and set to the file type and
+ * data connection mode to use, and should have a {@link FTPClient#setSoTimeout(int) timeout} so that a server which stops responding does not hold up
+ * the others.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * <pre>
+ * FTPFanOutStore fanOut = new FTPFanOutStore();
+ * fanOut.setLaggardTimeout(Duration.ofSeconds(30));
+ * for (FTPFanOutStore.Result result : fanOut.storeFile(clients, "firmware.bin", Paths.get("firmware.bin"))) {
+ *     if (!result.isSuccess()) {
+ *         System.err.println(result);
+ *     }
+ * }
+ * </pre>
+ *
+ * @since 3.14.0
+ */
+public class FTPFanOutStore {
+
+    /**
+     * The outcome of the transfer to one server.
+     */
+    public static final class Result {
+
+        private final FTPClient client;
+        private final boolean success;
+        private final boolean dropped;
+        private final long bytesSent;
+        private final String reply;
+        private final IOException exception;
+
+        Result(final FTPClient client, final boolean success, final boolean dropped, final long bytesSent, final String reply, final IOException exception) {
+            this.client = client;
+            this.success = success;
+            this.dropped = dropped;
+            this.bytesSent = bytesSent;
+            this.reply = reply;
+            this.exception = exception;
+        }
+
+        /**
+         * Gets the number of bytes sent to the server.
+         *
+         * @return The number of bytes.
+         */
+        public long getBytesSent() {
+            return bytesSent;
+        }
+
+        /**
+         * Gets the session with the server.
+         *
+         * @return The session.
+         */
+        public FTPClient getClient() {
+            return client;
+        }
+
+        /**
+         * Gets the exception which ended the transfer.
+         *
+         * @return The exception, or {@code null} if there was none.
+         */
+        public IOException getException() {
+            return exception;
+        }
+
+        /**
+         * Gets the last reply of the server for this transfer: the completion reply, or the reply which refused the transfer.
+         *
+         * @return The reply, or {@code null} if there was none.
+         */
+        public String getReply() {
+            return reply;
+        }
+
+        /**
+         * Tests whether the transfer was dropped for holding up the others.
+         *
+         * @return whether the transfer was dropped.
+         */
+        public boolean isDropped() {
+            return dropped;
+        }
+
+        /**
+         * Tests whether all the data was sent and the server reported the transfer complete.
+         *
+         * @return whether the transfer succeeded.
+         */
+        public boolean isSuccess() {
+            return success;
+        }
+
+        @Override
+        public String toString() {
+            return success ? "OK" : "failed after " + bytesSent + " bytes" + (dropped ? ", dropped" : "") + ", reply: " + reply + ", exception: " + exception;
+        }
+    }
+
+    /**
+     * The transfer to one server. The position and state are guarded by the lock of the {@link Transfer}.
+     */
+    private static final class Target {
+
+        final FTPClient client;
+
+        /** The number of bytes of the ring consumed. */
+        long position;
+        boolean active = true;
+        boolean dropped;
+        Socket socket;
+
+        Target(final FTPClient client) {
+            this.client = client;
+        }
+    }
+
+    /**
+     * The ring buffer shared by the targets of one store, filled by the calling thread.
+     */
+    private static final class Transfer {
+
+        final byte[] ring;
+        final List<Target> targets;
+        final Duration laggardTimeout;
+        final ReentrantLock lock = new ReentrantLock();
+        /** Signaled when data is added, or the source ends. */
+        final Condition readable = lock.newCondition();
+        /** Signaled when a target consumes data, or ends. */
+        final Condition writable = lock.newCondition();
+
+        /** The number of bytes read into the ring. */
+        long written;
+        boolean ended;
+        /** Whether the source failed, in which case the targets do not receive all the data. */
+        boolean failed;
+        int active;
+
+        Transfer(final int bufferSize, final List<Target> targets, final Duration laggardTimeout) {
+            this.ring = new byte[bufferSize];
+            this.targets = targets;
+            this.laggardTimeout = laggardTimeout;
+            this.active = targets.size();
+        }
+
+        /**
+         * Waits for free space in the ring, dropping laggards if enabled.
+         *
+         * @return the length of the contiguous free space at the end of the data, or 0 if no target is active anymore.
+         */
+        int awaitSpace() throws InterruptedIOException {
+            lock.lock();
+            try {
+                long deadlineNanos = laggardTimeout == null ? 0 : System.nanoTime() + laggardTimeout.toNanos();
+                long lowest;
+                while ((lowest = lowestPosition()) <= written - ring.length) {
+                    if (laggardTimeout == null) {
+                        writable.await();
+                    } else {
+                        final long remainingNanos = deadlineNanos - System.nanoTime();
+                        if (remainingNanos > 0) {
+                            writable.awaitNanos(remainingNanos);
+                        } else {
+                            drop(lowest);
+                            deadlineNanos = System.nanoTime() + laggardTimeout.toNanos();
+                        }
+                    }
+                }
+                if (active == 0) {
+                    return 0;
+                }
+                final int offset = (int) (written % ring.length);
+                return (int) Math.min(ring.length - (written - lowest), ring.length - offset);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the targets");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Drops the active targets which are at the given position, resetting their data connections to interrupt their writes.
+         */
+        private void drop(final long position) {
+            for (final Target target : targets) {
+                if (target.active && target.position == position) {
+                    target.dropped = true;
+                    target.active = false;
+                    active--;
+                    if (target.socket != null) {
+                        abort(target.socket);
+                    }
+                }
+            }
+            readable.signalAll();
+        }
+
+        void end() {
+            lock.lock();
+            try {
+                ended = true;
+                readable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Ends a target, so that the ring no longer waits for it.
+         */
+        void end(final Target target) {
+            lock.lock();
+            try {
+                if (target.active) {
+                    target.active = false;
+                    active--;
+                    writable.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void fail() {
+            lock.lock();
+            try {
+                failed = true;
+                ended = true;
+                readable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Gets the lowest position of the active targets, or the end of the data if there are none.
+         */
+        private long lowestPosition() {
+            long lowest = written;
+            for (final Target target : targets) {
+                if (target.active) {
+                    lowest = Math.min(lowest, target.position);
+                }
+            }
+            return lowest;
+        }
+
+        void publish(final int length) {
+            lock.lock();
+            try {
+                written += length;
+                readable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Sends the data in the ring to a target until the source ends, or the target is dropped.
+         *
+         * @return whether all the data was sent.
+         */
+        boolean send(final Target target, final OutputStream output) throws IOException {
+            long position = 0;
+            while (true) {
+                final int offset;
+                final int length;
+                lock.lock();
+                try {
+                    while (position == written && !ended && !target.dropped) {
+                        readable.await();
+                    }
+                    if (target.dropped || position == written) {
+                        return !target.dropped && !failed;
+                    }
+                    offset = (int) (position % ring.length);
+                    length = (int) Math.min(written - position, ring.length - offset);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for data");
+                } finally {
+                    lock.unlock();
+                }
+                output.write(ring, offset, length);
+                position += length;
+                lock.lock();
+                try {
+                    target.position = position;
+                    writable.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 8 * 1024 * 1024;
+
+    /** The maximum number of bytes read from the source at once, so that the targets can start sending before a large read completes. */
+    private static final int READ_SIZE = 64 * 1024;
+
+    /**
+     * Resets a data connection rather than closing it, as closing it would tell the server that all the data was sent.
+     */
+    private static void abort(final Socket socket) {
+        try {
+            socket.setSoLinger(true, 0);
+            socket.close();
+        } catch (final IOException e) {
+            // ignored, the transfer has failed anyway
+        }
+    }
+
+    private volatile int bufferSize = DEFAULT_BUFFER_SIZE;
+    private volatile Duration laggardTimeout;
+
+    /**
+     * Gets the size of the ring buffer shared by the sessions of a store.
+     *
+     * @return The buffer size in bytes.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Gets how long a session may keep the ring buffer full before it is dropped.
+     *
+     * @return The laggard timeout, or {@code null} if sessions are never dropped.
+     */
+    public Duration getLaggardTimeout() {
+        return laggardTimeout;
+    }
+
+    private void read(final Transfer transfer, final InputStream local) throws IOException {
+        final byte[] ring = transfer.ring;
+        int space;
+        while ((space = transfer.awaitSpace()) > 0) {
+            // only this thread moves the end of the data, and the targets do not read past it until it is published
+            final int count = local.read(ring, (int) (transfer.written % ring.length), Math.min(space, READ_SIZE));
+            if (count < 0) {
+                return;
+            }
+            transfer.publish(count);
+        }
+    }
+
+    private Result send(final Transfer transfer, final Target target, final String remote) {
+        final FTPClient client = target.client;
+        OutputStream output = null;
+        boolean sent = false;
+        try {
+            final Socket socket = client._openDataConnection_(FTPCmd.STOR, remote);
+            if (socket == null) {
+                transfer.end(target);
+                return new Result(client, false, false, 0, client.getReplyString(), null);
+            }
+            output = client.newStoreStream(socket);
+            transfer.lock.lock();
+            try {
+                target.socket = socket;
+                if (target.dropped) {
+                    abort(socket);
+                }
+            } finally {
+                transfer.lock.unlock();
+            }
+            sent = transfer.send(target, output);
+            transfer.end(target);
+            if (sent) {
+                output.close();
+            } else {
+                abort(socket);
+            }
+            final boolean success = client.completePendingCommand() && sent;
+            return new Result(client, success, target.dropped, target.position, client.getReplyString(), null);
+        } catch (final IOException e) {
+            transfer.end(target);
+            if (output != null) {
+                // the server replies to the aborted transfer once the data connection is reset
+                abort(target.socket);
+                try {
+                    client.completePendingCommand();
+                } catch (final IOException ignored) {
+                    // the session has failed too
+                }
+            }
+            return new Result(client, false, target.dropped, target.position, output != null ? client.getReplyString() : null, target.dropped ? null : e);
+        }
+    }
+
+    /**
+     * Sets the size of the ring buffer shared by the sessions of a store, which is how far the fastest session can be ahead of the slowest. The default is
+     * 8 MiB.
+     *
+     * @param bufferSize The buffer size in bytes, at least 1.
+     */
+    public void setBufferSize(final int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be at least 1: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Sets how long a session may keep the ring buffer full, holding up the others, before it is dropped. The default is to never drop sessions, so that a
+     * store goes at the pace of the slowest session.
+     *
+     * @param laggardTimeout The laggard timeout, or {@code null} to never drop sessions.
+     */
+    public void setLaggardTimeout(final Duration laggardTimeout) {
+        if (laggardTimeout != null && laggardTimeout.isNegative()) {
+            throw new IllegalArgumentException("laggardTimeout must not be negative: " + laggardTimeout);
+        }
+        this.laggardTimeout = laggardTimeout;
+    }
+
+    /**
+     * Stores data read from a stream on each of the given sessions as the given remote file. Existing remote files are overwritten.
+     * <p>
+     * If reading the stream fails, the data connections are reset, and the exception is thrown once all the sessions have read the reply of their server.
+     * Resetting rather than closing them tells the servers that the transfers were aborted, rather than complete; some may still keep the partial file.
+     * </p>
+     *
+     * @param clients The sessions, logged in and set to the file type to use.
+     * @param remote  The remote file name.
+     * @param local   The stream to read the data from, which is not closed.
+     * @return The outcomes of the transfers, in the order of the sessions.
+     * @throws IOException If reading the stream fails.
+     */
+    public List<Result> storeFile(final List<? extends FTPClient> clients, final String remote, final InputStream local) throws IOException {
+        Objects.requireNonNull(local, "local");
+        final List<Target> targets = new ArrayList<>(clients.size());
+        clients.forEach(client -> targets.add(new Target(Objects.requireNonNull(client, "client"))));
+        if (targets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final Transfer transfer = new Transfer(bufferSize, targets, laggardTimeout);
+        final ExecutorService executor = Executors.newFixedThreadPool(targets.size(), r -> {
+            final Thread thread = new Thread(r, "commons-net-fanout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<Result>> futures = new ArrayList<>(targets.size());
+            targets.forEach(target -> futures.add(executor.submit(() -> send(transfer, target, remote))));
+            IOException failure = null;
+            try {
+                read(transfer, local);
+                transfer.end();
+            } catch (final IOException e) {
+                failure = e;
+                transfer.fail();
+            }
+            final List<Result> results = new ArrayList<>(futures.size());
+            for (final Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return results;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for transfers");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stores a local file on each of the given sessions as the given remote file. Existing remote files are overwritten.
+     *
+     * @param clients The sessions, logged in and set to the file type to use.
+     * @param remote  The remote file name.
+     * @param local   The local file.
+     * @return The outcomes of the transfers, in the order of the sessions.
+     * @throws IOException If reading the local file fails.
+     * @see #storeFile(List, String, InputStream)
+     */
+    public List<Result> storeFile(final List<? extends FTPClient> clients, final String remote, final Path local) throws IOException {
+        try (InputStream input = Files.newInputStream(local)) {
+            return storeFile(clients, remote, input);
+        }
+    }
+}
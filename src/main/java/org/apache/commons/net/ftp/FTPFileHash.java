@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.apache.commons.net.MalformedServerReplyException;
+
+/**
+ * A hash of a remote file (or part of one) computed by the server, as returned by {@code HASH} or by one of the {@code XCRC}, {@code XMD5}, {@code XSHA1} and
+ * {@code XSHA256} extensions.
+ *
+ * @see FTPClient#getHash(String)
+ * @since 3.14.0
+ */
+public final class FTPFileHash {
+
+    private static final Pattern HEX = Pattern.compile("[0-9A-Fa-f]{8,}");
+
+    /** A CRC-32, which servers may send without its leading zeros. */
+    private static final Pattern CRC_HEX = Pattern.compile("[0-9A-Fa-f]{1,8}");
+
+    private static final String CRC32 = "CRC32";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Gets the algorithm name, as used by {@code HASH} and {@link java.security.MessageDigest}, computed by a command.
+     */
+    static String getAlgorithm(final FTPCmd command) {
+        switch (command) {
+        case XCRC:
+            return CRC32;
+        case XMD5:
+            return "MD5";
+        case XSHA1:
+            return "SHA-1";
+        case XSHA256:
+            return "SHA-256";
+        default:
+            return null;
+        }
+    }
+
+    private static boolean isHash(final String algorithm, final String hex) {
+        return (CRC32.equalsIgnoreCase(algorithm) ? CRC_HEX : HEX).matcher(hex).matches();
+    }
+
+    /**
+     * Tests whether a word, followed and preceded by white space or the ends of the text, starts at an index of a longer text.
+     */
+    private static boolean isWordAt(final String text, final String word, final int index) {
+        return index >= 0 && text.length() > word.length() && text.startsWith(word, index)
+                && (index == 0 || Character.isWhitespace(text.charAt(index - 1)))
+                && (index + word.length() == text.length() || Character.isWhitespace(text.charAt(index + word.length())));
+    }
+
+    private static String normalize(final String hex) {
+        int i = 0;
+        while (i < hex.length() - 1 && hex.charAt(i) == '0') {
+            i++;
+        }
+        return hex.substring(i);
+    }
+
+    /**
+     * Parses a positive reply to a hash command.
+     *
+     * @param command The command sent.
+     * @param path    The path sent.
+     * @param reply   The reply text, without the reply code.
+     * @return The hash.
+     * @throws MalformedServerReplyException If the reply cannot be parsed.
+     */
+    static FTPFileHash parse(final FTPCmd command, final String path, final String reply) throws MalformedServerReplyException {
+        final String text = reply.trim();
+        if (command == FTPCmd.HASH) {
+            // <algorithm> SP <start>-<end> SP <hash> SP <path>
+            final String[] parts = text.split(" ", 4);
+            if (parts.length >= 3) {
+                final int dash = parts[1].indexOf('-');
+                if (dash > 0 && isHash(parts[0], parts[2])) {
+                    try {
+                        final long start = Long.parseLong(parts[1].substring(0, dash));
+                        final long end = Long.parseLong(parts[1].substring(dash + 1));
+                        return new FTPFileHash(parts[0], pad(parts[0], parts[2]), start, end, path);
+                    } catch (final NumberFormatException e) {
+                        // fall through
+                    }
+                }
+            }
+        } else {
+            // the hash is the last word, or the first if the server echoes the path after it
+            final String algorithm = getAlgorithm(command);
+            String rest = text;
+            boolean pathLast = false;
+            if (path != null) {
+                for (final String name : new String[] { "\"" + path + "\"", path }) {
+                    if (isWordAt(rest, name, rest.length() - name.length())) {
+                        rest = rest.substring(0, rest.length() - name.length()).trim();
+                        pathLast = true;
+                        break;
+                    }
+                    if (isWordAt(rest, name, 0)) {
+                        rest = rest.substring(name.length()).trim();
+                        break;
+                    }
+                }
+            }
+            final String[] words = rest.split("\\s+");
+            final String hash = pathLast ? words[0] : words[words.length - 1];
+            // other text which looks like a hash, such as a short CRC-32, makes the reply ambiguous
+            if (isHash(algorithm, hash) && Stream.of(words).filter(word -> isHash(algorithm, word)).count() == 1) {
+                return new FTPFileHash(algorithm, pad(algorithm, hash), 0, -1, path);
+            }
+        }
+        throw new MalformedServerReplyException("Invalid server reply (" + command + "): '" + reply + "'");
+    }
+
+    /**
+     * Left-pads a CRC-32 with zeros to its 8 hexadecimal digits.
+     */
+    private static String pad(final String algorithm, final String hex) {
+        if (!CRC32.equalsIgnoreCase(algorithm) || hex.length() >= 8) {
+            return hex;
+        }
+        return "00000000".substring(hex.length()) + hex;
+    }
+
+    private final String algorithm;
+    private final String value;
+    private final long start;
+    private final long end;
+    private final String path;
+
+    private FTPFileHash(final String algorithm, final String value, final long start, final long end, final String path) {
+        this.algorithm = algorithm;
+        this.value = value;
+        this.start = start;
+        this.end = end;
+        this.path = path;
+    }
+
+    /**
+     * Gets the algorithm name, for example {@code "SHA-256"}, {@code "MD5"} or {@code "CRC32"}.
+     *
+     * @return The algorithm name.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Gets the last byte hashed, inclusive.
+     *
+     * @return The last byte hashed, or -1 if the server hashed the whole file without reporting a range.
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the path of the file.
+     *
+     * @return The path of the file.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the first byte hashed.
+     *
+     * @return The first byte hashed.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the hash as returned by the server, in hexadecimal.
+     *
+     * @return The hash value.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Tests whether this hash matches a locally computed digest, for example from {@link java.security.MessageDigest#digest()}.
+     *
+     * @param digest The local digest.
+     * @return whether the values match.
+     */
+    public boolean matches(final byte[] digest) {
+        final char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX_DIGITS[digest[i] >> 4 & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+        }
+        return normalize(value).equalsIgnoreCase(normalize(new String(hex)));
+    }
+
+    /**
+     * Tests whether this hash matches a locally computed checksum, for example from {@link java.util.zip.CRC32#getValue()}.
+     *
+     * @param checksum The local checksum.
+     * @return whether the values match.
+     */
+    public boolean matches(final long checksum) {
+        return normalize(value).equalsIgnoreCase(Long.toHexString(checksum));
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + " " + start + "-" + end + " " + value + " " + path;
+    }
+}
@@ -0,0 +1,559 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TimeZone;
+
+/**
+ * A compact binary snapshot of a listing, to persist the state of remote directories, for example between synchronization runs.
+ * <p>
+ * A snapshot is written with {@link #write(FTPFile[], OutputStream)}, or entry by entry with a {@link Writer}, and read back with {@link #open(Path)},
+ * which maps the file into memory, or {@link #wrap(ByteBuffer)}. Reading is lazy: an entry is decoded only when {@link #get(int)} or {@link #getName(int)}
+ * is called, so that a snapshot of millions of entries loads in constant time.
+ * </p>
+ * <p>
+ * The format is versioned. After a header, entries are stored in blocks of up to {@link #BLOCK_SIZE}, each laid out in columns: a table of the distinct
+ * strings of the block, such as names, users and groups, then one column per attribute, with sizes, hard link counts and timestamps as variable length
+ * integers, permissions as bit masks and types as bytes. A footer indexes the blocks. Timestamps keep their time zone and the precision of the listing,
+ * that is which of the hour, minute, second and millisecond fields are set.
+ * </p>
+ *
+ * @since 3.14.0
+ */
+public final class FTPFileSnapshot implements Iterable<FTPFile> {
+
+    /** The columns of a block, decoded on first access but for their strings. */
+    private static final class Block {
+
+        final int first;
+        final int count;
+        final byte[] flags;
+        final byte[] types;
+        final int[] permissions;
+        final int[] hardLinkCounts;
+        final long[] sizes;
+        final int[] names;
+        final int[] users;
+        final int[] groups;
+        final int[] links;
+        final int[] rawListings;
+        final long[] timestamps;
+        final int[] zones;
+        final byte[] precisions;
+        final int[] stringOffsets;
+        final int[] stringLengths;
+
+        Block(final int first, final ByteBuffer buffer) {
+            this.first = first;
+            count = readInt(buffer);
+            final int strings = readInt(buffer);
+            stringOffsets = new int[strings];
+            stringLengths = new int[strings];
+            for (int i = 0; i < strings; i++) {
+                stringLengths[i] = readInt(buffer);
+                stringOffsets[i] = buffer.position();
+                buffer.position(buffer.position() + stringLengths[i]);
+            }
+            flags = new byte[count];
+            buffer.get(flags);
+            types = new byte[count];
+            buffer.get(types);
+            permissions = readInts(buffer, count);
+            hardLinkCounts = readInts(buffer, count);
+            sizes = new long[count];
+            for (int i = 0; i < count; i++) {
+                sizes[i] = readSignedLong(buffer);
+            }
+            names = readInts(buffer, count);
+            users = readInts(buffer, count);
+            groups = readInts(buffer, count);
+            links = readInts(buffer, count);
+            rawListings = readInts(buffer, count);
+            timestamps = new long[count];
+            zones = new int[count];
+            precisions = new byte[count];
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                if ((flags[i] & TIMESTAMP) != 0) {
+                    previous += readSignedLong(buffer);
+                    timestamps[i] = previous;
+                    zones[i] = readInt(buffer);
+                    precisions[i] = buffer.get();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot entry by entry, so that a listing need not be held in memory. The snapshot is complete once the writer is closed, which also closes
+     * the output stream.
+     */
+    public static final class Writer implements Closeable {
+
+        private final List<long[]> blocks = new ArrayList<>();
+        private boolean closed;
+        private final OutputStream output;
+        private final List<FTPFile> pending = new ArrayList<>();
+        private long position;
+
+        /**
+         * Constructs a new instance and writes the header of the snapshot.
+         *
+         * @param output The output stream.
+         * @throws IOException if an I/O error occurs.
+         */
+        public Writer(final OutputStream output) throws IOException {
+            this.output = output;
+            output.write(MAGIC);
+            output.write(VERSION);
+            position = MAGIC.length + 1;
+        }
+
+        /**
+         * Adds an entry to the snapshot.
+         *
+         * @param file The entry.
+         * @throws IOException if an I/O error occurs.
+         */
+        public void add(final FTPFile file) throws IOException {
+            if (closed) {
+                throw new IOException("Writer closed");
+            }
+            pending.add(file);
+            if (pending.size() == BLOCK_SIZE) {
+                writeBlock();
+            }
+        }
+
+        /**
+         * Adds entries to the snapshot.
+         *
+         * @param files The entries.
+         * @throws IOException if an I/O error occurs.
+         */
+        public void addAll(final FTPFile... files) throws IOException {
+            for (final FTPFile file : files) {
+                add(file);
+            }
+        }
+
+        /**
+         * Writes the pending entries and the footer, and closes the output stream.
+         *
+         * @throws IOException if an I/O error occurs.
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (OutputStream out = output) {
+                if (!pending.isEmpty()) {
+                    writeBlock();
+                }
+                final ByteBuffer footer = ByteBuffer.allocate(blocks.size() * 12 + TAIL_SIZE).order(ByteOrder.BIG_ENDIAN);
+                for (final long[] block : blocks) {
+                    footer.putLong(block[0]);
+                    footer.putInt((int) block[1]);
+                }
+                footer.putInt(blocks.size());
+                footer.putLong(position);
+                footer.put(MAGIC);
+                out.write(footer.array());
+            }
+        }
+
+        private int string(final Map<String, Integer> table, final String value) {
+            return value == null ? 0 : table.computeIfAbsent(value, k -> table.size() + 1);
+        }
+
+        private void writeBlock() throws IOException {
+            final int count = pending.size();
+            final Map<String, Integer> table = new HashMap<>();
+            final ByteArrayOutputStream columns = new ByteArrayOutputStream(count * 16);
+            final int[][] strings = new int[5][count];
+            final byte[] flags = new byte[count];
+            final byte[] types = new byte[count];
+            for (int i = 0; i < count; i++) {
+                final FTPFile file = pending.get(i);
+                final Calendar timestamp = file.getTimestamp();
+                flags[i] = (byte) ((file.isValid() ? VALID : 0) | (timestamp != null ? TIMESTAMP : 0));
+                types[i] = (byte) file.getType();
+                strings[0][i] = string(table, file.getName());
+                strings[1][i] = string(table, file.getUser());
+                strings[2][i] = string(table, file.getGroup());
+                strings[3][i] = string(table, file.getLink());
+                strings[4][i] = string(table, file.getRawListing());
+                if (timestamp != null) {
+                    string(table, timestamp.getTimeZone().getID());
+                }
+            }
+            columns.write(flags, 0, count);
+            columns.write(types, 0, count);
+            for (final FTPFile file : pending) {
+                int mask = 0;
+                if (file.isValid()) {
+                    for (int access = FTPFile.USER_ACCESS; access <= FTPFile.WORLD_ACCESS; access++) {
+                        for (int permission = FTPFile.READ_PERMISSION; permission <= FTPFile.EXECUTE_PERMISSION; permission++) {
+                            if (file.hasPermission(access, permission)) {
+                                mask |= 1 << access * 3 + permission;
+                            }
+                        }
+                    }
+                }
+                writeLong(columns, mask);
+            }
+            for (final FTPFile file : pending) {
+                writeLong(columns, file.getHardLinkCount());
+            }
+            for (final FTPFile file : pending) {
+                writeSignedLong(columns, file.getSize());
+            }
+            for (final int[] column : strings) {
+                for (final int index : column) {
+                    writeLong(columns, index);
+                }
+            }
+            long previous = 0;
+            for (final FTPFile file : pending) {
+                final Calendar timestamp = file.getTimestamp();
+                if (timestamp != null) {
+                    // read the precision first, as computing the time may normalize the fields
+                    int precision = 0;
+                    for (int i = 0; i < PRECISION_FIELDS.length; i++) {
+                        if (timestamp.isSet(PRECISION_FIELDS[i])) {
+                            precision |= 1 << i;
+                        }
+                    }
+                    final long millis = timestamp.getTimeInMillis();
+                    writeSignedLong(columns, millis - previous);
+                    previous = millis;
+                    writeLong(columns, string(table, timestamp.getTimeZone().getID()));
+                    columns.write(precision);
+                }
+            }
+            final ByteArrayOutputStream block = new ByteArrayOutputStream(columns.size() + table.size() * 16 + 16);
+            writeLong(block, count);
+            writeLong(block, table.size());
+            final String[] values = new String[table.size()];
+            table.forEach((value, index) -> values[index - 1] = value);
+            for (final String value : values) {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeLong(block, bytes.length);
+                block.write(bytes, 0, bytes.length);
+            }
+            columns.writeTo(block);
+            blocks.add(new long[] { position, count });
+            block.writeTo(output);
+            position += block.size();
+            pending.clear();
+        }
+    }
+
+    /** The maximum number of entries in a block. */
+    public static final int BLOCK_SIZE = 4096;
+
+    private static final byte[] MAGIC = { 'F', 'T', 'P', 'L' };
+
+    private static final int[] PRECISION_FIELDS = { Calendar.HOUR_OF_DAY, Calendar.MINUTE, Calendar.SECOND, Calendar.MILLISECOND };
+
+    /** The block count, the footer offset and the magic number. */
+    private static final int TAIL_SIZE = 4 + 8 + 4;
+
+    private static final byte TIMESTAMP = 2;
+
+    private static final byte VALID = 1;
+
+    /** The version of the format written. */
+    public static final int VERSION = 1;
+
+    /**
+     * Maps a snapshot file into memory and reads its index.
+     *
+     * @param path The snapshot file.
+     * @return The snapshot.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public static FTPFileSnapshot open(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + path);
+            }
+            return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static int readInt(final ByteBuffer buffer) {
+        return (int) readLong(buffer);
+    }
+
+    private static int[] readInts(final ByteBuffer buffer, final int count) {
+        final int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = readInt(buffer);
+        }
+        return values;
+    }
+
+    private static long readLong(final ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0;; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long readSignedLong(final ByteBuffer buffer) {
+        final long value = readLong(buffer);
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    /**
+     * Reads a snapshot from a buffer, such as a mapped file, and its index.
+     *
+     * @param buffer The buffer, from its position to its limit.
+     * @return The snapshot.
+     * @throws IOException if the buffer does not hold a snapshot of a supported version.
+     */
+    public static FTPFileSnapshot wrap(final ByteBuffer buffer) throws IOException {
+        final ByteBuffer data = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        final byte[] magic = new byte[MAGIC.length];
+        try {
+            data.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a listing snapshot");
+            }
+            final int version = data.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            final int tail = data.limit() - TAIL_SIZE;
+            final int blockCount = data.getInt(tail);
+            final long footer = data.getLong(tail + 4);
+            data.position(tail + 12);
+            data.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || blockCount < 0 || footer < MAGIC.length + 1 || footer + blockCount * 12L != tail) {
+                throw new IOException("Truncated listing snapshot");
+            }
+            final int[] offsets = new int[blockCount];
+            final int[] firsts = new int[blockCount + 1];
+            data.position((int) footer);
+            for (int i = 0; i < blockCount; i++) {
+                offsets[i] = (int) data.getLong();
+                firsts[i + 1] = firsts[i] + data.getInt();
+            }
+            return new FTPFileSnapshot(data, offsets, firsts);
+        } catch (final BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated listing snapshot", e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of a listing.
+     *
+     * @param files  The entries.
+     * @param output The output stream, which is closed.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(final FTPFile[] files, final OutputStream output) throws IOException {
+        try (Writer writer = new Writer(output)) {
+            writer.addAll(files);
+        }
+    }
+
+    private static void writeLong(final ByteArrayOutputStream out, final long value) {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) (v & 0x7F | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static void writeSignedLong(final ByteArrayOutputStream out, final long value) {
+        writeLong(out, value << 1 ^ value >> 63);
+    }
+
+    private final ByteBuffer buffer;
+    private volatile Block cached;
+    private final int[] firsts;
+    private final int[] offsets;
+
+    private FTPFileSnapshot(final ByteBuffer buffer, final int[] offsets, final int[] firsts) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+        this.firsts = firsts;
+    }
+
+    private Block block(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        final Block block = cached;
+        if (block != null && index >= block.first && index < block.first + block.count) {
+            return block;
+        }
+        int i = Arrays.binarySearch(firsts, index);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        final ByteBuffer data = buffer.duplicate();
+        data.position(offsets[i]);
+        final Block decoded = new Block(firsts[i], data);
+        cached = decoded;
+        return decoded;
+    }
+
+    /**
+     * Decodes an entry.
+     *
+     * @param index The index of the entry.
+     * @return A new FTPFile.
+     * @throws IndexOutOfBoundsException if the index is not within the snapshot.
+     */
+    public FTPFile get(final int index) {
+        final Block block = block(index);
+        final int i = index - block.first;
+        final FTPFile file;
+        if ((block.flags[i] & VALID) != 0) {
+            file = new FTPFile();
+            file.setRawListing(string(block, block.rawListings[i]));
+        } else {
+            file = new FTPFile(string(block, block.rawListings[i]));
+        }
+        file.setType(block.types[i]);
+        file.setName(string(block, block.names[i]));
+        file.setUser(string(block, block.users[i]));
+        file.setGroup(string(block, block.groups[i]));
+        file.setLink(string(block, block.links[i]));
+        file.setSize(block.sizes[i]);
+        file.setHardLinkCount(block.hardLinkCounts[i]);
+        if (file.isValid()) {
+            for (int access = FTPFile.USER_ACCESS; access <= FTPFile.WORLD_ACCESS; access++) {
+                for (int permission = FTPFile.READ_PERMISSION; permission <= FTPFile.EXECUTE_PERMISSION; permission++) {
+                    file.setPermission(access, permission, (block.permissions[i] & 1 << access * 3 + permission) != 0);
+                }
+            }
+        }
+        if ((block.flags[i] & TIMESTAMP) != 0) {
+            final Calendar timestamp = Calendar.getInstance(TimeZone.getTimeZone(string(block, block.zones[i])));
+            timestamp.setTimeInMillis(block.timestamps[i]);
+            for (int field = PRECISION_FIELDS.length - 1; field >= 0; field--) {
+                if ((block.precisions[i] & 1 << field) == 0) {
+                    timestamp.clear(PRECISION_FIELDS[field]);
+                }
+            }
+            file.setTimestamp(timestamp);
+        }
+        return file;
+    }
+
+    /**
+     * Decodes the name of an entry, without decoding the rest of it.
+     *
+     * @param index The index of the entry.
+     * @return The name.
+     * @throws IndexOutOfBoundsException if the index is not within the snapshot.
+     */
+    public String getName(final int index) {
+        final Block block = block(index);
+        return string(block, block.names[index - block.first]);
+    }
+
+    /**
+     * Iterates over the entries, decoding each as it is reached.
+     *
+     * @return A new iterator.
+     */
+    @Override
+    public Iterator<FTPFile> iterator() {
+        return new Iterator<FTPFile>() {
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size();
+            }
+
+            @Override
+            public FTPFile next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return firsts[firsts.length - 1];
+    }
+
+    private String string(final Block block, final int index) {
+        if (index == 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[block.stringLengths[index - 1]];
+        final ByteBuffer data = buffer.duplicate();
+        data.position(block.stringOffsets[index - 1]);
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes all entries.
+     *
+     * @return A new array of the entries.
+     */
+    public FTPFile[] toArray() {
+        final FTPFile[] files = new FTPFile[size()];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = get(i);
+        }
+        return files;
+    }
+}
@@ -239,14 +239,31 @@ public class FTPListParseEngine {
      */
     private void read(final InputStream inputStream, final String charsetName) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, Charsets.toCharset(charsetName)))) {
-            String line = parser.readNextEntry(reader);
-            while (line != null) {
-                entries.add(line);
-                line = parser.readNextEntry(reader);
-            }
+            read(reader);
+        }
+    }
+
+    private void read(final BufferedReader reader) throws IOException {
+        String line = parser.readNextEntry(reader);
+        while (line != null) {
+            entries.add(line);
+            line = parser.readNextEntry(reader);
         }
     }
 
+    /**
+     * Reads and preparses a list which has already been received, such as the lines of a reply to {@code STAT}.
+     *
+     * @param reader The lines of the list.
+     * @throws IOException thrown on any failure to read the lines.
+     */
+    void readServerList(final BufferedReader reader) throws IOException {
+        entries = new LinkedList<>();
+        read(reader);
+        parser.preParse(entries);
+        resetIterator();
+    }
+
     /**
      * Do not use.
      *
@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the names of an NLST listing as they are read from the data connection, see {@link FTPClient#iterateNames(String, String)}. Unlike
+ * {@link FTPClient#listNames(String)}, the listing is never held in memory, and names which do not match the glob pattern are skipped before a
+ * {@link String} is created for them.
+ * <p>
+ * The glob pattern matches whole names, with {@code *} matching any sequence of characters and {@code ?} any single character; a prefix is matched by a
+ * pattern such as {@code "report-*"}. The pattern is matched against the encoded bytes of each name when the control encoding is UTF-8 or a single byte
+ * encoding, and against the decoded name otherwise.
+ * </p>
+ * <p>
+ * The iterator must be closed, which closes the data connection if the listing was not read to its end and completes the NLST command with
+ * {@link FTPClient#completePendingCommand()}. It is closed when the iteration reaches the end of the listing, and by {@link Stream#close()} on
+ * {@link #stream()}. The client must not be used for other commands until then. I/O errors while iterating are thrown as {@link UncheckedIOException}.
+ * </p>
+ *
+ * <pre>
+ * final FTPNameIterator names = ftp.iterateNames("/landing", "*.csv");
+ * try {
+ *     while (names.hasNext()) {
+ *         process(names.next());
+ *     }
+ * } finally {
+ *     names.close();
+ * }
+ * if (!names.isTransferComplete()) {
+ *     // the listing was cut short by the server
+ * }
+ * </pre>
+ *
+ * @since 3.14.0
+ */
+public final class FTPNameIterator implements Iterator<String>, Closeable {
+
+    private static final byte ANY_CHAR = 1;
+
+    private static final byte ANY_CHARS = 2;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte LITERAL = 0;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private final boolean byteDomain;
+    private final Charset charset;
+    private final FTPClient client;
+    private boolean closed;
+    private boolean endOfStream;
+    private final InputStream input;
+    private byte[] kinds;
+    private int limit;
+    private int lineEnd;
+    private int lineStart;
+    private String next;
+    private byte[] pattern;
+    private final Socket socket;
+    private int start;
+    private boolean transferComplete;
+    private final boolean utf8;
+
+    /**
+     * Constructs a new instance reading the listing from a data connection.
+     *
+     * @param client  The client which sent the NLST command.
+     * @param socket  The data connection.
+     * @param charset The encoding of the names.
+     * @param glob    The glob pattern the names must match, or null for all names.
+     * @throws IOException if the data connection cannot be read.
+     */
+    FTPNameIterator(final FTPClient client, final Socket socket, final Charset charset, final String glob) throws IOException {
+        this.client = client;
+        this.socket = socket;
+        this.charset = charset;
+        this.byteDomain = charset.equals(StandardCharsets.UTF_8) || charset.newEncoder().maxBytesPerChar() == 1;
+        this.utf8 = !byteDomain || charset.equals(StandardCharsets.UTF_8);
+        if (glob != null) {
+            compile(glob, byteDomain ? charset : StandardCharsets.UTF_8);
+        }
+        try {
+            this.input = socket.getInputStream();
+        } catch (final IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the data connection, if the listing was not read to its end, and completes the NLST command. Does nothing if already closed.
+     *
+     * @throws IOException if an I/O error occurs while closing the data connection or reading the completion reply.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        next = null;
+        try {
+            socket.close();
+        } finally {
+            transferComplete = client.completePendingCommand();
+        }
+    }
+
+    private void compile(final String glob, final Charset encoding) {
+        final byte[] bytes = new byte[glob.length() * (int) Math.ceil(encoding.newEncoder().maxBytesPerChar())];
+        final byte[] types = new byte[bytes.length];
+        int length = 0;
+        int literalStart = 0;
+        for (int i = 0; i <= glob.length(); i++) {
+            final char c = i < glob.length() ? glob.charAt(i) : '*';
+            if (c == '*' || c == '?') {
+                final byte[] literal = glob.substring(literalStart, i).getBytes(encoding);
+                System.arraycopy(literal, 0, bytes, length, literal.length);
+                length += literal.length;
+                if (i < glob.length()) {
+                    types[length++] = c == '*' ? ANY_CHARS : ANY_CHAR;
+                }
+                literalStart = i + 1;
+            }
+        }
+        this.pattern = Arrays.copyOf(bytes, length);
+        this.kinds = Arrays.copyOf(types, length);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        try {
+            while (readLine()) {
+                if (lineEnd == lineStart) {
+                    continue;
+                }
+                if (byteDomain) {
+                    if (pattern == null || matches(buffer, lineStart, lineEnd)) {
+                        next = new String(buffer, lineStart, lineEnd - lineStart, charset);
+                        return true;
+                    }
+                } else {
+                    final String name = new String(buffer, lineStart, lineEnd - lineStart, charset);
+                    final byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+                    if (pattern == null || matches(encoded, 0, encoded.length)) {
+                        next = name;
+                        return true;
+                    }
+                }
+            }
+            close();
+            return false;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Tests whether the server confirmed that the listing was sent in full. Valid once the iterator is closed.
+     *
+     * @return true if the NLST command completed successfully, false if it failed or the iterator is not closed yet.
+     */
+    public boolean isTransferComplete() {
+        return transferComplete;
+    }
+
+    /**
+     * Matches the glob pattern against a name, backtracking to the last {@code *} on a mismatch.
+     *
+     * @param name   The bytes holding the encoded name.
+     * @param offset The index of the first byte of the name.
+     * @param end    The index following the last byte of the name.
+     * @return whether the whole name matches.
+     */
+    boolean matches(final byte[] name, final int offset, final int end) {
+        int p = 0;
+        int s = offset;
+        int starPattern = -1;
+        int starName = -1;
+        while (s < end) {
+            if (p < pattern.length && kinds[p] == ANY_CHARS) {
+                starPattern = p++;
+                starName = s;
+            } else if (p < pattern.length && kinds[p] == ANY_CHAR) {
+                p++;
+                s = nextChar(name, s, end);
+            } else if (p < pattern.length && kinds[p] == LITERAL && pattern[p] == name[s]) {
+                p++;
+                s++;
+            } else if (starPattern >= 0) {
+                p = starPattern + 1;
+                starName = nextChar(name, starName, end);
+                s = starName;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length && kinds[p] == ANY_CHARS) {
+            p++;
+        }
+        return p == pattern.length;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final String name = next;
+        next = null;
+        return name;
+    }
+
+    /**
+     * Gets the index following the character at an index, which spans its continuation bytes in UTF-8.
+     */
+    private int nextChar(final byte[] bytes, final int index, final int end) {
+        int i = index + 1;
+        if (utf8) {
+            while (i < end && (bytes[i] & 0xC0) == 0x80) {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Reads the next line into {@code buffer[lineStart, lineEnd)}, without its line terminator.
+     *
+     * @return false at the end of the listing.
+     */
+    private boolean readLine() throws IOException {
+        int scanned = start;
+        while (true) {
+            for (int i = scanned; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    setLine(start, i);
+                    start = i + 1;
+                    return true;
+                }
+            }
+            if (endOfStream) {
+                if (start < limit) {
+                    setLine(start, limit);
+                    start = limit;
+                    return true;
+                }
+                return false;
+            }
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, limit - start);
+                limit -= start;
+                start = 0;
+            } else if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            scanned = limit;
+            final int n = input.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                endOfStream = true;
+            } else {
+                limit += n;
+            }
+        }
+    }
+
+    private void setLine(final int from, final int to) {
+        lineStart = from;
+        lineEnd = to > from && buffer[to - 1] == '\r' ? to - 1 : to;
+    }
+
+    /**
+     * Creates a sequential stream of the remaining names, which closes this iterator when closed.
+     *
+     * @return A new stream.
+     */
+    public Stream<String> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(() -> {
+            try {
+                close();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Objects;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.function.IOSupplier;
+
+/**
+ * Transfers files with automatic resume and retry after an interrupted transfer.
+ * <p>
+ * When a transfer fails with an {@link IOException} (for example a {@link org.apache.commons.net.io.CopyStreamException} or a
+ * {@link FTPConnectionClosedException}), the client is disconnected and a new one is obtained from the connector. The transfer then resumes where it
+ * stopped, after a backoff delay which doubles on each attempt:
+ * </p>
+ * <ul>
+ * <li>downloads restart at the length of the partial local file, using {@code REST} ({@link FTPClient#setRestartOffset(long)});</li>
+ * <li>uploads skip the part of the local file already on the server, as reported by {@code SIZE}, and send the rest with {@code APPE}.</li>
+ * </ul>
+ * <p>
+ * A completed transfer is verified by comparing the local file length with the remote {@code SIZE} (skipped if the server does not support {@code SIZE}) and,
+ * optionally, with a {@link Verifier} such as a checksum comparison. A transfer which fails verification, or whose resume is refused by the server, is
+ * restarted from the beginning.
+ * </p>
+ * <p>
+ * Offsets are only meaningful for binary transfers, so the connector must return clients which are logged in and set to
+ * {@link FTP#BINARY_FILE_TYPE}. A negative permanent reply other than a refused resume (for example, file not found) is not retried, and the transfer method
+ * returns false as {@link FTPClient} would.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * <pre>
+ * FTPResumableTransfer transfer = new FTPResumableTransfer(() -&gt; {
+ *     FTPClient ftp = new FTPClient();
+ *     ftp.connect(host);
+ *     ftp.login(user, password);
+ *     ftp.setFileType(FTP.BINARY_FILE_TYPE);
+ *     return ftp;
+ * });
+ * transfer.retrieveFile("big.iso", new File("big.iso"));
+ * transfer.disconnect();
+ * </pre>
+ *
+ * @since 3.14.0
+ */
+public class FTPResumableTransfer {
+
+    /**
+     * Verifies a completed transfer, for example by comparing checksums.
+     */
+    @FunctionalInterface
+    public interface Verifier {
+
+        /**
+         * Verifies a completed transfer.
+         *
+         * @param client The client used for the transfer, still connected.
+         * @param remote The remote file name.
+         * @param local  The local file.
+         * @return whether the remote and local files match.
+         * @throws IOException If an I/O error occurs.
+         */
+        boolean verify(FTPClient client, String remote, File local) throws IOException;
+    }
+
+    private static final long UNKNOWN_SIZE = -1;
+
+    private final IOSupplier<FTPClient> connector;
+    private FTPClient client;
+    private int maxAttempts = 5;
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofSeconds(30);
+    private Verifier verifier;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param connector Supplies a connected, logged in client in binary mode; called for the first transfer and again after each failure.
+     */
+    public FTPResumableTransfer(final IOSupplier<FTPClient> connector) {
+        this.connector = Objects.requireNonNull(connector, "connector");
+    }
+
+    /**
+     * Appends a local file to a remote file, resuming after failures.
+     * <p>
+     * The remote size before the first attempt is used to work out how much of the local file has been appended after a failure, so the server must support
+     * {@code SIZE} for the append to be resumed. The {@link Verifier} is not used.
+     * </p>
+     *
+     * @param remote The remote file name.
+     * @param local  The local file.
+     * @return true if successfully completed, false if the server refused the transfer.
+     * @throws IOException If the transfer still fails after the maximum number of attempts.
+     */
+    public boolean appendFile(final String remote, final File local) throws IOException {
+        return upload(remote, local, true);
+    }
+
+    private void backoff(final int retry) throws InterruptedIOException {
+        final long delay = Math.min(initialBackoff.toMillis() << Math.min(retry - 1, 20), maxBackoff.toMillis());
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry transfer");
+        }
+    }
+
+    /**
+     * Disconnects the current client, if any. The next transfer obtains a new client from the connector.
+     */
+    public void disconnect() {
+        if (client != null) {
+            try {
+                client.disconnect();
+            } catch (final IOException e) {
+                // ignored, the connection is being discarded
+            }
+            client = null;
+        }
+    }
+
+    /**
+     * Gets the client used by the last transfer, or {@code null} if it was discarded after a failure.
+     *
+     * @return The current client.
+     */
+    public FTPClient getClient() {
+        return client;
+    }
+
+    /**
+     * Gets the delay before the first retry.
+     *
+     * @return The initial backoff.
+     */
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * Gets the maximum number of attempts per transfer, including the first.
+     *
+     * @return The maximum number of attempts.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Gets the maximum delay between retries.
+     *
+     * @return The maximum backoff.
+     */
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    private long getRemoteSize(final FTPClient ftp, final String remote) throws IOException {
+        final String size = ftp.getSize(remote);
+        if (size != null) {
+            try {
+                return Long.parseLong(size.trim());
+            } catch (final NumberFormatException e) {
+                // fall through
+            }
+        }
+        return UNKNOWN_SIZE;
+    }
+
+    private boolean isComplete(final FTPClient ftp, final String remote, final File local, final long expectedSize, final boolean verify)
+            throws IOException {
+        final long remoteSize = getRemoteSize(ftp, remote);
+        if (remoteSize != UNKNOWN_SIZE && remoteSize != expectedSize) {
+            return false;
+        }
+        return !verify || verifier == null || verifier.verify(ftp, remote, local);
+    }
+
+    private FTPClient openClient() throws IOException {
+        if (client == null || !client.isConnected()) {
+            client = Objects.requireNonNull(connector.get(), "connector returned null");
+        }
+        return client;
+    }
+
+    /**
+     * Retrieves a remote file into a local file, resuming after failures. An existing local file is overwritten.
+     *
+     * @param remote The remote file name.
+     * @param local  The local file.
+     * @return true if successfully completed, false if the server refused the transfer.
+     * @throws IOException If the transfer still fails after the maximum number of attempts.
+     */
+    public boolean retrieveFile(final String remote, final File local) throws IOException {
+        long offset = 0;
+        IOException failure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            if (attempt > 1) {
+                backoff(attempt - 1);
+            }
+            try {
+                final FTPClient ftp = openClient();
+                ftp.setRestartOffset(offset);
+                final boolean ok;
+                try (OutputStream output = new FileOutputStream(local, offset > 0)) {
+                    ok = ftp.retrieveFile(remote, output);
+                }
+                if (!ok) {
+                    if (FTPReply.isNegativePermanent(ftp.getReplyCode())) {
+                        if (offset == 0) {
+                            return false;
+                        }
+                        offset = 0; // resume refused, start again
+                    } else {
+                        offset = local.length();
+                    }
+                    failure = null;
+                    continue;
+                }
+                if (isComplete(ftp, remote, local, local.length(), true)) {
+                    return true;
+                }
+                offset = 0;
+                failure = new IOException("Verification failed for " + remote);
+            } catch (final IOException e) {
+                disconnect();
+                // the local file is written unbuffered, so its length is what was actually received
+                offset = local.length();
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return false;
+    }
+
+    /**
+     * Sets the delay before the first retry; it doubles for each further retry up to the maximum backoff. The default is 1 second.
+     *
+     * @param initialBackoff The initial backoff.
+     */
+    public void setInitialBackoff(final Duration initialBackoff) {
+        this.initialBackoff = Objects.requireNonNull(initialBackoff, "initialBackoff");
+    }
+
+    /**
+     * Sets the maximum number of attempts per transfer, including the first. The default is 5.
+     *
+     * @param maxAttempts The maximum number of attempts, at least 1.
+     */
+    public void setMaxAttempts(final int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Sets the maximum delay between retries. The default is 30 seconds.
+     *
+     * @param maxBackoff The maximum backoff.
+     */
+    public void setMaxBackoff(final Duration maxBackoff) {
+        this.maxBackoff = Objects.requireNonNull(maxBackoff, "maxBackoff");
+    }
+
+    /**
+     * Sets an additional verification of completed transfers, used after the size check. The default is none.
+     *
+     * @param verifier The verifier, may be null.
+     */
+    public void setVerifier(final Verifier verifier) {
+        this.verifier = verifier;
+    }
+
+    /**
+     * Stores a local file as a remote file, resuming after failures. An existing remote file is overwritten.
+     *
+     * @param remote The remote file name.
+     * @param local  The local file.
+     * @return true if successfully completed, false if the server refused the transfer.
+     * @throws IOException If the transfer still fails after the maximum number of attempts.
+     */
+    public boolean storeFile(final String remote, final File local) throws IOException {
+        return upload(remote, local, false);
+    }
+
+    private boolean upload(final String remote, final File local, final boolean append) throws IOException {
+        final long length = local.length();
+        long base = 0;
+        // the base is measured before anything is appended, by the first attempt which reaches the server
+        boolean baseKnown = false;
+        boolean resume = append;
+        IOException failure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            if (attempt > 1) {
+                backoff(attempt - 1);
+            }
+            try {
+                final FTPClient ftp = openClient();
+                long offset = 0;
+                if (append && !baseKnown) {
+                    base = Math.max(getRemoteSize(ftp, remote), 0);
+                    baseKnown = true;
+                } else if (resume) {
+                    final long remoteSize = getRemoteSize(ftp, remote);
+                    if (remoteSize == UNKNOWN_SIZE || remoteSize < base || remoteSize - base > length) {
+                        if (append) {
+                            failure = new IOException("Cannot determine how much of " + local + " was appended to " + remote, failure);
+                            break;
+                        }
+                        resume = false;
+                    } else {
+                        offset = remoteSize - base;
+                    }
+                }
+                final boolean ok;
+                try (InputStream input = new FileInputStream(local)) {
+                    IOUtils.skipFully(input, offset);
+                    ok = resume ? ftp.appendFile(remote, input) : ftp.storeFile(remote, input);
+                }
+                if (!ok) {
+                    if (FTPReply.isNegativePermanent(ftp.getReplyCode())) {
+                        if (!resume || append) {
+                            return false;
+                        }
+                        resume = false; // append refused, start again
+                    }
+                    failure = null;
+                    continue;
+                }
+                if (isComplete(ftp, remote, local, base + length, !append)) {
+                    return true;
+                }
+                failure = new IOException("Verification failed for " + remote);
+                if (append) {
+                    break;
+                }
+                resume = false;
+            } catch (final IOException e) {
+                disconnect();
+                resume = true;
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return false;
+    }
+}
@@ -29,6 +29,8 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.Base64;
 
+import javax.net.ServerSocketFactory;
+import javax.net.SocketFactory;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
@@ -39,6 +41,7 @@ import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.net.util.SSLContextRegistry;
 import org.apache.commons.net.util.SSLContextUtils;
 import org.apache.commons.net.util.SSLSocketUtils;
 import org.apache.commons.net.util.TrustManagerUtils;
@@ -162,6 +165,12 @@ public class FTPSClient extends FTPClient {
     /** Use Java 1.7+ HTTPS Endpoint Identification Algorithm. */
     private boolean tlsEndpointChecking;
 
+    /** Whether data connections resume the TLS session of the control connection. */
+    private boolean sessionReuseEnabled;
+
+    /** The registry of shared SSL contexts, {@code null} to create one per client. */
+    private SSLContextRegistry sslContextRegistry;
+
     /**
      * Constructor for FTPSClient, calls {@link #FTPSClient(String, boolean)}.
      *
@@ -299,7 +308,7 @@ public class FTPSClient extends FTPClient {
             sslSocket.startHandshake();
             verifyHostName(sslSocket);
         }
-        return socket;
+        return limitBandwidth(socket);
     }
 
     /**
@@ -339,6 +348,21 @@ public class FTPSClient extends FTPClient {
         IOUtils.close(socket, sslSocket);
     }
 
+    /**
+     * Layers an SSL socket over a plain data socket, which resumes the session of the control connection. The JDK looks up client sessions by the peer host
+     * name and the port of the underlying socket, so the data socket reports the port of the control connection.
+     */
+    private Socket createSessionReuseSocket(final Socket socket) throws IOException {
+        final int controlPort = getRemotePort();
+        final Socket controlPeer = new DelegateSocket(socket) {
+            @Override
+            public int getPort() {
+                return controlPort;
+            }
+        };
+        return context.getSocketFactory().createSocket(controlPeer, _hostname_, controlPort, true);
+    }
+
     /**
      * Create SSL socket from plain socket.
      *
@@ -663,6 +687,16 @@ public class FTPSClient extends FTPClient {
         return suites == null ? null : suites.clone();
     }
 
+    /**
+     * Gets the registry which the SSL context is taken from.
+     *
+     * @return The registry, or {@code null} if this client creates its own context.
+     * @since 3.14.0
+     */
+    public SSLContextRegistry getSSLContextRegistry() {
+        return sslContextRegistry;
+    }
+
     /**
      * Gets the currently configured {@link TrustManager}.
      *
@@ -704,7 +738,8 @@ public class FTPSClient extends FTPClient {
      */
     private void initSslContext() throws IOException {
         if (context == null) {
-            context = SSLContextUtils.createSSLContext(protocol, getKeyManager(), getTrustManager());
+            context = sslContextRegistry != null ? sslContextRegistry.getSSLContext(protocol, getKeyManager(), getTrustManager())
+                    : SSLContextUtils.createSSLContext(protocol, getKeyManager(), getTrustManager());
         }
     }
 
@@ -741,6 +776,17 @@ public class FTPSClient extends FTPClient {
         return tlsEndpointChecking;
     }
 
+    /**
+     * Tests whether data connections resume the TLS session of the control connection.
+     *
+     * @return True if enabled, false if not.
+     * @see #setSessionReuseEnabled(boolean)
+     * @since 3.14.0
+     */
+    public boolean isSessionReuseEnabled() {
+        return sessionReuseEnabled;
+    }
+
     /**
      * Tests the security mode. (True - Implicit Mode / False - Explicit Mode).
      *
@@ -789,16 +835,19 @@ public class FTPSClient extends FTPClient {
         if (getDataConnectionMode() != ACTIVE_LOCAL_DATA_CONNECTION_MODE && getDataConnectionMode() != PASSIVE_LOCAL_DATA_CONNECTION_MODE) {
             return null;
         }
+        measureRoundTrip();
 
         final boolean isInet6Address = getRemoteAddress() instanceof Inet6Address;
 
         final Socket socket;
         Socket sslSocket = null;
         final int soTimeoutMillis = DurationUtils.toMillisInt(getDataTimeout());
+        final boolean reuseSession = sessionReuseEnabled && _hostname_ != null && _socketFactory_ instanceof FTPSSocketFactory;
         if (getDataConnectionMode() == ACTIVE_LOCAL_DATA_CONNECTION_MODE) {
+            final ServerSocketFactory serverSocketFactory = reuseSession ? ServerSocketFactory.getDefault() : _serverSocketFactory_;
             // if no activePortRange was set (correctly) -> getActivePort() = 0
             // -> new ServerSocket(0) -> bind to any free local port
-            try (ServerSocket server = _serverSocketFactory_.createServerSocket(getActivePort(), 1, getHostAddress())) {
+            try (ServerSocket server = serverSocketFactory.createServerSocket(getActivePort(), 1, getHostAddress())) {
                 // Try EPRT only if remote server is over IPv6, if not use PORT,
                 // because EPRT has no advantage over PORT on IPv4.
                 // It could even have the disadvantage,
@@ -831,11 +880,16 @@ public class FTPSClient extends FTPClient {
                 if (soTimeoutMillis >= 0) {
                     socket.setSoTimeout(soTimeoutMillis);
                 }
-                if (getReceiveDataSocketBufferSize() > 0) {
-                    socket.setReceiveBufferSize(getReceiveDataSocketBufferSize());
+                final int receiveBufferSize = dataSocketBufferSize(getReceiveDataSocketBufferSize());
+                if (receiveBufferSize > 0) {
+                    socket.setReceiveBufferSize(receiveBufferSize);
                 }
-                if (getSendDataSocketBufferSize() > 0) {
-                    socket.setSendBufferSize(getSendDataSocketBufferSize());
+                final int sendBufferSize = dataSocketBufferSize(getSendDataSocketBufferSize());
+                if (sendBufferSize > 0) {
+                    socket.setSendBufferSize(sendBufferSize);
+                }
+                if (reuseSession) {
+                    sslSocket = createSessionReuseSocket(socket);
                 }
             }
         } else { // We must be in PASSIVE_LOCAL_DATA_CONNECTION_MODE
@@ -860,15 +914,19 @@ public class FTPSClient extends FTPClient {
 
             if (getProxy() != null) {
                 socket = new Socket(getProxy());
+            } else if (reuseSession) {
+                socket = SocketFactory.getDefault().createSocket();
             } else {
                 socket = _socketFactory_.createSocket();
             }
 
-            if (getReceiveDataSocketBufferSize() > 0) {
-                socket.setReceiveBufferSize(getReceiveDataSocketBufferSize());
+            final int receiveBufferSize = dataSocketBufferSize(getReceiveDataSocketBufferSize());
+            if (receiveBufferSize > 0) {
+                socket.setReceiveBufferSize(receiveBufferSize);
             }
-            if (getSendDataSocketBufferSize() > 0) {
-                socket.setSendBufferSize(getSendDataSocketBufferSize());
+            final int sendBufferSize = dataSocketBufferSize(getSendDataSocketBufferSize());
+            if (sendBufferSize > 0) {
+                socket.setSendBufferSize(sendBufferSize);
             }
             if (getPassiveLocalIPAddress() != null) {
                 socket.bind(new InetSocketAddress(getPassiveLocalIPAddress(), 0));
@@ -884,7 +942,9 @@ public class FTPSClient extends FTPClient {
 
             socket.connect(new InetSocketAddress(getPassiveHost(), getPassivePort()), connectTimeout);
 
-            if (getProxy() != null) {
+            if (reuseSession) {
+                sslSocket = createSessionReuseSocket(socket);
+            } else if (getProxy() != null) {
                 sslSocket = context.getSocketFactory().createSocket(socket, getPassiveHost(), getPassivePort(), true);
             }
 
@@ -904,7 +964,7 @@ public class FTPSClient extends FTPClient {
                     "Host attempting data connection " + socketHost.getHostAddress() + " is not same as server " + getRemoteAddress().getHostAddress());
         }
 
-        return getProxy() != null ? sslSocket : socket;
+        return sslSocket != null ? sslSocket : socket;
     }
 
     /**
@@ -1021,6 +1081,23 @@ public class FTPSClient extends FTPClient {
         tlsEndpointChecking = enable;
     }
 
+    /**
+     * Sets the transfer mode. {@link FTP#BLOCK_TRANSFER_MODE} is not supported, as data connections are not framed in blocks, and is refused without
+     * sending {@code MODE B} to the server.
+     *
+     * @param fileTransferMode The new transfer mode to use (one of the FTP class {@code _TRANSFER_MODE} constants).
+     * @return True if successfully completed, false if not, and for {@link FTP#BLOCK_TRANSFER_MODE}.
+     * @throws IOException If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @since 3.14.0
+     */
+    @Override
+    public boolean setFileTransferMode(final int fileTransferMode) throws IOException {
+        if (fileTransferMode == BLOCK_TRANSFER_MODE) {
+            return false;
+        }
+        return super.setFileTransferMode(fileTransferMode);
+    }
+
     /**
      * Sets to override the default {@link HostnameVerifier} to use. The verifier is only used on client mode connections.
      *
@@ -1050,6 +1127,35 @@ public class FTPSClient extends FTPClient {
         this.isNeedClientAuth = isNeedClientAuth;
     }
 
+    /**
+     * Sets whether protected data connections resume the TLS session of the control connection. Many servers require this, so that a data connection cannot
+     * be taken over by another client, for example vsftpd with {@code require_ssl_reuse}, and it saves a full handshake for each transfer. The default is
+     * disabled, in which case each data connection performs a full handshake.
+     * <p>
+     * The data socket is created as a plain socket and layered with the host name and port of the control connection, which are the key of the session
+     * cache of the {@link SSLContext}. Session reuse therefore requires connecting with a host name, and data channel protection set by
+     * {@link #execPROT(String) execPROT("P")}.
+     * </p>
+     *
+     * @param sessionReuseEnabled True to resume the control session.
+     * @since 3.14.0
+     */
+    public void setSessionReuseEnabled(final boolean sessionReuseEnabled) {
+        this.sessionReuseEnabled = sessionReuseEnabled;
+    }
+
+    /**
+     * Sets the registry to take the SSL context from, unless one was given to the constructor. Clients which use the same registry, protocol, key manager and
+     * trust manager share a context and its TLS session cache, so that later connections can resume the sessions of earlier ones. The default is
+     * {@code null}, which creates a context for each client.
+     *
+     * @param sslContextRegistry The registry, for example {@link SSLContextRegistry#getDefault()}, or {@code null}.
+     * @since 3.14.0
+     */
+    public void setSSLContextRegistry(final SSLContextRegistry sslContextRegistry) {
+        this.sslContextRegistry = sslContextRegistry;
+    }
+
     /**
      * Sets to override the default {@link TrustManager} to use; if set to {@code null}, the default TrustManager from the JVM will be used.
      *
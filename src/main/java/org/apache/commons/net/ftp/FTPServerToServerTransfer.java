@@ -0,0 +1,585 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.function.IOSupplier;
+
+/**
+ * Transfers files directly from one FTP server to another (FXP), so that the data does not pass through the client. The sessions are used in pairs, one
+ * with each server, which are kept open between transfers, and several pairs can transfer files in parallel.
+ * <p>
+ * For each file, the target server is put in passive mode ({@code PASV}), the source server is given the data address of the target ({@code PORT}) and
+ * sent {@code RETR}, and then the target is sent {@code STOR}. The source is sent its command first, because some servers only send the preliminary reply
+ * to {@code STOR} once the data connection is established. A transfer succeeds when both servers report it complete.
+ * </p>
+ * <p>
+ * While waiting for the completion replies, {@code STAT} is sent to both servers every {@link #setStatusInterval(Duration) status interval}. Servers
+ * answer it during a transfer with its progress, which is passed to the {@link ProgressListener}. A transfer which does not complete within the
+ * {@link #setTransferTimeout(Duration) transfer timeout}, or fails with an {@link IOException}, is aborted on both servers with {@code ABOR}, and its pair
+ * of sessions is disconnected, as the replies still in flight cannot be told apart reliably.
+ * </p>
+ * <p>
+ * Both servers must allow data connections with a third party, which is often disabled by default. The connectors must return clients which are logged in
+ * and set to the same file type, usually {@link FTP#BINARY_FILE_TYPE}.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * <pre>
+ * try (FTPServerToServerTransfer fxp = new FTPServerToServerTransfer(() -&gt; connect(source), () -&gt; connect(target))) {
+ *     fxp.setParallelism(8);
+ *     for (FTPServerToServerTransfer.Result result : fxp.transferFiles(files)) {
+ *         if (!result.isSuccess()) {
+ *             System.err.println(result);
+ *         }
+ *     }
+ * }
+ * </pre>
+ *
+ * @since 3.14.0
+ */
+public class FTPServerToServerTransfer implements Closeable {
+
+    /**
+     * A pair of sessions, one with each server.
+     */
+    private static final class Pair {
+
+        final FTPClient source;
+        final FTPClient target;
+
+        /** Whether replies may still be in flight, so that the sessions cannot be used again. */
+        boolean broken;
+
+        Pair(final FTPClient source, final FTPClient target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        void disconnect() {
+            FTPServerToServerTransfer.disconnect(source);
+            FTPServerToServerTransfer.disconnect(target);
+        }
+    }
+
+    /**
+     * Receives the progress of transfers.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Receives the reply of a server to {@code STAT} during a transfer. Servers commonly report the number of bytes transferred so far, see
+         * {@link FTPServerToServerTransfer#parseByteCount(String)}.
+         *
+         * @param source The source file name.
+         * @param target The target file name.
+         * @param server The session with the server which replied, the source or the target.
+         * @param status The reply.
+         */
+        void statusReceived(String source, String target, FTPClient server, String status);
+    }
+
+    /**
+     * The outcome of the transfer of one file.
+     */
+    public static final class Result {
+
+        private final String source;
+        private final String target;
+        private final boolean success;
+        private final String sourceReply;
+        private final String targetReply;
+        private final IOException exception;
+
+        Result(final String source, final String target, final boolean success, final String sourceReply, final String targetReply,
+                final IOException exception) {
+            this.source = source;
+            this.target = target;
+            this.success = success;
+            this.sourceReply = sourceReply;
+            this.targetReply = targetReply;
+            this.exception = exception;
+        }
+
+        /**
+         * Gets the exception which ended the transfer.
+         *
+         * @return The exception, or {@code null} if the servers replied.
+         */
+        public IOException getException() {
+            return exception;
+        }
+
+        /**
+         * Gets the source file name.
+         *
+         * @return The source file name.
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Gets the last reply of the source server for this transfer: the completion reply, or the reply which refused the transfer.
+         *
+         * @return The reply, or {@code null} if there was none.
+         */
+        public String getSourceReply() {
+            return sourceReply;
+        }
+
+        /**
+         * Gets the target file name.
+         *
+         * @return The target file name.
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        /**
+         * Gets the last reply of the target server for this transfer: the completion reply, or the reply which refused the transfer.
+         *
+         * @return The reply, or {@code null} if there was none.
+         */
+        public String getTargetReply() {
+            return targetReply;
+        }
+
+        /**
+         * Tests whether both servers reported the transfer complete.
+         *
+         * @return whether the transfer succeeded.
+         */
+        public boolean isSuccess() {
+            return success;
+        }
+
+        @Override
+        public String toString() {
+            if (success) {
+                return source + " -> " + target + ": OK";
+            }
+            return source + " -> " + target + ": failed, source: " + sourceReply + ", target: " + targetReply + ", exception: " + exception;
+        }
+    }
+
+    /**
+     * A server's side of a transfer in progress.
+     */
+    private static final class Side {
+
+        final FTPClient client;
+        boolean statusSupported;
+        String reply;
+        boolean success;
+
+        Side(final FTPClient client, final boolean statusSupported) {
+            this.client = client;
+            this.statusSupported = statusSupported;
+        }
+
+        void complete(final int replyCode) {
+            success = FTPReply.isPositiveCompletion(replyCode);
+            reply = client.getReplyString();
+        }
+
+        boolean isPending() {
+            return reply == null;
+        }
+    }
+
+    /** How long to wait for the reply to {@code ABOR}, as the session is discarded anyway. */
+    private static final int ABORT_REPLY_TIMEOUT_MILLIS = 10_000;
+
+    private static final Pattern BYTE_COUNT = Pattern.compile("(\\d+)\\s+bytes", Pattern.CASE_INSENSITIVE);
+
+    private static void abort(final FTPClient client) {
+        try {
+            client.setSoTimeout(ABORT_REPLY_TIMEOUT_MILLIS);
+            client.abor();
+        } catch (final IOException e) {
+            // ignored, the session is discarded
+        }
+    }
+
+    private static void disconnect(final FTPClient client) {
+        try {
+            client.disconnect();
+        } catch (final IOException e) {
+            // ignored, the connection is being discarded
+        }
+    }
+
+    /**
+     * Parses the number of bytes transferred from a {@code STAT} reply, in the common form "... 123456 bytes ...".
+     *
+     * @param status The reply, as given to the {@link ProgressListener}.
+     * @return The number of bytes, or -1 if the reply does not contain one.
+     */
+    public static long parseByteCount(final String status) {
+        final Matcher matcher = BYTE_COUNT.matcher(status);
+        if (matcher.find()) {
+            try {
+                return Long.parseLong(matcher.group(1));
+            } catch (final NumberFormatException e) {
+                // fall through
+            }
+        }
+        return -1;
+    }
+
+    private final IOSupplier<FTPClient> sourceConnector;
+    private final IOSupplier<FTPClient> targetConnector;
+    private final BlockingDeque<Pair> idle = new LinkedBlockingDeque<>();
+    private volatile boolean closed;
+    private volatile int parallelism = 4;
+    private volatile Duration statusInterval = Duration.ofSeconds(1);
+    private volatile Duration transferTimeout = Duration.ofHours(1);
+    private volatile ProgressListener progressListener;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param sourceConnector Supplies a connected, logged in client of the source server; called whenever a new pair of sessions is needed.
+     * @param targetConnector Supplies a connected, logged in client of the target server; called whenever a new pair of sessions is needed.
+     */
+    public FTPServerToServerTransfer(final IOSupplier<FTPClient> sourceConnector, final IOSupplier<FTPClient> targetConnector) {
+        this.sourceConnector = Objects.requireNonNull(sourceConnector, "sourceConnector");
+        this.targetConnector = Objects.requireNonNull(targetConnector, "targetConnector");
+    }
+
+    private void awaitCompletion(final String source, final String target, final Side... sides) throws IOException {
+        final long deadlineNanos = System.nanoTime() + transferTimeout.toNanos();
+        final Duration interval = statusInterval;
+        while (true) {
+            boolean pending = false;
+            for (final Side side : sides) {
+                if (side.isPending() && side.client.isReplyAvailable()) {
+                    side.complete(side.client.getReply());
+                }
+                pending |= side.isPending();
+            }
+            if (!pending) {
+                return;
+            }
+            final long remainingNanos = deadlineNanos - System.nanoTime();
+            if (remainingNanos <= 0) {
+                throw new SocketTimeoutException("Transfer of " + source + " to " + target + " did not complete within " + transferTimeout);
+            }
+            final Side blocking = findUnpollable(sides);
+            if (blocking != null) {
+                // cannot poll this server, so wait for its reply for the rest of the time
+                blocking.client.setSoTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos)));
+                blocking.complete(blocking.client.getReply());
+                continue;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(remainingNanos, interval.toNanos()));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the transfer of " + source + " to " + target);
+            }
+            for (final Side side : sides) {
+                if (side.isPending()) {
+                    pollStatus(source, target, side);
+                }
+            }
+        }
+    }
+
+    private Pair borrow() throws IOException {
+        final Pair pair = idle.pollFirst();
+        if (pair != null) {
+            if (pair.source.isConnected() && pair.target.isConnected()) {
+                return pair;
+            }
+            pair.disconnect();
+        }
+        final FTPClient source = Objects.requireNonNull(sourceConnector.get(), "sourceConnector returned null");
+        try {
+            return new Pair(source, Objects.requireNonNull(targetConnector.get(), "targetConnector returned null"));
+        } catch (final IOException | RuntimeException e) {
+            disconnect(source);
+            throw e;
+        }
+    }
+
+    /**
+     * Disconnects the idle pairs of sessions. Pairs in use are disconnected when their transfer ends.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Pair pair;
+        while ((pair = idle.pollFirst()) != null) {
+            pair.disconnect();
+        }
+    }
+
+    /**
+     * Finds a pending side which cannot be polled with {@code STAT}.
+     */
+    private Side findUnpollable(final Side... sides) {
+        for (final Side side : sides) {
+            if (side.isPending() && !side.statusSupported) {
+                return side;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the maximum number of files transferred at the same time by {@link #transferFiles(Map)}, which is also the number of idle pairs of sessions kept.
+     *
+     * @return The parallelism.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Gets the listener which receives the progress of transfers.
+     *
+     * @return The listener, or {@code null}.
+     */
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * Gets the interval at which {@code STAT} is sent to both servers during a transfer.
+     *
+     * @return The interval, or {@code null} if disabled.
+     */
+    public Duration getStatusInterval() {
+        return statusInterval;
+    }
+
+    /**
+     * Gets the maximum duration of the transfer of a file.
+     *
+     * @return The transfer timeout.
+     */
+    public Duration getTransferTimeout() {
+        return transferTimeout;
+    }
+
+    private void pollStatus(final String source, final String target, final Side side) throws IOException {
+        final FTPClient client = side.client;
+        final int replyCode = client.stat();
+        switch (replyCode) {
+        case FTPReply.SYSTEM_STATUS:
+        case FTPReply.DIRECTORY_STATUS:
+        case FTPReply.FILE_STATUS:
+            final ProgressListener listener = progressListener;
+            if (listener != null) {
+                listener.statusReceived(source, target, client, client.getReplyString());
+            }
+            break;
+        case FTPReply.UNRECOGNIZED_COMMAND:
+        case FTPReply.SYNTAX_ERROR_IN_ARGUMENTS:
+        case FTPReply.COMMAND_NOT_IMPLEMENTED:
+        case FTPReply.BAD_COMMAND_SEQUENCE:
+        case FTPReply.COMMAND_NOT_IMPLEMENTED_FOR_PARAMETER:
+            side.statusSupported = false;
+            break;
+        default:
+            // the completion reply arrived before the status, which follows
+            side.complete(replyCode);
+            client.getReply();
+            break;
+        }
+    }
+
+    private void release(final Pair pair) {
+        if (pair.broken || closed || idle.size() >= parallelism) {
+            pair.disconnect();
+            return;
+        }
+        idle.offerFirst(pair);
+        if (closed && idle.remove(pair)) {
+            pair.disconnect();
+        }
+    }
+
+    /**
+     * Sets the maximum number of files transferred at the same time by {@link #transferFiles(Map)}, which is also the number of idle pairs of sessions kept.
+     * The default is 4.
+     *
+     * @param parallelism The parallelism, at least 1.
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the listener which receives the progress of transfers. The default is none.
+     *
+     * @param progressListener The listener, may be null.
+     */
+    public void setProgressListener(final ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Sets the interval at which {@code STAT} is sent to both servers during a transfer, both to report progress and to wait for the completion replies
+     * without blocking on one server. The default is 1 second.
+     * <p>
+     * When disabled, or for a server which does not implement {@code STAT}, the completion reply is waited for by reading from the control connection, so
+     * the progress of that server is not reported.
+     * </p>
+     *
+     * @param statusInterval The interval, or {@code null} to disable.
+     */
+    public void setStatusInterval(final Duration statusInterval) {
+        if (statusInterval != null && (statusInterval.isNegative() || statusInterval.isZero())) {
+            throw new IllegalArgumentException("statusInterval must be positive: " + statusInterval);
+        }
+        this.statusInterval = statusInterval;
+    }
+
+    /**
+     * Sets the maximum duration of the transfer of a file, from the {@code STOR} command to the completion replies. The default is 1 hour.
+     *
+     * @param transferTimeout The transfer timeout.
+     */
+    public void setTransferTimeout(final Duration transferTimeout) {
+        this.transferTimeout = Objects.requireNonNull(transferTimeout, "transferTimeout");
+    }
+
+    private Result transfer(final Pair pair, final String source, final String target) {
+        final FTPClient sourceClient = pair.source;
+        final FTPClient targetClient = pair.target;
+        try {
+            if (!targetClient.enterRemotePassiveMode()) {
+                return new Result(source, target, false, null, targetClient.getReplyString(), null);
+            }
+            if (!sourceClient.enterRemoteActiveMode(InetAddress.getByName(targetClient.getPassiveHost()), targetClient.getPassivePort())
+                    || !sourceClient.remoteRetrieve(source)) {
+                return new Result(source, target, false, sourceClient.getReplyString(), null, null);
+            }
+            // from here on, a transfer which does not complete leaves replies in flight
+            pair.broken = true;
+            if (!targetClient.remoteStore(target)) {
+                final String targetReply = targetClient.getReplyString();
+                abort(sourceClient);
+                return new Result(source, target, false, null, targetReply, null);
+            }
+            final boolean statusSupported = statusInterval != null;
+            final Side sourceSide = new Side(sourceClient, statusSupported);
+            final Side targetSide = new Side(targetClient, statusSupported);
+            final int sourceSoTimeout = sourceClient.getSoTimeout();
+            final int targetSoTimeout = targetClient.getSoTimeout();
+            awaitCompletion(source, target, sourceSide, targetSide);
+            sourceClient.setSoTimeout(sourceSoTimeout);
+            targetClient.setSoTimeout(targetSoTimeout);
+            pair.broken = false;
+            return new Result(source, target, sourceSide.success && targetSide.success, sourceSide.reply, targetSide.reply, null);
+        } catch (final IOException e) {
+            if (pair.broken) {
+                abort(sourceClient);
+                abort(targetClient);
+            }
+            pair.broken = true;
+            return new Result(source, target, false, null, null, e);
+        }
+    }
+
+    /**
+     * Transfers a file from the source server to the target server. An existing target file is overwritten.
+     *
+     * @param source The source file name.
+     * @param target The target file name.
+     * @return The outcome of the transfer.
+     * @throws IOException If a pair of sessions cannot be connected.
+     */
+    public Result transferFile(final String source, final String target) throws IOException {
+        final Pair pair = borrow();
+        try {
+            return transfer(pair, source, target);
+        } finally {
+            release(pair);
+        }
+    }
+
+    /**
+     * Transfers files from the source server to the target server, up to {@link #getParallelism()} at the same time. Existing target files are overwritten.
+     * The transfers that fail do not stop the others.
+     *
+     * @param files The source file names, mapped to their target file names.
+     * @return The outcomes of the transfers, in the iteration order of the files.
+     * @throws IOException If a pair of sessions cannot be connected, in which case the transfers not started yet are cancelled.
+     */
+    public List<Result> transferFiles(final Map<String, String> files) throws IOException {
+        final int threads = Math.max(1, Math.min(parallelism, files.size()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            final Thread thread = new Thread(r, "commons-net-fxp");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<Result>> futures = new ArrayList<>(files.size());
+            files.forEach((source, target) -> futures.add(executor.submit(() -> transferFile(source, target))));
+            final List<Result> results = new ArrayList<>(futures.size());
+            for (final Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for transfers");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
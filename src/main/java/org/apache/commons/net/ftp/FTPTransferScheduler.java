@@ -0,0 +1,529 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.io.function.IOFunction;
+
+/**
+ * Runs transfers on a bounded number of sessions per host, in order of priority and, within a priority, of size or deadline, so that large transfers do
+ * not hold up small urgent ones. Sessions are connected on demand and kept open between transfers.
+ * <p>
+ * A queued transfer is started as soon as all of the following hold:
+ * </p>
+ * <ul>
+ * <li>its host has fewer transfers running than the {@link #setMaxSessionsPerHost(int) maximum number of sessions per host};</li>
+ * <li>if it is at least as large as the {@link #setLargeTransferThreshold(long) large transfer threshold}, it does not take the last session of its host
+ * while another transfer is running there, so that one is left for smaller transfers;</li>
+ * <li>the sizes of the running transfers and its own do not exceed the {@link #setMaxInFlightBytes(long) maximum number of bytes in flight}, unless
+ * nothing else is running;</li>
+ * <li>no transfer before it in the {@link Order order} of the queue can be started.</li>
+ * </ul>
+ * <p>
+ * A transfer whose deadline passes before it can be started is failed with a {@link TimeoutException} instead, as soon as the deadline passes. As
+ * smaller transfers are started ahead of larger ones, a large transfer may wait for as long as smaller ones keep being queued, which a deadline bounds.
+ * </p>
+ * <p>
+ * A transfer which fails with an exception disconnects its session, as its state is unknown. An idle session is checked with a {@code NOOP} before it is
+ * reused, and replaced if the server closed it. The connector must return clients which are logged in and set to the file type and data connection mode to
+ * use.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * <pre>
+ * try (FTPTransferScheduler scheduler = new FTPTransferScheduler(host -&gt; connect(host))) {
+ *     scheduler.setMaxSessionsPerHost(4);
+ *     CompletableFuture&lt;Boolean&gt; report = scheduler.storeFile("ftp1", "report.csv", Paths.get("report.csv"), 10, null);
+ *     CompletableFuture&lt;Boolean&gt; backup = scheduler.storeFile("ftp1", "backup.tar", Paths.get("backup.tar"), 0, null);
+ *     ...
+ * }
+ * </pre>
+ *
+ * @since 3.14.0
+ */
+public class FTPTransferScheduler implements Closeable {
+
+    /**
+     * A host with its sessions. Guarded by the lock of the scheduler.
+     */
+    private static final class Host {
+
+        final String name;
+        final Deque<FTPClient> idle = new ArrayDeque<>();
+        int running;
+
+        Host(final String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * A queued or running transfer.
+     */
+    private static final class Job<T> {
+
+        final Host host;
+        final IOFunction<? super FTPClient, T> transfer;
+        final int priority;
+        final long size;
+        final Instant deadline;
+        final long sequence;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Job(final Host host, final IOFunction<? super FTPClient, T> transfer, final int priority, final long size, final Instant deadline,
+                final long sequence) {
+            this.host = host;
+            this.transfer = transfer;
+            this.priority = priority;
+            this.size = size;
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+
+        /** Gets the size counted against the bytes in flight, unknown sizes counting as 0. */
+        long inFlightSize() {
+            return Math.max(size, 0);
+        }
+    }
+
+    /**
+     * The order in which queued transfers of the same priority are started.
+     */
+    public enum Order {
+
+        /** In the order they were submitted. */
+        FIFO(Comparator.comparingLong(job -> job.sequence)),
+
+        /** Smallest first, then in the order they were submitted; transfers of unknown size come last. */
+        SHORTEST_FIRST(Comparator.<Job<?>>comparingLong(job -> job.size < 0 ? Long.MAX_VALUE : job.size).thenComparingLong(job -> job.sequence)),
+
+        /** Earliest deadline first, then smallest first; transfers without a deadline come last. */
+        EARLIEST_DEADLINE_FIRST(Comparator.<Job<?>, Instant>comparing(job -> job.deadline, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingLong(job -> job.size < 0 ? Long.MAX_VALUE : job.size).thenComparingLong(job -> job.sequence));
+
+        private final Comparator<Job<?>> comparator;
+
+        Order(final Comparator<Job<?>> comparator) {
+            this.comparator = Comparator.<Job<?>>comparingInt(job -> -job.priority).thenComparing(comparator);
+        }
+    }
+
+    private static void disconnect(final FTPClient client) {
+        try {
+            client.disconnect();
+        } catch (final IOException e) {
+            // ignored, the connection is being discarded
+        }
+    }
+
+    private final IOFunction<String, FTPClient> connector;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        final Thread thread = new Thread(r, "commons-net-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "commons-net-scheduler-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object lock = new Object();
+    private final Map<String, Host> hosts = new HashMap<>();
+    private TreeSet<Job<?>> queue = new TreeSet<>(Order.SHORTEST_FIRST.comparator);
+    private Order order = Order.SHORTEST_FIRST;
+    private long inFlightBytes;
+    private long sequence;
+    private boolean closed;
+    /** Fails the queued transfers whose deadline passed, at the earliest deadline of the queue. */
+    private ScheduledFuture<?> expiry;
+    private Instant expiryDeadline;
+    private int maxSessionsPerHost = 4;
+    private long largeTransferThreshold = 64L * 1024 * 1024;
+    private long maxInFlightBytes = Long.MAX_VALUE;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param connector Supplies a connected, logged in client of the given host; called whenever a new session is needed.
+     */
+    public FTPTransferScheduler(final IOFunction<String, FTPClient> connector) {
+        this.connector = Objects.requireNonNull(connector, "connector");
+    }
+
+    private FTPClient borrow(final Host host) throws IOException {
+        while (true) {
+            final FTPClient client;
+            synchronized (lock) {
+                client = host.idle.pollFirst();
+            }
+            if (client == null) {
+                return Objects.requireNonNull(connector.apply(host.name), "connector returned null");
+            }
+            if (isUsable(client)) {
+                return client;
+            }
+            disconnect(client);
+        }
+    }
+
+    private boolean canStart(final Job<?> job) {
+        final Host host = job.host;
+        if (host.running >= maxSessionsPerHost) {
+            return false;
+        }
+        if (job.size >= largeTransferThreshold && host.running > 0 && host.running + 1 >= maxSessionsPerHost) {
+            // keep the last session for smaller transfers
+            return false;
+        }
+        return inFlightBytes == 0 || inFlightBytes + job.inFlightSize() <= maxInFlightBytes;
+    }
+
+    /**
+     * Cancels the queued transfers and disconnects the idle sessions. Running transfers complete, and then disconnect their sessions.
+     */
+    @Override
+    public void close() {
+        final List<Job<?>> cancelled;
+        final List<FTPClient> idle = new ArrayList<>();
+        synchronized (lock) {
+            closed = true;
+            cancelled = new ArrayList<>(queue);
+            queue.clear();
+            for (final Host host : hosts.values()) {
+                idle.addAll(host.idle);
+                host.idle.clear();
+            }
+        }
+        cancelled.forEach(job -> job.future.cancel(false));
+        idle.forEach(FTPTransferScheduler::disconnect);
+        timer.shutdownNow();
+        executor.shutdown();
+    }
+
+    /**
+     * Starts the queued transfers which can be started, and fails those whose deadline has passed.
+     */
+    private void dispatch() {
+        final List<Job<?>> started = new ArrayList<>();
+        final List<Job<?>> expired = new ArrayList<>();
+        synchronized (lock) {
+            final Instant now = Instant.now();
+            for (final Iterator<Job<?>> iterator = queue.iterator(); iterator.hasNext();) {
+                final Job<?> job = iterator.next();
+                if (job.future.isDone()) {
+                    iterator.remove();
+                } else if (job.deadline != null && now.isAfter(job.deadline)) {
+                    iterator.remove();
+                    expired.add(job);
+                } else if (canStart(job)) {
+                    iterator.remove();
+                    job.host.running++;
+                    inFlightBytes += job.inFlightSize();
+                    started.add(job);
+                }
+            }
+            scheduleExpiry(now);
+        }
+        expired.forEach(job -> job.future.completeExceptionally(new TimeoutException("Deadline " + job.deadline + " passed before the transfer started")));
+        started.forEach(job -> executor.execute(() -> run(job)));
+    }
+
+    private void expire() {
+        synchronized (lock) {
+            expiry = null;
+        }
+        dispatch();
+    }
+
+    /**
+     * Gets the size from which a transfer is large, so that it may not take the last session of its host.
+     *
+     * @return The large transfer threshold in bytes.
+     */
+    public long getLargeTransferThreshold() {
+        synchronized (lock) {
+            return largeTransferThreshold;
+        }
+    }
+
+    /**
+     * Gets the number of bytes which may be in flight at the same time, over all hosts.
+     *
+     * @return The maximum number of bytes in flight.
+     */
+    public long getMaxInFlightBytes() {
+        synchronized (lock) {
+            return maxInFlightBytes;
+        }
+    }
+
+    /**
+     * Gets the maximum number of sessions per host, which is also the number of transfers to a host running at the same time.
+     *
+     * @return The maximum number of sessions per host.
+     */
+    public int getMaxSessionsPerHost() {
+        synchronized (lock) {
+            return maxSessionsPerHost;
+        }
+    }
+
+    /**
+     * Gets the order in which queued transfers of the same priority are started.
+     *
+     * @return The order.
+     */
+    public Order getOrder() {
+        synchronized (lock) {
+            return order;
+        }
+    }
+
+    /**
+     * Gets the number of transfers waiting to be started.
+     *
+     * @return The number of queued transfers.
+     */
+    public int getQueuedCount() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Tests whether an idle session can be reused, as the server may have closed it while it was idle.
+     */
+    private boolean isUsable(final FTPClient client) {
+        try {
+            return client.isConnected() && client.sendNoOp();
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    private void release(final Job<?> job, final FTPClient client, final boolean reusable) {
+        final Host host = job.host;
+        boolean kept = false;
+        synchronized (lock) {
+            host.running--;
+            inFlightBytes -= job.inFlightSize();
+            if (client != null && reusable && !closed && client.isConnected()) {
+                host.idle.offerFirst(client);
+                kept = true;
+            }
+        }
+        if (client != null && !kept) {
+            disconnect(client);
+        }
+    }
+
+    /**
+     * Retrieves a remote file into a local file.
+     *
+     * @param host     The host, as given to the connector.
+     * @param remote   The remote file name.
+     * @param local    The local file, which is overwritten.
+     * @param priority The priority; transfers of higher priorities are started first.
+     * @param size     The expected size of the file in bytes, or -1 if unknown.
+     * @param deadline The time by which the transfer must have started, or {@code null} if none.
+     * @return The result of {@link FTPClient#retrieveFile(String, OutputStream)}.
+     */
+    public CompletableFuture<Boolean> retrieveFile(final String host, final String remote, final Path local, final int priority, final long size,
+            final Instant deadline) {
+        Objects.requireNonNull(remote, "remote");
+        Objects.requireNonNull(local, "local");
+        return submit(host, client -> {
+            try (OutputStream output = Files.newOutputStream(local)) {
+                return client.retrieveFile(remote, output);
+            }
+        }, priority, size, deadline);
+    }
+
+    private <T> void run(final Job<T> job) {
+        FTPClient client = null;
+        boolean reusable = false;
+        try {
+            client = borrow(job.host);
+            final T result = job.transfer.apply(client);
+            reusable = true;
+            job.future.complete(result);
+        } catch (final IOException | RuntimeException e) {
+            job.future.completeExceptionally(e);
+        } finally {
+            release(job, client, reusable);
+            dispatch();
+        }
+    }
+
+    /**
+     * Schedules the expiry of the queued transfers at the earliest deadline of the queue, unless one is scheduled by then. Guarded by the lock.
+     */
+    private void scheduleExpiry(final Instant now) {
+        Instant earliest = null;
+        for (final Job<?> job : queue) {
+            if (job.deadline != null && (earliest == null || job.deadline.isBefore(earliest))) {
+                earliest = job.deadline;
+            }
+        }
+        if (earliest == null || closed || expiry != null && !expiryDeadline.isAfter(earliest)) {
+            return;
+        }
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+        expiryDeadline = earliest;
+        // a deadline has passed once the time is after it
+        expiry = timer.schedule(this::expire, Duration.between(now, earliest).toNanos() + TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the size from which a transfer is large, so that it does not take the last session of its host while another transfer is running there. The
+     * default is 64 MiB.
+     *
+     * @param largeTransferThreshold The large transfer threshold in bytes.
+     */
+    public void setLargeTransferThreshold(final long largeTransferThreshold) {
+        synchronized (lock) {
+            this.largeTransferThreshold = largeTransferThreshold;
+        }
+        dispatch();
+    }
+
+    /**
+     * Sets the number of bytes which may be in flight at the same time, over all hosts, as given by the sizes of the running transfers. A transfer which
+     * would exceed it is started anyway if nothing else is running. The default is unlimited.
+     *
+     * @param maxInFlightBytes The maximum number of bytes in flight, at least 1.
+     */
+    public void setMaxInFlightBytes(final long maxInFlightBytes) {
+        if (maxInFlightBytes < 1) {
+            throw new IllegalArgumentException("maxInFlightBytes must be at least 1: " + maxInFlightBytes);
+        }
+        synchronized (lock) {
+            this.maxInFlightBytes = maxInFlightBytes;
+        }
+        dispatch();
+    }
+
+    /**
+     * Sets the maximum number of sessions per host, which is also the number of transfers to a host running at the same time. The default is 4.
+     *
+     * @param maxSessionsPerHost The maximum number of sessions per host, at least 1.
+     */
+    public void setMaxSessionsPerHost(final int maxSessionsPerHost) {
+        if (maxSessionsPerHost < 1) {
+            throw new IllegalArgumentException("maxSessionsPerHost must be at least 1: " + maxSessionsPerHost);
+        }
+        synchronized (lock) {
+            this.maxSessionsPerHost = maxSessionsPerHost;
+        }
+        dispatch();
+    }
+
+    /**
+     * Sets the order in which queued transfers of the same priority are started. The default is {@link Order#SHORTEST_FIRST}.
+     *
+     * @param order The order.
+     */
+    public void setOrder(final Order order) {
+        Objects.requireNonNull(order, "order");
+        synchronized (lock) {
+            final TreeSet<Job<?>> reordered = new TreeSet<>(order.comparator);
+            reordered.addAll(queue);
+            this.queue = reordered;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Stores a local file as a remote file. The size of the local file is used as the size of the transfer.
+     *
+     * @param host     The host, as given to the connector.
+     * @param remote   The remote file name, which is overwritten.
+     * @param local    The local file.
+     * @param priority The priority; transfers of higher priorities are started first.
+     * @param deadline The time by which the transfer must have started, or {@code null} if none.
+     * @return The result of {@link FTPClient#storeFile(String, InputStream)}.
+     * @throws IOException If the size of the local file cannot be read.
+     */
+    public CompletableFuture<Boolean> storeFile(final String host, final String remote, final Path local, final int priority, final Instant deadline)
+            throws IOException {
+        Objects.requireNonNull(remote, "remote");
+        final long size = Files.size(local);
+        return submit(host, client -> {
+            try (InputStream input = Files.newInputStream(local)) {
+                return client.storeFile(remote, input);
+            }
+        }, priority, size, deadline);
+    }
+
+    /**
+     * Queues a transfer, or any other operation on a session.
+     *
+     * @param <T>      The type of the result.
+     * @param host     The host, as given to the connector.
+     * @param transfer The transfer, given a session with the host. It must leave the session ready for the next transfer, or throw an exception.
+     * @param priority The priority; transfers of higher priorities are started first.
+     * @param size     The expected number of bytes transferred, or -1 if unknown.
+     * @param deadline The time by which the transfer must have started, or {@code null} if none.
+     * @return The result of the transfer, which may be cancelled while it is queued.
+     * @throws IllegalStateException If this scheduler is closed.
+     */
+    public <T> CompletableFuture<T> submit(final String host, final IOFunction<? super FTPClient, T> transfer, final int priority, final long size,
+            final Instant deadline) {
+        Objects.requireNonNull(host, "host");
+        Objects.requireNonNull(transfer, "transfer");
+        final Job<T> job;
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("The scheduler is closed");
+            }
+            job = new Job<>(hosts.computeIfAbsent(host, Host::new), transfer, priority, size, deadline, sequence++);
+            queue.add(job);
+        }
+        dispatch();
+        return job.future;
+    }
+}
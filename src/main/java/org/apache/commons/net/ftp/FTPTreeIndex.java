@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * An index of a remote directory tree which detects the changes made to the tree since the last update, without listing every directory again.
+ * <p>
+ * The index stores the listing of each directory, with a digest of it, and the directory's {@code modify} fact. On {@link #update(FTPClient, String,
+ * ChangeListener)}, a directory is listed with {@link FTPClient#mlistDir(String)} only if it is new, if its {@code modify} fact in the fresh listing of its
+ * parent changed, or, when the parent was not listed, if the fact returned by a {@link FTPClient#mlistFile(String) MLST} probe changed. The entries added,
+ * changed and deleted since the last update are reported to a {@link ChangeListener}; the first update reports the whole tree as added.
+ * </p>
+ * <p>
+ * This relies on the server updating the {@code modify} fact of a directory when entries are added to, removed from or renamed in it, as POSIX file systems
+ * do. A file rewritten in place does not change its directory, so is only reported when the directory is listed for another reason. Without probes, see
+ * {@link #setProbeEnabled(boolean)}, a directory whose parent was not listed is assumed unchanged, along with its whole subtree.
+ * </p>
+ * <p>
+ * The index is kept between runs with {@link #write(OutputStream)} and {@link #read(InputStream)}. Instances are not thread-safe.
+ * </p>
+ *
+ * @since 3.14.0
+ */
+public class FTPTreeIndex {
+
+    /**
+     * A kind of change to an entry.
+     */
+    public enum Change {
+
+        /** The entry is new. */
+        ADDED,
+
+        /** The type, size or {@code modify} fact of the entry changed. */
+        CHANGED,
+
+        /** The entry no longer exists. */
+        DELETED
+    }
+
+    /**
+     * Receives the changes found by {@link FTPTreeIndex#update(FTPClient, String, ChangeListener)}.
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+
+        /**
+         * Called for each entry which changed. The entries of a deleted directory are reported before the directory.
+         *
+         * @param change The kind of change.
+         * @param path   The path of the entry.
+         * @param file   The entry as listed, or null if it was deleted.
+         */
+        void changed(Change change, String path, FTPFile file);
+    }
+
+    /** The listing of a directory, sorted by name. */
+    private static final class Directory {
+
+        final long modify;
+        final long digest;
+        final String[] names;
+        final byte[] types;
+        final long[] sizes;
+        final long[] modifies;
+
+        Directory(final long modify, final long digest, final String[] names, final byte[] types, final long[] sizes, final long[] modifies) {
+            this.modify = modify;
+            this.digest = digest;
+            this.names = names;
+            this.types = types;
+            this.sizes = sizes;
+            this.modifies = modifies;
+        }
+
+        int indexOf(final String name) {
+            return Arrays.binarySearch(names, name);
+        }
+    }
+
+    /** The MLSD entry of the listed directory. */
+    private static final Pattern CURRENT = Pattern.compile("(?i)(^|;)type=cdir;");
+
+    private static final int MAGIC = 0x46545049; // "FTPI"
+
+    /** The MLSD entry of the parent directory. */
+    private static final Pattern PARENT = Pattern.compile("(?i)(^|;)type=pdir;");
+
+    /** The {@code modify} fact of an entry without one. */
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private static final int VERSION = 1;
+
+    private static long digest(final String[] names, final byte[] types, final long[] sizes, final long[] modifies) {
+        long hash = 0xcbf29ce484222325L; // FNV-1a
+        for (int i = 0; i < names.length; i++) {
+            for (final byte b : names[i].getBytes(StandardCharsets.UTF_8)) {
+                hash = (hash ^ b) * 0x100000001b3L;
+            }
+            hash = (hash ^ types[i]) * 0x100000001b3L;
+            hash = (hash ^ sizes[i]) * 0x100000001b3L;
+            hash = (hash ^ modifies[i]) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static boolean isDirectory(final Directory directory, final int index) {
+        return directory.types[index] == FTPFile.DIRECTORY_TYPE;
+    }
+
+    private static long modify(final FTPFile file) {
+        return file.getTimestamp() == null ? UNKNOWN : file.getTimestamp().getTimeInMillis();
+    }
+
+    private static String path(final String directory, final String name) {
+        return directory.endsWith("/") ? directory + name : directory + "/" + name;
+    }
+
+    /**
+     * Reads an index written by {@link #write(OutputStream)}.
+     *
+     * @param input The input stream, which is not closed.
+     * @return The index.
+     * @throws IOException if an I/O error occurs or the stream does not hold an index of a supported version.
+     */
+    public static FTPTreeIndex read(final InputStream input) throws IOException {
+        final DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a tree index");
+        }
+        final int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported tree index version: " + version);
+        }
+        final FTPTreeIndex index = new FTPTreeIndex();
+        final int directories = in.readInt();
+        for (int d = 0; d < directories; d++) {
+            final String path = in.readUTF();
+            final long modify = in.readLong();
+            final long digest = in.readLong();
+            final int count = in.readInt();
+            final String[] names = new String[count];
+            final byte[] types = new byte[count];
+            final long[] sizes = new long[count];
+            final long[] modifies = new long[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = in.readUTF();
+                types[i] = in.readByte();
+                sizes[i] = in.readLong();
+                modifies[i] = in.readLong();
+            }
+            final Directory directory = new Directory(modify, digest, names, types, sizes, modifies);
+            index.directories.put(path, directory);
+        }
+        return index;
+    }
+
+    private final Map<String, Directory> directories = new HashMap<>();
+
+    private boolean probeEnabled = true;
+
+    private void delete(final String path, final ChangeListener listener) {
+        final Directory directory = directories.remove(path);
+        if (directory != null) {
+            for (int i = 0; i < directory.names.length; i++) {
+                final String child = path(path, directory.names[i]);
+                if (isDirectory(directory, i)) {
+                    delete(child, listener);
+                }
+                listener.changed(Change.DELETED, child, null);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of directories indexed.
+     *
+     * @return The number of directories.
+     */
+    public int getDirectoryCount() {
+        return directories.size();
+    }
+
+    /**
+     * Tests whether directories whose parent was not listed are probed with MLST.
+     *
+     * @return true if probes are enabled, the default.
+     */
+    public boolean isProbeEnabled() {
+        return probeEnabled;
+    }
+
+    private Directory list(final FTPClient client, final String path, final long modify, final Directory previous, final ChangeListener listener)
+            throws IOException {
+        final FTPFile[] listing = client.mlistDir(path);
+        if (!FTPReply.isPositiveCompletion(client.getReplyCode())) {
+            if (client.getReplyCode() == FTPReply.FILE_UNAVAILABLE) {
+                return null;
+            }
+            throw new IOException("Cannot list " + path + ": " + client.getReplyString());
+        }
+        long listedModify = modify;
+        final FTPFile[] files = new FTPFile[listing.length];
+        int count = 0;
+        for (final FTPFile file : listing) {
+            final String raw = file.getRawListing();
+            if (raw != null && CURRENT.matcher(raw).find()) {
+                if (listedModify == UNKNOWN) {
+                    listedModify = modify(file);
+                }
+            } else if (raw != null && PARENT.matcher(raw).find() || ".".equals(file.getName()) || "..".equals(file.getName())) {
+                continue;
+            } else if (file.isValid() && file.getName() != null) {
+                files[count++] = file;
+            }
+        }
+        Arrays.sort(files, 0, count, Comparator.comparing(FTPFile::getName));
+        final String[] names = new String[count];
+        final byte[] types = new byte[count];
+        final long[] sizes = new long[count];
+        final long[] modifies = new long[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = files[i].getName();
+            types[i] = (byte) files[i].getType();
+            sizes[i] = files[i].getSize();
+            modifies[i] = modify(files[i]);
+        }
+        final long digest = digest(names, types, sizes, modifies);
+        final Directory directory = new Directory(listedModify, digest, names, types, sizes, modifies);
+        if (previous == null || previous.digest != digest) {
+            for (int i = 0; i < count; i++) {
+                final int old = previous == null ? -1 : previous.indexOf(directory.names[i]);
+                if (old < 0) {
+                    listener.changed(Change.ADDED, path(path, directory.names[i]), files[i]);
+                } else if (previous.types[old] != directory.types[i] || previous.sizes[old] != directory.sizes[i]
+                        || previous.modifies[old] != directory.modifies[i]) {
+                    if (isDirectory(previous, old) && !isDirectory(directory, i)) {
+                        delete(path(path, directory.names[i]), listener);
+                    }
+                    listener.changed(Change.CHANGED, path(path, directory.names[i]), files[i]);
+                }
+            }
+            if (previous != null) {
+                for (int i = 0; i < previous.names.length; i++) {
+                    if (directory.indexOf(previous.names[i]) < 0) {
+                        final String child = path(path, previous.names[i]);
+                        if (isDirectory(previous, i)) {
+                            delete(child, listener);
+                        }
+                        listener.changed(Change.DELETED, child, null);
+                    }
+                }
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * Sets whether directories whose parent was not listed are probed with MLST, one command each, to find whether they changed. Without probes, they and
+     * their subtrees are assumed unchanged, which is faster but misses changes below a directory which did not itself change.
+     *
+     * @param probeEnabled true to probe directories, the default.
+     */
+    public void setProbeEnabled(final boolean probeEnabled) {
+        this.probeEnabled = probeEnabled;
+    }
+
+    /**
+     * Updates the index from a remote tree, reporting the changes since the last update.
+     *
+     * @param client   The logged in client, whose server supports MLSD.
+     * @param root     The path of the root directory of the tree.
+     * @param listener Receives the changes.
+     * @throws IOException if a directory cannot be listed or probed, for another reason than no longer existing, or an I/O error occurs. The index keeps the
+     *                     directories updated so far, so that the next update resumes from there.
+     */
+    public void update(final FTPClient client, final String root, final ChangeListener listener) throws IOException {
+        // without probes, the root is listed as if its parent had been
+        visit(client, root, UNKNOWN, !probeEnabled, listener);
+    }
+
+    /**
+     * Visits a directory, listing it if it changed, then its subdirectories.
+     *
+     * @param modify The {@code modify} fact of the directory in the listing of its parent, if the parent was listed.
+     * @param listed Whether the parent was listed.
+     */
+    private void visit(final FTPClient client, final String path, final long modify, final boolean listed, final ChangeListener listener)
+            throws IOException {
+        final Directory previous = directories.get(path);
+        long current = modify;
+        boolean changed = previous == null || previous.modify == UNKNOWN;
+        if (!changed) {
+            if (listed) {
+                changed = modify == UNKNOWN || modify != previous.modify;
+            } else if (probeEnabled) {
+                final FTPFile probe = client.mlistFile(path);
+                if (probe != null) {
+                    current = modify(probe);
+                    changed = current == UNKNOWN || current != previous.modify;
+                } else if (client.getReplyCode() == FTPReply.FILE_UNAVAILABLE) {
+                    delete(path, listener);
+                    return;
+                } else if (FTPReply.isNegativePermanent(client.getReplyCode())) {
+                    changed = true; // no MLST, list instead
+                } else {
+                    throw new IOException("Cannot probe " + path + ": " + client.getReplyString());
+                }
+            }
+        }
+        final Directory directory;
+        if (changed) {
+            directory = list(client, path, current, previous, listener);
+            if (directory == null) {
+                delete(path, listener);
+                return;
+            }
+            // until its subtree is visited, the directory is kept without its own modify fact, so that an update which fails below it lists it again and
+            // compares the modify facts of its subdirectories to theirs
+            directories.put(path, new Directory(UNKNOWN, directory.digest, directory.names, directory.types, directory.sizes, directory.modifies));
+        } else {
+            directory = previous;
+        }
+        for (int i = 0; i < directory.names.length; i++) {
+            if (isDirectory(directory, i)) {
+                final String child = path(path, directory.names[i]);
+                if (changed || probeEnabled || !directories.containsKey(child)) {
+                    visit(client, child, changed ? directory.modifies[i] : UNKNOWN, changed, listener);
+                }
+            }
+        }
+        if (changed) {
+            directories.put(path, directory);
+        }
+    }
+
+    /**
+     * Writes the index, to be read by {@link #read(InputStream)}. Large indexes compress well, for example with a {@link java.util.zip.GZIPOutputStream}.
+     *
+     * @param output The output stream, which is flushed but not closed.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(final OutputStream output) throws IOException {
+        final DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(directories.size());
+        for (final Map.Entry<String, Directory> entry : directories.entrySet()) {
+            final Directory directory = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeLong(directory.modify);
+            out.writeLong(directory.digest);
+            out.writeInt(directory.names.length);
+            for (int i = 0; i < directory.names.length; i++) {
+                out.writeUTF(directory.names[i]);
+                out.writeByte(directory.types[i]);
+                out.writeLong(directory.sizes[i]);
+                out.writeLong(directory.modifies[i]);
+            }
+        }
+        out.flush();
+    }
+}
@@ -545,6 +545,18 @@ public class IMAPClient extends IMAP {
         return doCommand(IMAPCommand.SELECT, quoteMailboxName(mailboxName));
     }
 
+    /**
+     * Sends a NOOP command to the server.
+     *
+     * @return {@code true} if the command was successful,{@code false} if not.
+     * @throws IOException If a network I/O error occurs.
+     * @since 3.14.0
+     */
+    @Override
+    protected boolean sendKeepAlive() throws IOException {
+        return noop();
+    }
+
     /**
      * Send a STATUS command to the server.
      *
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.io.output.ProxyOutputStream;
+
+/**
+ * A thread-safe token bucket which limits the rate of transfers that share it, for example across pooled sessions. Tokens are bytes: they are added at a
+ * fixed rate up to a burst allowance, and each transfer takes tokens before it sends, or after it receives, a chunk of data.
+ * <p>
+ * Limiters form a hierarchy: a transfer takes tokens from a limiter and from all its parents, so that a limiter per session can have a parent per host, see
+ * {@link #forHost(String, long, long)}, whose parent caps the aggregate rate. Transfers which wait are served in the order in which they asked, and the
+ * streams of {@link #limit(InputStream)} and {@link #limit(OutputStream)} take at most {@link #CHUNK_SIZE} bytes at a time, so that concurrent transfers get
+ * a fair share.
+ * </p>
+ *
+ * @since 3.14.0
+ */
+public class BandwidthLimiter {
+
+    /**
+     * Takes tokens for the bytes read.
+     */
+    private final class LimitedInputStream extends ProxyInputStream {
+
+        LimitedInputStream(final InputStream proxy) {
+            super(proxy);
+        }
+
+        @Override
+        protected void afterRead(final int n) throws IOException {
+            if (n > 0) {
+                acquire(n);
+            }
+        }
+
+        @Override
+        public int read(final byte[] b) throws IOException {
+            return read(b, 0, b.length);
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            return super.read(b, off, Math.min(len, CHUNK_SIZE));
+        }
+    }
+
+    /**
+     * Takes tokens for the bytes written.
+     */
+    private final class LimitedOutputStream extends ProxyOutputStream {
+
+        LimitedOutputStream(final OutputStream proxy) {
+            super(proxy);
+        }
+
+        @Override
+        protected void beforeWrite(final int n) throws IOException {
+            acquire(n);
+        }
+
+        @Override
+        public void write(final byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            for (int written = 0; written < len; written += CHUNK_SIZE) {
+                super.write(b, off + written, Math.min(len - written, CHUNK_SIZE));
+            }
+        }
+    }
+
+    /** The maximum number of bytes which the limited streams take tokens for at a time. */
+    public static final int CHUNK_SIZE = 16 * 1024;
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final BandwidthLimiter parent;
+    private final long bytesPerSecond;
+    private final long burstBytes;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<String, BandwidthLimiter> hosts = new ConcurrentHashMap<>();
+
+    /** The tokens available, negative while transfers wait for tokens. */
+    private double tokens;
+    private long refilledNanos;
+
+    /**
+     * Constructs a new instance without a parent and with a full bucket.
+     *
+     * @param bytesPerSecond The rate at which tokens are added.
+     * @param burstBytes     The maximum number of tokens, which can be taken at once after an idle period.
+     */
+    public BandwidthLimiter(final long bytesPerSecond, final long burstBytes) {
+        this(null, bytesPerSecond, burstBytes);
+    }
+
+    /**
+     * Constructs a new instance with a full bucket.
+     *
+     * @param parent         The limiter to also take tokens from, may be {@code null}.
+     * @param bytesPerSecond The rate at which tokens are added.
+     * @param burstBytes     The maximum number of tokens, which can be taken at once after an idle period.
+     */
+    public BandwidthLimiter(final BandwidthLimiter parent, final long bytesPerSecond, final long burstBytes) {
+        this(parent, bytesPerSecond, burstBytes, System::nanoTime);
+    }
+
+    BandwidthLimiter(final BandwidthLimiter parent, final long bytesPerSecond, final long burstBytes, final LongSupplier nanoClock) {
+        if (bytesPerSecond < 1) {
+            throw new IllegalArgumentException("bytesPerSecond must be positive: " + bytesPerSecond);
+        }
+        if (burstBytes < 1) {
+            throw new IllegalArgumentException("burstBytes must be positive: " + burstBytes);
+        }
+        this.parent = parent;
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstBytes = burstBytes;
+        this.nanoClock = nanoClock;
+        this.tokens = burstBytes;
+        this.refilledNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes tokens from this limiter and its parents, waiting until they are available.
+     *
+     * @param bytes The number of bytes.
+     * @throws InterruptedIOException If the thread is interrupted while waiting.
+     */
+    public void acquire(final int bytes) throws InterruptedIOException {
+        final long delayNanos = reserve(bytes);
+        if (delayNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+            }
+        }
+    }
+
+    /**
+     * Gets the child limiter of a host, creating it on first use. The children are kept for the life of this limiter.
+     *
+     * @param host           The host name or address.
+     * @param bytesPerSecond The rate of the child, if it is created.
+     * @param burstBytes     The burst allowance of the child, if it is created.
+     * @return The child limiter of the host, whose parent is this limiter.
+     */
+    public BandwidthLimiter forHost(final String host, final long bytesPerSecond, final long burstBytes) {
+        return hosts.computeIfAbsent(host.toLowerCase(Locale.ROOT), k -> new BandwidthLimiter(this, bytesPerSecond, burstBytes, nanoClock));
+    }
+
+    /**
+     * Gets the maximum number of tokens.
+     *
+     * @return The burst allowance in bytes.
+     */
+    public long getBurstBytes() {
+        return burstBytes;
+    }
+
+    /**
+     * Gets the rate at which tokens are added.
+     *
+     * @return The rate in bytes per second.
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Gets the limiter which this limiter also takes tokens from.
+     *
+     * @return The parent, or {@code null}.
+     */
+    public BandwidthLimiter getParent() {
+        return parent;
+    }
+
+    /**
+     * Wraps a stream so that reads take tokens for the bytes read. The stream does not copy or buffer the data.
+     *
+     * @param input The stream to limit.
+     * @return The limited stream.
+     */
+    public InputStream limit(final InputStream input) {
+        return new LimitedInputStream(input);
+    }
+
+    /**
+     * Wraps a stream so that writes take tokens for the bytes written. The stream does not copy or buffer the data.
+     *
+     * @param output The stream to limit.
+     * @return The limited stream.
+     */
+    public OutputStream limit(final OutputStream output) {
+        return new LimitedOutputStream(output);
+    }
+
+    private void refill() {
+        final long now = nanoClock.getAsLong();
+        tokens = Math.min(burstBytes, tokens + (double) (now - refilledNanos) * bytesPerSecond / NANOS_PER_SECOND);
+        refilledNanos = now;
+    }
+
+    /**
+     * Takes tokens from this limiter and its parents without waiting, for callers which schedule the transfer themselves. The tokens are taken even if they
+     * are not available yet, and the caller must wait for the returned delay before it sends the data.
+     *
+     * @param bytes The number of bytes.
+     * @return The delay in nanoseconds before the data may be sent, 0 if it may be sent now.
+     */
+    public long reserve(final int bytes) {
+        final long delayNanos;
+        synchronized (this) {
+            refill();
+            tokens -= bytes;
+            delayNanos = tokens >= 0 ? 0 : (long) Math.ceil(-tokens * NANOS_PER_SECOND / bytesPerSecond);
+        }
+        return parent == null ? delayNanos : Math.max(delayNanos, parent.reserve(bytes));
+    }
+
+    /**
+     * Takes tokens from this limiter and its parents only if they are all available now. Requests for more bytes than a burst allowance never succeed.
+     *
+     * @param bytes The number of bytes.
+     * @return Whether the tokens were taken.
+     */
+    public boolean tryAcquire(final int bytes) {
+        synchronized (this) {
+            refill();
+            // parents are locked after their children, so the order is consistent
+            if (tokens < bytes || parent != null && !parent.tryAcquire(bytes)) {
+                return false;
+            }
+            tokens -= bytes;
+            return true;
+        }
+    }
+}
@@ -17,6 +17,8 @@
 
 package org.apache.commons.net.io;
 
+import java.time.Duration;
+
 import org.apache.commons.net.util.ListenerList;
 
 /**
@@ -24,6 +26,13 @@ import org.apache.commons.net.util.ListenerList;
  * facilitate the notification of the progress of a copy operation performed by one of the static copyStream() methods in org.apache.commons.io.Util to multiple
  * listeners. The static copyStream() methods invoke the bytesTransfered(long, int) of a CopyStreamListener for performance reasons and also because multiple
  * listeners cannot be registered given that the methods are static.
+ * <p>
+ * By default every notification is relayed. An adapter created with {@link #CopyStreamAdapter(long, Duration)} samples progress instead: it only relays
+ * {@code bytesTransferred} once at least the given number of bytes or the given time has elapsed since the last relayed notification, when the end of a stream
+ * of known size is reached, and on completion of the copy. The {@code bytesTransferred} value relayed is then the number of bytes copied since the previous
+ * relayed notification. A sampling adapter keeps per-copy state that is only updated by the copying thread, so it must not be shared by concurrent copy
+ * operations.
+ * </p>
  *
  * @see CopyStreamEvent
  * @see CopyStreamListener
@@ -33,11 +42,39 @@ public class CopyStreamAdapter implements CopyStreamListener {
 
     private final ListenerList<CopyStreamListener> listeners;
 
+    /** Minimum number of bytes between relayed notifications, 0 if not sampling by size. */
+    private final long notifyBytes;
+
+    /** Minimum number of nanoseconds between relayed notifications, 0 if not sampling by time. */
+    private final long notifyNanos;
+
+    /** Total reported by the last relayed notification of the current copy. */
+    private long lastTotal;
+
+    /** Time of the last relayed notification (or of the start) of the current copy. */
+    private long lastNanos;
+
+    /** Whether a copy is in progress, i.e. a notification has been received since the last completion. */
+    private boolean copying;
+
     /**
      * Creates a new CopyStreamListener.
      */
     public CopyStreamAdapter() {
+        this(0, Duration.ZERO);
+    }
+
+    /**
+     * Creates a new CopyStreamListener which samples progress notifications.
+     *
+     * @param notifyBytes    The minimum number of bytes copied between relayed notifications. Zero (or less) disables sampling by size.
+     * @param notifyInterval The minimum time between relayed notifications. Zero (or less, or null) disables sampling by time.
+     * @since 3.14.0
+     */
+    public CopyStreamAdapter(final long notifyBytes, final Duration notifyInterval) {
         listeners = new ListenerList<>();
+        this.notifyBytes = Math.max(0, notifyBytes);
+        this.notifyNanos = notifyInterval == null ? 0 : Math.max(0, notifyInterval.toNanos());
     }
 
     /**
@@ -74,6 +111,85 @@ public class CopyStreamAdapter implements CopyStreamListener {
      */
     @Override
     public void bytesTransferred(final long totalBytesTransferred, final int bytesTransferred, final long streamSize) {
+        if (!isSampling()) {
+            listeners.forEach(listener -> listener.bytesTransferred(totalBytesTransferred, bytesTransferred, streamSize));
+            return;
+        }
+        if (!copying || totalBytesTransferred < lastTotal) {
+            // first notification of a new copy
+            copying = true;
+            lastTotal = 0;
+            lastNanos = notifyNanos > 0 ? System.nanoTime() : 0;
+        }
+        if (isNotificationDue(totalBytesTransferred, streamSize)) {
+            relay(totalBytesTransferred, streamSize);
+        }
+    }
+
+    /**
+     * Relays the end of a copy operation to all registered listeners. A sampling adapter first relays any progress not yet reported.
+     *
+     * @param totalBytesTransferred The total number of bytes transferred by the copy operation.
+     * @param streamSize            The number of bytes in the stream being copied. This may be equal to CopyStreamEvent.UNKNOWN_STREAM_SIZE if the size is
+     *                              unknown.
+     * @since 3.14.0
+     */
+    @Override
+    public void copyCompleted(final long totalBytesTransferred, final long streamSize) {
+        if (isSampling() && copying && totalBytesTransferred > lastTotal) {
+            relay(totalBytesTransferred, streamSize);
+        }
+        copying = false;
+        lastTotal = 0;
+        listeners.forEach(listener -> listener.copyCompleted(totalBytesTransferred, streamSize));
+    }
+
+    /**
+     * Gets the minimum number of bytes copied between relayed notifications.
+     *
+     * @return The minimum number of bytes, 0 if not sampling by size.
+     * @since 3.14.0
+     */
+    public long getNotifyBytes() {
+        return notifyBytes;
+    }
+
+    /**
+     * Gets the minimum time between relayed notifications.
+     *
+     * @return The minimum time, {@link Duration#ZERO} if not sampling by time.
+     * @since 3.14.0
+     */
+    public Duration getNotifyInterval() {
+        return Duration.ofNanos(notifyNanos);
+    }
+
+    private boolean isNotificationDue(final long totalBytesTransferred, final long streamSize) {
+        if (streamSize != CopyStreamEvent.UNKNOWN_STREAM_SIZE && totalBytesTransferred >= streamSize) {
+            return true;
+        }
+        if (notifyBytes > 0 && totalBytesTransferred - lastTotal >= notifyBytes) {
+            return true;
+        }
+        return notifyNanos > 0 && System.nanoTime() - lastNanos >= notifyNanos;
+    }
+
+    /**
+     * Tests whether this adapter samples notifications rather than relaying each one.
+     *
+     * @return whether this adapter samples notifications.
+     * @since 3.14.0
+     */
+    public boolean isSampling() {
+        return notifyBytes > 0 || notifyNanos > 0;
+    }
+
+    private void relay(final long totalBytesTransferred, final long streamSize) {
+        final int bytesTransferred = (int) Math.min(totalBytesTransferred - lastTotal, Integer.MAX_VALUE);
+        lastTotal = totalBytesTransferred;
+        if (notifyNanos > 0) {
+            lastNanos = System.nanoTime();
+        }
         listeners.forEach(listener -> listener.bytesTransferred(totalBytesTransferred, bytesTransferred, streamSize));
     }
 
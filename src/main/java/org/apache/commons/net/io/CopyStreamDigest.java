@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Objects;
+import java.util.zip.Checksum;
+
+/**
+ * Computes a {@link MessageDigest} or {@link Checksum} of the bytes copied by {@link Util#copyStream(InputStream, OutputStream, int, long,
+ * CopyStreamListener, boolean, CopyStreamDigest) Util.copyStream}, updated directly from the copy buffer so that the data is only traversed once.
+ * <p>
+ * Call {@link #reset()} before a copy and {@link #getValue()} after it. An instance is not thread-safe.
+ * </p>
+ *
+ * @since 3.14.0
+ */
+public final class CopyStreamDigest {
+
+    /**
+     * Creates a new instance which updates a checksum, for example a {@link java.util.zip.CRC32}.
+     *
+     * @param checksum The checksum to update.
+     * @return A new instance.
+     */
+    public static CopyStreamDigest of(final Checksum checksum) {
+        return new CopyStreamDigest(null, Objects.requireNonNull(checksum, "checksum"));
+    }
+
+    /**
+     * Creates a new instance which updates a message digest, for example SHA-256.
+     *
+     * @param messageDigest The message digest to update.
+     * @return A new instance.
+     */
+    public static CopyStreamDigest of(final MessageDigest messageDigest) {
+        return new CopyStreamDigest(Objects.requireNonNull(messageDigest, "messageDigest"), null);
+    }
+
+    private final MessageDigest messageDigest;
+    private final Checksum checksum;
+    private byte[] value;
+
+    private CopyStreamDigest(final MessageDigest messageDigest, final Checksum checksum) {
+        this.messageDigest = messageDigest;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Gets the algorithm name: the message digest algorithm, or the simple class name of the checksum such as {@code "CRC32"}.
+     *
+     * @return The algorithm name.
+     */
+    public String getAlgorithm() {
+        return messageDigest != null ? messageDigest.getAlgorithm() : checksum.getClass().getSimpleName();
+    }
+
+    /**
+     * Gets the checksum.
+     *
+     * @return The checksum, or {@code null} if this instance updates a message digest.
+     */
+    public Checksum getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Gets the message digest.
+     *
+     * @return The message digest, or {@code null} if this instance updates a checksum.
+     */
+    public MessageDigest getMessageDigest() {
+        return messageDigest;
+    }
+
+    /**
+     * Gets the digest of the bytes copied since the last {@link #reset()}. The first call completes the message digest, so further copies require a reset.
+     * <p>
+     * A checksum is returned big-endian, in 4 bytes if it fits (as for {@link java.util.zip.CRC32}) and in 8 bytes otherwise.
+     * </p>
+     *
+     * @return The digest value.
+     */
+    public byte[] getValue() {
+        if (value == null) {
+            if (messageDigest != null) {
+                value = messageDigest.digest();
+            } else {
+                final long sum = checksum.getValue();
+                final int length = sum >>> 32 == 0 ? 4 : 8;
+                value = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    value[i] = (byte) (sum >>> 8 * (length - 1 - i));
+                }
+            }
+        }
+        return value.clone();
+    }
+
+    /**
+     * Wraps an input stream so that the bytes read from it update this digest, for transfers not copied by {@link Util}.
+     *
+     * @param input The stream to wrap.
+     * @return The wrapping stream.
+     */
+    public InputStream newInputStream(final InputStream input) {
+        return new FilterInputStream(input) {
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+
+            @Override
+            public int read() throws IOException {
+                final int b = in.read();
+                if (b != -1) {
+                    update(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                final int n = in.read(b, off, len);
+                if (n > 0) {
+                    update(b, off, n);
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(final long n) throws IOException {
+                // skipped bytes would be missing from the digest
+                final byte[] buffer = new byte[(int) Math.min(n, Util.DEFAULT_COPY_BUFFER_SIZE)];
+                final int read = read(buffer, 0, buffer.length);
+                return Math.max(read, 0);
+            }
+        };
+    }
+
+    /**
+     * Wraps an output stream so that the bytes written to it update this digest, for transfers not copied by {@link Util}.
+     *
+     * @param output The stream to wrap.
+     * @return The wrapping stream.
+     */
+    public OutputStream newOutputStream(final OutputStream output) {
+        return new FilterOutputStream(output) {
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                out.write(b, off, len);
+                update(b, off, len);
+            }
+
+            @Override
+            public void write(final int b) throws IOException {
+                out.write(b);
+                update(b);
+            }
+        };
+    }
+
+    /**
+     * Resets the digest for a new copy.
+     */
+    public void reset() {
+        if (messageDigest != null) {
+            messageDigest.reset();
+        } else {
+            checksum.reset();
+        }
+        value = null;
+    }
+
+    @Override
+    public String toString() {
+        return getAlgorithm();
+    }
+
+    void update(final byte[] b, final int off, final int len) {
+        if (messageDigest != null) {
+            messageDigest.update(b, off, len);
+        } else {
+            checksum.update(b, off, len);
+        }
+    }
+
+    void update(final int b) {
+        if (messageDigest != null) {
+            messageDigest.update((byte) b);
+        } else {
+            checksum.update(b);
+        }
+    }
+}
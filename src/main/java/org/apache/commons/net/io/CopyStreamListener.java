@@ -49,4 +49,17 @@ public interface CopyStreamListener extends EventListener {
      *                              unknown.
      */
     void bytesTransferred(long totalBytesTransferred, int bytesTransferred, long streamSize);
+
+    /**
+     * Accepts notice that a copy operation has reached the end of its source. This is called once per copy by the static methods in the
+     * org.apache.commons.io.Util class, after the last call to {@link #bytesTransferred(long, int, long)}. The default implementation does nothing.
+     *
+     * @param totalBytesTransferred The total number of bytes transferred by the copy operation.
+     * @param streamSize            The number of bytes in the stream being copied. This may be equal to CopyStreamEvent.UNKNOWN_STREAM_SIZE if the size is
+     *                              unknown.
+     * @since 3.14.0
+     */
+    default void copyCompleted(final long totalBytesTransferred, final long streamSize) {
+        // noop
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread-safe pool of direct {@link ByteBuffer}s. Direct buffers save a copy each time a channel is read or written, but are expensive to allocate and are
+ * only freed by the garbage collector, so they are kept for reuse. Capacities are rounded up to a power of two, and a bounded number of buffers is kept for
+ * each capacity.
+ *
+ * @since 3.14.0
+ */
+public class DirectBufferPool {
+
+    private static final class DefaultHolder {
+        static final DirectBufferPool INSTANCE = new DirectBufferPool();
+    }
+
+    /** The default maximum number of buffers kept for each capacity. */
+    public static final int DEFAULT_MAX_POOLED = 16;
+
+    private static final int MAX_POOLED_CAPACITY = 1 << 30;
+
+    /**
+     * Gets the instance shared by all users which use it.
+     *
+     * @return The shared instance, with the default settings.
+     */
+    public static DirectBufferPool getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private final int maxPooled;
+    private final ConcurrentMap<Integer, BlockingQueue<ByteBuffer>> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new instance which keeps up to {@link #DEFAULT_MAX_POOLED} buffers for each capacity.
+     */
+    public DirectBufferPool() {
+        this(DEFAULT_MAX_POOLED);
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param maxPooled The maximum number of buffers kept for each capacity.
+     */
+    public DirectBufferPool(final int maxPooled) {
+        if (maxPooled < 1) {
+            throw new IllegalArgumentException("maxPooled must be positive: " + maxPooled);
+        }
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Takes a cleared direct buffer from the pool, or allocates one if there is none of the required capacity.
+     *
+     * @param minCapacity The minimum capacity.
+     * @return A cleared direct buffer with at least the given capacity.
+     */
+    public ByteBuffer acquire(final int minCapacity) {
+        if (minCapacity < 1) {
+            throw new IllegalArgumentException("minCapacity must be positive: " + minCapacity);
+        }
+        if (minCapacity > MAX_POOLED_CAPACITY) {
+            return ByteBuffer.allocateDirect(minCapacity);
+        }
+        final int capacity = minCapacity == 1 ? 1 : Integer.highestOneBit(minCapacity - 1) << 1;
+        final BlockingQueue<ByteBuffer> pool = pools.get(capacity);
+        final ByteBuffer buffer = pool != null ? pool.poll() : null;
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The caller must not use the buffer afterwards. Buffers which were not acquired from a pool are ignored, and so are buffers
+     * beyond the maximum number kept.
+     *
+     * @param buffer The buffer, may be {@code null}.
+     */
+    public void release(final ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || Integer.bitCount(buffer.capacity()) != 1) {
+            return;
+        }
+        pools.computeIfAbsent(buffer.capacity(), k -> new ArrayBlockingQueue<>(maxPooled)).offer(buffer);
+    }
+
+    /**
+     * Gets the number of buffers kept.
+     *
+     * @return The number of buffers kept, of all capacities.
+     */
+    public int size() {
+        return pools.values().stream().mapToInt(BlockingQueue::size).sum();
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+/**
+ * A {@link ByteChannel} which secures a {@link SocketChannel} with an {@link SSLEngine}, for clients which use channels and selectors rather than sockets.
+ * <p>
+ * The socket channel may be in blocking or in non-blocking mode. In non-blocking mode, {@link #read(ByteBuffer)} and {@link #write(ByteBuffer)} return 0
+ * when the TLS layer waits for the network, including during the handshake, and the caller retries when the selector reports the channel ready. Select
+ * {@link SelectionKey#OP_WRITE} while {@link #isFlushPending()}, and {@link SelectionKey#OP_READ} otherwise.
+ * </p>
+ * <p>
+ * To upgrade a connection with STARTTLS or AUTH TLS, send the command and read its positive reply in plain text over the socket channel, then construct an
+ * instance over the same channel with an engine in client mode. The handshake runs with the first read or write, or with {@link #handshake()}.
+ * </p>
+ * <p>
+ * The network and application buffers are direct buffers taken from a {@link DirectBufferPool}, and given back to it when the channel is closed.
+ * </p>
+ *
+ * @since 3.14.0
+ */
+public class SSLEngineChannel implements ByteChannel {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private static int transfer(final ByteBuffer src, final ByteBuffer dst) {
+        final int count = Math.min(src.remaining(), dst.remaining());
+        final int limit = src.limit();
+        src.limit(src.position() + count);
+        dst.put(src);
+        src.limit(limit);
+        return count;
+    }
+
+    private final SocketChannel channel;
+    private final SSLEngine engine;
+    private final DirectBufferPool bufferPool;
+
+    /** Received TLS records, ready to be filled. */
+    private ByteBuffer netIn;
+
+    /** TLS records not yet sent, ready to be drained. */
+    private ByteBuffer netOut;
+
+    /** Decrypted data not yet read, ready to be drained. */
+    private ByteBuffer appIn;
+
+    private boolean inboundDone;
+    private boolean closed;
+
+    /**
+     * Constructs a new instance with buffers from {@link DirectBufferPool#getDefault()}.
+     *
+     * @param channel The connected socket channel.
+     * @param engine  The engine, configured and in client mode for a client.
+     * @throws IOException If the handshake cannot be started.
+     */
+    public SSLEngineChannel(final SocketChannel channel, final SSLEngine engine) throws IOException {
+        this(channel, engine, DirectBufferPool.getDefault());
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param channel    The connected socket channel.
+     * @param engine     The engine, configured and in client mode for a client.
+     * @param bufferPool The pool of the network and application buffers.
+     * @throws IOException If the handshake cannot be started.
+     */
+    public SSLEngineChannel(final SocketChannel channel, final SSLEngine engine, final DirectBufferPool bufferPool) throws IOException {
+        this.channel = Objects.requireNonNull(channel, "channel");
+        this.engine = Objects.requireNonNull(engine, "engine");
+        this.bufferPool = Objects.requireNonNull(bufferPool, "bufferPool");
+        final SSLSession session = engine.getSession();
+        netIn = bufferPool.acquire(session.getPacketBufferSize());
+        netOut = bufferPool.acquire(session.getPacketBufferSize());
+        netOut.flip();
+        appIn = bufferPool.acquire(session.getApplicationBufferSize());
+        appIn.flip();
+        try {
+            engine.beginHandshake();
+        } catch (final SSLException e) {
+            releaseBuffers();
+            throw e;
+        }
+    }
+
+    private void checkOpen() throws ClosedChannelException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Sends the TLS close_notify alert if the socket channel accepts it without blocking, then closes the socket channel and gives the buffers back to the
+     * pool.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            engine.closeOutbound();
+            while (!engine.isOutboundDone() && sendRecords()) {
+                if (wrap(EMPTY).bytesProduced() == 0) {
+                    break;
+                }
+            }
+            sendRecords();
+        } finally {
+            channel.close();
+            releaseBuffers();
+        }
+    }
+
+    private int fill() throws IOException {
+        return channel.read(netIn);
+    }
+
+    /**
+     * Writes the TLS records which were produced but not sent yet.
+     *
+     * @return Whether all records were sent; always {@code true} in blocking mode.
+     * @throws IOException If an I/O error occurs.
+     */
+    public boolean flush() throws IOException {
+        checkOpen();
+        return sendRecords();
+    }
+
+    /**
+     * Gets the underlying socket channel, for registration with a selector.
+     *
+     * @return The socket channel.
+     */
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Gets the engine.
+     *
+     * @return The engine.
+     */
+    public SSLEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Gets the TLS session, which is only complete once the handshake is.
+     *
+     * @return The session.
+     */
+    public SSLSession getSession() {
+        return engine.getSession();
+    }
+
+    private ByteBuffer grow(final ByteBuffer buffer, final int minCapacity, final boolean drainMode) {
+        final ByteBuffer grown = bufferPool.acquire(Math.max(minCapacity, buffer.capacity() * 2));
+        if (!drainMode) {
+            buffer.flip();
+        }
+        grown.put(buffer);
+        if (drainMode) {
+            grown.flip();
+        }
+        bufferPool.release(buffer);
+        return grown;
+    }
+
+    /**
+     * Advances the handshake as far as the network allows.
+     *
+     * @return Whether the handshake is complete; always {@code true} in blocking mode.
+     * @throws IOException If the handshake fails, or the peer closes the connection during the handshake.
+     */
+    public boolean handshake() throws IOException {
+        checkOpen();
+        for (;;) {
+            if (!flush()) {
+                return false;
+            }
+            switch (engine.getHandshakeStatus()) {
+            case NOT_HANDSHAKING:
+            case FINISHED:
+                return true;
+            case NEED_TASK:
+                Runnable task;
+                while ((task = engine.getDelegatedTask()) != null) {
+                    task.run();
+                }
+                break;
+            case NEED_WRAP:
+                if (wrap(EMPTY).getStatus() == Status.CLOSED && !netOut.hasRemaining()) {
+                    return flush();
+                }
+                break;
+            default:
+                // NEED_UNWRAP, and NEED_UNWRAP_AGAIN on Java 9 and later
+                if (inboundDone) {
+                    return true;
+                }
+                if (unwrap().getStatus() == Status.BUFFER_UNDERFLOW) {
+                    final int count = fill();
+                    if (count < 0) {
+                        throw new EOFException("Connection closed during the TLS handshake");
+                    }
+                    if (count == 0) {
+                        return false;
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Tests whether TLS records are waiting to be sent, in which case the caller should wait until the socket channel is writable and call {@link #flush()}.
+     *
+     * @return Whether TLS records are waiting to be sent.
+     */
+    public boolean isFlushPending() {
+        return !closed && netOut.hasRemaining();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed && channel.isOpen();
+    }
+
+    /**
+     * Reads decrypted data, advancing the handshake first if needed.
+     *
+     * @param dst The buffer to read into.
+     * @return The number of bytes read, 0 if the channel is not blocking and no data is available yet, or -1 at the end of the stream.
+     * @throws IOException If an I/O or TLS error occurs.
+     */
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        checkOpen();
+        if (!handshake() && !appIn.hasRemaining()) {
+            return 0;
+        }
+        for (;;) {
+            if (appIn.hasRemaining()) {
+                return transfer(appIn, dst);
+            }
+            if (inboundDone) {
+                return -1;
+            }
+            final SSLEngineResult result = unwrap();
+            if (result.getStatus() == Status.CLOSED) {
+                // answer the peer's close_notify
+                handshake();
+            } else if (result.getHandshakeStatus() != HandshakeStatus.NOT_HANDSHAKING && result.getHandshakeStatus() != HandshakeStatus.FINISHED) {
+                // renegotiation, or a post-handshake message of TLS 1.3
+                if (!handshake() && !appIn.hasRemaining()) {
+                    return 0;
+                }
+            } else if (result.getStatus() == Status.BUFFER_UNDERFLOW) {
+                final int count = fill();
+                if (count < 0) {
+                    // closed without close_notify, as many servers do after a transfer
+                    inboundDone = true;
+                } else if (count == 0) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    private void releaseBuffers() {
+        bufferPool.release(netIn);
+        bufferPool.release(netOut);
+        bufferPool.release(appIn);
+        netIn = null;
+        netOut = null;
+        appIn = null;
+    }
+
+    private boolean sendRecords() throws IOException {
+        while (netOut.hasRemaining()) {
+            if (channel.write(netOut) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SSLEngineResult unwrap() throws IOException {
+        for (;;) {
+            netIn.flip();
+            appIn.compact();
+            final SSLEngineResult result;
+            try {
+                result = engine.unwrap(netIn, appIn);
+            } finally {
+                appIn.flip();
+                netIn.compact();
+            }
+            switch (result.getStatus()) {
+            case BUFFER_OVERFLOW:
+                appIn = grow(appIn, appIn.remaining() + engine.getSession().getApplicationBufferSize(), true);
+                break;
+            case BUFFER_UNDERFLOW:
+                if (!netIn.hasRemaining()) {
+                    netIn = grow(netIn, engine.getSession().getPacketBufferSize(), false);
+                }
+                return result;
+            case CLOSED:
+                inboundDone = true;
+                return result;
+            default:
+                return result;
+            }
+        }
+    }
+
+    private SSLEngineResult wrap(final ByteBuffer src) throws IOException {
+        for (;;) {
+            // only called once the earlier records were sent
+            netOut.clear();
+            final SSLEngineResult result;
+            try {
+                result = engine.wrap(src, netOut);
+            } finally {
+                netOut.flip();
+            }
+            if (result.getStatus() != Status.BUFFER_OVERFLOW) {
+                return result;
+            }
+            netOut = grow(netOut, engine.getSession().getPacketBufferSize(), true);
+        }
+    }
+
+    /**
+     * Encrypts and writes data, advancing the handshake first if needed. In non-blocking mode, the data consumed may still be waiting to be sent, see
+     * {@link #isFlushPending()}.
+     *
+     * @param src The buffer to write from.
+     * @return The number of bytes consumed, 0 if the channel is not blocking and cannot take data yet.
+     * @throws IOException If an I/O or TLS error occurs.
+     */
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        checkOpen();
+        if (!handshake()) {
+            return 0;
+        }
+        int written = 0;
+        while (src.hasRemaining()) {
+            final SSLEngineResult result = wrap(src);
+            written += result.bytesConsumed();
+            if (result.getStatus() == Status.CLOSED) {
+                throw new SSLException("The TLS connection is closed");
+            }
+            if (!handshake()) {
+                break;
+            }
+        }
+        return written;
+    }
+}
@@ -28,7 +28,6 @@ import java.io.Reader;
 import java.io.Writer;
 import java.net.Socket;
 import java.nio.charset.Charset;
-import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ProxyOutputStream;
@@ -43,6 +42,75 @@ import org.apache.commons.io.output.ProxyWriter;
  */
 public final class Util {
 
+    /**
+     * Counts the bytes written through it, updates a digest from the written buffer and notifies a listener after each write.
+     * <p>
+     * The counter is only ever updated by the copying thread, so it is a plain field rather than an atomic.
+     * </p>
+     */
+    private static final class ListeningOutputStream extends ProxyOutputStream {
+
+        private final CopyStreamListener listener;
+        private final CopyStreamDigest digest;
+        private final long streamSize;
+        private final boolean flush;
+        private long total;
+
+        ListeningOutputStream(final OutputStream out, final CopyStreamListener listener, final CopyStreamDigest digest, final long streamSize,
+                final boolean flush) {
+            super(out);
+            this.listener = listener;
+            this.digest = digest;
+            this.streamSize = streamSize;
+            this.flush = flush;
+        }
+
+        @Override
+        protected void afterWrite(final int n) throws IOException {
+            if (flush) {
+                out.flush();
+            }
+            total += n;
+            if (listener != null) {
+                listener.bytesTransferred(total, n, streamSize);
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (digest != null) {
+                digest.update(b, off, len);
+            }
+            super.write(b, off, len);
+        }
+    }
+
+    /**
+     * Counts the characters written through it and notifies a listener after each write.
+     * <p>
+     * The counter is only ever updated by the copying thread, so it is a plain field rather than an atomic.
+     * </p>
+     */
+    private static final class ListeningWriter extends ProxyWriter {
+
+        private final CopyStreamListener listener;
+        private final long streamSize;
+        private long total;
+
+        ListeningWriter(final Writer out, final CopyStreamListener listener, final long streamSize) {
+            super(out);
+            this.listener = listener;
+            this.streamSize = streamSize;
+        }
+
+        @Override
+        protected void afterWrite(final int n) throws IOException {
+            out.flush();
+            total += n;
+            listener.bytesTransferred(total, n, streamSize);
+        }
+    }
+
     /**
      * The default buffer size ({@value}) used by {@link #copyStream copyStream} and {@link #copyReader copyReader} and by the copyReader/copyStream methods if
      * a zero or negative buffer size is supplied.
@@ -113,6 +181,9 @@ public final class Util {
      * The contents of the Reader are read until its end is reached, but neither the source nor the destination are closed. You must do this yourself outside
      * the method call. The number of characters read/written is returned.
      * </p>
+     * <p>
+     * Once the end of the Reader is reached, the listener's {@link CopyStreamListener#copyCompleted(long, long) copyCompleted} method is called.
+     * </p>
      *
      * @param source     The source Reader.
      * @param dest       The destination writer.
@@ -128,18 +199,16 @@ public final class Util {
      */
     public static long copyReader(final Reader source, final Writer dest, final int bufferSize, final long streamSize, final CopyStreamListener listener)
             throws CopyStreamException {
-        final AtomicLong total = new AtomicLong();
+        final ListeningWriter listening = listener == null ? null : new ListeningWriter(dest, listener, streamSize);
         try {
-            return IOUtils.copyLarge(source, listener == null ? dest : new ProxyWriter(dest) {
-
-                @Override
-                protected void afterWrite(final int n) throws IOException {
-                    dest.flush();
-                    listener.bytesTransferred(total.addAndGet(n), n, streamSize);
-                }
-            }, new char[bufferSize > 0 ? bufferSize : DEFAULT_COPY_BUFFER_SIZE]);
+            final long total = IOUtils.copyLarge(source, listening == null ? dest : listening,
+                    new char[bufferSize > 0 ? bufferSize : DEFAULT_COPY_BUFFER_SIZE]);
+            if (listener != null) {
+                listener.copyCompleted(total, streamSize);
+            }
+            return total;
         } catch (final IOException e) {
-            throw new CopyStreamException("IOException caught while copying.", total.get(), e);
+            throw new CopyStreamException("IOException caught while copying.", listening == null ? 0 : listening.total, e);
         }
     }
 
@@ -205,6 +274,10 @@ public final class Util {
      * <p>
      * The contents of the InputStream are read until the end of the stream is reached, but neither the source nor the destination are closed. You must do this
      * yourself outside the method call. The number of bytes read/written is returned.
+     * </p>
+     * <p>
+     * Once the end of the InputStream is reached, the listener's {@link CopyStreamListener#copyCompleted(long, long) copyCompleted} method is called.
+     * </p>
      *
      * @param source     The source InputStream.
      * @param dest       The destination OutputStream.
@@ -222,21 +295,39 @@ public final class Util {
      */
     public static long copyStream(final InputStream source, final OutputStream dest, final int bufferSize, final long streamSize,
             final CopyStreamListener listener, final boolean flush) throws CopyStreamException {
-        final AtomicLong total = new AtomicLong();
-        try {
-            return IOUtils.copyLarge(source, listener == null ? dest : new ProxyOutputStream(dest) {
-
-                @Override
-                protected void afterWrite(final int n) throws IOException {
-                    if (flush) {
-                        dest.flush();
-                    }
-                    listener.bytesTransferred(total.addAndGet(n), n, streamSize);
-                }
+        return copyStream(source, dest, bufferSize, streamSize, listener, flush, null);
+    }
 
-            }, new byte[bufferSize > 0 ? bufferSize : DEFAULT_COPY_BUFFER_SIZE]);
+    /**
+     * Copies the contents of an InputStream to an OutputStream as {@link #copyStream(InputStream, OutputStream, int, long, CopyStreamListener, boolean)}
+     * does, and also updates a digest from the copy buffer as it is written, so that the data is only traversed once.
+     *
+     * @param source     The source InputStream.
+     * @param dest       The destination OutputStream.
+     * @param bufferSize The number of bytes to buffer during the copy. A zero or negative value means to use {@link #DEFAULT_COPY_BUFFER_SIZE}.
+     * @param streamSize The number of bytes in the stream being copied. Should be set to CopyStreamEvent.UNKNOWN_STREAM_SIZE if unknown.
+     * @param listener   The CopyStreamListener to notify of progress. If this parameter is null, notification is not attempted.
+     * @param flush      Whether to flush the output stream after every write.
+     * @param digest     The digest to update with the bytes copied. It is not reset first. If this parameter is null, no digest is computed.
+     * @return number of bytes read/written
+     * @throws CopyStreamException If an error occurs while reading from the source or writing to the destination. The CopyStreamException will contain the
+     *                             number of bytes confirmed to have been transferred before an IOException occurred, and it will also contain the IOException
+     *                             that caused the error.
+     * @since 3.14.0
+     */
+    public static long copyStream(final InputStream source, final OutputStream dest, final int bufferSize, final long streamSize,
+            final CopyStreamListener listener, final boolean flush, final CopyStreamDigest digest) throws CopyStreamException {
+        final ListeningOutputStream listening = listener == null && digest == null ? null
+                : new ListeningOutputStream(dest, listener, digest, streamSize, flush);
+        try {
+            final long total = IOUtils.copyLarge(source, listening == null ? dest : listening,
+                    new byte[bufferSize > 0 ? bufferSize : DEFAULT_COPY_BUFFER_SIZE]);
+            if (listener != null) {
+                listener.copyCompleted(total, streamSize);
+            }
+            return total;
         } catch (final IOException e) {
-            throw new CopyStreamException("IOException caught while copying.", total.get(), e);
+            throw new CopyStreamException("IOException caught while copying.", listening == null ? 0 : listening.total, e);
         }
     }
 
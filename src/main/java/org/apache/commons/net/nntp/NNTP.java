@@ -251,6 +251,20 @@ public class NNTP extends SocketClient {
         return sendCommand(NNTPCommand.BODY, messageId);
     }
 
+    /**
+     * A convenience method to send the NNTP DATE command (RFC 3977) to the server, receive the reply, and return the reply code.
+     *
+     * @return The reply code received from the server.
+     * @throws NNTPConnectionClosedException If the NNTP server prematurely closes the connection as a result of the client being idle or some other reason
+     *                                       causing the server to send NNTP reply code 400. This exception may be caught either as an IOException or
+     *                                       independently as itself.
+     * @throws IOException                   If an I/O error occurs while either sending the command or receiving the server reply.
+     * @since 3.14.0
+     */
+    public int date() throws IOException {
+        return sendCommand(NNTPCommand.DATE);
+    }
+
     /**
      * Closes the connection to the NNTP server and sets to null some internal data so that the memory may be reclaimed by the garbage collector. The reply text
      * and code information from the last command is voided so that the memory it used may be reclaimed.
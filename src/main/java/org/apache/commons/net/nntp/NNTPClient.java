@@ -1443,4 +1443,16 @@ public class NNTPClient extends NNTP {
         ai2ap(ai, pointer);
         return b;
     }
+
+    /**
+     * Sends a DATE command to the NNTP server. NNTP has no NOOP command; DATE is the cheapest command which does not change the session state.
+     *
+     * @return True if the server replied with its date and time, false if not.
+     * @throws IOException If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @since 3.14.0
+     */
+    @Override
+    protected boolean sendKeepAlive() throws IOException {
+        return date() == NNTPReply.SERVER_DATE_AND_TIME;
+    }
 }
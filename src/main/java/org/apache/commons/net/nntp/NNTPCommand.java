@@ -76,8 +76,15 @@ public final class NNTPCommand {
     /** NNTP command code {@value}. */
     public static final int XHDR = 17;
 
+    /**
+     * NNTP command code {@value}.
+     *
+     * @since 3.14.0
+     */
+    public static final int DATE = 18;
+
     private static final String[] commands = { "ARTICLE", "BODY", "GROUP", "HEAD", "HELP", "IHAVE", "LAST", "LIST", "NEWGROUPS", "NEWNEWS", "NEXT", "POST",
-            "QUIT", "SLAVE", "STAT", "AUTHINFO", "XOVER", "XHDR" };
+            "QUIT", "SLAVE", "STAT", "AUTHINFO", "XOVER", "XHDR", "DATE" };
 
     /**
      * Gets the NNTP protocol command string corresponding to a specified command code.
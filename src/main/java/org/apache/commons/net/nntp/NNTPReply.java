@@ -26,6 +26,13 @@ public final class NNTPReply {
     /** NNTP reply code {@value}. */
     public static final int HELP_TEXT_FOLLOWS = 100;
 
+    /**
+     * NNTP reply code {@value}, the reply to DATE defined by RFC 3977.
+     *
+     * @since 3.14.0
+     */
+    public static final int SERVER_DATE_AND_TIME = 111;
+
     /** NNTP reply code {@value}. */
     public static final int DEBUG_OUTPUT = 199;
 
@@ -339,6 +339,19 @@ public class POP3Client extends POP3 {
         return false;
     }
 
+    /**
+     * Sends a NOOP command to the POP3 server. This only succeeds if the client is in the {@link org.apache.commons.net.pop3.POP3#TRANSACTION_STATE
+     * TRANSACTION_STATE}; in other states nothing is sent.
+     *
+     * @return True if the noop attempt was successful, false if not.
+     * @throws IOException If a network I/O error occurs in the process of sending the NOOP command.
+     * @since 3.14.0
+     */
+    @Override
+    protected boolean sendKeepAlive() throws IOException {
+        return noop();
+    }
+
     /**
      * Retrieve a message from the POP3 server. A retrieve message attempt can only succeed if the client is in the
      * {@link org.apache.commons.net.pop3.POP3#TRANSACTION_STATE TRANSACTION_STATE}
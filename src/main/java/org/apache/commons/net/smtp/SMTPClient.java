@@ -309,6 +309,18 @@ public class SMTPClient extends SMTP {
         return SMTPReply.isPositiveCompletion(noop());
     }
 
+    /**
+     * Sends a NOOP command to the SMTP server.
+     *
+     * @return True if successfully completed, false if not.
+     * @throws IOException If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @since 3.14.0
+     */
+    @Override
+    protected boolean sendKeepAlive() throws IOException {
+        return sendNoOp();
+    }
+
     /**
      * Sends a short messages. This method fetches the Writer returned by {@link #sendMessageData sendMessageData()} and writes the
      * specified String to it. After writing the message, this method calls {@link #completePendingCommand completePendingCommand()} to finalize the
@@ -31,6 +31,7 @@ import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 
 import org.apache.commons.net.io.CRLFLineReader;
+import org.apache.commons.net.util.SSLContextRegistry;
 import org.apache.commons.net.util.SSLContextUtils;
 import org.apache.commons.net.util.SSLSocketUtils;
 
@@ -98,6 +99,9 @@ public class SMTPSClient extends SMTPClient {
     /** Use Java 1.7+ HTTPS Endpoint Identification Algorithm. */
     private boolean tlsEndpointChecking;
 
+    /** The registry of shared SSL contexts, {@code null} to create one per client. */
+    private SSLContextRegistry sslContextRegistry;
+
     /**
      * Constructor for SMTPSClient, using {@link #DEFAULT_PROTOCOL} i.e. TLS Sets security mode to explicit (isImplicit = false).
      */
@@ -248,6 +252,16 @@ public class SMTPSClient extends SMTPClient {
         return keyManager;
     }
 
+    /**
+     * Gets the registry which the SSL context is taken from.
+     *
+     * @return The registry, or {@code null} if this client creates its own context.
+     * @since 3.14.0
+     */
+    public SSLContextRegistry getSSLContextRegistry() {
+        return sslContextRegistry;
+    }
+
     /**
      * Gets the currently configured {@link TrustManager}.
      *
@@ -264,7 +278,8 @@ public class SMTPSClient extends SMTPClient {
      */
     private void initSSLContext() throws IOException {
         if (context == null) {
-            context = SSLContextUtils.createSSLContext(protocol, getKeyManager(), getTrustManager());
+            context = sslContextRegistry != null ? sslContextRegistry.getSSLContext(protocol, getKeyManager(), getTrustManager())
+                    : SSLContextUtils.createSSLContext(protocol, getKeyManager(), getTrustManager());
         }
     }
 
@@ -306,8 +321,8 @@ public class SMTPSClient extends SMTPClient {
 
         // TODO the following setup appears to duplicate that in the super class methods
         _socket_ = socket;
-        _input_ = socket.getInputStream();
-        _output_ = socket.getOutputStream();
+        _input_ = limitBandwidth(socket.getInputStream());
+        _output_ = limitBandwidth(socket.getOutputStream());
         reader = new CRLFLineReader(new InputStreamReader(_input_, encoding));
         writer = new BufferedWriter(new OutputStreamWriter(_output_, encoding));
 
@@ -364,6 +379,18 @@ public class SMTPSClient extends SMTPClient {
         keyManager = newKeyManager;
     }
 
+    /**
+     * Sets the registry to take the SSL context from, unless one was given to the constructor. Clients which use the same registry, protocol, key manager and
+     * trust manager share a context and its TLS session cache, so that later connections can resume the sessions of earlier ones. The default is
+     * {@code null}, which creates a context for each client.
+     *
+     * @param sslContextRegistry The registry, for example {@link SSLContextRegistry#getDefault()}, or {@code null}.
+     * @since 3.14.0
+     */
+    public void setSSLContextRegistry(final SSLContextRegistry sslContextRegistry) {
+        this.sslContextRegistry = sslContextRegistry;
+    }
+
     /**
      * Override the default {@link TrustManager} to use.
      *
@@ -25,6 +25,7 @@ import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
 
+import org.apache.commons.net.io.BandwidthLimiter;
 import org.apache.commons.net.io.FromNetASCIIOutputStream;
 import org.apache.commons.net.io.ToNetASCIIInputStream;
 
@@ -56,6 +57,9 @@ public class TFTPClient extends TFTP {
     /** The maximum number of timeouts allowed before failing. */
     private int maxTimeouts;
 
+    /** Limits the rate of transfers, null for no limit. */
+    private BandwidthLimiter bandwidthLimiter;
+
     /** The number of bytes received in the ongoing download. */
     private long totalBytesReceived;
 
@@ -70,6 +74,16 @@ public class TFTPClient extends TFTP {
         maxTimeouts = DEFAULT_MAX_TIMEOUTS;
     }
 
+    /**
+     * Gets the limiter of the rate of transfers.
+     *
+     * @return The limiter, or null if the rate is not limited.
+     * @since 3.14.0
+     */
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
     /**
      * Gets the maximum number of times a {@code receive} attempt is allowed to timeout before ending attempts to retry the {@code receive} and failing.
      *
@@ -225,6 +239,10 @@ public class TFTPClient extends TFTP {
                 sent = ack;
                 bytesRead += dataLength;
                 totalBytesReceived += dataLength;
+                if (bandwidthLimiter != null) {
+                    // delaying the acknowledgement delays the next block
+                    bandwidthLimiter.acquire(dataLength);
+                }
             } while (dataLength == TFTPPacket.SEGMENT_SIZE); // not eof
             bufferedSend(sent); // send the final ack
         } finally {
@@ -245,7 +263,7 @@ public class TFTPClient extends TFTP {
      * @throws UnknownHostException If the hostname cannot be resolved.
      */
     public int receiveFile(final String fileName, final int mode, final OutputStream output, final String hostname) throws UnknownHostException, IOException {
-        return receiveFile(fileName, mode, output, InetAddress.getByName(hostname), DEFAULT_PORT);
+        return receiveFile(fileName, mode, output, getHostResolver().resolve(hostname)[0], DEFAULT_PORT);
     }
 
     /**
@@ -264,7 +282,7 @@ public class TFTPClient extends TFTP {
      */
     public int receiveFile(final String fileName, final int mode, final OutputStream output, final String hostname, final int port)
             throws UnknownHostException, IOException {
-        return receiveFile(fileName, mode, output, InetAddress.getByName(hostname), port);
+        return receiveFile(fileName, mode, output, getHostResolver().resolve(hostname)[0], port);
     }
 
     /**
@@ -400,6 +418,9 @@ public class TFTPClient extends TFTP {
                 data.setData(sendBuffer, 4, totalThisPacket);
                 sent = data;
                 totalBytesSent += totalThisPacket;
+                if (bandwidthLimiter != null) {
+                    bandwidthLimiter.acquire(totalThisPacket);
+                }
             } while (true); // loops until after lastAckWait is set
         } finally {
             endBufferedOps();
@@ -417,7 +438,7 @@ public class TFTPClient extends TFTP {
      * @throws UnknownHostException If the hostname cannot be resolved.
      */
     public void sendFile(final String fileName, final int mode, final InputStream input, final String hostname) throws UnknownHostException, IOException {
-        sendFile(fileName, mode, input, InetAddress.getByName(hostname), DEFAULT_PORT);
+        sendFile(fileName, mode, input, getHostResolver().resolve(hostname)[0], DEFAULT_PORT);
     }
 
     /**
@@ -435,7 +456,18 @@ public class TFTPClient extends TFTP {
      */
     public void sendFile(final String fileName, final int mode, final InputStream input, final String hostname, final int port)
             throws UnknownHostException, IOException {
-        sendFile(fileName, mode, input, InetAddress.getByName(hostname), port);
+        sendFile(fileName, mode, input, getHostResolver().resolve(hostname)[0], port);
+    }
+
+    /**
+     * Sets the limiter of the rate of transfers, which may be shared with other clients to limit their aggregate rate. Each data block takes tokens for its
+     * data before it is sent, or before it is acknowledged when receiving. The default is null, for no limit.
+     *
+     * @param bandwidthLimiter The limiter, or null for no limit.
+     * @since 3.14.0
+     */
+    public void setBandwidthLimiter(final BandwidthLimiter bandwidthLimiter) {
+        this.bandwidthLimiter = bandwidthLimiter;
     }
 
     /**
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.util;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+/**
+ * A thread-safe registry of initialized {@link SSLContext}s and their socket factories, keyed by protocol, key manager and trust manager. Clients which use
+ * the same registry and the same settings share one context, and therefore its client session cache, so that a new client can resume a TLS session of an
+ * earlier one instead of repeating the full handshake. See {@link #getDefault()}.
+ * <p>
+ * Key and trust managers are compared by identity, so clients only share a context when they are configured with the same manager instances, for example the
+ * ones returned by {@link TrustManagerUtils}. Enabled cipher suites and protocol versions are set on each socket by the clients and do not affect the context.
+ * </p>
+ *
+ * @since 3.14.0
+ */
+public class SSLContextRegistry {
+
+    private static final class DefaultHolder {
+        static final SSLContextRegistry INSTANCE = new SSLContextRegistry();
+    }
+
+    /** A context and its socket factory. */
+    private static final class ContextEntry {
+
+        final SSLContext context;
+        final SSLSocketFactory socketFactory;
+
+        ContextEntry(final SSLContext context) {
+            this.context = context;
+            this.socketFactory = context.getSocketFactory();
+        }
+    }
+
+    /** The settings which a context was created with. */
+    private static final class Key {
+
+        final String protocol;
+        final KeyManager keyManager;
+        final TrustManager trustManager;
+
+        Key(final String protocol, final KeyManager keyManager, final TrustManager trustManager) {
+            this.protocol = protocol;
+            this.keyManager = keyManager;
+            this.trustManager = trustManager;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return protocol.equals(other.protocol) && keyManager == other.keyManager && trustManager == other.trustManager;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(protocol, System.identityHashCode(keyManager), System.identityHashCode(trustManager));
+        }
+    }
+
+    /** The default maximum number of contexts kept. */
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+
+    /**
+     * Gets the instance shared by all clients which use it.
+     *
+     * @return The shared instance, with the default settings.
+     */
+    public static SSLContextRegistry getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private final Map<Key, ContextEntry> contexts;
+
+    /**
+     * Constructs a new instance which keeps up to {@link #DEFAULT_MAX_ENTRIES} contexts.
+     */
+    public SSLContextRegistry() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param maxEntries The maximum number of contexts kept, the least recently used are evicted first.
+     */
+    public SSLContextRegistry(final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.contexts = new LinkedHashMap<Key, ContextEntry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, ContextEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Removes all contexts.
+     */
+    public void clear() {
+        synchronized (contexts) {
+            contexts.clear();
+        }
+    }
+
+    private ContextEntry getEntry(final String protocol, final KeyManager keyManager, final TrustManager trustManager) throws IOException {
+        final Key key = new Key(Objects.requireNonNull(protocol, "protocol"), keyManager, trustManager);
+        synchronized (contexts) {
+            final ContextEntry entry = contexts.get(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        // initialize outside the lock, a concurrent caller may win the race
+        final ContextEntry created = new ContextEntry(SSLContextUtils.createSSLContext(protocol, keyManager, trustManager));
+        synchronized (contexts) {
+            final ContextEntry entry = contexts.putIfAbsent(key, created);
+            return entry != null ? entry : created;
+        }
+    }
+
+    /**
+     * Gets the socket factory of the context for the given settings. The same factory instance is returned for as long as the context is kept.
+     *
+     * @param protocol     The protocol used to instantiate the context.
+     * @param keyManager   The key manager, may be {@code null}.
+     * @param trustManager The trust manager, may be {@code null}.
+     * @return The socket factory of the shared context.
+     * @throws IOException If the context could not be initialized.
+     * @see #getSSLContext(String, KeyManager, TrustManager)
+     */
+    public SSLSocketFactory getSocketFactory(final String protocol, final KeyManager keyManager, final TrustManager trustManager) throws IOException {
+        return getEntry(protocol, keyManager, trustManager).socketFactory;
+    }
+
+    /**
+     * Gets the context for the given settings, creating and initializing it with {@link SSLContextUtils#createSSLContext(String, KeyManager, TrustManager)} if
+     * there is none yet.
+     *
+     * @param protocol     The protocol used to instantiate the context.
+     * @param keyManager   The key manager, may be {@code null}.
+     * @param trustManager The trust manager, may be {@code null}.
+     * @return The initialized context.
+     * @throws IOException If the context could not be initialized.
+     */
+    public SSLContext getSSLContext(final String protocol, final KeyManager keyManager, final TrustManager trustManager) throws IOException {
+        return getEntry(protocol, keyManager, trustManager).context;
+    }
+
+    /**
+     * Gets the number of contexts kept.
+     *
+     * @return The number of contexts kept.
+     */
+    public int size() {
+        synchronized (contexts) {
+            return contexts.size();
+        }
+    }
+}
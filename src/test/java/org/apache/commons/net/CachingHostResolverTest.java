@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CachingHostResolverTest {
+
+    /**
+     * Resolves "*.invalid" as unknown and anything else to the loopback address, recording the lookups.
+     */
+    private static final class RecordingResolver implements HostResolver {
+
+        final List<String> lookups = new ArrayList<>();
+
+        @Override
+        public InetAddress[] resolve(final String host) throws UnknownHostException {
+            lookups.add(host);
+            if (host.endsWith(".invalid")) {
+                throw new UnknownHostException(host);
+            }
+            return new InetAddress[] { InetAddress.getLoopbackAddress() };
+        }
+    }
+
+    @Test
+    void testCachesLookups() throws Exception {
+        final RecordingResolver delegate = new RecordingResolver();
+        final CachingHostResolver resolver = new CachingHostResolver(delegate, 10, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        final InetAddress[] expected = { InetAddress.getLoopbackAddress() };
+        assertArrayEquals(expected, resolver.resolve("host.example"));
+        // the caller may modify the returned array
+        resolver.resolve("HOST.example")[0] = null;
+        assertArrayEquals(expected, resolver.resolve("host.example"));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("missing.invalid"));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("missing.invalid"));
+        assertEquals(2, delegate.lookups.size());
+        resolver.clear();
+        resolver.resolve("host.example");
+        assertEquals(3, delegate.lookups.size());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() throws Exception {
+        final RecordingResolver delegate = new RecordingResolver();
+        final CachingHostResolver resolver = new CachingHostResolver(delegate, 2, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        resolver.resolve("a.example");
+        resolver.resolve("b.example");
+        resolver.resolve("a.example");
+        resolver.resolve("c.example");
+        assertEquals(2, resolver.size());
+        // "b.example" was evicted, "a.example" was used more recently
+        resolver.resolve("a.example");
+        assertEquals(3, delegate.lookups.size());
+        resolver.resolve("b.example");
+        assertEquals(4, delegate.lookups.size());
+    }
+
+    @Test
+    void testExpires() throws Exception {
+        final RecordingResolver delegate = new RecordingResolver();
+        final CachingHostResolver resolver = new CachingHostResolver(delegate, 10, Duration.ofMillis(1), Duration.ZERO);
+        resolver.resolve("host.example");
+        Thread.sleep(10);
+        resolver.resolve("host.example");
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("missing.invalid"));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("missing.invalid"));
+        assertEquals(4, delegate.lookups.size());
+    }
+
+    @Test
+    void testSocketClientUsesResolver() throws Exception {
+        final RecordingResolver delegate = new RecordingResolver();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final SocketClient client = new SocketClient() {
+                // empty
+            };
+            client.setHostResolver(delegate);
+            client.connect("server.example", server.getLocalPort());
+            try {
+                assertEquals(InetAddress.getLoopbackAddress(), client.getRemoteAddress());
+            } finally {
+                client.disconnect();
+            }
+            client.setHostResolver(null);
+            assertEquals(HostResolver.SYSTEM, client.getHostResolver());
+        }
+        assertEquals("server.example", delegate.lookups.get(0));
+    }
+}
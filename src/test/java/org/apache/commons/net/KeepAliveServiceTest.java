@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class KeepAliveServiceTest {
+
+    private static final class TestClient extends SocketClient {
+
+        final AtomicInteger keepAlives = new AtomicInteger();
+        volatile boolean connected = true;
+        volatile boolean fail;
+        volatile boolean refuse;
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        protected boolean sendKeepAlive() throws IOException {
+            if (fail) {
+                throw new IOException("connection reset");
+            }
+            if (refuse) {
+                return false;
+            }
+            keepAlives.incrementAndGet();
+            return true;
+        }
+    }
+
+    private static void sleep(final long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    @Test
+    void testDisconnectedRequiresReconnect() throws Exception {
+        try (KeepAliveService service = new KeepAliveService(Duration.ofMillis(20))) {
+            final TestClient client = new TestClient();
+            client.connected = false;
+            final KeepAliveService.Session<TestClient> session = service.register(client);
+            sleep(200);
+            assertTrue(session.isReconnectRequired());
+            assertEquals(0, client.keepAlives.get());
+        }
+    }
+
+    @Test
+    void testFailureRequiresReconnect() throws Exception {
+        try (KeepAliveService service = new KeepAliveService(Duration.ofMillis(20))) {
+            final TestClient client = new TestClient();
+            client.fail = true;
+            final KeepAliveService.Session<TestClient> session = service.register(client);
+            sleep(200);
+            assertTrue(session.isReconnectRequired());
+            client.fail = false;
+            session.reconnected();
+            assertFalse(session.isReconnectRequired());
+            sleep(200);
+            assertTrue(client.keepAlives.get() > 0);
+        }
+    }
+
+    @Test
+    void testIdleSessionKeptAlive() throws Exception {
+        try (KeepAliveService service = new KeepAliveService(Duration.ofMillis(20))) {
+            final TestClient client = new TestClient();
+            final KeepAliveService.Session<TestClient> session = service.register(client);
+            sleep(200);
+            assertTrue(client.keepAlives.get() > 0);
+            assertEquals(client.keepAlives.get(), session.getKeepAliveCount());
+            assertFalse(session.isReconnectRequired());
+        }
+    }
+
+    @Test
+    void testInvalidIdleTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> new KeepAliveService(Duration.ZERO));
+    }
+
+    @Test
+    void testNegativeReplyRequiresReconnect() throws Exception {
+        try (KeepAliveService service = new KeepAliveService(Duration.ofMillis(20))) {
+            final TestClient client = new TestClient();
+            client.refuse = true;
+            final KeepAliveService.Session<TestClient> session = service.register(client);
+            sleep(200);
+            assertTrue(session.isReconnectRequired());
+            assertEquals(0, session.getKeepAliveCount());
+        }
+    }
+
+    @Test
+    void testNoKeepAliveWhileHeld() throws Exception {
+        try (KeepAliveService service = new KeepAliveService(Duration.ofMillis(20))) {
+            final TestClient client = new TestClient();
+            final KeepAliveService.Session<TestClient> session = service.register(client);
+            session.acquire();
+            try {
+                sleep(200);
+                assertEquals(0, client.keepAlives.get());
+            } finally {
+                session.release();
+            }
+        }
+    }
+
+    @Test
+    void testUnregister() throws Exception {
+        try (KeepAliveService service = new KeepAliveService(Duration.ofMillis(20))) {
+            final TestClient client = new TestClient();
+            service.unregister(service.register(client));
+            sleep(200);
+            assertEquals(0, client.keepAlives.get());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import javax.net.SocketFactory;
+
+import org.junit.jupiter.api.Test;
+
+class ParallelConnectorTest {
+
+    /**
+     * Never completes connecting to {@link #BLACKHOLE}, until closed.
+     */
+    private static final class BlackholeSocket extends Socket {
+
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public synchronized void close() throws IOException {
+            closed.countDown();
+            super.close();
+        }
+
+        @Override
+        public void connect(final SocketAddress endpoint, final int timeout) throws IOException {
+            if (((InetSocketAddress) endpoint).getAddress().equals(BLACKHOLE)) {
+                try {
+                    closed.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("closed while connecting");
+            }
+            super.connect(endpoint, timeout);
+        }
+    }
+
+    private static final InetAddress BLACKHOLE = address(192, 0, 2, 1);
+
+    private static InetAddress address(final int... bytes) {
+        final byte[] address = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            address[i] = (byte) bytes[i];
+        }
+        try {
+            return InetAddress.getByAddress(address);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static SocketFactory blackholeFactory() {
+        return new SocketFactory() {
+
+            @Override
+            public Socket createSocket() {
+                return new BlackholeSocket();
+            }
+
+            @Override
+            public Socket createSocket(final InetAddress host, final int port) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Socket createSocket(final InetAddress address, final int port, final InetAddress localAddress, final int localPort) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Socket createSocket(final String host, final int port) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Socket createSocket(final String host, final int port, final InetAddress localHost, final int localPort) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Test
+    void testAllAddressesFail() throws Exception {
+        final int port;
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = server.getLocalPort();
+        }
+        final ParallelConnector connector = new ParallelConnector(SocketFactory.getDefault(), socket -> { }, port, 5000, Duration.ofSeconds(10));
+        final IOException e = assertThrows(IOException.class, () -> connector.connect(new InetAddress[] { address(127, 0, 0, 1), address(127, 0, 0, 1) }));
+        assertEquals(1, e.getSuppressed().length);
+    }
+
+    @Test
+    void testBlackholedAddressSkipped() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final ParallelConnector connector = new ParallelConnector(blackholeFactory(), socket -> { }, server.getLocalPort(), 60000, Duration.ofMillis(50));
+            final long start = System.nanoTime();
+            try (Socket socket = connector.connect(new InetAddress[] { BLACKHOLE, InetAddress.getLoopbackAddress() })) {
+                assertTrue(socket.isConnected());
+                assertEquals(InetAddress.getLoopbackAddress(), socket.getInetAddress());
+            }
+            assertTrue(System.nanoTime() - start < Duration.ofSeconds(30).toNanos());
+        }
+    }
+
+    @Test
+    void testInterleave() {
+        final InetAddress v4a = address(192, 0, 2, 1);
+        final InetAddress v4b = address(192, 0, 2, 2);
+        final InetAddress v6a = address(0x20, 0x01, 0x0d, 0xb8, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1);
+        final InetAddress v6b = address(0x20, 0x01, 0x0d, 0xb8, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2);
+        assertArrayEquals(new InetAddress[] { v6a, v4a, v6b, v4b }, ParallelConnector.interleave(new InetAddress[] { v6a, v6b, v4a, v4b }));
+        assertArrayEquals(new InetAddress[] { v4a, v6a, v4b }, ParallelConnector.interleave(new InetAddress[] { v4a, v4b, v6a }));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+class BlockModeSocketTest {
+
+    /**
+     * A connected socket over in-memory streams.
+     */
+    private static final class MemorySocket extends Socket {
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        InputStream input = new ByteArrayInputStream(new byte[0]);
+        boolean closed;
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return input;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return output;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+    }
+
+    private static byte[] bytes(final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    @Test
+    void testEarlyCloseInvalidates() throws Exception {
+        final MemorySocket memory = new MemorySocket();
+        final BlockModeSocket socket = new BlockModeSocket(memory, 16);
+        try (OutputStream out = socket.getOutputStream()) {
+            out.write(bytes(100));
+        }
+        memory.input = new ByteArrayInputStream(memory.output.toByteArray());
+        try (InputStream in = socket.getInputStream()) {
+            assertEquals(0, in.read());
+        }
+        assertFalse(socket.isReusable());
+        assertTrue(memory.closed);
+    }
+
+    @Test
+    void testFilesShareConnection() throws Exception {
+        final MemorySocket memory = new MemorySocket();
+        final BlockModeSocket socket = new BlockModeSocket(memory, 16);
+        final byte[] first = bytes(100);
+        final byte[] second = bytes(7);
+        try (OutputStream out = socket.getOutputStream()) {
+            out.write(first, 0, 10);
+            out.write(first, 10, 90);
+        }
+        socket.close();
+        try (OutputStream out = socket.getOutputStream()) {
+            out.write(second);
+        }
+        socket.close();
+        try (OutputStream out = socket.getOutputStream()) {
+            // empty file
+        }
+        socket.close();
+        assertTrue(socket.isReusable());
+        assertFalse(memory.closed);
+
+        memory.input = new ByteArrayInputStream(memory.output.toByteArray());
+        try (InputStream in = socket.getInputStream()) {
+            assertArrayEquals(first, IOUtils.toByteArray(in));
+        }
+        try (InputStream in = socket.getInputStream()) {
+            assertArrayEquals(second, IOUtils.toByteArray(in));
+        }
+        try (InputStream in = socket.getInputStream()) {
+            assertEquals(-1, in.read());
+        }
+        assertTrue(socket.isReusable());
+    }
+
+    @Test
+    void testRestartMarker() throws Exception {
+        final ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        wire.write(new byte[] { 0, 0, 3, 'a', 'b', 'c' });
+        wire.write(new byte[] { BlockModeSocket.DESCRIPTOR_RESTART_MARKER, 0, 1, '3' });
+        wire.write(new byte[] { BlockModeSocket.DESCRIPTOR_EOF, 0, 2, 'd', 'e' });
+        final MemorySocket memory = new MemorySocket();
+        memory.input = new ByteArrayInputStream(wire.toByteArray());
+        final BlockModeSocket socket = new BlockModeSocket(memory, 16);
+        try (InputStream in = socket.getInputStream()) {
+            assertNull(socket.getRestartMarker());
+            assertEquals("abcde", new String(IOUtils.toByteArray(in), "US-ASCII"));
+        }
+        assertEquals("3", socket.getRestartMarker());
+    }
+
+    @Test
+    void testUnusedSocketClosesConnection() throws Exception {
+        final MemorySocket memory = new MemorySocket();
+        new BlockModeSocket(memory, 16).close();
+        assertTrue(memory.closed);
+    }
+}
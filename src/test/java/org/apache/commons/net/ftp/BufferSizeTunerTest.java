@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+
+import org.apache.commons.net.io.Util;
+import org.junit.jupiter.api.Test;
+
+class BufferSizeTunerTest {
+
+    private static final String HOST = "192.0.2.1";
+
+    @Test
+    void testBandwidthDelayProduct() {
+        final BufferSizeTuner tuner = new BufferSizeTuner();
+        assertEquals(0, tuner.getSocketBufferSize(HOST));
+        tuner.recordRoundTrip(HOST, Duration.ofMillis(50));
+        tuner.recordRoundTrip(HOST, Duration.ofMillis(80));
+        assertEquals(Duration.ofMillis(50), tuner.getRoundTrip(HOST));
+        assertEquals(0, tuner.getCopyBufferSize(HOST));
+        // 10 MB/s over 50 ms
+        tuner.recordTransfer(HOST, 10_000_000, Duration.ofSeconds(1));
+        assertEquals(500_000, tuner.getBandwidthDelayProduct(HOST));
+        assertEquals(1_000_000, tuner.getSocketBufferSize(HOST));
+        assertEquals(1_000_000, tuner.getCopyBufferSize(HOST));
+        // smoothed with the previous throughput
+        tuner.recordTransfer(HOST, 30_000_000, Duration.ofSeconds(1));
+        assertEquals(1_000_000, tuner.getBandwidthDelayProduct(HOST));
+        assertEquals(BufferSizeTuner.MAX_COPY_BUFFER_SIZE, tuner.getCopyBufferSize(HOST));
+    }
+
+    @Test
+    void testBounds() {
+        final BufferSizeTuner tuner = new BufferSizeTuner();
+        tuner.recordRoundTrip(HOST, Duration.ofNanos(100_000));
+        // transfers too small to measure the rate are ignored
+        tuner.recordTransfer(HOST, BufferSizeTuner.MIN_SAMPLE_BYTES - 1, Duration.ofMillis(1));
+        assertEquals(0, tuner.getSocketBufferSize(HOST));
+        tuner.recordTransfer(HOST, 1_000_000, Duration.ofSeconds(1));
+        assertEquals(BufferSizeTuner.MIN_SOCKET_BUFFER_SIZE, tuner.getSocketBufferSize(HOST));
+        assertEquals(Util.DEFAULT_COPY_BUFFER_SIZE, tuner.getCopyBufferSize(HOST));
+        tuner.recordRoundTrip("192.0.2.2", Duration.ofSeconds(1));
+        tuner.recordTransfer("192.0.2.2", 1_000_000_000, Duration.ofSeconds(1));
+        assertEquals(BufferSizeTuner.MAX_SOCKET_BUFFER_SIZE, tuner.getSocketBufferSize("192.0.2.2"));
+    }
+
+    @Test
+    void testEviction() {
+        final BufferSizeTuner tuner = new BufferSizeTuner(1);
+        tuner.recordRoundTrip(HOST, Duration.ofMillis(1));
+        tuner.recordRoundTrip("192.0.2.2", Duration.ofMillis(1));
+        assertNull(tuner.getRoundTrip(HOST));
+        assertEquals(Duration.ofMillis(1), tuner.getRoundTrip("192.0.2.2"));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+class DeflateSocketTest {
+
+    private static final byte[] DATA = String.join("", Collections.nCopies(1000, "compressible log line\n")).getBytes(StandardCharsets.US_ASCII);
+
+    private static byte[] deflate(final DeflatePool pool, final int level) throws Exception {
+        final ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        final Socket socket = new Socket() {
+            @Override
+            public OutputStream getOutputStream() {
+                return wire;
+            }
+        };
+        try (OutputStream out = new DeflateSocket(socket, pool, level, Deflater.DEFAULT_STRATEGY, 8192).getOutputStream()) {
+            out.write(DATA);
+        }
+        return wire.toByteArray();
+    }
+
+    private static byte[] inflate(final DeflatePool pool, final byte[] compressed) throws Exception {
+        final Socket socket = new Socket() {
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(compressed);
+            }
+        };
+        try (InputStream in = new DeflateSocket(socket, pool, Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY, 8192).getInputStream()) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    @Test
+    void testInvalidLevel() {
+        assertThrows(IllegalArgumentException.class, () -> new FTPClient().setDeflateLevel(10));
+        assertThrows(IllegalArgumentException.class, () -> new FTPClient().setDeflateStrategy(3));
+    }
+
+    @Test
+    void testPoolReusesInstances() {
+        final DeflatePool pool = new DeflatePool();
+        final Deflater deflater = pool.getDeflater(Deflater.BEST_SPEED, Deflater.DEFAULT_STRATEGY);
+        pool.release(deflater);
+        assertSame(deflater, pool.getDeflater(Deflater.BEST_COMPRESSION, Deflater.FILTERED));
+        final Inflater inflater = pool.getInflater();
+        pool.release(inflater);
+        assertSame(inflater, pool.getInflater());
+        pool.release(inflater);
+        pool.clear();
+        assertNotSame(inflater, pool.getInflater());
+    }
+
+    @Test
+    void testRoundTripWithReuse() throws Exception {
+        final DeflatePool pool = new DeflatePool();
+        // second round uses the reset instances
+        for (int i = 0; i < 2; i++) {
+            final byte[] compressed = deflate(pool, Deflater.BEST_COMPRESSION);
+            assertTrue(compressed.length < DATA.length / 10);
+            assertArrayEquals(DATA, inflate(pool, compressed));
+        }
+        assertTrue(deflate(pool, Deflater.NO_COMPRESSION).length > DATA.length);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+class FTPClientActiveListenerTest {
+
+    /**
+     * Serves RETR in active mode, refusing files named "missing".
+     */
+    private static final class ActiveServer extends MockFtpServer {
+
+        final List<Integer> ports = new CopyOnWriteArrayList<>();
+
+        ActiveServer() throws IOException {
+        }
+
+        @Override
+        protected boolean handle(final Session session, final String command) throws Exception {
+            if (command.startsWith("PORT ")) {
+                ports.add(parsePort(command.substring(5)));
+                return false;
+            }
+            if (command.equals("RETR missing")) {
+                session.reply("550 not found");
+            } else if (command.startsWith("RETR ")) {
+                session.reply("150 opening");
+                try (Socket data = session.acceptData(); OutputStream out = data.getOutputStream()) {
+                    out.write(command.substring(5).getBytes(StandardCharsets.US_ASCII));
+                }
+                session.reply("226 transfer complete");
+            } else {
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static String retrieve(final FTPClient client, final String remote) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(client.retrieveFile(remote, out));
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void testListenerReused() throws Exception {
+        try (ActiveServer server = new ActiveServer()) {
+            server.start();
+            final FTPClient client = new FTPClient();
+            client.setActiveListenerReuseEnabled(true);
+            client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+            try {
+                assertEquals("first", retrieve(client, "first"));
+                assertEquals("second", retrieve(client, "second"));
+                assertFalse(client.retrieveFile("missing", new ByteArrayOutputStream()));
+                assertEquals("third", retrieve(client, "third"));
+                assertEquals("fourth", retrieve(client, "fourth"));
+                client.logout();
+            } finally {
+                client.disconnect();
+            }
+            assertEquals(5, server.ports.size());
+            assertEquals(server.ports.get(0), server.ports.get(1));
+            assertEquals(server.ports.get(0), server.ports.get(2));
+            // the listener is replaced after the failed command
+            assertNotEquals(server.ports.get(2), server.ports.get(3));
+            assertEquals(server.ports.get(3), server.ports.get(4));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class FTPClientControlKeepAliveTest {
+
+    /**
+     * Serves RETR in passive mode, sending the data in small chunks with a pause between them.
+     */
+    private static final class SlowServer extends MockFtpServer {
+
+        static final int CHUNK = 4 * 1024;
+        static final int CHUNKS = 64;
+
+        SlowServer() throws IOException {
+        }
+
+        @Override
+        protected boolean handle(final Session session, final String command) throws Exception {
+            if (!command.startsWith("RETR ")) {
+                return false;
+            }
+            session.reply("150 opening");
+            try (Socket data = session.acceptData(); OutputStream out = data.getOutputStream()) {
+                for (int i = 0; i < CHUNKS; i++) {
+                    out.write(new byte[CHUNK]);
+                    out.flush();
+                    Thread.sleep(2);
+                }
+            }
+            session.reply("226 transfer complete");
+            return true;
+        }
+    }
+
+    @Test
+    void testIdleTimeCheckedEverySample() throws Exception {
+        try (SlowServer server = new SlowServer()) {
+            server.start();
+            final FTPClient client = new FTPClient();
+            client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+            try {
+                client.enterLocalPassiveMode();
+                client.setControlKeepAliveTimeout(Duration.ofMillis(1));
+                client.setControlKeepAliveReplyTimeout(Duration.ofMillis(50));
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                assertTrue(client.retrieveFile("file", out));
+                assertEquals(SlowServer.CHUNK * SlowServer.CHUNKS, out.size());
+                // one NOOP at most per 64 KiB copied, rather than per buffer
+                final long noops = server.commands.stream().filter("NOOP"::equals).count();
+                assertTrue(noops >= 1 && noops <= 4, Long.toString(noops));
+                assertEquals(FTPReply.COMMAND_OK, client.sendCommand("SITE", "DONE"));
+            } finally {
+                client.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class FTPClientDataConnectionPrefetchTest {
+
+    /**
+     * Serves RETR in passive mode, answering commands strictly in order. {@code SITE DROP} discards the pending passive connection.
+     */
+    private static final class PassiveServer extends MockFtpServer {
+
+        PassiveServer() throws IOException {
+        }
+
+        @Override
+        protected boolean handle(final Session session, final String command) throws Exception {
+            if (command.equals("SITE DROP")) {
+                session.closePassive();
+                session.reply("200 ok");
+            } else if (command.startsWith("RETR ")) {
+                if (session.passive == null) {
+                    session.reply("425 Use PASV first");
+                    return true;
+                }
+                session.reply("150 opening");
+                try (Socket data = session.acceptData(); OutputStream out = data.getOutputStream()) {
+                    out.write(command.substring(5).getBytes(StandardCharsets.US_ASCII));
+                }
+                session.reply("226 transfer complete");
+            } else {
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static String retrieve(final FTPClient client, final String remote) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(client.retrieveFile(remote, out));
+        assertEquals(FTPReply.CLOSING_DATA_CONNECTION, client.getReplyCode());
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void testPassiveCommandSentBeforeCompletion() throws Exception {
+        try (PassiveServer server = new PassiveServer()) {
+            server.start();
+            final FTPClient client = new FTPClient();
+            client.setDataConnectionPrefetchEnabled(true);
+            client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+            try {
+                client.enterLocalPassiveMode();
+                assertEquals("first", retrieve(client, "first"));
+                assertEquals("second", retrieve(client, "second"));
+                client.sendCommand("NOOP");
+                assertEquals("third", retrieve(client, "third"));
+                client.logout();
+            } finally {
+                client.disconnect();
+            }
+            // the prefetched connection is used by the next transfer, even after another command
+            assertEquals(Arrays.asList("PASV", "RETR first", "PASV", "RETR second", "PASV", "NOOP", "RETR third", "PASV", "QUIT"), server.commands);
+        }
+    }
+
+    @Test
+    void testPrefetchedConnectionDiscardedByServer() throws Exception {
+        try (PassiveServer server = new PassiveServer()) {
+            server.start();
+            final FTPClient client = new FTPClient();
+            client.setDataConnectionPrefetchEnabled(true);
+            client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+            try {
+                client.enterLocalPassiveMode();
+                assertEquals("first", retrieve(client, "first"));
+                client.sendCommand("SITE", "DROP");
+                assertEquals("second", retrieve(client, "second"));
+                client.logout();
+            } finally {
+                client.disconnect();
+            }
+            // the transfer refused on the prefetched connection is sent again on a fresh one
+            assertEquals(Arrays.asList("PASV", "RETR first", "PASV", "SITE DROP", "RETR second", "PASV", "RETR second", "PASV", "QUIT"), server.commands);
+        }
+    }
+
+    @Test
+    void testPrefetchDisabled() throws Exception {
+        try (PassiveServer server = new PassiveServer()) {
+            server.start();
+            final FTPClient client = new FTPClient();
+            client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+            try {
+                client.enterLocalPassiveMode();
+                assertEquals("first", retrieve(client, "first"));
+                assertEquals("second", retrieve(client, "second"));
+                client.logout();
+            } finally {
+                client.disconnect();
+            }
+            assertEquals(Arrays.asList("PASV", "RETR first", "PASV", "RETR second", "QUIT"), server.commands);
+        }
+    }
+}
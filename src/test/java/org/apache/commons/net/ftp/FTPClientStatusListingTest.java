@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+class FTPClientStatusListingTest {
+
+    /**
+     * Serves LIST in passive mode and STAT, which lists directories or only reports the status of the server.
+     */
+    private static final class ListingServer extends MockFtpServer {
+
+        final String statReply;
+        final Map<String, List<String>> directories = new HashMap<>();
+
+        ListingServer(final String statReply) throws IOException {
+            this.statReply = statReply;
+            directories.put("/dir", Arrays.asList("total 2", "-rw-r--r--   1 ftp      ftp          1000 Jan 20  2003 a.txt",
+                    "drwxr-xr-x   2 ftp      ftp          4096 Mar 11 14:21 sub"));
+            directories.put("/empty", Arrays.asList("total 0"));
+        }
+
+        @Override
+        protected boolean handle(final Session session, final String command) throws Exception {
+            if (command.equals("SYST")) {
+                session.reply("215 UNIX Type: L8");
+            } else if (command.startsWith("LIST ")) {
+                final List<String> entries = directories.get(command.substring(5));
+                if (entries == null) {
+                    session.closePassive();
+                    session.reply("550 No such directory");
+                    return true;
+                }
+                session.reply("150 opening");
+                try (Socket data = session.acceptData(); OutputStream out = data.getOutputStream()) {
+                    for (final String entry : entries) {
+                        out.write((entry + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                    }
+                }
+                session.reply("226 transfer complete");
+            } else if (command.startsWith("STAT ")) {
+                final List<String> entries = directories.get(command.substring(5));
+                if (statReply != null) {
+                    session.reply(statReply);
+                } else if (entries == null) {
+                    session.reply("550 No such directory");
+                } else {
+                    // vsftpd prefixes no lines, other servers prefix them with the reply code
+                    final String prefix = command.endsWith("/dir") ? "213-" : "";
+                    session.reply(Stream.concat(Stream.of("213-Status of " + command.substring(5) + ":"), entries.stream().map(e -> prefix + e))
+                            .collect(Collectors.joining("\r\n")) + "\r\n213 End of status");
+                }
+            } else {
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static FTPClient connect(final ListingServer server) throws IOException {
+        server.start();
+        final FTPClient client = new FTPClient();
+        client.setStatusListingEnabled(true);
+        client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+        client.enterLocalPassiveMode();
+        return client;
+    }
+
+    private static List<String> names(final FTPFile[] files) {
+        return Stream.of(files).map(FTPFile::getName).collect(Collectors.toList());
+    }
+
+    private long count(final ListingServer server, final String command) {
+        return server.commands.stream().filter(c -> c.startsWith(command)).count();
+    }
+
+    @Test
+    void testFallsBackToListWhenStatDoesNotList() throws Exception {
+        try (ListingServer server = new ListingServer("211-Status of server\r\n Connected to 127.0.0.1\r\n211 End of status")) {
+            final FTPClient client = connect(server);
+            try {
+                assertEquals(Arrays.asList("a.txt", "sub"), names(client.listFiles("/dir")));
+                assertEquals(Arrays.asList("a.txt", "sub"), names(client.listFiles("/dir")));
+                assertEquals(1, count(server, "STAT"));
+                assertEquals(2, count(server, "LIST"));
+            } finally {
+                client.disconnect();
+            }
+        }
+    }
+
+    @Test
+    void testFallsBackToListWhenStatNotImplemented() throws Exception {
+        try (ListingServer server = new ListingServer("502 Command not implemented")) {
+            final FTPClient client = connect(server);
+            try {
+                assertEquals(0, client.listFiles("/empty").length);
+                assertEquals(Arrays.asList("a.txt", "sub"), names(client.listFiles("/dir")));
+                assertEquals(1, count(server, "STAT"));
+                assertEquals(2, count(server, "LIST"));
+            } finally {
+                client.disconnect();
+            }
+        }
+    }
+
+    @Test
+    void testListsWithStat() throws Exception {
+        try (ListingServer server = new ListingServer(null)) {
+            final FTPClient client = connect(server);
+            try {
+                // an empty listing does not tell whether STAT lists directories
+                assertEquals(0, client.listFiles("/empty").length);
+                assertEquals(1, count(server, "LIST"));
+                final FTPFile[] files = client.listFiles("/dir");
+                assertEquals(Arrays.asList("a.txt", "sub"), names(files));
+                assertEquals(1000, files[0].getSize());
+                assertTrue(files[1].isDirectory());
+                assertEquals(0, client.listFiles("/empty").length);
+                assertEquals(0, client.listFiles("/missing").length);
+                assertEquals(4, count(server, "STAT"));
+                assertEquals(1, count(server, "LIST"));
+                assertEquals(1, count(server, "PASV"));
+                assertTrue(client.isStatusListingEnabled());
+                client.setStatusListingEnabled(false);
+                assertEquals(Arrays.asList("a.txt", "sub"), names(client.listFiles("/dir")));
+                assertEquals(2, count(server, "LIST"));
+                assertFalse(client.isStatusListingEnabled());
+            } finally {
+                client.disconnect();
+            }
+        }
+    }
+}
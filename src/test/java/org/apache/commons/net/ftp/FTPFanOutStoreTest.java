@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FTPFanOutStoreTest {
+
+    /**
+     * Serves STOR in passive mode, reading the data at a given pace.
+     */
+    private static final class StoreServer extends MockFtpServer {
+
+        /** How long to wait before reading the data. */
+        final long stallMillis;
+        /** How long to wait between reads. */
+        final long pauseMillis;
+        final boolean refuse;
+        volatile byte[] stored;
+        /** The reply to the last transfer. */
+        volatile String completion;
+
+        StoreServer(final long stallMillis, final long pauseMillis, final boolean refuse) throws IOException {
+            this.stallMillis = stallMillis;
+            this.pauseMillis = pauseMillis;
+            this.refuse = refuse;
+        }
+
+        @Override
+        protected boolean handle(final Session session, final String command) throws Exception {
+            if (!command.startsWith("STOR ")) {
+                return false;
+            }
+            if (refuse) {
+                session.closePassive();
+                session.reply("550 permission denied");
+                return true;
+            }
+            session.reply("150 opening");
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            boolean complete = true;
+            try (Socket data = session.acceptData(); InputStream in = data.getInputStream()) {
+                Thread.sleep(stallMillis);
+                final byte[] buffer = new byte[4096];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, n);
+                    Thread.sleep(pauseMillis);
+                }
+            } catch (final IOException e) {
+                complete = false;
+            }
+            stored = bytes.toByteArray();
+            completion = complete ? "226 transfer complete" : "426 transfer aborted";
+            session.reply(completion);
+            return true;
+        }
+
+        @Override
+        protected ServerSocket openPassive() throws IOException {
+            final ServerSocket passive = new ServerSocket();
+            passive.setReceiveBufferSize(BUFFER_SIZE);
+            passive.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+            return passive;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private static List<FTPClient> connect(final StoreServer... servers) throws IOException {
+        final List<FTPClient> clients = new ArrayList<>();
+        for (final StoreServer server : servers) {
+            server.start();
+            final FTPClient client = new FTPClient();
+            client.setSendDataSocketBufferSize(BUFFER_SIZE);
+            client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+            client.setSoTimeout(10_000);
+            client.setFileType(FTP.BINARY_FILE_TYPE);
+            client.enterLocalPassiveMode();
+            clients.add(client);
+        }
+        return clients;
+    }
+
+    private static void disconnect(final List<FTPClient> clients, final StoreServer... servers) throws IOException {
+        for (final FTPClient client : clients) {
+            client.disconnect();
+        }
+        for (final StoreServer server : servers) {
+            server.close();
+        }
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    void testDropsLaggard() throws Exception {
+        final byte[] data = randomBytes(4 * 1024 * 1024);
+        final StoreServer[] servers = { new StoreServer(0, 0, false), new StoreServer(1500, 0, false), new StoreServer(0, 0, false) };
+        final List<FTPClient> clients = connect(servers);
+        try {
+            final FTPFanOutStore fanOut = new FTPFanOutStore();
+            fanOut.setBufferSize(64 * 1024);
+            fanOut.setLaggardTimeout(Duration.ofMillis(200));
+            final List<FTPFanOutStore.Result> results = fanOut.storeFile(clients, "data.bin", new ByteArrayInputStream(data));
+            assertTrue(results.get(0).isSuccess(), results.get(0).toString());
+            assertTrue(results.get(2).isSuccess(), results.get(2).toString());
+            assertArrayEquals(data, servers[0].stored);
+            assertArrayEquals(data, servers[2].stored);
+            final FTPFanOutStore.Result laggard = results.get(1);
+            assertTrue(laggard.isDropped());
+            assertFalse(laggard.isSuccess());
+            assertTrue(laggard.getBytesSent() < data.length, laggard.toString());
+            assertTrue(servers[1].stored.length < data.length);
+            // the server saw the transfer aborted, rather than complete
+            assertTrue(servers[1].completion.startsWith("426"), servers[1].completion);
+            assertTrue(laggard.getReply().startsWith("426"), laggard.getReply());
+            // the reply to the interrupted transfer was read
+            assertEquals(FTPReply.COMMAND_OK, clients.get(1).sendCommand("NOOP"));
+        } finally {
+            disconnect(clients, servers);
+        }
+    }
+
+    @Test
+    void testSourceFailure() throws Exception {
+        final StoreServer[] servers = { new StoreServer(0, 0, false), new StoreServer(0, 0, false) };
+        final List<FTPClient> clients = connect(servers);
+        try {
+            final InputStream failing = new FilterInputStream(new ByteArrayInputStream(randomBytes(1024 * 1024))) {
+                private int count;
+
+                @Override
+                public int read(final byte[] b, final int off, final int len) throws IOException {
+                    if (count > 100_000) {
+                        throw new IOException("disk error");
+                    }
+                    final int n = super.read(b, off, Math.min(len, 10_000));
+                    count += n;
+                    return n;
+                }
+            };
+            final FTPFanOutStore fanOut = new FTPFanOutStore();
+            assertEquals("disk error", assertThrows(IOException.class, () -> fanOut.storeFile(clients, "data.bin", failing)).getMessage());
+            for (final StoreServer server : servers) {
+                assertTrue(server.completion.startsWith("426"), server.completion);
+            }
+            for (final FTPClient client : clients) {
+                assertEquals(FTPReply.COMMAND_OK, client.sendCommand("NOOP"));
+            }
+        } finally {
+            disconnect(clients, servers);
+        }
+    }
+
+    @Test
+    void testStoresAtPaceOfSlowest() throws Exception {
+        final byte[] data = randomBytes(1024 * 1024 + 17);
+        final Path file = dir.resolve("data.bin");
+        Files.write(file, data);
+        final StoreServer[] servers = { new StoreServer(0, 0, false), new StoreServer(0, 1, false), new StoreServer(0, 0, true) };
+        final List<FTPClient> clients = connect(servers);
+        try {
+            final FTPFanOutStore fanOut = new FTPFanOutStore();
+            fanOut.setBufferSize(64 * 1024);
+            final List<FTPFanOutStore.Result> results = fanOut.storeFile(clients, "data.bin", file);
+            assertEquals(Arrays.asList(true, true, false), Arrays.asList(results.get(0).isSuccess(), results.get(1).isSuccess(), results.get(2).isSuccess()));
+            assertArrayEquals(data, servers[0].stored);
+            assertArrayEquals(data, servers[1].stored);
+            assertTrue(servers[1].completion.startsWith("226"), servers[1].completion);
+            assertEquals(data.length, results.get(1).getBytesSent());
+            assertTrue(results.get(2).getReply().startsWith("550"));
+            assertEquals(0, results.get(2).getBytesSent());
+            assertFalse(results.get(2).isDropped());
+        } finally {
+            disconnect(clients, servers);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.zip.CRC32;
+
+import org.apache.commons.net.MalformedServerReplyException;
+import org.junit.jupiter.api.Test;
+
+class FTPFileHashTest {
+
+    @Test
+    void testMatchesChecksum() throws Exception {
+        final CRC32 crc = new CRC32();
+        crc.update("hello".getBytes(StandardCharsets.US_ASCII));
+        // CRC32 of "hello" is 3610a686
+        assertTrue(FTPFileHash.parse(FTPCmd.XCRC, "f", "3610A686").matches(crc.getValue()));
+        assertFalse(FTPFileHash.parse(FTPCmd.XCRC, "f", "3610A687").matches(crc.getValue()));
+    }
+
+    @Test
+    void testMatchesDigest() throws Exception {
+        final byte[] digest = MessageDigest.getInstance("MD5").digest("hello".getBytes(StandardCharsets.US_ASCII));
+        assertTrue(FTPFileHash.parse(FTPCmd.XMD5, "f", "5D41402ABC4B2A76B9719D911017C592").matches(digest));
+        assertFalse(FTPFileHash.parse(FTPCmd.XMD5, "f", "5d41402abc4b2a76b9719d911017c593").matches(digest));
+    }
+
+    @Test
+    void testParseHash() throws Exception {
+        final FTPFileHash hash = FTPFileHash.parse(FTPCmd.HASH, "my file.txt", "SHA-256 0-49 169cd22282da7f147cb491e559e9dd my file.txt");
+        assertEquals("SHA-256", hash.getAlgorithm());
+        assertEquals(0, hash.getStart());
+        assertEquals(49, hash.getEnd());
+        assertEquals("169cd22282da7f147cb491e559e9dd", hash.getValue());
+        assertEquals("my file.txt", hash.getPath());
+    }
+
+    @Test
+    void testParseInvalid() {
+        assertThrows(MalformedServerReplyException.class, () -> FTPFileHash.parse(FTPCmd.HASH, "f", "SHA-256 garbage"));
+        assertThrows(MalformedServerReplyException.class, () -> FTPFileHash.parse(FTPCmd.XMD5, "f", "file not found"));
+    }
+
+    @Test
+    void testParseDesignatedWord() throws Exception {
+        assertEquals("00001a2b", FTPFileHash.parse(FTPCmd.XCRC, "data.bin", "1a2b data.bin").getValue());
+        assertEquals("00001a2b", FTPFileHash.parse(FTPCmd.XCRC, "data.bin", "\"data.bin\" 1a2b").getValue());
+        assertEquals("00001a2b", FTPFileHash.parse(FTPCmd.XCRC, "my file", "CRC32 of \"my file\" is 1a2b").getValue());
+        assertEquals("00001a2b", FTPFileHash.parse(FTPCmd.XCRC, "abc def", "1a2b abc def").getValue());
+        // short words of the text could be taken for a CRC-32
+        assertThrows(MalformedServerReplyException.class, () -> FTPFileHash.parse(FTPCmd.XCRC, "data.bin", "add 1a2b"));
+        assertThrows(MalformedServerReplyException.class, () -> FTPFileHash.parse(FTPCmd.XCRC, "data.bin", "1a2b data.bin bad"));
+        assertThrows(MalformedServerReplyException.class, () -> FTPFileHash.parse(FTPCmd.XCRC, "data.bin", "1a2b computed"));
+    }
+
+    @Test
+    void testParseShortCrc() throws Exception {
+        // servers may send a CRC-32 without its leading zeros
+        final FTPFileHash crc = FTPFileHash.parse(FTPCmd.XCRC, "f", "f 1D");
+        assertEquals("0000001D", crc.getValue());
+        assertTrue(crc.matches(0x1DL));
+        assertEquals("00000abc", FTPFileHash.parse(FTPCmd.HASH, "f", "CRC32 0-9 abc f").getValue());
+        assertThrows(MalformedServerReplyException.class, () -> FTPFileHash.parse(FTPCmd.XCRC, "f", "123456789"));
+        assertThrows(MalformedServerReplyException.class, () -> FTPFileHash.parse(FTPCmd.XMD5, "f", "abc"));
+    }
+
+    @Test
+    void testParseXCommands() throws Exception {
+        assertEquals("CRC32", FTPFileHash.parse(FTPCmd.XCRC, "f", "0A1B2C3D").getAlgorithm());
+        final FTPFileHash md5 = FTPFileHash.parse(FTPCmd.XMD5, "f", "\"f\" 5d41402abc4b2a76b9719d911017c592");
+        assertEquals("MD5", md5.getAlgorithm());
+        assertEquals("5d41402abc4b2a76b9719d911017c592", md5.getValue());
+        assertEquals(-1, md5.getEnd());
+        assertEquals("SHA-1", FTPFileHash.parse(FTPCmd.XSHA1, "f", "aaf4c61ddcc5e8a2dabede0f3b482cd9aea9434d f").getAlgorithm());
+        assertEquals("SHA-256", FTPFileHash.parse(FTPCmd.XSHA256, "f", "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824").getAlgorithm());
+    }
+}
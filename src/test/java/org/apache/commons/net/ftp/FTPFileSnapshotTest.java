@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.apache.commons.net.ftp.parser.MLSxEntryParser;
+import org.apache.commons.net.ftp.parser.UnixFTPEntryParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FTPFileSnapshotTest {
+
+    private static final String[] LISTING = {
+            "-rw-r--r--   1 500      500          1000 Jan 20 2003 plain.txt",
+            "drwxr-x---   3 ftp      users        4096 Mar 11 14:21 dir",
+            "lrwxrwxrwx   1 root     root            7 Mar 11  2020 link -> target",
+            "-rwsr-sr-t   2 500      500    9876543210 Dec 31  1999 big",
+            "this is not a listing entry" };
+
+    @TempDir
+    Path dir;
+
+    private static FTPFile[] parse() {
+        final UnixFTPEntryParser parser = new UnixFTPEntryParser();
+        final FTPFile[] files = new FTPFile[LISTING.length + 1];
+        for (int i = 0; i < LISTING.length; i++) {
+            final FTPFile file = parser.parseFTPEntry(LISTING[i]);
+            files[i] = file != null ? file : new FTPFile(LISTING[i]);
+        }
+        files[LISTING.length] = MLSxEntryParser.parseEntry("type=file;size=12;modify=20240102030405.678; millis.txt");
+        return files;
+    }
+
+    private static FTPFileSnapshot snapshot(final FTPFile... files) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FTPFileSnapshot.write(files, out);
+        return FTPFileSnapshot.wrap(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    private static void assertFileEquals(final FTPFile expected, final FTPFile actual) {
+        assertEquals(expected.isValid(), actual.isValid());
+        assertEquals(expected.getRawListing(), actual.getRawListing());
+        if (expected.isValid()) {
+            assertEquals(expected.toFormattedString(), actual.toFormattedString());
+            assertEquals(expected.getLink(), actual.getLink());
+            assertEquals(expected.getTimestamp().getTimeInMillis(), actual.getTimestamp().getTimeInMillis());
+            assertEquals(expected.getTimestamp().getTimeZone(), actual.getTimestamp().getTimeZone());
+        }
+    }
+
+    @Test
+    void testEmpty() throws IOException {
+        final FTPFileSnapshot snapshot = snapshot();
+        assertEquals(0, snapshot.size());
+        assertFalse(snapshot.iterator().hasNext());
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(0));
+    }
+
+    @Test
+    void testOpenMappedFile() throws IOException {
+        final int count = FTPFileSnapshot.BLOCK_SIZE * 2 + 17;
+        final Path path = dir.resolve("listing.snapshot");
+        final Calendar timestamp = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        timestamp.setTimeInMillis(1_700_000_000_000L);
+        try (OutputStream out = Files.newOutputStream(path); FTPFileSnapshot.Writer writer = new FTPFileSnapshot.Writer(out)) {
+            for (int i = 0; i < count; i++) {
+                final FTPFile file = new FTPFile();
+                file.setName("file" + i);
+                file.setType(FTPFile.FILE_TYPE);
+                file.setSize(i * 1000L);
+                file.setUser("user");
+                file.setGroup("group");
+                file.setPermission(FTPFile.USER_ACCESS, FTPFile.READ_PERMISSION, true);
+                timestamp.setTimeInMillis(timestamp.getTimeInMillis() + 1000);
+                file.setTimestamp((Calendar) timestamp.clone());
+                writer.add(file);
+            }
+        }
+        // about one byte per column, but for the name and the size
+        assertTrue(Files.size(path) < count * 32L, String.valueOf(Files.size(path)));
+        final FTPFileSnapshot snapshot = FTPFileSnapshot.open(path);
+        assertEquals(count, snapshot.size());
+        assertEquals("file" + (count - 1), snapshot.getName(count - 1));
+        assertEquals("file4096", snapshot.getName(4096));
+        final FTPFile file = snapshot.get(5000);
+        assertEquals("file5000", file.getName());
+        assertEquals(5_000_000L, file.getSize());
+        assertEquals(1_700_000_000_000L + 5001 * 1000L, file.getTimestamp().getTimeInMillis());
+        assertTrue(file.hasPermission(FTPFile.USER_ACCESS, FTPFile.READ_PERMISSION));
+        assertFalse(file.hasPermission(FTPFile.USER_ACCESS, FTPFile.WRITE_PERMISSION));
+        int i = 0;
+        for (final FTPFile entry : snapshot) {
+            assertEquals("file" + i++, entry.getName());
+        }
+        assertEquals(count, i);
+    }
+
+    @Test
+    void testRejectsOtherData() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FTPFileSnapshot.write(parse(), out);
+        final byte[] bytes = out.toByteArray();
+        assertThrows(IOException.class, () -> FTPFileSnapshot.wrap(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1))));
+        bytes[4] = (byte) (FTPFileSnapshot.VERSION + 1);
+        assertThrows(IOException.class, () -> FTPFileSnapshot.wrap(ByteBuffer.wrap(bytes)));
+        assertThrows(IOException.class, () -> FTPFileSnapshot.wrap(ByteBuffer.wrap("not a snapshot".getBytes())));
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        final FTPFile[] files = parse();
+        final FTPFileSnapshot snapshot = snapshot(files);
+        assertEquals(files.length, snapshot.size());
+        final FTPFile[] copies = snapshot.toArray();
+        for (int i = 0; i < files.length; i++) {
+            assertFileEquals(files[i], copies[i]);
+        }
+        assertFalse(copies[4].isValid());
+        assertEquals(9_876_543_210L, copies[3].getSize());
+        assertEquals("target", copies[2].getLink());
+        assertNull(copies[0].getLink());
+        // the precision of the timestamps is kept: a date only, minutes, milliseconds
+        assertFalse(copies[0].getTimestamp().isSet(Calendar.HOUR_OF_DAY));
+        assertTrue(copies[1].getTimestamp().isSet(Calendar.MINUTE));
+        assertFalse(copies[1].getTimestamp().isSet(Calendar.SECOND));
+        assertTrue(copies[5].getTimestamp().isSet(Calendar.MILLISECOND));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+class FTPNameIteratorTest {
+
+    /**
+     * Serves NLST in passive mode, reporting whether the listing was sent in full.
+     */
+    private static final class NlstServer extends MockFtpServer {
+
+        final List<String> names;
+        final Charset charset;
+
+        NlstServer(final List<String> names, final Charset charset) throws IOException {
+            this.names = names;
+            this.charset = charset;
+        }
+
+        @Override
+        protected boolean handle(final Session session, final String command) throws Exception {
+            if (!command.startsWith("NLST")) {
+                return false;
+            }
+            session.reply("150 opening");
+            boolean complete = true;
+            try (Socket data = session.acceptData(); OutputStream out = data.getOutputStream()) {
+                for (final String name : names) {
+                    out.write((name + "\r\n").getBytes(charset));
+                }
+            } catch (final IOException e) {
+                complete = false;
+            }
+            session.reply(complete ? "226 transfer complete" : "426 connection closed");
+            return true;
+        }
+    }
+
+    private static final List<String> NAMES = Arrays.asList("report-1.csv", "data.csv", "report-2.txt", "ア.csv", "日本.csv", "report-日.csv");
+
+    private static List<String> iterate(final FTPClient client, final String glob) throws IOException {
+        final List<String> names = new ArrayList<>();
+        final FTPNameIterator iterator = client.iterateNames(null, glob);
+        while (iterator.hasNext()) {
+            names.add(iterator.next());
+        }
+        assertTrue(iterator.isTransferComplete());
+        iterator.close();
+        return names;
+    }
+
+    private static FTPClient login(final NlstServer server) throws IOException {
+        final FTPClient client = new FTPClient();
+        client.setControlEncoding(server.charset);
+        client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+        client.enterLocalPassiveMode();
+        return client;
+    }
+
+    private void assertGlobs(final Charset charset) throws Exception {
+        try (NlstServer server = new NlstServer(NAMES, charset)) {
+            server.start();
+            final FTPClient client = login(server);
+            try {
+                assertEquals(NAMES, iterate(client, null));
+                assertEquals(Arrays.asList("report-1.csv", "report-日.csv"), iterate(client, "report-*.csv"));
+                assertEquals(Arrays.asList("report-1.csv", "report-2.txt", "report-日.csv"), iterate(client, "report-*"));
+                assertEquals(Arrays.asList("ア.csv"), iterate(client, "?.csv"));
+                assertEquals(Arrays.asList("日本.csv"), iterate(client, "??.csv"));
+                assertEquals(Arrays.asList("report-1.csv", "report-2.txt", "report-日.csv"), iterate(client, "*-?.*"));
+                assertEquals(Arrays.asList("data.csv"), iterate(client, "d*a*.c?v"));
+                assertEquals(Arrays.asList(), iterate(client, "*.xml"));
+                assertArrayEquals(NAMES.toArray(), client.listNames());
+                client.logout();
+            } finally {
+                client.disconnect();
+            }
+        }
+    }
+
+    @Test
+    void testCloseBeforeEndCompletesCommand() throws Exception {
+        final List<String> names = new ArrayList<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            names.add("file" + i);
+        }
+        try (NlstServer server = new NlstServer(names, StandardCharsets.UTF_8)) {
+            server.start();
+            final FTPClient client = login(server);
+            try {
+                final FTPNameIterator iterator = client.iterateNames("/", "file1*");
+                assertEquals("file1", iterator.next());
+                assertEquals("file10", iterator.next());
+                iterator.close();
+                assertFalse(iterator.isTransferComplete());
+                assertFalse(iterator.hasNext());
+                assertEquals(FTPReply.COMMAND_OK, client.sendCommand("NOOP"));
+                client.logout();
+            } finally {
+                client.disconnect();
+            }
+        }
+    }
+
+    @Test
+    void testGlobsMultiByteEncoding() throws Exception {
+        assertGlobs(Charset.forName("Shift_JIS"));
+    }
+
+    @Test
+    void testGlobsUtf8() throws Exception {
+        assertGlobs(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testStreamClosesIterator() throws Exception {
+        final List<String> names = Arrays.asList("a.csv", "b.txt", "é.csv");
+        try (NlstServer server = new NlstServer(names, StandardCharsets.ISO_8859_1)) {
+            server.start();
+            final FTPClient client = login(server);
+            try {
+                final FTPNameIterator iterator = client.iterateNames(null, "?.csv");
+                try (Stream<String> stream = iterator.stream()) {
+                    assertEquals(Arrays.asList("A.CSV", "É.CSV"), stream.map(String::toUpperCase).collect(Collectors.toList()));
+                }
+                assertTrue(iterator.isTransferComplete());
+                assertEquals(FTPReply.COMMAND_OK, client.sendCommand("NOOP"));
+                client.logout();
+            } finally {
+                client.disconnect();
+            }
+        }
+    }
+}
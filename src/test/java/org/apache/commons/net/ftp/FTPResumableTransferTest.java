@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.net.io.CopyStreamException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FTPResumableTransferTest {
+
+    /**
+     * Simulates a server holding one file, whose transfers break after a number of bytes.
+     */
+    private static final class FlakyServer {
+
+        byte[] data;
+        int failAfter;
+        int failures;
+        int replyCode = FTPReply.FILE_ACTION_OK;
+        final List<String> commands = new ArrayList<>();
+
+        FTPClient connect() {
+            return new FTPClient() {
+
+                private boolean connected = true;
+
+                private boolean append(final InputStream local, final boolean appending) throws IOException {
+                    final ByteArrayOutputStream received = new ByteArrayOutputStream();
+                    if (appending) {
+                        received.write(data);
+                    }
+                    final byte[] bytes = IOUtils.toByteArray(local);
+                    if (failures > 0) {
+                        failures--;
+                        received.write(bytes, 0, Math.min(failAfter, bytes.length));
+                        data = received.toByteArray();
+                        throw new CopyStreamException("broken", failAfter, new SocketException("reset"));
+                    }
+                    received.write(bytes);
+                    data = received.toByteArray();
+                    return true;
+                }
+
+                @Override
+                public boolean appendFile(final String remote, final InputStream local) throws IOException {
+                    commands.add("APPE");
+                    return append(local, true);
+                }
+
+                @Override
+                public void disconnect() {
+                    connected = false;
+                }
+
+                @Override
+                public int getReplyCode() {
+                    return replyCode;
+                }
+
+                @Override
+                public String getSize(final String path) {
+                    return data == null ? null : Long.toString(data.length);
+                }
+
+                @Override
+                public boolean isConnected() {
+                    return connected;
+                }
+
+                @Override
+                public boolean retrieveFile(final String remote, final OutputStream local) throws IOException {
+                    final int offset = (int) getRestartOffset();
+                    setRestartOffset(0);
+                    commands.add("RETR " + offset);
+                    if (replyCode != FTPReply.FILE_ACTION_OK) {
+                        return false;
+                    }
+                    if (failures > 0) {
+                        failures--;
+                        local.write(data, offset, failAfter);
+                        throw new CopyStreamException("broken", failAfter, new SocketException("reset"));
+                    }
+                    local.write(data, offset, data.length - offset);
+                    return true;
+                }
+
+                @Override
+                public boolean storeFile(final String remote, final InputStream local) throws IOException {
+                    commands.add("STOR");
+                    return append(local, false);
+                }
+            };
+        }
+    }
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] bytes(final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    private FTPResumableTransfer newTransfer(final FlakyServer server) {
+        final FTPResumableTransfer transfer = new FTPResumableTransfer(server::connect);
+        transfer.setInitialBackoff(Duration.ZERO);
+        return transfer;
+    }
+
+    @Test
+    void testAppendResumesFromRemoteSize() throws Exception {
+        final FlakyServer server = new FlakyServer();
+        server.data = bytes(10);
+        server.failures = 1;
+        server.failAfter = 30;
+        final File local = tempDir.resolve("append").toFile();
+        Files.write(local.toPath(), bytes(100));
+        assertTrue(newTransfer(server).appendFile("remote", local));
+        final byte[] expected = new byte[110];
+        System.arraycopy(bytes(10), 0, expected, 0, 10);
+        System.arraycopy(bytes(100), 0, expected, 10, 100);
+        assertArrayEquals(expected, server.data);
+    }
+
+    @Test
+    void testAppendMeasuresBaseAfterConnectFailure() throws Exception {
+        final FlakyServer server = new FlakyServer();
+        server.data = bytes(10);
+        server.failures = 1;
+        server.failAfter = 30;
+        final File local = tempDir.resolve("append").toFile();
+        Files.write(local.toPath(), bytes(100));
+        final int[] connects = new int[1];
+        final FTPResumableTransfer transfer = new FTPResumableTransfer(() -> {
+            if (connects[0]++ == 0) {
+                throw new SocketException("connection refused");
+            }
+            return server.connect();
+        });
+        transfer.setInitialBackoff(Duration.ZERO);
+        assertTrue(transfer.appendFile("remote", local));
+        assertEquals(Arrays.asList("APPE", "APPE"), server.commands);
+        final byte[] expected = new byte[110];
+        System.arraycopy(bytes(10), 0, expected, 0, 10);
+        System.arraycopy(bytes(100), 0, expected, 10, 100);
+        assertArrayEquals(expected, server.data);
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        final FlakyServer server = new FlakyServer();
+        server.data = bytes(100);
+        server.failures = 10;
+        server.failAfter = 1;
+        final FTPResumableTransfer transfer = newTransfer(server);
+        transfer.setMaxAttempts(3);
+        assertThrows(CopyStreamException.class, () -> transfer.retrieveFile("remote", tempDir.resolve("local").toFile()));
+        assertEquals(Arrays.asList("RETR 0", "RETR 1", "RETR 2"), server.commands);
+    }
+
+    @Test
+    void testPermanentFailureNotRetried() throws Exception {
+        final FlakyServer server = new FlakyServer();
+        server.data = bytes(100);
+        server.replyCode = FTPReply.FILE_UNAVAILABLE;
+        assertFalse(newTransfer(server).retrieveFile("remote", tempDir.resolve("local").toFile()));
+        assertEquals(1, server.commands.size());
+    }
+
+    @Test
+    void testRetrieveResumesWithRestart() throws Exception {
+        final FlakyServer server = new FlakyServer();
+        server.data = bytes(1000);
+        server.failures = 2;
+        server.failAfter = 300;
+        final File local = tempDir.resolve("local").toFile();
+        final FTPResumableTransfer transfer = newTransfer(server);
+        assertTrue(transfer.retrieveFile("remote", local));
+        assertEquals(Arrays.asList("RETR 0", "RETR 300", "RETR 600"), server.commands);
+        assertArrayEquals(server.data, Files.readAllBytes(local.toPath()));
+        assertTrue(transfer.getClient().isConnected());
+    }
+
+    @Test
+    void testStoreResumesWithAppend() throws Exception {
+        final FlakyServer server = new FlakyServer();
+        server.failures = 1;
+        server.failAfter = 400;
+        final File local = tempDir.resolve("local").toFile();
+        Files.write(local.toPath(), bytes(1000));
+        assertTrue(newTransfer(server).storeFile("remote", local));
+        assertEquals(Arrays.asList("STOR", "APPE"), server.commands);
+        assertArrayEquals(bytes(1000), server.data);
+    }
+
+    @Test
+    void testVerifierFailureRestartsFromZero() throws Exception {
+        final FlakyServer server = new FlakyServer();
+        server.data = bytes(100);
+        final FTPResumableTransfer transfer = newTransfer(server);
+        final int[] calls = new int[1];
+        transfer.setVerifier((client, remote, local) -> ++calls[0] > 1);
+        assertTrue(transfer.retrieveFile("remote", tempDir.resolve("local").toFile()));
+        assertEquals(Arrays.asList("RETR 0", "RETR 0"), server.commands);
+    }
+}
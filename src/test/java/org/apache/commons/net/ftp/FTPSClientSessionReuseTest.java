@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+
+import org.apache.commons.net.util.TrustManagerUtils;
+import org.junit.jupiter.api.Test;
+
+class FTPSClientSessionReuseTest {
+
+    /**
+     * An explicit FTPS server which records whether each data connection resumed the control session.
+     */
+    private static final class TlsServer extends MockFtpServer {
+
+        private final SSLContext context;
+        final List<Boolean> resumed = new CopyOnWriteArrayList<>();
+        /** The control connection of the session being served, once secured. */
+        private SSLSocket control;
+
+        TlsServer() throws Exception {
+            final KeyStore keyStore = KeyStore.getInstance("JKS");
+            try (InputStream in = FTPSClientSessionReuseTest.class.getResourceAsStream("/org/apache/commons/net/ftpsserver/ftpserver.jks")) {
+                keyStore.load(in, "password".toCharArray());
+            }
+            final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, "password".toCharArray());
+            context = SSLContext.getInstance("TLS");
+            context.init(keyManagerFactory.getKeyManagers(), null, null);
+        }
+
+        @Override
+        protected boolean handle(final Session session, final String command) throws Exception {
+            if (command.equals("AUTH TLS")) {
+                session.reply("234 proceed");
+                control = secure(session.socket);
+                session.setStreams(control.getInputStream(), control.getOutputStream());
+            } else if (command.startsWith("RETR ")) {
+                session.reply("150 opening");
+                try (SSLSocket data = secure(session.acceptData()); OutputStream out = data.getOutputStream()) {
+                    resumed.add(Arrays.equals(control.getSession().getId(), data.getSession().getId()));
+                    out.write(command.substring(5).getBytes(StandardCharsets.US_ASCII));
+                }
+                session.reply("226 transfer complete");
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        private SSLSocket secure(final Socket socket) throws IOException {
+            final SSLSocket sslSocket = (SSLSocket) context.getSocketFactory().createSocket(socket, null, socket.getPort(), true);
+            sslSocket.setUseClientMode(false);
+            // session IDs identify resumed sessions in TLS 1.2
+            sslSocket.setEnabledProtocols(new String[] { "TLSv1.2" });
+            sslSocket.startHandshake();
+            return sslSocket;
+        }
+    }
+
+    private static List<Boolean> transfer(final boolean sessionReuse) throws Exception {
+        try (TlsServer server = new TlsServer()) {
+            server.start();
+            final FTPSClient client = new FTPSClient();
+            client.setTrustManager(TrustManagerUtils.getAcceptAllTrustManager());
+            client.setSessionReuseEnabled(sessionReuse);
+            client.connect(InetAddress.getLoopbackAddress().getHostAddress(), server.getPort());
+            try {
+                client.execPBSZ(0);
+                client.execPROT("P");
+                client.enterLocalPassiveMode();
+                for (final String name : new String[] { "first", "second" }) {
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    assertTrue(client.retrieveFile(name, out));
+                    assertEquals(name, new String(out.toByteArray(), StandardCharsets.US_ASCII));
+                }
+                client.logout();
+            } finally {
+                client.disconnect();
+            }
+            return server.resumed;
+        }
+    }
+
+    @Test
+    void testBlockModeRefused() throws Exception {
+        try (TlsServer server = new TlsServer()) {
+            server.start();
+            final FTPSClient client = new FTPSClient();
+            client.setTrustManager(TrustManagerUtils.getAcceptAllTrustManager());
+            client.connect(InetAddress.getLoopbackAddress().getHostAddress(), server.getPort());
+            try {
+                // data connections are not framed in blocks, so MODE B would corrupt every transfer
+                assertFalse(client.setFileTransferMode(FTP.BLOCK_TRANSFER_MODE));
+                assertTrue(client.setFileTransferMode(FTP.STREAM_TRANSFER_MODE));
+                assertFalse(server.commands.contains("MODE B"));
+                assertTrue(server.commands.contains("MODE S"));
+            } finally {
+                client.disconnect();
+            }
+        }
+    }
+
+    @Test
+    void testFullHandshakeWithoutReuse() throws Exception {
+        assertEquals(Arrays.asList(false, false), transfer(false));
+    }
+
+    @Test
+    void testSessionResumed() throws Exception {
+        assertEquals(Arrays.asList(true, true), transfer(true));
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.function.IOSupplier;
+import org.junit.jupiter.api.Test;
+
+class FTPServerToServerTransferTest {
+
+    /**
+     * Serves RETR and STOR in either data connection mode, with the data transferred in the background so that STAT is answered during a transfer.
+     */
+    private static final class FxpServer extends MockFtpServer {
+
+        final Map<String, byte[]> files;
+        private final AtomicLong transferred = new AtomicLong();
+        /** The data connection of the running transfer. */
+        private Socket data;
+        private Thread transfer;
+
+        FxpServer(final Map<String, byte[]> files) throws IOException {
+            this.files = files;
+        }
+
+        @Override
+        protected boolean handle(final Session session, final String command) throws Exception {
+            if (command.startsWith("RETR ") || command.startsWith("STOR ")) {
+                final String name = command.substring(5);
+                final boolean retrieve = command.startsWith("RETR ");
+                final byte[] content = files.get(name);
+                if (retrieve && content == null && !name.equals("stall")) {
+                    session.reply("550 not found");
+                    return true;
+                }
+                session.reply("150 opening");
+                final ServerSocket listener = session.passive;
+                final InetSocketAddress address = session.active;
+                session.passive = null;
+                session.active = null;
+                transferred.set(0);
+                transfer = new Thread(() -> {
+                    try (Socket socket = openData(listener, address)) {
+                        synchronized (this) {
+                            data = socket;
+                        }
+                        if (retrieve && content == null) {
+                            socket.getInputStream().read(); // stalls until aborted
+                            return;
+                        }
+                        if (retrieve) {
+                            final OutputStream out = socket.getOutputStream();
+                            for (int off = 0; off < content.length; off += 8192) {
+                                final int len = Math.min(8192, content.length - off);
+                                out.write(content, off, len);
+                                out.flush();
+                                transferred.addAndGet(len);
+                                Thread.sleep(5);
+                            }
+                        } else {
+                            final InputStream in = socket.getInputStream();
+                            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                            final byte[] buffer = new byte[4096];
+                            int n;
+                            while ((n = in.read(buffer)) != -1) {
+                                bytes.write(buffer, 0, n);
+                                transferred.addAndGet(n);
+                            }
+                            files.put(name, bytes.toByteArray());
+                        }
+                        socket.close();
+                        session.reply("226 transfer complete");
+                    } catch (final Exception e) {
+                        // aborted
+                    }
+                });
+                transfer.start();
+            } else if (command.equals("STAT")) {
+                if (transfer != null && transfer.isAlive()) {
+                    session.reply("213 Status: " + transferred.get() + " bytes transferred");
+                } else {
+                    session.reply("211 idle");
+                }
+            } else if (command.equals("ABOR")) {
+                synchronized (this) {
+                    if (data != null) {
+                        data.close();
+                    }
+                }
+                if (transfer != null) {
+                    transfer.join();
+                }
+                session.reply("226 ABOR successful");
+            } else {
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static IOSupplier<FTPClient> connector(final FxpServer... servers) {
+        final AtomicInteger next = new AtomicInteger();
+        return () -> {
+            final FTPClient client = new FTPClient();
+            client.connect(InetAddress.getLoopbackAddress(), servers[next.getAndIncrement() % servers.length].getPort());
+            return client;
+        };
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    void testParseByteCount() {
+        assertEquals(123456, FTPServerToServerTransfer.parseByteCount("213-Status:\r\n Transferred 123456 Bytes\r\n213 End\r\n"));
+        assertEquals(-1, FTPServerToServerTransfer.parseByteCount("211 idle\r\n"));
+    }
+
+    @Test
+    void testRefusedTransferKeepsSessions() throws Exception {
+        final Map<String, byte[]> sourceFiles = new ConcurrentHashMap<>();
+        sourceFiles.put("a", randomBytes(1000));
+        try (FxpServer source = new FxpServer(sourceFiles); FxpServer target = new FxpServer(new ConcurrentHashMap<>())) {
+            source.start();
+            target.start();
+            try (FTPServerToServerTransfer fxp = new FTPServerToServerTransfer(connector(source), connector(target))) {
+                final FTPServerToServerTransfer.Result refused = fxp.transferFile("missing", "b");
+                assertFalse(refused.isSuccess());
+                assertTrue(refused.getSourceReply().startsWith("550"));
+                final FTPServerToServerTransfer.Result result = fxp.transferFile("a", "b");
+                assertTrue(result.isSuccess(), result.toString());
+                assertTrue(result.getSourceReply().startsWith("226"));
+                assertTrue(result.getTargetReply().startsWith("226"));
+            }
+            assertArrayEquals(sourceFiles.get("a"), target.files.get("b"));
+            assertEquals(1, source.sessions.get());
+            assertEquals(1, target.sessions.get());
+        }
+    }
+
+    @Test
+    void testTimeoutAbortsBothSides() throws Exception {
+        final Map<String, byte[]> sourceFiles = new ConcurrentHashMap<>();
+        sourceFiles.put("a", randomBytes(1000));
+        try (FxpServer source = new FxpServer(sourceFiles); FxpServer target = new FxpServer(new ConcurrentHashMap<>())) {
+            source.start();
+            target.start();
+            try (FTPServerToServerTransfer fxp = new FTPServerToServerTransfer(connector(source), connector(target))) {
+                fxp.setStatusInterval(Duration.ofMillis(10));
+                fxp.setTransferTimeout(Duration.ofMillis(200));
+                final FTPServerToServerTransfer.Result stalled = fxp.transferFile("stall", "b");
+                assertFalse(stalled.isSuccess());
+                assertTrue(stalled.getException() instanceof SocketTimeoutException, String.valueOf(stalled.getException()));
+                fxp.setTransferTimeout(Duration.ofSeconds(30));
+                assertTrue(fxp.transferFile("a", "b").isSuccess());
+            }
+            assertArrayEquals(sourceFiles.get("a"), target.files.get("b"));
+            // the aborted pair was replaced, so the servers have read all of its commands
+            assertTrue(source.commands.contains("ABOR"));
+            assertTrue(target.commands.contains("ABOR"));
+            assertEquals(2, source.sessions.get());
+            assertEquals(2, target.sessions.get());
+        }
+    }
+
+    @Test
+    void testTransferFilesInParallel() throws Exception {
+        final Map<String, byte[]> sourceFiles = new ConcurrentHashMap<>();
+        final Map<String, byte[]> targetFiles = new ConcurrentHashMap<>();
+        final Map<String, String> files = new LinkedHashMap<>();
+        for (int i = 0; i < 6; i++) {
+            sourceFiles.put("file" + i, randomBytes(40_000 + i));
+            files.put("file" + i, "copy" + i);
+        }
+        try (FxpServer source1 = new FxpServer(sourceFiles); FxpServer source2 = new FxpServer(sourceFiles); FxpServer target1 = new FxpServer(targetFiles);
+                FxpServer target2 = new FxpServer(targetFiles)) {
+            source1.start();
+            source2.start();
+            target1.start();
+            target2.start();
+            final List<Long> progress = new CopyOnWriteArrayList<>();
+            final List<FTPServerToServerTransfer.Result> results;
+            try (FTPServerToServerTransfer fxp = new FTPServerToServerTransfer(connector(source1, source2), connector(target1, target2))) {
+                fxp.setParallelism(2);
+                fxp.setStatusInterval(Duration.ofMillis(5));
+                fxp.setProgressListener((source, target, server, status) -> progress.add(FTPServerToServerTransfer.parseByteCount(status)));
+                results = fxp.transferFiles(files);
+            }
+            assertEquals(6, results.size());
+            for (int i = 0; i < 6; i++) {
+                final FTPServerToServerTransfer.Result result = results.get(i);
+                assertEquals("file" + i, result.getSource());
+                assertTrue(result.isSuccess(), result.toString());
+                assertArrayEquals(sourceFiles.get("file" + i), targetFiles.get("copy" + i));
+            }
+            assertFalse(progress.isEmpty());
+            assertEquals(2, source1.sessions.get() + source2.sessions.get());
+            assertEquals(2, target1.sessions.get() + target2.sessions.get());
+        }
+    }
+}
@@ -17,12 +17,29 @@
 
 package org.apache.commons.net.ftp;
 
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.net.io.BandwidthLimiter;
 import org.junit.jupiter.api.Test;
 
 class FTPTest {
 
+    @Test
+    void testControlConnectionNotLimited() {
+        final FTP ftp = new FTP();
+        ftp.setBandwidthLimiter(new BandwidthLimiter(1, 1));
+        final InputStream input = new ByteArrayInputStream(new byte[0]);
+        final OutputStream output = new ByteArrayOutputStream();
+        assertSame(input, ftp.limitBandwidth(input));
+        assertSame(output, ftp.limitBandwidth(output));
+    }
+
     @Test
     void testRejectCRInArgs() {
         assertThrows(IllegalArgumentException.class, () -> new FTP().sendCommand("RETR", "file\rDELE secret"));
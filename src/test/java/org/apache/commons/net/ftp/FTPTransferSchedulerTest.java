@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.function.IOFunction;
+import org.junit.jupiter.api.Test;
+
+class FTPTransferSchedulerTest {
+
+    /**
+     * Answers every command with 200, counting the sessions, and ends a session after {@code SITE BYE}.
+     */
+    private static final class NoopServer extends MockFtpServer {
+
+        NoopServer() throws IOException {
+        }
+
+        @Override
+        protected boolean handle(final Session session, final String command) throws Exception {
+            if (command.equals("SITE BYE")) {
+                session.reply("200 ok");
+                session.end();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /** A connector of sessions which are not connected, for transfers which do not use them. */
+    private static final IOFunction<String, FTPClient> UNCONNECTED = host -> new FTPClient();
+
+    private static IOFunction<FTPClient, String> awaiting(final CountDownLatch latch, final String name, final List<String> started) {
+        return client -> {
+            started.add(name);
+            try {
+                latch.await();
+            } catch (final InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return name;
+        };
+    }
+
+    @Test
+    void testDeadlineExpires()throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> started = new CopyOnWriteArrayList<>();
+        try (FTPTransferScheduler scheduler = new FTPTransferScheduler(UNCONNECTED)) {
+            scheduler.setMaxSessionsPerHost(1);
+            final CompletableFuture<String> blocker = scheduler.submit("host", awaiting(latch, "blocker", started), 0, 10, null);
+            final CompletableFuture<String> late = scheduler.submit("host", awaiting(latch, "late", started), 0, 10, Instant.now().plusMillis(50));
+            final CompletableFuture<String> patient = scheduler.submit("host", awaiting(latch, "patient", started), 0, 10, Instant.now().plusSeconds(60));
+            Thread.sleep(100);
+            latch.countDown();
+            assertEquals("blocker", blocker.get(10, TimeUnit.SECONDS));
+            assertEquals("patient", patient.get(10, TimeUnit.SECONDS));
+            assertTrue(assertThrows(ExecutionException.class, () -> late.get(10, TimeUnit.SECONDS)).getCause() instanceof TimeoutException);
+            assertEquals(Arrays.asList("blocker", "patient"), started);
+        }
+    }
+
+    @Test
+    void testDeadlineExpiresWhileNothingCompletes() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> started = new CopyOnWriteArrayList<>();
+        try (FTPTransferScheduler scheduler = new FTPTransferScheduler(UNCONNECTED)) {
+            scheduler.setMaxSessionsPerHost(1);
+            final CompletableFuture<String> blocker = scheduler.submit("host", awaiting(latch, "blocker", started), 0, 10, null);
+            final CompletableFuture<String> late = scheduler.submit("host", awaiting(latch, "late", started), 0, 10, Instant.now().plusMillis(50));
+            assertTrue(assertThrows(ExecutionException.class, () -> late.get(10, TimeUnit.SECONDS)).getCause() instanceof TimeoutException);
+            assertFalse(blocker.isDone());
+            assertEquals(0, scheduler.getQueuedCount());
+            latch.countDown();
+            assertEquals("blocker", blocker.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testInFlightBytesAcrossHosts() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> started = new CopyOnWriteArrayList<>();
+        try (FTPTransferScheduler scheduler = new FTPTransferScheduler(UNCONNECTED)) {
+            scheduler.setMaxInFlightBytes(100);
+            final CompletableFuture<String> a = scheduler.submit("a", awaiting(latch, "a80", started), 0, 80, null);
+            final CompletableFuture<String> b = scheduler.submit("b", awaiting(latch, "b50", started), 0, 50, null);
+            final CompletableFuture<String> small = scheduler.submit("b", client -> "b10", 0, 10, null);
+            assertEquals("b10", small.get(10, TimeUnit.SECONDS));
+            assertFalse(b.isDone());
+            assertEquals(1, scheduler.getQueuedCount());
+            latch.countDown();
+            assertEquals("a80", a.get(10, TimeUnit.SECONDS));
+            assertEquals("b50", b.get(10, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList("a80", "b50"), started);
+        }
+    }
+
+    @Test
+    void testPriorityThenShortestFirst() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> order = new CopyOnWriteArrayList<>();
+        try (FTPTransferScheduler scheduler = new FTPTransferScheduler(UNCONNECTED)) {
+            scheduler.setMaxSessionsPerHost(1);
+            scheduler.submit("host", awaiting(latch, "blocker", order), 0, 1, null);
+            final List<CompletableFuture<String>> futures = new ArrayList<>();
+            futures.add(scheduler.submit("host", awaiting(latch, "low-big", order), 0, 1000, null));
+            futures.add(scheduler.submit("host", awaiting(latch, "low-small", order), 0, 10, null));
+            futures.add(scheduler.submit("host", awaiting(latch, "high-unknown", order), 5, -1, null));
+            futures.add(scheduler.submit("host", awaiting(latch, "high-big", order), 5, 1000, null));
+            futures.add(scheduler.submit("host", awaiting(latch, "high-small", order), 5, 10, null));
+            latch.countDown();
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            assertEquals(Arrays.asList("blocker", "high-small", "high-big", "high-unknown", "low-small", "low-big"), order);
+        }
+    }
+
+    @Test
+    void testReusesSessionsAndReplacesFailedOnes() throws Exception {
+        try (NoopServer server = new NoopServer()) {
+            server.start();
+            final AtomicInteger connects = new AtomicInteger();
+            try (FTPTransferScheduler scheduler = new FTPTransferScheduler(host -> {
+                connects.incrementAndGet();
+                final FTPClient client = new FTPClient();
+                client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+                return client;
+            })) {
+                scheduler.setMaxSessionsPerHost(1);
+                for (int i = 0; i < 5; i++) {
+                    assertTrue(scheduler.submit("host", FTPClient::sendNoOp, 0, -1, null).get(10, TimeUnit.SECONDS));
+                }
+                assertEquals(1, connects.get());
+                final CompletableFuture<Boolean> failed = scheduler.submit("host", client -> {
+                    throw new IOException("broken");
+                }, 0, -1, null);
+                assertEquals("broken", assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS)).getCause().getMessage());
+                assertTrue(scheduler.submit("host", FTPClient::sendNoOp, 0, -1, null).get(10, TimeUnit.SECONDS));
+                assertEquals(2, connects.get());
+            }
+            assertEquals(2, server.sessions.get());
+        }
+    }
+
+    @Test
+    void testReplacesSessionsClosedWhileIdle() throws Exception {
+        try (NoopServer server = new NoopServer()) {
+            server.start();
+            final AtomicInteger connects = new AtomicInteger();
+            try (FTPTransferScheduler scheduler = new FTPTransferScheduler(host -> {
+                connects.incrementAndGet();
+                final FTPClient client = new FTPClient();
+                client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+                return client;
+            })) {
+                scheduler.setMaxSessionsPerHost(1);
+                // the server closes the session once the transfer completed
+                assertEquals(FTPReply.COMMAND_OK, (int) scheduler.submit("host", client -> client.sendCommand("SITE", "BYE"), 0, -1, null)
+                        .get(10, TimeUnit.SECONDS));
+                assertTrue(scheduler.submit("host", FTPClient::sendNoOp, 0, -1, null).get(10, TimeUnit.SECONDS));
+                assertEquals(2, connects.get());
+            }
+            assertEquals(2, server.sessions.get());
+        }
+    }
+
+    @Test
+    void testSmallTransfersPassLargeOnes() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> started = new CopyOnWriteArrayList<>();
+        try (FTPTransferScheduler scheduler = new FTPTransferScheduler(UNCONNECTED)) {
+            scheduler.setMaxSessionsPerHost(2);
+            scheduler.setLargeTransferThreshold(1000);
+            final List<CompletableFuture<String>> large = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                large.add(scheduler.submit("host", awaiting(latch, "large" + i, started), 0, 10_000, null));
+            }
+            final List<CompletableFuture<String>> small = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                final String name = "small" + i;
+                small.add(scheduler.submit("host", client -> name, 0, 10, null));
+            }
+            CompletableFuture.allOf(small.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            assertEquals(Arrays.asList("large0"), started);
+            latch.countDown();
+            CompletableFuture.allOf(large.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            assertEquals(Arrays.asList("large0", "large1", "large2"), started);
+        }
+    }
+
+    @Test
+    void testSubmitAfterClose() {
+        final FTPTransferScheduler scheduler = new FTPTransferScheduler(UNCONNECTED);
+        scheduler.close();
+        assertThrows(IllegalStateException.class, () -> scheduler.submit("host", client -> null, 0, -1, null));
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class FTPTreeIndexTest {
+
+    /**
+     * Serves MLSD and MLST over a tree in memory, in which adding or removing an entry updates the modify fact of its directory.
+     */
+    private static final class TreeServer extends MockFtpServer {
+
+        private static final DateTimeFormatter MODIFY = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+
+        /** Path to type ("dir" or "file"), size and modify time in seconds. */
+        final Map<String, Object[]> entries = new TreeMap<>();
+        /** A directory whose next listing fails. */
+        volatile String failing;
+        private long clock = 1_700_000_000L;
+
+        TreeServer() throws IOException {
+            super(StandardCharsets.UTF_8);
+            entries.put("/", new Object[] { "dir", 0L, clock });
+        }
+
+        synchronized void add(final String path, final long size) {
+            entries.put(path, new Object[] { size < 0 ? "dir" : "file", Math.max(size, 0), ++clock });
+            touch(parent(path));
+        }
+
+        private synchronized String facts(final String path) {
+            final Object[] entry = entries.get(path);
+            return "type=" + entry[0] + ";size=" + entry[1] + ";modify=" + MODIFY.format(Instant.ofEpochSecond((Long) entry[2])) + ";";
+        }
+
+        private String parent(final String path) {
+            final int slash = path.lastIndexOf('/');
+            return slash == 0 ? "/" : path.substring(0, slash);
+        }
+
+        @Override
+        protected boolean handle(final Session session, final String command) throws Exception {
+            if (command.startsWith("MLSD ")) {
+                final String dir = command.substring(5);
+                if (!entries.containsKey(dir)) {
+                    session.closePassive();
+                    session.reply("550 not found");
+                    return true;
+                }
+                if (dir.equals(failing)) {
+                    failing = null;
+                    session.closePassive();
+                    session.reply("451 local error");
+                    return true;
+                }
+                session.reply("150 opening");
+                try (Socket data = session.acceptData(); OutputStream out = data.getOutputStream()) {
+                    final StringBuilder listing = new StringBuilder(facts(dir).replace("type=dir", "type=cdir") + " " + dir + "\r\n");
+                    synchronized (this) {
+                        for (final String path : entries.keySet()) {
+                            if (!path.equals("/") && parent(path).equals(dir)) {
+                                listing.append(facts(path)).append(' ').append(path.substring(path.lastIndexOf('/') + 1)).append("\r\n");
+                            }
+                        }
+                    }
+                    out.write(listing.toString().getBytes(StandardCharsets.UTF_8));
+                }
+                session.reply("226 transfer complete");
+            } else if (command.startsWith("MLST ")) {
+                final String path = command.substring(5);
+                if (entries.containsKey(path)) {
+                    session.reply("250- Listing " + path + "\r\n " + facts(path) + " " + path + "\r\n250 End");
+                } else {
+                    session.reply("550 not found");
+                }
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        synchronized void remove(final String path) {
+            entries.keySet().removeIf(p -> p.equals(path) || p.startsWith(path + "/"));
+            touch(parent(path));
+        }
+
+        synchronized void touch(final String path) {
+            entries.get(path)[2] = ++clock;
+        }
+    }
+
+    private static TreeServer tree() throws IOException {
+        final TreeServer server = new TreeServer();
+        server.add("/a", -1);
+        server.add("/a/b", -1);
+        server.add("/a/b/one.txt", 10);
+        server.add("/a/two.txt", 20);
+        server.add("/c", -1);
+        server.add("/c/x.txt", 30);
+        server.add("/root.txt", 40);
+        return server;
+    }
+
+    private static List<String> update(final FTPTreeIndex index, final TreeServer server) throws IOException {
+        final List<String> changes = new ArrayList<>();
+        final FTPClient client = new FTPClient();
+        client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+        try {
+            client.enterLocalPassiveMode();
+            server.commands.clear();
+            index.update(client, "/", (change, path, file) -> changes.add(change + " " + path));
+            client.logout();
+        } finally {
+            client.disconnect();
+        }
+        return changes;
+    }
+
+    private long count(final TreeServer server, final String command) {
+        return server.commands.stream().filter(c -> c.startsWith(command + " ")).count();
+    }
+
+    @Test
+    void testDetectsChangesBelowUnchangedDirectories() throws Exception {
+        try (TreeServer server = tree()) {
+            server.start();
+            final FTPTreeIndex index = new FTPTreeIndex();
+            update(index, server);
+            server.add("/a/b/new.txt", 5);
+            server.remove("/c");
+            assertEquals(Arrays.asList("DELETED /c/x.txt", "DELETED /c", "ADDED /a/b/new.txt"), update(index, server));
+            // the root and /a/b were listed; /a was checked in the listing of the root, and /a/b probed as /a was not listed
+            assertEquals(2, count(server, "MLSD"));
+            assertEquals(Arrays.asList("MLST /", "MLST /a/b"), server.commands.stream().filter(c -> c.startsWith("MLST ")).collect(Collectors.toList()));
+            assertEquals(3, index.getDirectoryCount());
+        }
+    }
+
+    @Test
+    void testFirstUpdateAddsTreeThenProbesOnly() throws Exception {
+        try (TreeServer server = tree()) {
+            server.start();
+            final FTPTreeIndex index = new FTPTreeIndex();
+            final List<String> added = update(index, server);
+            assertEquals(7, added.size());
+            assertTrue(added.contains("ADDED /a/b/one.txt"));
+            assertTrue(added.contains("ADDED /c"));
+            assertEquals(4, count(server, "MLSD"));
+            assertEquals(4, index.getDirectoryCount());
+            assertEquals(Arrays.asList(), update(index, server));
+            assertEquals(0, count(server, "MLSD"));
+            assertEquals(4, count(server, "MLST"));
+        }
+    }
+
+    @Test
+    void testProbeDisabled() throws Exception {
+        try (TreeServer server = tree()) {
+            server.start();
+            final FTPTreeIndex index = new FTPTreeIndex();
+            index.setProbeEnabled(false);
+            update(index, server);
+            server.add("/a/b/missed.txt", 5);
+            server.add("/a/b/also.txt", 5);
+            server.touch("/a/b"); // the root is always listed, and /a did not change
+            assertEquals(Arrays.asList(), update(index, server));
+            assertEquals(1, count(server, "MLSD"));
+            assertEquals(0, count(server, "MLST"));
+            server.add("/new", -1);
+            assertEquals(Arrays.asList("ADDED /new"), update(index, server));
+            assertEquals(2, count(server, "MLSD"));
+        }
+    }
+
+    @Test
+    void testResumesAfterFailedUpdate() throws Exception {
+        try (TreeServer server = tree()) {
+            server.start();
+            final FTPTreeIndex index = new FTPTreeIndex();
+            index.setProbeEnabled(false);
+            update(index, server);
+            server.add("/a/new.txt", 5);
+            server.add("/a/b/new.txt", 5);
+            server.failing = "/a/b";
+            assertThrows(IOException.class, () -> update(index, server));
+            // /a was listed before /a/b failed, but is listed again to visit /a/b, without reporting its changes again
+            assertEquals(Arrays.asList("ADDED /a/b/new.txt"), update(index, server));
+            assertEquals(3, count(server, "MLSD"));
+            assertEquals(Arrays.asList(), update(index, server));
+        }
+    }
+
+    @Test
+    void testWriteAndRead() throws Exception {
+        try (TreeServer server = tree()) {
+            server.start();
+            final FTPTreeIndex index = new FTPTreeIndex();
+            update(index, server);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            index.write(out);
+            final FTPTreeIndex copy = FTPTreeIndex.read(new ByteArrayInputStream(out.toByteArray()));
+            assertEquals(4, copy.getDirectoryCount());
+            assertEquals(Arrays.asList(), update(copy, server));
+            server.add("/a/two.txt", 21);
+            server.touch("/a");
+            assertEquals(Arrays.asList("CHANGED /a/two.txt"), update(copy, server));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.net.MockTcpServer;
+
+/**
+ * A fake FTP server, serving one session at a time, for tests which need specific replies rather than a real server.
+ * <p>
+ * It greets with 220, and answers PASV with 227, PORT with 200 and QUIT with 221, ending the session. Other commands go to
+ * {@link #handle(Session, String)}, and are answered with 200 if it does not answer them. It may also answer the commands above itself.
+ * </p>
+ */
+abstract class MockFtpServer extends MockTcpServer {
+
+    /**
+     * The control connection and the pending data connection of the session being served.
+     */
+    static final class Session {
+
+        /** The control connection. */
+        final Socket socket;
+        private BufferedReader reader;
+        private Writer writer;
+        private final Charset charset;
+        /** The listener of the pending passive data connection. */
+        ServerSocket passive;
+        /** The address of the pending active data connection. */
+        InetSocketAddress active;
+        private boolean ended;
+
+        Session(final Socket socket, final Charset charset) throws IOException {
+            this.socket = socket;
+            this.charset = charset;
+            setStreams(socket.getInputStream(), socket.getOutputStream());
+        }
+
+        /**
+         * Opens the pending data connection, accepting the passive one or connecting to the active one.
+         *
+         * @return The data connection.
+         * @throws IOException If there is no pending data connection, or it cannot be opened.
+         */
+        Socket acceptData() throws IOException {
+            final ServerSocket listener = passive;
+            final InetSocketAddress address = active;
+            passive = null;
+            active = null;
+            return openData(listener, address);
+        }
+
+        /**
+         * Closes the listener of the pending passive data connection, if any.
+         */
+        void closePassive() throws IOException {
+            if (passive != null) {
+                passive.close();
+                passive = null;
+            }
+        }
+
+        /**
+         * Ends the session once the current command is handled.
+         */
+        void end() {
+            ended = true;
+        }
+
+        /**
+         * Sends a reply, which may span several lines separated with CRLF. Replies may be sent from other threads.
+         */
+        void reply(final String reply) throws IOException {
+            synchronized (this) {
+                writer.write(reply + "\r\n");
+                writer.flush();
+            }
+        }
+
+        /**
+         * Replaces the streams of the control connection, for example after a TLS upgrade.
+         */
+        void setStreams(final InputStream input, final OutputStream output) {
+            reader = new BufferedReader(new InputStreamReader(input, charset));
+            writer = new OutputStreamWriter(output, charset);
+        }
+    }
+
+    /**
+     * Opens a data connection, accepting a passive one, or connecting to an active one.
+     *
+     * @param passive The listener of the passive data connection, which is closed, or null.
+     * @param active  The address of the active data connection, used if there is no listener.
+     * @return The data connection.
+     * @throws IOException If there is no data connection to open, or it cannot be opened.
+     */
+    static Socket openData(final ServerSocket passive, final InetSocketAddress active) throws IOException {
+        if (passive != null) {
+            try (ServerSocket listener = passive) {
+                return listener.accept();
+            }
+        }
+        if (active == null) {
+            throw new IOException("No data connection");
+        }
+        return new Socket(active.getAddress(), active.getPort());
+    }
+
+    /**
+     * Parses the port of the argument of a PORT command.
+     */
+    static int parsePort(final String hostPort) {
+        final String[] fields = hostPort.split(",");
+        return Integer.parseInt(fields[4]) << 8 | Integer.parseInt(fields[5]);
+    }
+
+    /** The commands received, over all sessions. */
+    final List<String> commands = new CopyOnWriteArrayList<>();
+
+    /** The number of sessions served. */
+    final AtomicInteger sessions = new AtomicInteger();
+
+    private final Charset charset;
+
+    MockFtpServer() throws IOException {
+        this(StandardCharsets.US_ASCII);
+    }
+
+    MockFtpServer(final Charset charset) throws IOException {
+        super(0, InetAddress.getLoopbackAddress());
+        this.charset = charset;
+    }
+
+    /**
+     * Handles a command.
+     *
+     * @param session The session.
+     * @param command The command line.
+     * @return Whether the command was answered; if not, it is answered by default.
+     * @throws Exception If the command cannot be handled, which ends the session.
+     */
+    protected abstract boolean handle(Session session, String command) throws Exception;
+
+    /**
+     * Opens the listener of a passive data connection. Subclasses override this to set options which must be set before binding.
+     *
+     * @return The listener, bound to the loopback address.
+     * @throws IOException If the listener cannot be opened.
+     */
+    protected ServerSocket openPassive() throws IOException {
+        return new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    }
+
+    @Override
+    protected void processClientSocket(final Socket clientSocket) throws Exception {
+        sessions.incrementAndGet();
+        final Session session = new Session(clientSocket, charset);
+        try {
+            session.reply("220 ready");
+            String line;
+            while (!session.ended && (line = session.reader.readLine()) != null) {
+                commands.add(line);
+                if (handle(session, line)) {
+                    continue;
+                }
+                if (line.equals("PASV")) {
+                    session.closePassive();
+                    session.active = null;
+                    session.passive = openPassive();
+                    final int port = session.passive.getLocalPort();
+                    session.reply("227 Entering Passive Mode (127,0,0,1," + (port >> 8) + "," + (port & 0xff) + ")");
+                } else if (line.startsWith("PORT ")) {
+                    session.closePassive();
+                    session.active = new InetSocketAddress(InetAddress.getLoopbackAddress(), parsePort(line.substring(5)));
+                    session.reply("200 PORT ok");
+                } else if (line.equals("QUIT")) {
+                    session.reply("221 bye");
+                    return;
+                } else {
+                    session.reply("200 ok");
+                }
+            }
+        } finally {
+            session.closePassive();
+        }
+    }
+}
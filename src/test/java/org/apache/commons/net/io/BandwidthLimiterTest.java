@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class BandwidthLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void testBurstThenRate() {
+        final BandwidthLimiter limiter = new BandwidthLimiter(null, 1000, 500, clock::get);
+        assertEquals(0, limiter.reserve(500));
+        // the next transfers queue behind each other
+        assertEquals(SECOND / 10, limiter.reserve(100));
+        assertEquals(SECOND / 5, limiter.reserve(100));
+        clock.addAndGet(SECOND);
+        // refilled to the burst allowance only
+        assertEquals(0, limiter.reserve(300));
+        assertEquals(0, limiter.reserve(200));
+        assertEquals(SECOND / 2, limiter.reserve(500));
+    }
+
+    @Test
+    void testHierarchy() {
+        final BandwidthLimiter global = new BandwidthLimiter(null, 1000, 1000, clock::get);
+        final BandwidthLimiter host = global.forHost("Example.COM", 500, 500);
+        assertSame(host, global.forHost("example.com", 1, 1));
+        assertSame(global, host.getParent());
+        final BandwidthLimiter other = global.forHost("example.org", 500, 500);
+        assertEquals(0, host.reserve(500));
+        // the host is exhausted, the aggregate is not
+        assertEquals(SECOND / 5, host.reserve(100));
+        assertEquals(0, other.reserve(300));
+        // the aggregate is exhausted as well
+        assertEquals(SECOND / 10, other.reserve(200));
+    }
+
+    @Test
+    void testStreams() throws Exception {
+        final BandwidthLimiter limiter = new BandwidthLimiter(null, 1, 4 * BandwidthLimiter.CHUNK_SIZE, clock::get);
+        final byte[] data = new byte[2 * BandwidthLimiter.CHUNK_SIZE + 1];
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = limiter.limit(bytes)) {
+            out.write(data);
+        }
+        assertArrayEquals(data, bytes.toByteArray());
+        final byte[] read = new byte[data.length];
+        try (InputStream in = limiter.limit(new ByteArrayInputStream(data))) {
+            assertEquals(BandwidthLimiter.CHUNK_SIZE, in.read(read));
+        }
+        assertTrue(limiter.tryAcquire(BandwidthLimiter.CHUNK_SIZE - 1));
+        assertFalse(limiter.tryAcquire(1));
+    }
+
+    @Test
+    void testTryAcquire() {
+        final BandwidthLimiter global = new BandwidthLimiter(null, 1000, 100, clock::get);
+        final BandwidthLimiter session = new BandwidthLimiter(global, 1000, 1000);
+        assertFalse(session.tryAcquire(101));
+        // nothing was taken from the session when the parent refused
+        assertTrue(session.tryAcquire(100));
+        assertFalse(global.tryAcquire(1));
+        clock.addAndGet(SECOND / 100);
+        assertTrue(global.tryAcquire(10));
+        assertFalse(global.tryAcquire(1));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CopyStreamAdapterTest {
+
+    private static final class Recorder implements CopyStreamListener {
+
+        final List<long[]> progress = new ArrayList<>();
+        long completedTotal = -1;
+        int completions;
+
+        @Override
+        public void bytesTransferred(final CopyStreamEvent event) {
+            // noop
+        }
+
+        @Override
+        public void bytesTransferred(final long totalBytesTransferred, final int bytesTransferred, final long streamSize) {
+            progress.add(new long[] { totalBytesTransferred, bytesTransferred });
+        }
+
+        @Override
+        public void copyCompleted(final long totalBytesTransferred, final long streamSize) {
+            completedTotal = totalBytesTransferred;
+            completions++;
+        }
+    }
+
+    @Test
+    void testDefaultRelaysEveryWrite() throws Exception {
+        final CopyStreamAdapter adapter = new CopyStreamAdapter();
+        final Recorder recorder = new Recorder();
+        adapter.addCopyStreamListener(recorder);
+        assertFalse(adapter.isSampling());
+        Util.copyStream(new ByteArrayInputStream(new byte[10]), new ByteArrayOutputStream(), 2, CopyStreamEvent.UNKNOWN_STREAM_SIZE, adapter);
+        assertEquals(5, recorder.progress.size());
+        assertEquals(10, recorder.completedTotal);
+        assertEquals(1, recorder.completions);
+    }
+
+    @Test
+    void testSampledByBytes() throws Exception {
+        final CopyStreamAdapter adapter = new CopyStreamAdapter(4, Duration.ZERO);
+        final Recorder recorder = new Recorder();
+        adapter.addCopyStreamListener(recorder);
+        assertTrue(adapter.isSampling());
+        Util.copyStream(new ByteArrayInputStream(new byte[10]), new ByteArrayOutputStream(), 1, CopyStreamEvent.UNKNOWN_STREAM_SIZE, adapter);
+        // notified at 4 and 8, then the remaining 2 bytes on completion
+        assertEquals(3, recorder.progress.size());
+        assertEquals(4, recorder.progress.get(0)[0]);
+        assertEquals(4, recorder.progress.get(0)[1]);
+        assertEquals(8, recorder.progress.get(1)[0]);
+        assertEquals(10, recorder.progress.get(2)[0]);
+        assertEquals(2, recorder.progress.get(2)[1]);
+        assertEquals(10, recorder.completedTotal);
+    }
+
+    @Test
+    void testSampledKnownStreamSize() throws Exception {
+        final CopyStreamAdapter adapter = new CopyStreamAdapter(100, Duration.ZERO);
+        final Recorder recorder = new Recorder();
+        adapter.addCopyStreamListener(recorder);
+        Util.copyStream(new ByteArrayInputStream(new byte[10]), new ByteArrayOutputStream(), 1, 10, adapter);
+        // only the end of the stream is reported, completion adds nothing new
+        assertEquals(1, recorder.progress.size());
+        assertEquals(10, recorder.progress.get(0)[0]);
+        assertEquals(10, recorder.progress.get(0)[1]);
+        assertEquals(1, recorder.completions);
+    }
+
+    @Test
+    void testSampledReused() throws Exception {
+        final CopyStreamAdapter adapter = new CopyStreamAdapter(4, Duration.ZERO);
+        final Recorder recorder = new Recorder();
+        adapter.addCopyStreamListener(recorder);
+        Util.copyStream(new ByteArrayInputStream(new byte[6]), new ByteArrayOutputStream(), 1, CopyStreamEvent.UNKNOWN_STREAM_SIZE, adapter);
+        recorder.progress.clear();
+        Util.copyStream(new ByteArrayInputStream(new byte[6]), new ByteArrayOutputStream(), 1, CopyStreamEvent.UNKNOWN_STREAM_SIZE, adapter);
+        assertEquals(2, recorder.progress.size());
+        assertEquals(4, recorder.progress.get(0)[0]);
+        assertEquals(6, recorder.progress.get(1)[0]);
+        assertEquals(2, recorder.completions);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+class CopyStreamDigestTest {
+
+    private static byte[] data() {
+        final byte[] data = new byte[10_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    @Test
+    void testChecksumValue() throws Exception {
+        final CopyStreamDigest digest = CopyStreamDigest.of(new CRC32());
+        digest.reset();
+        Util.copyStream(new ByteArrayInputStream("hello".getBytes("US-ASCII")), new ByteArrayOutputStream(), 2, CopyStreamEvent.UNKNOWN_STREAM_SIZE, null,
+                false, digest);
+        assertEquals("CRC32", digest.getAlgorithm());
+        // CRC32 of "hello" is 3610a686
+        assertArrayEquals(new byte[] { 0x36, 0x10, (byte) 0xa6, (byte) 0x86 }, digest.getValue());
+    }
+
+    @Test
+    void testCopyStreamUpdatesDigest() throws Exception {
+        final byte[] data = data();
+        final CopyStreamDigest digest = CopyStreamDigest.of(MessageDigest.getInstance("SHA-256"));
+        final CopyStreamAdapter adapter = new CopyStreamAdapter();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Util.copyStream(new ByteArrayInputStream(data), out, 1000, CopyStreamEvent.UNKNOWN_STREAM_SIZE, adapter, false, digest);
+        assertArrayEquals(data, out.toByteArray());
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data), digest.getValue());
+        // value is stable until reset
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data), digest.getValue());
+        digest.reset();
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(), digest.getValue());
+    }
+
+    @Test
+    void testStreams() throws Exception {
+        final byte[] data = data();
+        final byte[] expected = MessageDigest.getInstance("MD5").digest(data);
+        final CopyStreamDigest digest = CopyStreamDigest.of(MessageDigest.getInstance("MD5"));
+        try (InputStream in = digest.newInputStream(new ByteArrayInputStream(data))) {
+            IOUtils.toByteArray(in);
+        }
+        assertArrayEquals(expected, digest.getValue());
+        digest.reset();
+        try (OutputStream out = digest.newOutputStream(new ByteArrayOutputStream())) {
+            out.write(data[0]);
+            out.write(data, 1, data.length - 1);
+        }
+        assertArrayEquals(expected, digest.getValue());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+class DirectBufferPoolTest {
+
+    @Test
+    void testAcquireRoundsUp() {
+        final DirectBufferPool pool = new DirectBufferPool();
+        assertEquals(1, pool.acquire(1).capacity());
+        assertEquals(16384, pool.acquire(16384).capacity());
+        final ByteBuffer buffer = pool.acquire(16709);
+        assertTrue(buffer.isDirect());
+        assertEquals(32768, buffer.capacity());
+        assertEquals(32768, buffer.remaining());
+    }
+
+    @Test
+    void testReleaseBounded() {
+        final DirectBufferPool pool = new DirectBufferPool(1);
+        final ByteBuffer first = pool.acquire(100);
+        final ByteBuffer second = pool.acquire(100);
+        first.put((byte) 1);
+        pool.release(first);
+        pool.release(second);
+        pool.release(ByteBuffer.allocate(128));
+        assertEquals(1, pool.size());
+        final ByteBuffer reused = pool.acquire(128);
+        assertSame(first, reused);
+        assertEquals(0, reused.position());
+        assertNotSame(first, pool.acquire(128));
+        assertEquals(0, pool.size());
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Random;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSocket;
+
+import org.apache.commons.net.MockTcpServer;
+import org.apache.commons.net.util.SSLContextUtils;
+import org.apache.commons.net.util.TrustManagerUtils;
+import org.junit.jupiter.api.Test;
+
+class SSLEngineChannelTest {
+
+    /**
+     * Upgrades the connection after "STARTTLS", then echoes all data.
+     */
+    private static final class StartTlsServer extends MockTcpServer {
+
+        private final SSLContext context;
+
+        StartTlsServer() throws Exception {
+            super(0, InetAddress.getLoopbackAddress());
+            final KeyStore keyStore = KeyStore.getInstance("JKS");
+            try (InputStream in = SSLEngineChannelTest.class.getResourceAsStream("/org/apache/commons/net/ftpsserver/ftpserver.jks")) {
+                keyStore.load(in, "password".toCharArray());
+            }
+            final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, "password".toCharArray());
+            context = SSLContext.getInstance("TLS");
+            context.init(keyManagerFactory.getKeyManagers(), null, null);
+        }
+
+        @Override
+        protected void processClientSocket(final Socket clientSocket) throws Exception {
+            // unbuffered, so that no part of the handshake is read as text
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(clientSocket.getInputStream(), StandardCharsets.US_ASCII), 1);
+            if (!"STARTTLS".equals(reader.readLine())) {
+                return;
+            }
+            clientSocket.getOutputStream().write("220 go ahead\r\n".getBytes(StandardCharsets.US_ASCII));
+            try (SSLSocket socket = (SSLSocket) context.getSocketFactory().createSocket(clientSocket, null, clientSocket.getPort(), true)) {
+                socket.setUseClientMode(false);
+                final InputStream in = socket.getInputStream();
+                final OutputStream out = socket.getOutputStream();
+                final byte[] buffer = new byte[8192];
+                int count;
+                while ((count = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, count);
+                    out.flush();
+                }
+            }
+        }
+    }
+
+    private static SSLEngineChannel startTls(final SocketChannel channel, final DirectBufferPool pool) throws IOException {
+        channel.write(ByteBuffer.wrap("STARTTLS\r\n".getBytes(StandardCharsets.US_ASCII)));
+        final StringBuilder reply = new StringBuilder();
+        final ByteBuffer one = ByteBuffer.allocate(1);
+        while (reply.indexOf("\n") < 0) {
+            one.clear();
+            assertEquals(1, channel.read(one));
+            reply.append((char) one.get(0));
+        }
+        assertTrue(reply.toString().startsWith("220"));
+        final SSLEngine engine = SSLContextUtils.createSSLContext("TLS", null, TrustManagerUtils.getAcceptAllTrustManager()).createSSLEngine("localhost",
+                channel.socket().getPort());
+        engine.setUseClientMode(true);
+        return new SSLEngineChannel(channel, engine, pool);
+    }
+
+    @Test
+    void testBlocking() throws Exception {
+        try (StartTlsServer server = new StartTlsServer()) {
+            server.start();
+            final DirectBufferPool pool = new DirectBufferPool();
+            final SSLEngineChannel tls = startTls(SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort())), pool);
+            try {
+                assertTrue(tls.handshake());
+                final byte[] message = "hello".getBytes(StandardCharsets.US_ASCII);
+                assertEquals(message.length, tls.write(ByteBuffer.wrap(message)));
+                final ByteBuffer echo = ByteBuffer.allocate(message.length);
+                while (echo.hasRemaining()) {
+                    assertTrue(tls.read(echo) > 0);
+                }
+                assertArrayEquals(message, echo.array());
+            } finally {
+                tls.close();
+            }
+            assertFalse(tls.isOpen());
+            assertThrows(ClosedChannelException.class, () -> tls.read(ByteBuffer.allocate(1)));
+            // network in and out, application in
+            assertEquals(3, pool.size());
+        }
+    }
+
+    @Test
+    void testNonBlocking() throws Exception {
+        final byte[] data = new byte[1 << 20];
+        new Random(1).nextBytes(data);
+        final byte[] received = new byte[data.length];
+        try (StartTlsServer server = new StartTlsServer(); Selector selector = Selector.open()) {
+            server.start();
+            final SocketChannel channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+            try (SSLEngineChannel tls = startTls(channel, new DirectBufferPool())) {
+                channel.configureBlocking(false);
+                final SelectionKey key = channel.register(selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                final ByteBuffer out = ByteBuffer.wrap(data);
+                final ByteBuffer in = ByteBuffer.wrap(received);
+                while (in.hasRemaining()) {
+                    selector.select(10_000);
+                    selector.selectedKeys().clear();
+                    if (out.hasRemaining() || tls.isFlushPending()) {
+                        tls.write(out);
+                        tls.flush();
+                    }
+                    if (tls.read(in) < 0) {
+                        break;
+                    }
+                    key.interestOps(SelectionKey.OP_READ | (out.hasRemaining() || tls.isFlushPending() ? SelectionKey.OP_WRITE : 0));
+                }
+                assertFalse(in.hasRemaining());
+            }
+        }
+        assertArrayEquals(data, received);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+
+import org.junit.jupiter.api.Test;
+
+class SSLContextRegistryTest {
+
+    @Test
+    void testEviction() throws IOException {
+        final SSLContextRegistry registry = new SSLContextRegistry(2);
+        final TrustManager validating = TrustManagerUtils.getValidateServerCertificateTrustManager();
+        final SSLContext tls = registry.getSSLContext("TLS", null, validating);
+        registry.getSSLContext("TLSv1.2", null, validating);
+        // touch TLS so that TLSv1.2 is the least recently used
+        registry.getSSLContext("TLS", null, validating);
+        registry.getSSLContext("TLS", null, TrustManagerUtils.getAcceptAllTrustManager());
+        assertEquals(2, registry.size());
+        assertSame(tls, registry.getSSLContext("TLS", null, validating));
+        registry.clear();
+        assertEquals(0, registry.size());
+        assertNotSame(tls, registry.getSSLContext("TLS", null, validating));
+    }
+
+    @Test
+    void testSharedBySettings() throws IOException {
+        final SSLContextRegistry registry = new SSLContextRegistry();
+        final TrustManager validating = TrustManagerUtils.getValidateServerCertificateTrustManager();
+        final SSLContext context = registry.getSSLContext("TLS", null, validating);
+        assertSame(context, registry.getSSLContext("TLS", null, validating));
+        assertSame(registry.getSocketFactory("TLS", null, validating), registry.getSocketFactory("TLS", null, validating));
+        assertNotSame(context, registry.getSSLContext("TLS", null, TrustManagerUtils.getAcceptAllTrustManager()));
+        assertNotSame(context, registry.getSSLContext("TLSv1.2", null, validating));
+        assertNotSame(context, registry.getSSLContext("TLS", null, null));
+        assertEquals(4, registry.size());
+    }
+
+    @Test
+    void testUnknownProtocol() {
+        final SSLContextRegistry registry = new SSLContextRegistry();
+        assertThrows(IOException.class, () -> registry.getSSLContext("NoSuchProtocol", null, null));
+        assertEquals(0, registry.size());
+    }
+}